@@ -0,0 +1,103 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.XmlModel;
+
+/**
+ * Measures the first {@code fromXml} call of a new {@link GsonXml} instance in a fresh JVM:
+ * binding through JSON tokens, direct binding with reflection and with adapters generated for {@link XmlModel} classes.
+ * Run with warmup iterations (e.g. {@code -wi 20 -i 20}) to measure the first call of an instance in a warm JVM.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class ColdStartBenchmark {
+
+  /** RSS model. */
+  public static class Rss {
+    Channel channel;
+  }
+
+  /** RSS channel. */
+  public static class Channel {
+    String title;
+    @SerializedName("item")
+    List<Item> items;
+  }
+
+  /** RSS item. */
+  public static class Item {
+    long id;
+    Date pubDate;
+    String title;
+  }
+
+  /** RSS model with generated adapter. */
+  @XmlModel
+  public static class GeneratedRss {
+    GeneratedChannel channel;
+  }
+
+  /** RSS channel with generated adapter. */
+  @XmlModel
+  public static class GeneratedChannel {
+    String title;
+    @SerializedName("item")
+    List<GeneratedItem> items;
+  }
+
+  /** RSS item with generated adapter. */
+  @XmlModel
+  public static class GeneratedItem {
+    long id;
+    Date pubDate;
+    String title;
+  }
+
+  /** Binding: through tokens, direct reflective or generated. */
+  @Param({"tokens", "direct", "generated"})
+  String binding;
+
+  /** Source XML. */
+  private String xml;
+
+  @Setup
+  public void setup() throws IOException {
+    xml = Fixtures.text(Fixtures.RSS);
+  }
+
+  @Benchmark
+  public Object firstCall() {
+    final GsonXml gsonXml = Fixtures.builder()
+        .wrap(new GsonBuilder().setDateFormat("EEE, dd MMM yyyy HH:mm:ss Z"))
+        .setSameNameLists(true)
+        .setDirectBinding("direct".equals(binding))
+        .create();
+    return gsonXml.fromXml(new StringReader(xml), "generated".equals(binding) ? GeneratedRss.class : Rss.class);
+  }
+
+}
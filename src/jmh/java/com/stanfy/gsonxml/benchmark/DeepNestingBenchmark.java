@@ -0,0 +1,98 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+
+/**
+ * Parses documents where each level contains a list, so that scopes are rewritten
+ * by {@link com.stanfy.gsonxml.XmlReader} on every level.
+ * Parsing is linear in depth if score divided by depth stays constant.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss256m") // Gson binds nested objects recursively
+@State(Scope.Benchmark)
+public class DeepNestingBenchmark {
+
+  /** Nesting depth. */
+  @Param({"10", "100", "1000", "10000"})
+  int depth;
+
+  /** Count of list items on each level. */
+  @Param({"3"})
+  int width;
+
+  /** Node for same name lists. */
+  public static class Node {
+    @SerializedName("@name")
+    String name;
+    @SerializedName("node")
+    List<Node> nodes;
+  }
+
+  /** Node for lists with grouping element. */
+  public static class GroupNode {
+    String name;
+    List<GroupNode> children;
+  }
+
+  /** Documents. */
+  private String sameNameXml, groupedXml;
+
+  /** Tested instances. */
+  private GsonXml sameNameGsonXml, groupedGsonXml;
+
+  @Setup
+  public void setup() {
+    // <node name=".."><node/><node/><node>...</node></node>: the last item of each list goes deeper
+    final StringBuilder sameName = new StringBuilder();
+    final StringBuilder grouped = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      sameName.append("<node name=\"n").append(i).append("\">");
+      grouped.append("<node><name>n").append(i).append("</name><children>");
+      for (int j = 1; j < width; j++) {
+        sameName.append("<node name=\"leaf\"/>");
+        grouped.append("<child><name>leaf</name></child>");
+      }
+    }
+    for (int i = 0; i < depth; i++) {
+      sameName.append("</node>");
+      grouped.append("</children></node>");
+    }
+    sameNameXml = sameName.toString();
+    groupedXml = grouped.toString();
+
+    sameNameGsonXml = Fixtures.builder().setSameNameLists(true).create();
+    groupedGsonXml = Fixtures.builder().create();
+  }
+
+  @Benchmark
+  public Node sameNameLists() {
+    return sameNameGsonXml.fromXml(new StringReader(sameNameXml), Node.class);
+  }
+
+  @Benchmark
+  public GroupNode groupedLists() {
+    return groupedGsonXml.fromXml(new StringReader(groupedXml), GroupNode.class);
+  }
+
+}
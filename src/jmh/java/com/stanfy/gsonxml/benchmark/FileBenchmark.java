@@ -0,0 +1,105 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+
+/**
+ * Reads a generated catalog file with {@link FileReader} and with {@link GsonXml#fromXml(File, Class)}
+ * that maps the file to memory.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileBenchmark {
+
+  /** Catalog. */
+  public static class Catalog {
+    @SerializedName("product")
+    List<Product> products;
+  }
+
+  /** Catalog entry. */
+  public static class Product {
+    @SerializedName("@id")
+    long id;
+    String name;
+    String description;
+    double price;
+  }
+
+  /** Products count. */
+  @Param({"10000", "100000"})
+  int products;
+
+  /** Catalog file. */
+  private File file;
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+
+  @Setup
+  public void setup() throws IOException {
+    file = File.createTempFile("catalog", ".xml");
+    final Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    try {
+      out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<catalog>\n");
+      for (int i = 0; i < products; i++) {
+        out.write("  <product id=\"" + i + "\"><name>Product " + i + "</name>"
+            + "<description>Description of the product number " + i + " in the catalog</description>"
+            + "<price>" + (i % 1000) + ".99</price></product>\n");
+      }
+      out.write("</catalog>\n");
+    } finally {
+      out.close();
+    }
+    gsonXml = Fixtures.builder().setSameNameLists(true).create();
+  }
+
+  @TearDown
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Benchmark
+  public Catalog fileReader() throws IOException {
+    final Reader in = new FileReader(file);
+    try {
+      return gsonXml.fromXml(in, Catalog.class);
+    } finally {
+      in.close();
+    }
+  }
+
+  @Benchmark
+  public Catalog mappedFile() {
+    return gsonXml.fromXml(file, Catalog.class);
+  }
+
+}
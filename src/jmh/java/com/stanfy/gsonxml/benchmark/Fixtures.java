@@ -0,0 +1,73 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.kxml2.io.KXmlParser;
+import org.xmlpull.v1.XmlPullParser;
+
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.XmlParserCreator;
+import com.stanfy.gsonxml.parser.XmlParserCreators;
+
+/**
+ * Documents and helpers shared by benchmarks.
+ * Fixtures are the same files that are used by tests.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class Fixtures {
+
+  /** Test resources location. */
+  private static final String BASE = "/com/stanfy/gsonxml/test/";
+
+  /** Fixture names. */
+  static final String RSS = "rss-response.xml", COMMENTS = "comments-response.xml", COMMENTS_2 = "comments-response-2.xml";
+
+  /** Creates kXML parsers directly: we do not want to measure factory lookup. */
+  static final XmlParserCreator KXML = new XmlParserCreator() {
+    @Override
+    public XmlPullParser createParser() {
+      return new KXmlParser();
+    }
+  };
+
+  private Fixtures() { /* hidden */ }
+
+  static byte[] bytes(final String name) throws IOException {
+    final InputStream in = Fixtures.class.getResourceAsStream(BASE + name);
+    if (in == null) { throw new IOException("Fixture " + name + " not found"); }
+    try {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        out.write(buffer, 0, count);
+      }
+      return out.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+
+  static String text(final String name) throws IOException {
+    return new String(bytes(name), "UTF-8");
+  }
+
+  /**
+   * @param backend parser name: kxml, xpp3, stax or bundled
+   * @return parser creator
+   */
+  static XmlParserCreator creator(final String backend) {
+    if ("kxml".equals(backend)) { return KXML; }
+    if ("xpp3".equals(backend)) { return XmlParserCreators.XPP3; }
+    if ("stax".equals(backend)) { return XmlParserCreators.STAX; }
+    if ("bundled".equals(backend)) { return XmlParserCreators.BUNDLED; }
+    throw new IllegalArgumentException("Unknown backend " + backend);
+  }
+
+  static GsonXmlBuilder builder() {
+    return new GsonXmlBuilder().setXmlParserCreator(KXML);
+  }
+
+}
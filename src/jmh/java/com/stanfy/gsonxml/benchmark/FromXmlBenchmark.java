@@ -0,0 +1,89 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.stanfy.gsonxml.GsonXml;
+
+/**
+ * Measures {@link GsonXml#fromXml(java.io.Reader, java.lang.reflect.Type)} on test fixtures
+ * for every combination of {@link com.stanfy.gsonxml.GsonXmlBuilder} options and every parser backend
+ * from {@link com.stanfy.gsonxml.parser.XmlParserCreators}.
+ * <p>
+ * Documents are bound to {@link JsonElement} since this is the only type that accepts the output of any options
+ * combination. {@link #fromJson()} parses the same tree serialized as JSON with plain {@link Gson}, so the
+ * difference between two benchmarks is a cost of XML-as-JSON emulation.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FromXmlBenchmark {
+
+  /** Document. */
+  @Param({Fixtures.RSS, Fixtures.COMMENTS, Fixtures.COMMENTS_2})
+  String fixture;
+
+  /** Parser. */
+  @Param({"kxml", "xpp3", "stax", "bundled"})
+  String backend;
+
+  /** Options. */
+  @Param({"true", "false"})
+  boolean skipRoot, sameNameLists, primitiveArrays, treatNamespaces, rootArrayPrimitive;
+
+  /** Source XML. */
+  private String xml;
+  /** Equivalent JSON. */
+  private String json;
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+  /** Plain Gson. */
+  private Gson gson;
+
+  @Setup
+  public void setup() throws IOException {
+    xml = Fixtures.text(fixture);
+    gsonXml = Fixtures.builder()
+        .setXmlParserCreator(Fixtures.creator(backend))
+        .setSkipRoot(skipRoot)
+        .setSameNameLists(sameNameLists)
+        .setPrimitiveArrays(primitiveArrays)
+        .setTreatNamespaces(treatNamespaces)
+        .setRootArrayPrimitive(rootArrayPrimitive)
+        .create();
+    gson = new Gson();
+    json = gson.toJson(gsonXml.fromXml(new StringReader(xml), JsonElement.class));
+  }
+
+  @Benchmark
+  public JsonElement fromXml() {
+    return gsonXml.fromXml(new StringReader(xml), JsonElement.class);
+  }
+
+  @Benchmark
+  public JsonElement fromJson() {
+    return gson.fromJson(new StringReader(json), JsonElement.class);
+  }
+
+}
@@ -0,0 +1,92 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.GsonBuilder;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.test.CommentsTest;
+import com.stanfy.gsonxml.test.RssTest;
+
+/**
+ * Reads fixtures received as bytes (e.g. HTTP response body): decoded by the caller to a string or with
+ * an {@link InputStreamReader}, and passed to the parser as bytes, in an array or in a direct buffer.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InputBenchmark {
+
+  /** Document. */
+  @Param({Fixtures.RSS, Fixtures.COMMENTS})
+  String fixture;
+
+  /** Source bytes. */
+  private byte[] bytes;
+  /** Source bytes in a direct buffer. */
+  private ByteBuffer direct;
+  /** Model type. */
+  private Class<?> type;
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+
+  @Setup
+  public void setup() throws IOException {
+    final String dateFormat;
+    if (Fixtures.RSS.equals(fixture)) {
+      type = RssTest.Rss.class;
+      dateFormat = "EEE, dd MMM yyyy HH:mm:ss Z";
+    } else {
+      type = CommentsTest.Response.class;
+      dateFormat = "dd.MM.yyyy HH:mm:ssZ";
+    }
+    bytes = Fixtures.bytes(fixture);
+    direct = ByteBuffer.allocateDirect(bytes.length);
+    direct.put(bytes).flip();
+    gsonXml = Fixtures.builder()
+        .wrap(new GsonBuilder().setDateFormat(dateFormat))
+        .setSameNameLists(true)
+        .create();
+  }
+
+  @Benchmark
+  public Object string() throws IOException {
+    return gsonXml.fromXml(new String(bytes, "UTF-8"), type);
+  }
+
+  @Benchmark
+  public Object reader() throws IOException {
+    return gsonXml.fromXml(new InputStreamReader(new ByteArrayInputStream(bytes), "UTF-8"), type);
+  }
+
+  @Benchmark
+  public Object bytes() {
+    return gsonXml.fromXml(bytes, type);
+  }
+
+  @Benchmark
+  public Object directBuffer() {
+    return gsonXml.fromXml(direct, type);
+  }
+
+}
@@ -0,0 +1,82 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.GsonBuilder;
+import com.stanfy.gsonxml.FlightRecorderListener;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.ParseListener;
+import com.stanfy.gsonxml.ParseStatsAggregator;
+import com.stanfy.gsonxml.PathProfiler;
+import com.stanfy.gsonxml.test.CommentsTest;
+
+/**
+ * Measures the overhead of {@link com.stanfy.gsonxml.GsonXmlBuilder#setParseListener(ParseListener)}
+ * and {@link com.stanfy.gsonxml.GsonXmlBuilder#setPathProfiler(PathProfiler)}.
+ * JFR events are emitted but not recorded unless a recording is started (e.g. {@code -jvmArgs -XX:StartFlightRecording}).
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstrumentationBenchmark {
+
+  /** Parse listener. */
+  @Param({"none", "aggregator", "jfr"})
+  String listener;
+
+  /** Fraction of profiled documents, 0 to disable profiling. */
+  @Param({"0", "0.01", "1"})
+  double profileRate;
+
+  /** Whether objects are bound directly. */
+  @Param({"false", "true"})
+  boolean direct;
+
+  /** Source XML. */
+  private String xml;
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+
+  @Setup
+  public void setup() throws IOException {
+    xml = Fixtures.text(Fixtures.COMMENTS_2);
+    gsonXml = Fixtures.builder()
+        .wrap(new GsonBuilder().setDateFormat("dd.MM.yyyy HH:mm:ssZ"))
+        .setSameNameLists(true)
+        .setDirectBinding(direct)
+        .setParseListener(createListener())
+        .setPathProfiler(profileRate > 0 ? new PathProfiler(profileRate) : null)
+        .create();
+  }
+
+  private ParseListener createListener() {
+    if ("aggregator".equals(listener)) { return new ParseStatsAggregator(); }
+    if ("jfr".equals(listener)) { return new FlightRecorderListener(); }
+    return null;
+  }
+
+  @Benchmark
+  public Object fromXml() {
+    return gsonXml.fromXml(new StringReader(xml), CommentsTest.Response.class);
+  }
+
+}
@@ -0,0 +1,69 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonElement;
+import com.stanfy.gsonxml.GsonXml;
+
+/**
+ * Stresses tokens and values queues of {@link com.stanfy.gsonxml.XmlReader}:
+ * each attribute adds two tokens and two values to the look-ahead, so elements with many attributes
+ * keep a long queue.
+ * Run with {@code -prof gc} to see allocations.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookAheadBenchmark {
+
+  /** Count of attributes in each element. */
+  @Param({"4", "64"})
+  int attributes;
+
+  /** Count of elements. */
+  @Param({"1000"})
+  int elements;
+
+  /** Source XML. */
+  private String xml;
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+
+  @Setup
+  public void setup() {
+    final StringBuilder xml = new StringBuilder("<root>");
+    for (int i = 0; i < elements; i++) {
+      xml.append("<item");
+      for (int j = 0; j < attributes; j++) {
+        xml.append(" a").append(j).append("=\"").append(i + j).append('"');
+      }
+      xml.append("/>");
+    }
+    this.xml = xml.append("</root>").toString();
+    gsonXml = Fixtures.builder().create();
+  }
+
+  @Benchmark
+  public JsonElement fromXml() {
+    return gsonXml.fromXml(new StringReader(xml), JsonElement.class);
+  }
+
+}
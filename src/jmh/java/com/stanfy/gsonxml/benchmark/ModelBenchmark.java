@@ -0,0 +1,94 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.test.CommentsTest;
+import com.stanfy.gsonxml.test.RssTest;
+
+/**
+ * Binds test fixtures to their models (the same configuration as in {@link RssTest} and {@link CommentsTest})
+ * and compares it with direct binding ({@link com.stanfy.gsonxml.GsonXmlBuilder#setDirectBinding(boolean)})
+ * and with plain Gson reading the equivalent JSON into the same models.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelBenchmark {
+
+  /** Document. */
+  @Param({Fixtures.RSS, Fixtures.COMMENTS, Fixtures.COMMENTS_2})
+  String fixture;
+
+  /** Source XML. */
+  private String xml;
+  /** Equivalent JSON. */
+  private String json;
+  /** Model type. */
+  private Class<?> type;
+
+  /** Tested instances. */
+  private GsonXml gsonXml, direct;
+  /** Plain Gson. */
+  private Gson gson;
+
+  @Setup
+  public void setup() throws IOException {
+    final String dateFormat;
+    if (Fixtures.RSS.equals(fixture)) {
+      type = RssTest.Rss.class;
+      dateFormat = "EEE, dd MMM yyyy HH:mm:ss Z";
+    } else {
+      type = CommentsTest.Response.class;
+      dateFormat = "dd.MM.yyyy HH:mm:ssZ";
+    }
+    xml = Fixtures.text(fixture);
+    gsonXml = Fixtures.builder()
+        .wrap(new GsonBuilder().setDateFormat(dateFormat))
+        .setSameNameLists(true)
+        .create();
+    direct = Fixtures.builder()
+        .wrap(new GsonBuilder().setDateFormat(dateFormat))
+        .setSameNameLists(true)
+        .setDirectBinding(true)
+        .create();
+    gson = gsonXml.getGson();
+    json = gson.toJson(gsonXml.fromXml(new StringReader(xml), type));
+  }
+
+  @Benchmark
+  public Object fromXml() {
+    return gsonXml.fromXml(new StringReader(xml), type);
+  }
+
+  @Benchmark
+  public Object fromXmlDirect() {
+    return direct.fromXml(new StringReader(xml), type);
+  }
+
+  @Benchmark
+  public Object fromJson() {
+    return gson.fromJson(new StringReader(json), type);
+  }
+
+}
@@ -0,0 +1,123 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+
+/**
+ * Binds numeric-heavy documents (price ticks) to a model with int, long and double fields.
+ * Numbers are given either as element texts or as attribute values.
+ * Run with {@code -prof gc} to see allocations.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NumbersBenchmark {
+
+  /** Price tick given with elements. */
+  static class Tick {
+    int id;
+    long time;
+    double price;
+    double volume;
+    double lat, lon;
+  }
+
+  /** Price tick given with attributes. */
+  static class AttributesTick {
+    @SerializedName("@id")
+    int id;
+    @SerializedName("@time")
+    long time;
+    @SerializedName("@price")
+    double price;
+    @SerializedName("@volume")
+    double volume;
+    @SerializedName("@lat")
+    double lat;
+    @SerializedName("@lon")
+    double lon;
+  }
+
+  /** Elements document. */
+  static class Ticks {
+    @SerializedName("tick")
+    List<Tick> ticks;
+  }
+
+  /** Attributes document. */
+  static class AttributesTicks {
+    @SerializedName("tick")
+    List<AttributesTick> ticks;
+  }
+
+  /** Count of ticks. */
+  @Param({"1000"})
+  int ticks;
+
+  /** Source XML. */
+  private String elementsXml, attributesXml;
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+
+  /** Whether direct binding is used. */
+  @Param({"false", "true"})
+  boolean direct;
+
+  @Setup
+  public void setup() {
+    final Random random = new Random(1);
+    final StringBuilder elements = new StringBuilder("<ticks>");
+    final StringBuilder attributes = new StringBuilder("<ticks>");
+    long time = 1400000000000L;
+    for (int i = 0; i < ticks; i++) {
+      time += random.nextInt(1000);
+      final String price = String.format(Locale.US, "%.4f", 100 + random.nextDouble() * 10);
+      final String volume = String.format(Locale.US, "%.2f", random.nextDouble() * 1e6);
+      final String lat = String.format(Locale.US, "%.6f", random.nextDouble() * 180 - 90);
+      final String lon = String.format(Locale.US, "%.6f", random.nextDouble() * 360 - 180);
+      elements.append("<tick><id>").append(i).append("</id><time>").append(time).append("</time>")
+          .append("<price>").append(price).append("</price><volume>").append(volume).append("</volume>")
+          .append("<lat>").append(lat).append("</lat><lon>").append(lon).append("</lon></tick>");
+      attributes.append("<tick id=\"").append(i).append("\" time=\"").append(time)
+          .append("\" price=\"").append(price).append("\" volume=\"").append(volume)
+          .append("\" lat=\"").append(lat).append("\" lon=\"").append(lon).append("\"/>");
+    }
+    elementsXml = elements.append("</ticks>").toString();
+    attributesXml = attributes.append("</ticks>").toString();
+    gsonXml = Fixtures.builder().setSameNameLists(true).setDirectBinding(direct).create();
+  }
+
+  @Benchmark
+  public Ticks elements() {
+    return gsonXml.fromXml(new StringReader(elementsXml), Ticks.class);
+  }
+
+  @Benchmark
+  public AttributesTicks attributes() {
+    return gsonXml.fromXml(new StringReader(attributesXml), AttributesTicks.class);
+  }
+
+}
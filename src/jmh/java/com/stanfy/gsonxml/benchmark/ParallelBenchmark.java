@@ -0,0 +1,133 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.XmlIterator;
+
+/**
+ * Compares sequential binding of a large list with {@link GsonXml#iterate(java.io.Reader, Class, String)}
+ * to {@link GsonXml#fromXmlParallel(java.io.Reader, Class, String, ExecutorService)} with different thread counts.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelBenchmark {
+
+  /** Order record. */
+  public static class Order {
+    @SerializedName("@id")
+    long id;
+    @SerializedName("@status")
+    String status;
+    Date created;
+    Customer customer;
+    @SerializedName("line")
+    List<Line> lines;
+    double total;
+  }
+
+  /** Order customer. */
+  public static class Customer {
+    String name;
+    String email;
+    String city;
+  }
+
+  /** Order line. */
+  public static class Line {
+    @SerializedName("@sku")
+    String sku;
+    int quantity;
+    double price;
+  }
+
+  /** Binding threads. */
+  @Param({"1", "2", "4"})
+  int threads;
+
+  /** Orders count. */
+  @Param({"20000"})
+  int orders;
+
+  /** Document. */
+  private String xml;
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+
+  /** Binding threads. */
+  private ExecutorService executor;
+
+  static String orders(final int count) {
+    final StringBuilder xml = new StringBuilder("<orders>");
+    for (int i = 0; i < count; i++) {
+      xml.append("<order id=\"").append(i).append("\" status=\"shipped\">")
+          .append("<created>10.07.2012 10:43:36+0300</created>")
+          .append("<customer><name>Customer ").append(i).append("</name><email>customer").append(i)
+          .append("@example.com</email><city>Kyiv</city></customer>");
+      for (int j = 0; j < 4; j++) {
+        xml.append("<line sku=\"SKU-").append(j).append("\"><quantity>").append(j + 1)
+            .append("</quantity><price>").append(j).append(".99</price></line>");
+      }
+      xml.append("<total>").append(i % 100).append(".5</total></order>");
+    }
+    return xml.append("</orders>").toString();
+  }
+
+  @Setup
+  public void setup() {
+    xml = orders(orders);
+    gsonXml = Fixtures.builder()
+        .wrap(new GsonBuilder().setDateFormat("dd.MM.yyyy HH:mm:ssZ"))
+        .setSameNameLists(true)
+        .create();
+    executor = Executors.newFixedThreadPool(threads);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Benchmark
+  public List<Order> sequential() {
+    final XmlIterator<Order> iterator = gsonXml.iterate(new StringReader(xml), Order.class, "order");
+    final List<Order> result = new ArrayList<Order>();
+    while (iterator.hasNext()) {
+      result.add(iterator.next());
+    }
+    return result;
+  }
+
+  @Benchmark
+  public List<Order> parallel() {
+    return gsonXml.fromXmlParallel(new StringReader(xml), Order.class, "order", executor);
+  }
+
+}
@@ -0,0 +1,111 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import com.google.gson.GsonBuilder;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.XmlParserCreator;
+import com.stanfy.gsonxml.parser.FastXmlParser;
+import com.stanfy.gsonxml.test.CommentsTest;
+import com.stanfy.gsonxml.test.RssTest;
+
+/**
+ * Compares the bundled {@link FastXmlParser} with kXML: a bare event loop that touches names and text the way
+ * {@code XmlReader} does, and binding of the fixtures.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+  /** Document. */
+  @Param({Fixtures.RSS, Fixtures.COMMENTS, Fixtures.COMMENTS_2})
+  String fixture;
+
+  /** Parser. */
+  @Param({"kxml", "fast"})
+  String parser;
+
+  /** Document. */
+  private String xml;
+  /** Model type. */
+  private Class<?> type;
+
+  /** Reused parser. */
+  private XmlPullParser pullParser;
+  /** Text bounds. */
+  private final int[] bounds = new int[2];
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+
+  @Setup
+  public void setup() throws IOException {
+    final String dateFormat;
+    if (Fixtures.RSS.equals(fixture)) {
+      type = RssTest.Rss.class;
+      dateFormat = "EEE, dd MMM yyyy HH:mm:ss Z";
+    } else {
+      type = CommentsTest.Response.class;
+      dateFormat = "dd.MM.yyyy HH:mm:ssZ";
+    }
+    xml = Fixtures.text(fixture);
+    final XmlParserCreator creator = "fast".equals(parser) ? FastXmlParser.CREATOR : Fixtures.KXML;
+    pullParser = creator.createParser();
+    gsonXml = Fixtures.builder()
+        .setXmlParserCreator(creator)
+        .wrap(new GsonBuilder().setDateFormat(dateFormat))
+        .setSameNameLists(true)
+        .create();
+  }
+
+  @Benchmark
+  public int events() throws XmlPullParserException, IOException {
+    final XmlPullParser parser = pullParser;
+    parser.setInput(new StringReader(xml));
+    int result = 0;
+    int type;
+    while ((type = parser.next()) != XmlPullParser.END_DOCUMENT) {
+      switch (type) {
+      case XmlPullParser.START_TAG:
+        result += parser.getName().length() + parser.getAttributeCount();
+        break;
+      case XmlPullParser.TEXT:
+        if (!parser.isWhitespace()) {
+          parser.getTextCharacters(bounds);
+          result += bounds[1];
+        }
+        break;
+      default:
+        break;
+      }
+    }
+    return result;
+  }
+
+  @Benchmark
+  public Object fromXml() {
+    return gsonXml.fromXml(xml, type);
+  }
+
+}
@@ -0,0 +1,76 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.benchmark.ParallelBenchmark.Order;
+
+/**
+ * Measures latency of reading a large document with and without pipelined parsing.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+  /** Orders document. */
+  public static class Orders {
+    @SerializedName("order")
+    List<Order> orders;
+  }
+
+  /** Whether parsing is pipelined. */
+  @Param({"false", "true"})
+  boolean pipelined;
+
+  /** Whether objects are bound directly. */
+  @Param({"false", "true"})
+  boolean direct;
+
+  /** Orders count. */
+  @Param({"20000"})
+  int orders;
+
+  /** Document. */
+  private String xml;
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+
+  @Setup
+  public void setup() {
+    xml = ParallelBenchmark.orders(orders);
+    gsonXml = Fixtures.builder()
+        .wrap(new GsonBuilder().setDateFormat("dd.MM.yyyy HH:mm:ssZ"))
+        .setSameNameLists(true)
+        .setDirectBinding(direct)
+        .setPipelinedParsing(pipelined)
+        .create();
+  }
+
+  @Benchmark
+  public Orders read() {
+    return gsonXml.fromXml(new StringReader(xml), Orders.class);
+  }
+
+}
@@ -0,0 +1,74 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.test.RssTest;
+
+/**
+ * Binds RSS fixture with and without include paths for the bound fields.
+ * Unknown fields of {@link RssTest.Rss} are already skipped cheaply by the reader, while a JSON tree
+ * (or any other consumer that reads everything) gets all the elements.
+ * Run with {@code -prof gc} to see allocations.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+  /** Source XML. */
+  private String xml;
+
+  /** Tested instances. */
+  private GsonXml full, projected;
+
+  @Setup
+  public void setup() throws IOException {
+    xml = Fixtures.text(Fixtures.RSS);
+    final GsonBuilder gson = new GsonBuilder().setDateFormat("EEE, dd MMM yyyy HH:mm:ss Z");
+    full = Fixtures.builder().wrap(gson).setSameNameLists(true).create();
+    projected = Fixtures.builder().wrap(gson).setSameNameLists(true)
+        .setIncludePaths("channel/title", "channel/item/id", "channel/item/pubDate", "channel/item/title")
+        .create();
+  }
+
+  @Benchmark
+  public RssTest.Rss full() {
+    return full.fromXml(new StringReader(xml), RssTest.Rss.class);
+  }
+
+  @Benchmark
+  public RssTest.Rss projected() {
+    return projected.fromXml(new StringReader(xml), RssTest.Rss.class);
+  }
+
+  @Benchmark
+  public JsonElement fullTree() {
+    return full.fromXml(new StringReader(xml), JsonElement.class);
+  }
+
+  @Benchmark
+  public JsonElement projectedTree() {
+    return projected.fromXml(new StringReader(xml), JsonElement.class);
+  }
+
+}
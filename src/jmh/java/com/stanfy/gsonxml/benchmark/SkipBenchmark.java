@@ -0,0 +1,88 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+
+/**
+ * Binds about 10% of a document: the rest is skipped by Gson as unknown fields.
+ * Each record has plain fields, fields with attributes and nested subtrees.
+ * Run with {@code -prof gc} to see allocations.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SkipBenchmark {
+
+  /** Bound part of a record. */
+  static class Record {
+    String title;
+    String link;
+  }
+
+  /** Document. */
+  static class Records {
+    @SerializedName("record")
+    List<Record> records;
+  }
+
+  /** Count of records. */
+  @Param({"500"})
+  int records;
+
+  /** Source XML. */
+  private String xml;
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+
+  @Setup
+  public void setup() {
+    final StringBuilder xml = new StringBuilder("<records>");
+    for (int i = 0; i < records; i++) {
+      xml.append("<record id=\"").append(i).append("\">")
+          .append("<title>Title ").append(i).append("</title>")
+          .append("<link>http://example.com/").append(i).append("</link>");
+      for (int j = 0; j < 6; j++) {
+        xml.append("<field").append(j).append(">Value ").append(j).append("</field").append(j).append('>');
+      }
+      for (int j = 0; j < 6; j++) {
+        xml.append("<meta").append(j).append(" type=\"t\" lang=\"en\">").append(j).append("</meta").append(j).append('>');
+      }
+      xml.append("<author><name>Author</name><email>author@example.com</email>")
+          .append("<address city=\"Kyiv\"><street>Street</street><zip>01001</zip></address></author>");
+      xml.append("<tags>");
+      for (int j = 0; j < 5; j++) {
+        xml.append("<tag>tag").append(j).append("</tag>");
+      }
+      xml.append("</tags></record>");
+    }
+    this.xml = xml.append("</records>").toString();
+    gsonXml = Fixtures.builder().setSameNameLists(true).create();
+  }
+
+  @Benchmark
+  public Records fromXml() {
+    return gsonXml.fromXml(new StringReader(xml), Records.class);
+  }
+
+}
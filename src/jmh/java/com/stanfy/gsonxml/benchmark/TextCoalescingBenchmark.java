@@ -0,0 +1,69 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stanfy.gsonxml.GsonXml;
+
+/**
+ * Reads one element whose text is split into many fragments.
+ * Fragments split by entity references are joined by the parser, fragments split by filtered out elements
+ * are joined by {@code XmlReader}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextCoalescingBenchmark {
+
+  /** Model. */
+  public static class Model {
+    String text;
+  }
+
+  /** Fragments count. */
+  @Param({"100", "1000", "10000"})
+  int fragments;
+
+  /** What splits the text: {@code entity} references or {@code filtered} elements. */
+  @Param({"entity", "filtered"})
+  String separator;
+
+  /** Document. */
+  private String xml;
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+
+  @Setup
+  public void setup() {
+    final String split = "entity".equals(separator) ? "&amp;" : "<x/>";
+    final StringBuilder xml = new StringBuilder("<model><text>");
+    for (int i = 0; i < fragments; i++) {
+      xml.append("fragment").append(i).append(split);
+    }
+    xml.append("</text></model>");
+    this.xml = xml.toString();
+    gsonXml = Fixtures.builder().setExcludePaths("text/x").create();
+  }
+
+  @Benchmark
+  public Model read() {
+    return gsonXml.fromXml(xml, Model.class);
+  }
+
+}
@@ -0,0 +1,107 @@
+package com.stanfy.gsonxml.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.XmlWriter;
+
+/**
+ * Converts XML to JSON and back streaming tokens with {@code GsonXml.transcode()} and through a {@link JsonElement} tree.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TranscodeBenchmark {
+
+  /** Document: a fixture or {@code orders} generated by {@link ParallelBenchmark#orders(int)}. */
+  @Param({Fixtures.RSS, Fixtures.COMMENTS, "orders"})
+  String fixture;
+
+  /** Document. */
+  private String xml;
+
+  /** The same document as JSON. */
+  private String json;
+
+  /** Tested instance. */
+  private GsonXml gsonXml;
+
+  @Setup
+  public void setup() throws IOException {
+    xml = "orders".equals(fixture) ? ParallelBenchmark.orders(20000) : Fixtures.text(fixture);
+    gsonXml = Fixtures.builder().setSameNameLists(true).create();
+    // repeated orders are collapsed in a tree read from XML
+    json = "orders".equals(fixture) ? ordersJson(20000) : gsonXml.getGson().toJson(gsonXml.fromXml(xml, JsonElement.class));
+  }
+
+  /** @return JSON with the same content as {@link ParallelBenchmark#orders(int)}, repeated elements are arrays */
+  static String ordersJson(final int count) {
+    final StringBuilder json = new StringBuilder("{\"order\":[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) { json.append(','); }
+      json.append("{\"@id\":\"").append(i).append("\",\"@status\":\"shipped\",")
+          .append("\"created\":\"10.07.2012 10:43:36+0300\",")
+          .append("\"customer\":{\"name\":\"Customer ").append(i).append("\",\"email\":\"customer").append(i)
+          .append("@example.com\",\"city\":\"Kyiv\"},\"line\":[");
+      for (int j = 0; j < 4; j++) {
+        if (j > 0) { json.append(','); }
+        json.append("{\"@sku\":\"SKU-").append(j).append("\",\"quantity\":").append(j + 1)
+            .append(",\"price\":").append(j).append(".99}");
+      }
+      json.append("],\"total\":").append(i % 100).append(".5}");
+    }
+    return json.append("]}").toString();
+  }
+
+  @Benchmark
+  public StringWriter tree() {
+    final StringWriter out = new StringWriter(xml.length());
+    gsonXml.getGson().toJson(gsonXml.fromXml(new StringReader(xml), JsonElement.class), new JsonWriter(out));
+    return out;
+  }
+
+  @Benchmark
+  public StringWriter transcode() {
+    final StringWriter out = new StringWriter(xml.length());
+    gsonXml.transcode(new StringReader(xml), new JsonWriter(out));
+    return out;
+  }
+
+  @Benchmark
+  public StringWriter xmlTree() {
+    final StringWriter out = new StringWriter(xml.length());
+    gsonXml.toXml(new JsonParser().parse(new StringReader(json)), JsonElement.class, XmlWriter.DEFAULT_ROOT_NAME, out);
+    return out;
+  }
+
+  @Benchmark
+  public StringWriter xmlTranscode() {
+    final StringWriter out = new StringWriter(xml.length());
+    gsonXml.transcode(new JsonReader(new StringReader(json)), XmlWriter.DEFAULT_ROOT_NAME, out);
+    return out;
+  }
+
+}
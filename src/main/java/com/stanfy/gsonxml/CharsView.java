@@ -0,0 +1,32 @@
+package com.stanfy.gsonxml;
+
+/**
+ * Reusable view of a characters range. Used to parse values without creating strings.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class CharsView implements CharSequence {
+
+  /** Characters. */
+  private char[] chars;
+  /** Range. */
+  private int start, length;
+
+  void set(final char[] chars, final int start, final int length) {
+    this.chars = chars;
+    this.start = start;
+    this.length = length;
+  }
+
+  @Override
+  public int length() { return length; }
+
+  @Override
+  public char charAt(final int index) { return chars[start + index]; }
+
+  @Override
+  public CharSequence subSequence(final int from, final int to) { return new String(chars, start + from, to - from); }
+
+  @Override
+  public String toString() { return new String(chars, start, length); }
+
+}
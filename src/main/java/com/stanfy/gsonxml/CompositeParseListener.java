@@ -0,0 +1,26 @@
+package com.stanfy.gsonxml;
+
+/**
+ * Passes counters to two listeners.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class CompositeParseListener implements ParseListener {
+
+  /** Listeners. */
+  private final ParseListener first, second;
+
+  CompositeParseListener(final ParseListener first, final ParseListener second) {
+    this.first = first;
+    this.second = second;
+  }
+
+  @Override
+  public void onParse(final ParseStats stats) {
+    try {
+      first.onParse(stats);
+    } finally {
+      second.onParse(stats);
+    }
+  }
+
+}
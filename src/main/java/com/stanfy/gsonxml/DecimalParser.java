@@ -0,0 +1,143 @@
+package com.stanfy.gsonxml;
+
+/**
+ * Parses decimal numbers from character sequences without creating intermediate objects.
+ * Only plain decimal notation is handled, methods return false for anything else
+ * (as well as for values that cannot be converted exactly) so that callers can fall back to JDK parsers.
+ * <p>
+ * Doubles are converted with Clinger's fast path: when the decimal significand fits into 53 bits
+ * and the exponent does not exceed 22, the result of a single multiplication or division by an exact power of ten
+ * is correctly rounded.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class DecimalParser {
+
+  /** Max count of digits that fit into long without overflow. */
+  private static final int MAX_LONG_DIGITS = 18;
+
+  /** Max significand for exact conversion to double. */
+  private static final long MAX_EXACT_SIGNIFICAND = 1L << 53;
+
+  /** Exactly representable powers of ten. */
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+    1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /** Result of the last successful {@link #parseLong(CharSequence)}. */
+  long longValue;
+
+  /** Result of the last successful {@link #parseDouble(CharSequence)}. */
+  double doubleValue;
+
+  /**
+   * @param s input in the form {@code [+-]digits}
+   * @return true if the value has been parsed to {@link #longValue}
+   */
+  boolean parseLong(final CharSequence s) {
+    final int length = s.length();
+    int i = 0;
+    boolean negative = false;
+    if (length > 0) {
+      final char first = s.charAt(0);
+      if (first == '-' || first == '+') {
+        negative = first == '-';
+        i++;
+      }
+    }
+    if (i == length || length - i > MAX_LONG_DIGITS) { return false; }
+    long result = 0;
+    for (; i < length; i++) {
+      final int digit = s.charAt(i) - '0';
+      if (digit < 0 || digit > 9) { return false; }
+      result = result * 10 + digit;
+    }
+    longValue = negative ? -result : result;
+    return true;
+  }
+
+  /**
+   * @param s input in the form {@code [+-]digits[.digits][(e|E)[+-]digits]}
+   * @return true if the value has been parsed to {@link #doubleValue}
+   */
+  boolean parseDouble(final CharSequence s) {
+    final int length = s.length();
+    int i = 0;
+    boolean negative = false;
+    if (length > 0) {
+      final char first = s.charAt(0);
+      if (first == '-' || first == '+') {
+        negative = first == '-';
+        i++;
+      }
+    }
+
+    long significand = 0;
+    int significantDigits = 0;
+    int exponent = 0;
+    boolean hasDigits = false;
+
+    // integer part
+    for (; i < length; i++) {
+      final int digit = s.charAt(i) - '0';
+      if (digit < 0 || digit > 9) { break; }
+      hasDigits = true;
+      if (significantDigits == MAX_LONG_DIGITS) { return false; }
+      significand = significand * 10 + digit;
+      if (significand != 0) { significantDigits++; }
+    }
+
+    // fraction
+    if (i < length && s.charAt(i) == '.') {
+      for (i++; i < length; i++) {
+        final int digit = s.charAt(i) - '0';
+        if (digit < 0 || digit > 9) { break; }
+        hasDigits = true;
+        if (significantDigits == MAX_LONG_DIGITS) {
+          if (digit != 0) { return false; }
+          continue; // trailing zero
+        }
+        significand = significand * 10 + digit;
+        if (significand != 0) { significantDigits++; }
+        exponent--;
+      }
+    }
+    if (!hasDigits) { return false; }
+
+    // exponent
+    if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+        negativeExponent = s.charAt(i) == '-';
+        i++;
+      }
+      if (i == length) { return false; }
+      int value = 0;
+      for (; i < length; i++) {
+        final int digit = s.charAt(i) - '0';
+        if (digit < 0 || digit > 9 || value > 1000) { return false; }
+        value = value * 10 + digit;
+      }
+      exponent += negativeExponent ? -value : value;
+    }
+    if (i != length) { return false; }
+
+    final double result;
+    if (significand == 0) {
+      result = 0.0;
+    } else if (significand > MAX_EXACT_SIGNIFICAND) {
+      return false;
+    } else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+      result = significand * POWERS_OF_TEN[exponent];
+    } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+      result = significand / POWERS_OF_TEN[-exponent];
+    } else {
+      return false;
+    }
+    doubleValue = negative ? -result : result;
+    return true;
+  }
+
+}
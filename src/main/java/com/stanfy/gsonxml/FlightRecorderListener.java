@@ -0,0 +1,134 @@
+package com.stanfy.gsonxml;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Emits a JDK Flight Recorder event named {@value #EVENT_NAME} for every read document.
+ * Event has the requested type, document size, bound objects, XML events, JSON tokens, skipped subtrees,
+ * parse duration and failure flag. It's enabled and configured like any other JFR event (e.g. in a {@code .jfc} file).
+ * <p>
+ * The library is compiled for platforms without JFR, so the event type is defined at runtime
+ * with {@code jdk.jfr.EventFactory} (Java 11 and later) and accessed reflectively.
+ * The event is committed when the document is read, so its own start time is the end of parsing and
+ * the parse time is kept in the {@code parseDuration} field.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class FlightRecorderListener implements ParseListener {
+
+  /** Event type name. */
+  public static final String EVENT_NAME = "com.stanfy.gsonxml.Parse";
+
+  /** Event type, null if JFR is not available. */
+  private static final EventType EVENT_TYPE = EventType.create();
+
+  /**
+   * @throws UnsupportedOperationException if JFR is not available, see {@link #isAvailable()}
+   */
+  public FlightRecorderListener() {
+    if (EVENT_TYPE == null) { throw new UnsupportedOperationException("JDK Flight Recorder is not available"); }
+  }
+
+  /** @return true if JFR events can be emitted on this platform */
+  public static boolean isAvailable() { return EVENT_TYPE != null; }
+
+  @Override
+  public void onParse(final ParseStats stats) {
+    try {
+      EVENT_TYPE.commit(stats);
+    } catch (final IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    } catch (final InvocationTargetException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static String typeName(final Type type) {
+    return type instanceof Class ? ((Class<?>) type).getName() : String.valueOf(type);
+  }
+
+  /** Reflective access to the event type. */
+  private static final class EventType {
+
+    /** Fields order. */
+    private static final int TYPE = 0, DOCUMENT_SIZE = 1, OBJECTS = 2, XML_EVENTS = 3, TOKENS = 4, SKIPPED_SUBTREES = 5,
+        PARSE_DURATION = 6, FAILED = 7;
+
+    /** {@code jdk.jfr.EventFactory} instance, keeps the event type registered. */
+    private final Object factory;
+    /** Methods. */
+    private final Method newEvent, shouldCommit, set, commit;
+
+    private EventType(final Object factory, final Method newEvent, final Method shouldCommit, final Method set,
+        final Method commit) {
+      this.factory = factory;
+      this.newEvent = newEvent;
+      this.shouldCommit = shouldCommit;
+      this.set = set;
+      this.commit = commit;
+    }
+
+    /** @return event type, null if JFR is not available */
+    static EventType create() {
+      try {
+        final Constructor<?> annotation = Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+        final Constructor<?> field = Class.forName("jdk.jfr.ValueDescriptor")
+            .getConstructor(Class.class, String.class, List.class);
+        final Class<?> name = Class.forName("jdk.jfr.Name"), label = Class.forName("jdk.jfr.Label");
+
+        final List<Object> annotations = new ArrayList<Object>();
+        annotations.add(annotation.newInstance(name, EVENT_NAME));
+        annotations.add(annotation.newInstance(label, "GsonXml Parse"));
+        annotations.add(annotation.newInstance(Class.forName("jdk.jfr.Category"), new String[] {"GsonXml"}));
+        annotations.add(annotation.newInstance(Class.forName("jdk.jfr.Description"), "XML document read by GsonXml"));
+
+        final List<Object> fields = new ArrayList<Object>();
+        fields.add(field.newInstance(String.class, "type", labels(annotation, label, "Type")));
+        fields.add(field.newInstance(long.class, "documentSize", labels(annotation, label, "Document Size")));
+        fields.add(field.newInstance(long.class, "objects", labels(annotation, label, "Objects")));
+        fields.add(field.newInstance(long.class, "xmlEvents", labels(annotation, label, "XML Events")));
+        fields.add(field.newInstance(long.class, "tokens", labels(annotation, label, "JSON Tokens")));
+        fields.add(field.newInstance(long.class, "skippedSubtrees", labels(annotation, label, "Skipped Subtrees")));
+        final List<Object> duration = labels(annotation, label, "Parse Duration");
+        duration.add(annotation.newInstance(Class.forName("jdk.jfr.Timespan"), "NANOSECONDS"));
+        fields.add(field.newInstance(long.class, "parseDuration", duration));
+        fields.add(field.newInstance(boolean.class, "failed", labels(annotation, label, "Failed")));
+
+        final Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+        final Object factory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+        final Class<?> event = Class.forName("jdk.jfr.Event");
+        return new EventType(factory, factoryClass.getMethod("newEvent"), event.getMethod("shouldCommit"),
+            event.getMethod("set", int.class, Object.class), event.getMethod("commit"));
+      } catch (final Exception e) {
+        return null;
+      }
+    }
+
+    private static List<Object> labels(final Constructor<?> annotation, final Class<?> label, final String value)
+        throws Exception {
+      final List<Object> result = new ArrayList<Object>();
+      result.add(annotation.newInstance(label, value));
+      return result;
+    }
+
+    void commit(final ParseStats stats) throws IllegalAccessException, InvocationTargetException {
+      final Object event = newEvent.invoke(factory);
+      if (!(Boolean) shouldCommit.invoke(event)) { return; }
+      set.invoke(event, TYPE, typeName(stats.type));
+      set.invoke(event, DOCUMENT_SIZE, stats.documentSize);
+      set.invoke(event, OBJECTS, stats.objects);
+      set.invoke(event, XML_EVENTS, stats.xmlEvents);
+      set.invoke(event, TOKENS, stats.tokens);
+      set.invoke(event, SKIPPED_SUBTREES, stats.skippedSubtrees);
+      set.invoke(event, PARSE_DURATION, stats.timeNanos);
+      set.invoke(event, FAILED, stats.failed);
+      commit.invoke(event);
+    }
+  }
+
+}
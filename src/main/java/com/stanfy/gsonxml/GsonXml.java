@@ -1,16 +1,34 @@
 package com.stanfy.gsonxml;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.xmlpull.v1.XmlPullParser;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.internal.Primitives;
+import com.google.gson.internal.Streams;
+import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.google.gson.stream.MalformedJsonException;
 import com.stanfy.gsonxml.XmlReader.Options;
 
@@ -25,15 +43,43 @@ public class GsonXml {
 
   /** XML parser creator. */
   private final XmlParserCreator xmlParserCreator;
+  /** Creator of parsers used by readers, produces pipelined parsers if pipelining is enabled. */
+  private final XmlParserCreator readerParserCreator;
 
   /** Option. */
   private final Options options;
 
-  GsonXml(final Gson gson, final XmlParserCreator xmlParserCreator, final Options options) {
+  /** Readers pool, null if readers are not reused. */
+  private final XmlReadersPool readersPool;
+
+  /** Direct binding engine, binds only classes with generated adapters if direct binding is disabled. */
+  private final XmlBinder binder;
+  /** Whether classes without generated adapters are bound directly. */
+  private final boolean directBinding;
+
+  /** Parse listener, null if instrumentation is disabled. */
+  private final ParseListener listener;
+
+  /** Element paths profiler, null if profiling is disabled. */
+  private final PathProfiler profiler;
+
+  GsonXml(final Gson gson, final XmlParserCreator xmlParserCreator, final Options options, final int readersPoolSize,
+      final boolean directBinding, final boolean pipelined, final ParseListener listener, final PathProfiler profiler) {
     if (xmlParserCreator == null) { throw new NullPointerException("XmlParserCreator is null"); }
     this.core = gson;
     this.xmlParserCreator = xmlParserCreator;
+    this.readerParserCreator = pipelined
+        ? new XmlParserCreator() {
+          @Override
+          public XmlPullParser createParser() { return new PipelinedXmlParser(xmlParserCreator); }
+        }
+        : xmlParserCreator;
     this.options = options;
+    this.readersPool = readersPoolSize > 0 ? new XmlReadersPool(readerParserCreator, options, readersPoolSize) : null;
+    this.binder = new XmlBinder(gson, options, directBinding);
+    this.directBinding = directBinding;
+    this.listener = listener;
+    this.profiler = profiler;
   }
 
   public Gson getGson() { return core; }
@@ -49,25 +95,375 @@ public class GsonXml {
       return null;
     }
     final StringReader reader = new StringReader(json);
-    final T target = (T) fromXml(reader, typeOfT);
+    final T target = (T) read(obtainReader(reader), typeOfT, listener != null ? utf8Length(json) : -1);
     return target;
   }
 
   public <T> T fromXml(final Reader json, final Class<T> classOfT) throws JsonSyntaxException, JsonIOException {
-    final XmlReader jsonReader = new XmlReader(json, xmlParserCreator, options); // change reader
-    final Object object = fromXml(jsonReader, classOfT);
-    assertFullConsumption(object, jsonReader);
+    final Object object = fromXml(json, (Type) classOfT);
     return Primitives.wrap(classOfT).cast(object);
   }
 
-  @SuppressWarnings("unchecked")
   public <T> T fromXml(final Reader json, final Type typeOfT) throws JsonIOException, JsonSyntaxException {
-    final XmlReader jsonReader = new XmlReader(json, xmlParserCreator, options); // change reader
-    final T object = (T) fromXml(jsonReader, typeOfT);
-    assertFullConsumption(object, jsonReader);
+    return read(obtainReader(json), typeOfT, -1);
+  }
+
+  /**
+   * Reads XML bytes. They are decoded by the XML parser itself, with the encoding taken from the byte order mark
+   * or the XML declaration (UTF-8 by default), so there is no need to wrap the stream with a reader or a buffer.
+   * The stream is not closed.
+   * @param <T> type to deserialize
+   * @param json XML source
+   * @param classOfT type to deserialize
+   * @return deserialized object
+   */
+  public <T> T fromXml(final InputStream json, final Class<T> classOfT) throws JsonSyntaxException, JsonIOException {
+    final Object object = fromXml(json, (Type) classOfT);
+    return Primitives.wrap(classOfT).cast(object);
+  }
+
+  /**
+   * Reads XML bytes.
+   * @param <T> type to deserialize
+   * @param json XML source
+   * @param typeOfT type to deserialize
+   * @return deserialized object
+   * @see #fromXml(InputStream, Class)
+   */
+  public <T> T fromXml(final InputStream json, final Type typeOfT) throws JsonIOException, JsonSyntaxException {
+    return read(obtainReader(json), typeOfT, -1);
+  }
+
+  /**
+   * Reads XML bytes. The array is not copied.
+   * @param <T> type to deserialize
+   * @param json XML source
+   * @param classOfT type to deserialize
+   * @return deserialized object, null if {@code json} is null
+   * @see #fromXml(InputStream, Class)
+   */
+  public <T> T fromXml(final byte[] json, final Class<T> classOfT) throws JsonSyntaxException {
+    final Object object = fromXml(json, (Type) classOfT);
+    return Primitives.wrap(classOfT).cast(object);
+  }
+
+  /**
+   * Reads XML bytes. The array is not copied.
+   * @param <T> type to deserialize
+   * @param json XML source
+   * @param typeOfT type to deserialize
+   * @return deserialized object, null if {@code json} is null
+   * @see #fromXml(InputStream, Class)
+   */
+  public <T> T fromXml(final byte[] json, final Type typeOfT) throws JsonSyntaxException {
+    if (json == null) {
+      return null;
+    }
+    return read(obtainReader(new ByteArrayInputStream(json)), typeOfT, json.length);
+  }
+
+  /**
+   * Reads remaining bytes of the buffer, its position is not changed. Heap buffers are not copied.
+   * @param <T> type to deserialize
+   * @param json XML source
+   * @param classOfT type to deserialize
+   * @return deserialized object, null if {@code json} is null
+   * @see #fromXml(InputStream, Class)
+   */
+  public <T> T fromXml(final ByteBuffer json, final Class<T> classOfT) throws JsonSyntaxException {
+    final Object object = fromXml(json, (Type) classOfT);
+    return Primitives.wrap(classOfT).cast(object);
+  }
+
+  /**
+   * Reads remaining bytes of the buffer, its position is not changed. Heap buffers are not copied.
+   * @param <T> type to deserialize
+   * @param json XML source
+   * @param typeOfT type to deserialize
+   * @return deserialized object, null if {@code json} is null
+   * @see #fromXml(InputStream, Class)
+   */
+  public <T> T fromXml(final ByteBuffer json, final Type typeOfT) throws JsonSyntaxException {
+    if (json == null) {
+      return null;
+    }
+    final InputStream in = json.hasArray()
+        ? new ByteArrayInputStream(json.array(), json.arrayOffset() + json.position(), json.remaining())
+        : new ByteBufferInputStream(json.duplicate());
+    return read(obtainReader(in), typeOfT, json.remaining());
+  }
+
+  /**
+   * Reads XML file. The file is mapped to memory by windows and decoded straight to the parser buffer,
+   * with the encoding taken from the byte order mark or the XML declaration (UTF-8 by default).
+   * Files larger than 2GB are supported. Consider {@link #iterate(File, Class, String)} for large documents.
+   * @param <T> type to deserialize
+   * @param file XML file
+   * @param classOfT type to deserialize
+   * @return deserialized object
+   * @throws JsonIOException if file cannot be read
+   */
+  public <T> T fromXml(final File file, final Class<T> classOfT) throws JsonSyntaxException, JsonIOException {
+    final Object object = fromXml(file, (Type) classOfT);
+    return Primitives.wrap(classOfT).cast(object);
+  }
+
+  /**
+   * Reads XML file.
+   * @param <T> type to deserialize
+   * @param file XML file
+   * @param typeOfT type to deserialize
+   * @return deserialized object
+   * @throws JsonIOException if file cannot be read
+   * @see #fromXml(File, Class)
+   */
+  public <T> T fromXml(final File file, final Type typeOfT) throws JsonSyntaxException, JsonIOException {
+    final Reader in = openFile(file);
+    try {
+      return read(obtainReader(in), typeOfT, file.length());
+    } finally {
+      try {
+        in.close();
+      } catch (final IOException e) {
+        // the document is already read
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T read(final XmlReader jsonReader, final Type typeOfT, final long documentSize) {
+    if (listener != null) { jsonReader.startStats(typeOfT, documentSize); }
+    if (profiler != null && profiler.sample()) { jsonReader.startProfile(profiler); }
+    final T object;
+    try {
+      if (binder.supports(typeOfT)) {
+        object = (T) binder.read(jsonReader, typeOfT);
+      } else {
+        object = (T) fromXml(jsonReader, typeOfT);
+        assertFullConsumption(object, jsonReader);
+      }
+    } catch (final RuntimeException e) {
+      abort(jsonReader);
+      throw e;
+    }
+    final ParseStats stats = jsonReader.finishStats(false);
+    if (stats != null) { stats.objects = 1; }
+    jsonReader.finishProfile();
+    recycleReader(jsonReader);
+    if (stats != null) { listener.onParse(stats); }
     return object;
   }
 
+  /**
+   * Converts XML to JSON streaming XML reader tokens directly to the writer, no objects or trees are created,
+   * so memory use does not depend on document size. Output follows the same options as
+   * {@code gsonXml.getGson().toJson(gsonXml.fromXml(xml, JsonElement.class), out)}, except that repeated
+   * names (same name elements that are not read as lists) are all written while a tree keeps the last one.
+   * @param xml XML source, not closed
+   * @param out JSON output, not flushed or closed
+   * @throws JsonIOException if there was a problem reading XML or writing JSON
+   * @throws JsonSyntaxException if XML is malformed
+   */
+  public void transcode(final Reader xml, final JsonWriter out) throws JsonIOException, JsonSyntaxException {
+    final XmlReader reader = obtainReader(xml);
+    if (listener != null) { reader.startStats(JsonElement.class, -1); }
+    if (profiler != null && profiler.sample()) { reader.startProfile(profiler); }
+    try {
+      JsonPump.copy(reader, out);
+      if (reader.peek() != JsonToken.END_DOCUMENT) { throw new JsonIOException("JSON document was not fully consumed."); }
+    } catch (final IOException e) {
+      abort(reader);
+      throw new JsonIOException(e);
+    } catch (final RuntimeException e) {
+      abort(reader);
+      throw e;
+    }
+    final ParseStats stats = reader.finishStats(false);
+    if (stats != null) { stats.objects = 1; }
+    reader.finishProfile();
+    recycleReader(reader);
+    if (stats != null) { listener.onParse(stats); }
+  }
+
+  private void abort(final XmlReader reader) {
+    final ParseStats stats = reader.finishStats(true);
+    reader.finishProfile();
+    reader.detach(); // stops background parsing, reader is not returned to the pool if parsing has failed
+    if (stats != null) { listener.onParse(stats); }
+  }
+
+  /**
+   * Lazily binds repeated XML elements.
+   * Path consists of element names separated by '/' just like they are seen by Gson, i.e. root element name
+   * is omitted if root is skipped. With same name lists option the last path element is a name of the repeated element
+   * (e.g. {@code channel/item} for RSS), otherwise it's ignored and its parent is treated as a list.
+   * @param <T> element type
+   * @param json XML source, closed when iterator is closed or exhausted
+   * @param classOfT element type
+   * @param path path to the repeated elements
+   * @return iterator over deserialized elements
+   */
+  public <T> XmlIterator<T> iterate(final Reader json, final Class<T> classOfT, final String path) {
+    return iterate(json, TypeToken.get(classOfT), path);
+  }
+
+  /**
+   * Lazily binds repeated XML elements.
+   * @param <T> element type
+   * @param json XML source, closed when iterator is closed or exhausted
+   * @param typeOfT element type
+   * @param path path to the repeated elements
+   * @return iterator over deserialized elements
+   * @see #iterate(Reader, Class, String)
+   */
+  public <T> XmlIterator<T> iterate(final Reader json, final TypeToken<T> typeOfT, final String path) {
+    return iterate(json, typeOfT, path, -1);
+  }
+
+  private <T> XmlIterator<T> iterate(final Reader json, final TypeToken<T> typeOfT, final String path,
+      final long documentSize) {
+    final XmlReader reader = obtainReader(json);
+    if (listener != null) { reader.startStats(typeOfT.getType(), documentSize); }
+    if (profiler != null && profiler.sample()) { reader.startProfile(profiler); }
+    return new XmlIterator<T>(reader, readersPool, core.getAdapter(typeOfT), path, listener);
+  }
+
+  /**
+   * Lazily binds repeated XML elements of a file. The file is read as in {@link #fromXml(File, Class)}.
+   * @param <T> element type
+   * @param file XML file, closed when iterator is closed or exhausted
+   * @param classOfT element type
+   * @param path path to the repeated elements
+   * @return iterator over deserialized elements
+   * @throws JsonIOException if file cannot be opened
+   * @see #iterate(Reader, Class, String)
+   */
+  public <T> XmlIterator<T> iterate(final File file, final Class<T> classOfT, final String path) {
+    return iterate(file, TypeToken.get(classOfT), path);
+  }
+
+  /**
+   * Lazily binds repeated XML elements of a file.
+   * @param <T> element type
+   * @param file XML file, closed when iterator is closed or exhausted
+   * @param typeOfT element type
+   * @param path path to the repeated elements
+   * @return iterator over deserialized elements
+   * @throws JsonIOException if file cannot be opened
+   * @see #iterate(Reader, Class, String)
+   */
+  public <T> XmlIterator<T> iterate(final File file, final TypeToken<T> typeOfT, final String path) {
+    return iterate(openFile(file), typeOfT, path, file.length());
+  }
+
+  /**
+   * Binds repeated XML elements concurrently. The calling thread parses the document and captures the elements
+   * addressed by the path, while the executor binds them in batches with the regular type adapters.
+   * Parsing is not parallelized, so this can pay off only on multi-core machines, for large lists of complex
+   * elements when binding dominates parsing; measure before using it.
+   * Batches that the executor has not started when their results are needed are bound by the calling thread,
+   * so it's safe to call this method from a task of the same (or a bounded) executor.
+   * Elements must be objects: every element is bound as a document whose root is skipped.
+   * The reader is not closed.
+   * @param <T> element type
+   * @param json XML source
+   * @param classOfT element type
+   * @param path path to the repeated elements, see {@link #iterate(Reader, Class, String)}
+   * @param executor executor that binds the elements
+   * @return deserialized elements in the document order
+   */
+  public <T> List<T> fromXmlParallel(final Reader json, final Class<T> classOfT, final String path,
+      final ExecutorService executor) throws JsonSyntaxException, JsonIOException {
+    return fromXmlParallel(json, TypeToken.get(classOfT), path, executor);
+  }
+
+  /**
+   * Binds repeated XML elements concurrently.
+   * @param <T> element type
+   * @param json XML source
+   * @param typeOfT element type
+   * @param path path to the repeated elements, see {@link #iterate(Reader, Class, String)}
+   * @param executor executor that binds the elements
+   * @return deserialized elements in the document order
+   * @see #fromXmlParallel(Reader, Class, String, ExecutorService)
+   */
+  public <T> List<T> fromXmlParallel(final Reader json, final TypeToken<T> typeOfT, final String path,
+      final ExecutorService executor) throws JsonSyntaxException, JsonIOException {
+    return new ParallelListReader<T>(core, xmlParserCreator, options, directBinding, typeOfT.getType(), path, executor)
+        .read(json);
+  }
+
+  private static Reader openFile(final File file) {
+    try {
+      return new MappedFileReader(file);
+    } catch (final IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  private XmlReader obtainReader(final Reader in) {
+    return readersPool != null ? readersPool.obtain(in) : new XmlReader(in, readerParserCreator, options);
+  }
+
+  private XmlReader obtainReader(final InputStream in) {
+    final InputStream input = in.markSupported() ? in : new BufferedInputStream(in);
+    final String encoding = detectEncoding(input);
+    return readersPool != null
+        ? readersPool.obtain(input, encoding)
+        : new XmlReader(input, encoding, readerParserCreator, options);
+  }
+
+  /**
+   * Detects encoding by the byte order mark or the XML declaration and skips the byte order mark:
+   * some parsers (XPP3) ignore both when they are given a stream without encoding.
+   * @param in stream that supports marks
+   * @return encoding name
+   */
+  private static String detectEncoding(final InputStream in) {
+    try {
+      final byte[] head = new byte[XmlEncoding.DECLARATION_LIMIT];
+      in.mark(head.length);
+      int count = 0;
+      int read;
+      while (count < head.length && (read = in.read(head, count, head.length - count)) > 0) {
+        count += read;
+      }
+      in.reset();
+      final ByteBuffer buffer = ByteBuffer.wrap(head, 0, count);
+      final Charset charset = XmlEncoding.detect(buffer);
+      for (int i = buffer.position(); i > 0; i--) {
+        in.read(); // byte order mark
+      }
+      return charset.name();
+    } catch (final IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  private void recycleReader(final XmlReader reader) {
+    if (readersPool != null) {
+      readersPool.recycle(reader);
+    }
+  }
+
+  /** @return number of bytes in UTF-8 representation of the string, so that stats always report bytes */
+  private static long utf8Length(final String string) {
+    final int length = string.length();
+    long result = length;
+    for (int i = 0; i < length; i++) {
+      final char c = string.charAt(i);
+      if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+        // surrogate pairs take 4 bytes, 2 for each char
+        result++;
+      } else if (c >= 0x800) {
+        result += 2;
+      } else if (c >= 0x80) {
+        result++;
+      }
+    }
+    return result;
+  }
+
   private static void assertFullConsumption(final Object obj, final JsonReader reader) {
     try {
       if (obj != null && reader.peek() != JsonToken.END_DOCUMENT) {
@@ -96,7 +492,143 @@ public class GsonXml {
     return core.fromJson(reader, typeOfT);
   }
 
+  /**
+   * Serializes the specified object to XML.
+   * @param src object to serialize
+   * @return XML representation of {@code src}
+   * @see #toXml(Object, Type, String, Appendable)
+   */
+  public String toXml(final Object src) {
+    final StringWriter writer = new StringWriter();
+    toXml(src, writer);
+    return writer.toString();
+  }
+
+  /**
+   * Serializes the specified object to XML.
+   * @param src object to serialize
+   * @param writer output
+   * @throws JsonIOException if there was a problem writing to the writer
+   * @see #toXml(Object, Type, String, Appendable)
+   */
+  public void toXml(final Object src, final Appendable writer) throws JsonIOException {
+    if (src != null) {
+      toXml(src, src.getClass(), XmlWriter.DEFAULT_ROOT_NAME, writer);
+    }
+  }
+
+  /**
+   * Serializes the specified object to XML streaming it directly to the output.
+   * @param src object to serialize
+   * @param typeOfSrc type of {@code src}
+   * @param rootName name of the root element, used only when root is skipped
+   * @param writer output
+   * @throws JsonIOException if there was a problem writing to the writer
+   * @see XmlWriter
+   */
+  public void toXml(final Object src, final Type typeOfSrc, final String rootName, final Appendable writer) throws JsonIOException {
+    if (src == null) {
+      return;
+    }
+    toXml(src, typeOfSrc, new XmlWriter(Streams.writerForAppendable(writer), options, rootName));
+  }
+
+  /**
+   * Writes XML representation of {@code src} of type {@code typeOfSrc} to {@code writer}.
+   * @param src object to serialize
+   * @param typeOfSrc type of {@code src}
+   * @param writer XML writer
+   * @throws JsonIOException if there was a problem writing to the writer
+   */
+  public void toXml(final Object src, final Type typeOfSrc, final XmlWriter writer) throws JsonIOException {
+    core.toJson(src, typeOfSrc, writer);
+  }
+
+  /**
+   * Converts the next JSON value to XML streaming reader tokens to an {@link XmlWriter}: '@' names become attributes,
+   * '$' names become text and arrays are written according to {@code setSameNameLists()}. No objects or trees are
+   * created, so memory use does not depend on document size. Attribute names should precede other names of an object,
+   * see {@link XmlWriter}.
+   * @param json JSON source, not closed
+   * @param rootName name of the root element, used only when root is skipped
+   * @param xml output, flushed but not closed
+   * @throws JsonIOException if there was a problem reading JSON or writing XML
+   * @throws JsonSyntaxException if JSON is malformed or cannot be written as XML
+   */
+  public void transcode(final JsonReader json, final String rootName, final Writer xml)
+      throws JsonIOException, JsonSyntaxException {
+    transcode(json, new XmlWriter(xml, options, rootName));
+  }
+
+  /**
+   * Converts the next JSON value to XML encoded in UTF-8.
+   * @param json JSON source, not closed
+   * @param rootName name of the root element, used only when root is skipped
+   * @param xml output, flushed but not closed
+   * @throws JsonIOException if there was a problem reading JSON or writing XML
+   * @throws JsonSyntaxException if JSON is malformed or cannot be written as XML
+   * @see #transcode(JsonReader, String, Writer)
+   */
+  public void transcode(final JsonReader json, final String rootName, final OutputStream xml)
+      throws JsonIOException, JsonSyntaxException {
+    transcode(json, rootName, new OutputStreamWriter(xml, Charset.forName("UTF-8")));
+  }
+
+  /**
+   * Converts the next JSON value to XML.
+   * @param json JSON source, not closed
+   * @param writer XML writer, flushed but not closed
+   * @throws JsonIOException if there was a problem reading JSON or writing XML
+   * @throws JsonSyntaxException if JSON is malformed or cannot be written as XML
+   * @see #transcode(JsonReader, String, Writer)
+   */
+  public void transcode(final JsonReader json, final XmlWriter writer) throws JsonIOException, JsonSyntaxException {
+    try {
+      JsonPump.copy(json, writer);
+      writer.flush();
+    } catch (final MalformedJsonException e) {
+      throw new JsonSyntaxException(e);
+    } catch (final IOException e) {
+      throw new JsonIOException(e);
+    } catch (final IllegalStateException e) {
+      // JSON cannot be written as XML: late attribute, several roots, etc.
+      throw new JsonSyntaxException(e);
+    } catch (final IllegalArgumentException e) {
+      // invalid XML name or character
+      throw new JsonSyntaxException(e);
+    }
+  }
+
   @Override
   public String toString() { return core.toString(); }
 
+  /** Reads a direct byte buffer. */
+  private static final class ByteBufferInputStream extends InputStream {
+    /** Source. */
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(final ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (len == 0) { return 0; }
+      if (!buffer.hasRemaining()) { return -1; }
+      final int count = Math.min(len, buffer.remaining());
+      buffer.get(b, off, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+
 }
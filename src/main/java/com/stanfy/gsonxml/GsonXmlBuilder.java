@@ -2,6 +2,7 @@ package com.stanfy.gsonxml;
 
 import com.google.gson.GsonBuilder;
 import com.stanfy.gsonxml.XmlReader.Options;
+import com.stanfy.gsonxml.parser.XmlParserCreators;
 
 /**
  * Use this builder for constructing {@link GsonXml} object. All methods are very
@@ -10,12 +11,33 @@ import com.stanfy.gsonxml.XmlReader.Options;
  */
 public class GsonXmlBuilder {
 
+  /** Default size of readers pool. */
+  public static final int DEFAULT_READERS_POOL_SIZE = 8;
+
   /** Core builder. */
   private GsonBuilder coreBuilder;
 
   /** Factory for XML parser. */
   private XmlParserCreator xmlParserCreator;
 
+  /** Max count of cached readers. */
+  private int readersPoolSize = DEFAULT_READERS_POOL_SIZE;
+
+  /** Direct binding flag. */
+  private boolean directBinding;
+
+  /** Pipelined parsing flag. */
+  private boolean pipelined;
+
+  /** Parse listener. */
+  private ParseListener parseListener;
+
+  /** Element paths profiler. */
+  private PathProfiler pathProfiler;
+
+  /** Elements filter paths. */
+  private String[] includePaths = new String[0], excludePaths = new String[0];
+
   /** Options. */
   private final Options options = new Options();
   {
@@ -38,6 +60,7 @@ public class GsonXmlBuilder {
 
   /**
    * Set a factory for XML pull parser.
+   * When it's not set, {@link XmlParserCreators#defaultCreator()} is used.
    * @param xmlParserCreator instance of {@link XmlParserCreator}
    * @return this instance for chaining
    */
@@ -154,6 +177,118 @@ public class GsonXmlBuilder {
     return this;
   }
 
+  /**
+   * {@link GsonXml} reuses {@link XmlReader} instances together with their XML parsers
+   * in order to avoid per-document setup allocations.
+   * This method limits count of cached readers. Pass 0 to create a new reader for each document.
+   * Default value is {@value #DEFAULT_READERS_POOL_SIZE}.
+   * @param size max count of cached readers
+   * @return this instance for chaining
+   */
+  public GsonXmlBuilder setReadersPoolSize(final int size) {
+    if (size < 0) { throw new IllegalArgumentException("Negative pool size " + size); }
+    this.readersPoolSize = size;
+    return this;
+  }
+
+  /**
+   * Drops all the elements except the given ones (with their subtrees) and their ancestors.
+   * Elements are dropped before they are converted to JSON tokens, so this is the cheapest way to ignore
+   * large parts of a document.
+   * <pre>
+   *   builder.setIncludePaths("channel/item/title", "channel/item/link");
+   * </pre>
+   * Path consists of element names separated by '/' and is relative to the root element
+   * (root name is omitted whether root is skipped or not). Namespace prefixes are not used in paths:
+   * {@code channel/item} matches {@code <ns:item>} whether namespaces are treated or not.
+   * @param paths paths of elements to keep, none to keep everything
+   * @return this instance for chaining
+   */
+  public GsonXmlBuilder setIncludePaths(final String... paths) {
+    this.includePaths = paths.clone();
+    return this;
+  }
+
+  /**
+   * Drops the given elements with their subtrees before they are converted to JSON tokens.
+   * Paths format is the same as for {@link #setIncludePaths(String...)}.
+   * @param paths paths of elements to drop
+   * @return this instance for chaining
+   */
+  public GsonXmlBuilder setExcludePaths(final String... paths) {
+    this.excludePaths = paths.clone();
+    return this;
+  }
+
+  /**
+   * Enables binding of XML straight to objects, without converting it to JSON tokens first.
+   * Used by {@code fromXml} methods for types that Gson binds reflectively (and collections of them)
+   * when all their fields have Gson's built-in types or are such objects themselves.
+   * Fields are matched by {@link com.google.gson.annotations.SerializedName} or field names; types that Gson reads
+   * with other names or without some fields (field naming policies, exclusion strategies, excluded modifiers,
+   * {@code @Expose}, versions) are read as usual, so this option does not change results.
+   * Other types are read as usual too.
+   * Classes annotated with {@link XmlModel} are bound directly with generated adapters regardless of this option.
+   * @param directBinding true to enable direct binding
+   * @return this instance for chaining
+   */
+  public GsonXmlBuilder setDirectBinding(final boolean directBinding) {
+    this.directBinding = directBinding;
+    return this;
+  }
+
+  /**
+   * Runs the XML parser on a background thread, so that parsing overlaps with binding.
+   * Parser events are passed to the reading thread in chunks through a bounded ring,
+   * the parser waits when the ring is full, so memory use does not depend on the document size.
+   * Pays off for large documents on multi-core machines; small documents are read faster without it.
+   * Parsing errors are reported by the reading thread as usual. When reading stops early (a binding error or a closed
+   * {@link XmlIterator}), the reading thread waits until the background parser leaves the input, so the input is
+   * not read after that; a blocked read of the input is waited for.
+   * @param pipelined true to parse on a background thread
+   * @return this instance for chaining
+   */
+  public GsonXmlBuilder setPipelinedParsing(final boolean pipelined) {
+    this.pipelined = pipelined;
+    return this;
+  }
+
+  /**
+   * Sets a listener that receives counters of every document read with {@code fromXml} or {@code iterate}:
+   * XML events, JSON tokens and values, queues and scopes high-water marks, skipped elements, wall time.
+   * Counters are not collected without a listener.
+   * Use {@link ParseStatsAggregator} to sum them up.
+   * @param listener listener instance, null to disable instrumentation
+   * @return this instance for chaining
+   */
+  public GsonXmlBuilder setParseListener(final ParseListener listener) {
+    this.parseListener = listener;
+    return this;
+  }
+
+  /**
+   * Adds a listener to the one set before, e.g. to publish counters with both
+   * {@link ParseStatsAggregator} and {@link FlightRecorderListener}. Listeners are called in the order they are added.
+   * @param listener listener instance
+   * @return this instance for chaining
+   */
+  public GsonXmlBuilder addParseListener(final ParseListener listener) {
+    if (listener == null) { throw new NullPointerException("listener is null"); }
+    this.parseListener = parseListener == null ? listener : new CompositeParseListener(parseListener, listener);
+    return this;
+  }
+
+  /**
+   * Sets a profiler that attributes parse time and allocations to element paths
+   * for a sampled fraction of documents read with {@code fromXml} or {@code iterate}.
+   * @param profiler profiler instance, null to disable profiling
+   * @return this instance for chaining
+   */
+  public GsonXmlBuilder setPathProfiler(final PathProfiler profiler) {
+    this.pathProfiler = profiler;
+    return this;
+  }
+
   /**
    * Creates a {@link GsonXml} instance based on the current configuration. This method is free of
    * side-effects to this {@code GsonXmlBuilder} instance and hence can be called multiple times.
@@ -164,7 +299,12 @@ public class GsonXmlBuilder {
     if (coreBuilder == null) {
       coreBuilder = new GsonBuilder();
     }
-    return new GsonXml(coreBuilder.create(), xmlParserCreator, options);
+    // created instances must not see later changes of this builder
+    final Options options = this.options.copy();
+    options.pathFilter = PathFilter.create(includePaths, excludePaths);
+    final XmlParserCreator creator = xmlParserCreator != null ? xmlParserCreator : XmlParserCreators.defaultCreator();
+    return new GsonXml(coreBuilder.create(), creator, options, readersPoolSize, directBinding, pipelined,
+        parseListener, pathProfiler);
   }
 
 
@@ -0,0 +1,77 @@
+package com.stanfy.gsonxml;
+
+import java.io.IOException;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.internal.LazilyParsedNumber;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Copies tokens of one JSON value from a reader to a writer as they are read, without building a tree.
+ * Used to transcode XML to JSON ({@link XmlReader} to {@link JsonWriter}) and back
+ * ({@link JsonReader} to {@link XmlWriter}).
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class JsonPump {
+
+  private JsonPump() { /* hidden */ }
+
+  /**
+   * Copies the next value.
+   * @param in source
+   * @param out destination, not flushed
+   * @return false if source has no more values
+   */
+  static boolean copy(final JsonReader in, final JsonWriter out) throws IOException {
+    int depth = 0;
+    do {
+      switch (in.peek()) {
+      case BEGIN_OBJECT:
+        in.beginObject();
+        out.beginObject();
+        depth++;
+        break;
+      case END_OBJECT:
+        in.endObject();
+        out.endObject();
+        depth--;
+        break;
+      case BEGIN_ARRAY:
+        in.beginArray();
+        out.beginArray();
+        depth++;
+        break;
+      case END_ARRAY:
+        in.endArray();
+        out.endArray();
+        depth--;
+        break;
+      case NAME:
+        out.name(in.nextName());
+        break;
+      case STRING:
+        out.value(in.nextString());
+        break;
+      case NUMBER:
+        // written as is: no precision is lost
+        out.value(new LazilyParsedNumber(in.nextString()));
+        break;
+      case BOOLEAN:
+        out.value(in.nextBoolean());
+        break;
+      case NULL:
+        in.nextNull();
+        out.nullValue();
+        break;
+      case END_DOCUMENT:
+        if (depth > 0) { throw new JsonSyntaxException("Unexpected end of document"); }
+        return false;
+      default:
+        throw new AssertionError();
+      }
+    } while (depth > 0);
+    return true;
+  }
+
+}
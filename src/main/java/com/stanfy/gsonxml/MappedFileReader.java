@@ -0,0 +1,158 @@
+package com.stanfy.gsonxml;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reads a file mapped to memory by windows, bytes are decoded straight to the caller's buffer.
+ * Windows are remapped while reading, so files larger than 2GB are supported.
+ * Encoding is detected with {@link XmlEncoding}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class MappedFileReader extends Reader {
+
+  /** Default window size. */
+  static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+  /** No pending character marker. */
+  private static final int NO_CHAR = -1;
+
+  /** File stream. */
+  private final FileInputStream stream;
+  /** File channel. */
+  private FileChannel channel;
+  /** File size. */
+  private final long size;
+  /** Window size. */
+  private final int windowSize;
+
+  /** Current window. */
+  private MappedByteBuffer window;
+  /** Position of the current window in the file. */
+  private long windowStart;
+
+  /** Decoder. */
+  private final CharsetDecoder decoder;
+  /** Whether ASCII characters are copied without decoder. */
+  private final boolean asciiCompatible;
+  /** Buffer used when only one character fits into the output but a surrogate pair is decoded. */
+  private final CharBuffer pair = CharBuffer.allocate(2);
+  /** Character left from a surrogate pair. */
+  private int pending = NO_CHAR;
+  /** Decoder state. */
+  private boolean flushing, eof;
+
+  MappedFileReader(final File file) throws IOException {
+    this(file, WINDOW_SIZE);
+  }
+
+  MappedFileReader(final File file, final int windowSize) throws IOException {
+    // window must fit any encoded character
+    if (windowSize < 4) { throw new IllegalArgumentException("Window is too small: " + windowSize); }
+    this.stream = new FileInputStream(file);
+    try {
+      this.channel = stream.getChannel();
+      this.size = channel.size();
+      this.windowSize = windowSize;
+      map(0);
+      final Charset charset = XmlEncoding.detect(window);
+      this.asciiCompatible = "UTF-8".equals(charset.name()) || "US-ASCII".equals(charset.name());
+      this.decoder = charset.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    } catch (final IOException e) {
+      stream.close();
+      throw e;
+    }
+  }
+
+  private void map(final long position) throws IOException {
+    windowStart = position;
+    window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+  }
+
+  @Override
+  public int read(final char[] cbuf, final int off, final int len) throws IOException {
+    if (channel == null) { throw new IOException("Reader is closed"); }
+    if (len == 0) { return 0; }
+    int start = off;
+    if (pending != NO_CHAR) {
+      cbuf[start++] = (char) pending;
+      pending = NO_CHAR;
+    }
+    final CharBuffer out = CharBuffer.wrap(cbuf, start, off + len - start);
+    while (out.position() == off && !eof) {
+      decode(out);
+    }
+    final int count = out.position() - off;
+    return count == 0 ? -1 : count;
+  }
+
+  private void decode(final CharBuffer out) throws IOException {
+    if (flushing) {
+      eof = decoder.flush(out).isUnderflow();
+      return;
+    }
+    if (asciiCompatible && copyAscii(out)) { return; }
+    final boolean last = windowStart + window.limit() == size;
+    final CoderResult result = decoder.decode(window, out, last);
+    if (result.isOverflow()) {
+      if (out.remaining() == 1) {
+        // only one character fits but a surrogate pair is decoded
+        pair.clear();
+        decoder.decode(window, pair, last);
+        pair.flip();
+        if (pair.hasRemaining()) { out.put(pair.get()); }
+        if (pair.hasRemaining()) { pending = pair.get(); }
+      }
+      return;
+    }
+    if (!last) {
+      // the window is consumed or ends with a part of a multibyte character
+      map(windowStart + window.position());
+      return;
+    }
+    flushing = true;
+  }
+
+  /**
+   * Copies leading ASCII characters: the decoder is much slower with direct buffers.
+   * @return true if something was copied
+   */
+  private boolean copyAscii(final CharBuffer out) {
+    final MappedByteBuffer window = this.window;
+    final char[] chars = out.array();
+    int in = window.position();
+    final int inLimit = window.limit();
+    final int start = out.position();
+    int position = start;
+    final int limit = Math.min(out.limit(), position + inLimit - in);
+    while (position < limit) {
+      final byte b = window.get(in);
+      if (b < 0) { break; }
+      chars[position++] = (char) b;
+      in++;
+    }
+    window.position(in);
+    out.position(position);
+    return position != start;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel == null) { return; }
+    channel = null;
+    window = null;
+    stream.close();
+  }
+
+}
@@ -0,0 +1,144 @@
+package com.stanfy.gsonxml;
+
+/**
+ * Symbol table for names produced by {@link XmlReader}: element names, attribute names (prefixed with '@')
+ * and text node names ('$', '$1', ...). Names met before are returned without allocations.
+ * Returned strings are canonical, so their hash codes are computed once.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class NamesTable {
+
+  /** Max count of stored names. Names beyond this limit are built on each request. */
+  static final int MAX_SIZE = 4096;
+
+  /** Element marker. */
+  private static final char ELEMENT = 0;
+  /** Attribute marker. */
+  private static final char ATTRIBUTE = '@';
+  /** Text marker. */
+  private static final char TEXT = '$';
+
+  /** Markers. */
+  private char[] markers;
+  /** Namespace prefixes. */
+  private String[] prefixes;
+  /** Local names. */
+  private String[] names;
+  /** Result names. */
+  private String[] values;
+
+  /** Count of stored names. */
+  private int size;
+
+  /** Text node names. */
+  private String[] textNames = new String[] {String.valueOf(TEXT)};
+
+  public NamesTable() {
+    createArrays(64);
+  }
+
+  private void createArrays(final int capacity) {
+    markers = new char[capacity];
+    prefixes = new String[capacity];
+    names = new String[capacity];
+    values = new String[capacity];
+  }
+
+  /**
+   * @param prefix namespace prefix, may be null or empty
+   * @param name local name
+   * @return element name: {@code <prefix>name} or {@code name}
+   */
+  public String element(final String prefix, final String name) {
+    return lookup(ELEMENT, prefix, name);
+  }
+
+  /**
+   * @param prefix namespace prefix, may be null or empty
+   * @param name local name
+   * @return attribute name: {@code @<prefix>name} or {@code @name}
+   */
+  public String attribute(final String prefix, final String name) {
+    return lookup(ATTRIBUTE, prefix, name);
+  }
+
+  /**
+   * @param index text node index inside the current object
+   * @return text node name: {@code $} for the first node, {@code $index} for others
+   */
+  public String text(final int index) {
+    if (index >= textNames.length) {
+      final String[] newNames = new String[Math.max(index + 1, textNames.length * 2)];
+      System.arraycopy(textNames, 0, newNames, 0, textNames.length);
+      textNames = newNames;
+    }
+    String result = textNames[index];
+    if (result == null) {
+      result = String.valueOf(TEXT) + index;
+      textNames[index] = result;
+    }
+    return result;
+  }
+
+  private String lookup(final char marker, final String prefix, final String name) {
+    final String ns = prefix != null && prefix.length() > 0 ? prefix : null;
+    int hash = name.hashCode() * 31 + (ns != null ? ns.hashCode() : 0) + marker;
+    hash ^= hash >>> 16;
+    final int mask = values.length - 1;
+    int index = hash & mask;
+    String value;
+    while ((value = values[index]) != null) {
+      if (markers[index] == marker && name.equals(names[index])
+          && (ns == null ? prefixes[index] == null : ns.equals(prefixes[index]))) {
+        return value;
+      }
+      index = (index + 1) & mask;
+    }
+
+    value = compose(marker, ns, name);
+    if (size < MAX_SIZE) {
+      markers[index] = marker;
+      prefixes[index] = ns;
+      names[index] = name;
+      values[index] = value;
+      if (++size * 2 > values.length) {
+        rehash();
+      }
+    }
+    return value;
+  }
+
+  private void rehash() {
+    final char[] oldMarkers = markers;
+    final String[] oldPrefixes = prefixes, oldNames = names, oldValues = values;
+    createArrays(oldValues.length * 2);
+    final int mask = values.length - 1;
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] == null) { continue; }
+      final String ns = oldPrefixes[i];
+      int hash = oldNames[i].hashCode() * 31 + (ns != null ? ns.hashCode() : 0) + oldMarkers[i];
+      hash ^= hash >>> 16;
+      int index = hash & mask;
+      while (values[index] != null) {
+        index = (index + 1) & mask;
+      }
+      markers[index] = oldMarkers[i];
+      prefixes[index] = ns;
+      names[index] = oldNames[i];
+      values[index] = oldValues[i];
+    }
+  }
+
+  private static String compose(final char marker, final String ns, final String name) {
+    if (marker == ELEMENT && ns == null) { return name; }
+    final StringBuilder result = new StringBuilder(name.length() + (ns != null ? ns.length() + 3 : 1));
+    if (marker != ELEMENT) {
+      result.append(marker);
+    }
+    if (ns != null) {
+      result.append('<').append(ns).append('>');
+    }
+    return result.append(name).toString();
+  }
+
+}
@@ -0,0 +1,348 @@
+package com.stanfy.gsonxml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.stanfy.gsonxml.XmlReader.Options;
+
+/**
+ * Binds repeated XML elements concurrently.
+ * The calling thread parses the document, locates the elements addressed by a path
+ * (same semantics as for {@link XmlIterator}) and captures them as {@link XmlRecord}s.
+ * Batches of records are bound by executor threads, each record being treated as a document
+ * whose root is skipped. Results are collected in the document order; batches that the executor has not started
+ * by then are bound by the calling thread.
+ * @param <T> element type
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class ParallelListReader<T> {
+
+  /** Records per task. */
+  static final int BATCH_SIZE = 64;
+
+  /** Maximum number of tasks waiting for binding per available processor. */
+  private static final int PENDING_PER_PROCESSOR = 4;
+
+  /** Input placeholder for readers bound to records. */
+  private static final Reader NO_INPUT = new StringReader("");
+
+  /** Gson instance. */
+  private final Gson gson;
+  /** Binder for records, created for the record options. */
+  private final XmlBinder binder;
+  /** Element type. */
+  private final Type type;
+  /** Options of the document. */
+  private final Options options;
+  /** Options used to bind records. */
+  private final Options recordOptions;
+  /** Executor that binds records. */
+  private final ExecutorService executor;
+
+  /** Names of objects that contain the list. */
+  private final String[] objectNames;
+  /** Name of the list, null if root element is the list. */
+  private final String listName;
+
+  /** XML parser. */
+  private final XmlPullParser parser;
+  /** Elements filter state, null if paths are not filtered. */
+  private final PathFilter.Matcher pathMatcher;
+  /** Names table for namespaced names. */
+  private final NamesTable namesTable = new NamesTable();
+  /** Text bounds holder. */
+  private final int[] bounds = new int[2];
+  /** Namespaces in scope indexed by record depth. */
+  private String[][] scopes = new String[16][];
+
+  ParallelListReader(final Gson gson, final XmlParserCreator creator, final Options options, final boolean directBinding,
+      final Type type, final String path, final ExecutorService executor) {
+    if (executor == null) { throw new NullPointerException("executor is null"); }
+    this.gson = gson;
+    this.type = type;
+    this.options = options;
+    this.executor = executor;
+
+    final String[] segments = path.split("/");
+    final int listIndex = options.sameNameList ? segments.length - 1 : segments.length - 2;
+    if (listIndex < 0 && !options.skipRoot) {
+      throw new IllegalArgumentException("Path '" + path + "' must contain at least 2 elements when root is not skipped"
+          + " and lists are not same-name");
+    }
+    this.objectNames = new String[Math.max(listIndex, 0)];
+    System.arraycopy(segments, 0, objectNames, 0, objectNames.length);
+    this.listName = listIndex >= 0 ? segments[listIndex] : null;
+
+    // every record is a document with a skipped root, paths are filtered when records are captured
+    this.recordOptions = new Options();
+    recordOptions.primitiveArrays = options.primitiveArrays;
+    recordOptions.sameNameList = options.sameNameList;
+    recordOptions.namespaces = options.namespaces;
+    recordOptions.rootArrayPrimitive = options.rootArrayPrimitive;
+    recordOptions.skipRoot = true;
+    this.binder = new XmlBinder(gson, recordOptions, directBinding);
+
+    this.parser = creator.createParser();
+    this.pathMatcher = options.pathFilter != null ? options.pathFilter.matcher() : null;
+  }
+
+  /**
+   * Reads the document. Input is not closed.
+   * @param in XML source
+   * @return bound elements in the document order, empty list if path is not found
+   */
+  List<T> read(final Reader in) {
+    final ArrayDeque<FutureTask<List<T>>> pending = new ArrayDeque<FutureTask<List<T>>>();
+    final int maxPending = Runtime.getRuntime().availableProcessors() * PENDING_PER_PROCESSOR;
+    final List<T> result = new ArrayList<T>();
+    try {
+      parser.setInput(in);
+      parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, options.namespaces);
+
+      int depth = 0;
+      if (options.skipRoot) {
+        if (!nextChild(0)) { return result; }
+        depth = 1;
+      }
+      boolean found = true;
+      for (final String name : objectNames) {
+        found = seek(name, depth);
+        if (!found) { break; }
+        depth++;
+      }
+      if (found && listName != null && !options.sameNameList) {
+        found = seek(listName, depth);
+        depth++;
+      }
+
+      if (found) {
+        List<XmlRecord> batch = new ArrayList<XmlRecord>(BATCH_SIZE);
+        boolean hasRecord = listName == null || !options.sameNameList ? nextChild(depth) : seek(listName, depth);
+        XmlRecord record = null;
+        while (hasRecord) {
+          record = capture(depth + 1, record);
+          batch.add(record);
+          if (batch.size() == BATCH_SIZE) {
+            if (pending.size() >= maxPending) {
+              result.addAll(take(pending));
+            }
+            pending.add(submit(batch));
+            batch = new ArrayList<XmlRecord>(BATCH_SIZE);
+          }
+          hasRecord = nextChild(depth)
+              && (listName == null || !options.sameNameList || listName.equals(elementName()));
+        }
+        if (!batch.isEmpty()) {
+          pending.add(submit(batch));
+        }
+      }
+
+      while (!pending.isEmpty()) {
+        result.addAll(take(pending));
+      }
+      return result;
+    } catch (final XmlPullParserException e) {
+      throw new JsonSyntaxException("XML parsing exception", cancel(pending, e));
+    } catch (final IOException e) {
+      throw new JsonIOException(cancel(pending, e));
+    } catch (final RuntimeException e) {
+      throw cancel(pending, e);
+    }
+  }
+
+  private FutureTask<List<T>> submit(final List<XmlRecord> batch) {
+    final FutureTask<List<T>> task = new FutureTask<List<T>>(new Task(batch));
+    try {
+      executor.execute(task);
+    } catch (final RejectedExecutionException e) {
+      // run by the calling thread in take()
+    }
+    return task;
+  }
+
+  /**
+   * Takes the oldest batch result. A batch that has not been started by the executor yet is bound by the calling
+   * thread, so the call never waits for executor threads that are busy (or for the calling thread itself,
+   * when it runs on the same executor).
+   */
+  private List<T> take(final ArrayDeque<FutureTask<List<T>>> pending) {
+    final FutureTask<List<T>> task = pending.poll();
+    task.run(); // does nothing if the task has been started
+    try {
+      return task.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JsonIOException(e);
+    } catch (final ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+      if (cause instanceof Error) { throw (Error) cause; }
+      throw new JsonSyntaxException(cause);
+    }
+  }
+
+  private static <E extends Exception> E cancel(final ArrayDeque<? extends Future<?>> pending, final E e) {
+    for (final Future<?> task : pending) {
+      task.cancel(false);
+    }
+    pending.clear();
+    return e;
+  }
+
+  /**
+   * Moves to the next element child of the element at the given depth. Filtered out children are skipped.
+   * @param depth parent depth, 0 for the document
+   * @return true if parser is at the child start tag, false if parser has reached the parent end
+   */
+  private boolean nextChild(final int depth) throws XmlPullParserException, IOException {
+    int type;
+    while ((type = parser.next()) != XmlPullParser.END_DOCUMENT) {
+      if (type == XmlPullParser.END_TAG && parser.getDepth() == depth) { return false; }
+      if (type == XmlPullParser.START_TAG) {
+        if (!filteredOut()) { return true; }
+        skip();
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Moves to the first child with the given name. Other children are skipped.
+   * @param name element name as it's seen by Gson
+   * @param depth parent depth, 0 for the document
+   * @return true if the child is found
+   */
+  private boolean seek(final String name, final int depth) throws XmlPullParserException, IOException {
+    while (nextChild(depth)) {
+      if (name.equals(elementName())) { return true; }
+      skip();
+    }
+    return false;
+  }
+
+  private void skip() throws XmlPullParserException, IOException {
+    final int depth = parser.getDepth();
+    while (parser.next() != XmlPullParser.END_TAG || parser.getDepth() > depth) {
+      // skip the subtree
+    }
+  }
+
+  private boolean filteredOut() {
+    return pathMatcher != null && !pathMatcher.start(parser.getName(), parser.getDepth());
+  }
+
+  private String elementName() throws XmlPullParserException {
+    if (!options.namespaces) { return parser.getName(); }
+    return namesTable.element(XmlReader.namespacePrefix(parser.getNamespace(), parser), parser.getName());
+  }
+
+  /**
+   * Captures the current element subtree.
+   * @param base depth of the record element
+   * @param previous previous record used as a capacity hint, may be null
+   * @return captured events
+   */
+  private XmlRecord capture(final int base, final XmlRecord previous) throws XmlPullParserException, IOException {
+    final XmlRecord record = new XmlRecord(options.namespaces, previous);
+    int depth = 1;
+    record.startTag(parser, depth, scope(depth, base));
+    int type;
+    while ((type = parser.next()) != XmlPullParser.END_TAG || depth > 1) {
+      switch (type) {
+      case XmlPullParser.START_TAG:
+        if (filteredOut()) {
+          skip();
+        } else {
+          depth++;
+          record.startTag(parser, depth, scope(depth, base));
+        }
+        break;
+      case XmlPullParser.END_TAG:
+        record.endTag(parser, depth, scopes[depth]);
+        depth--;
+        break;
+      case XmlPullParser.TEXT:
+        record.text(parser, depth, scopes[depth], bounds);
+        break;
+      case XmlPullParser.END_DOCUMENT:
+        throw new XmlPullParserException("Unexpected end of document");
+      default:
+        break;
+      }
+    }
+    record.endTag(parser, depth, scopes[depth]);
+    return record;
+  }
+
+  /** @return namespaces in scope of the current start tag, reusing the parent scope if nothing is declared */
+  private String[] scope(final int depth, final int base) throws XmlPullParserException {
+    if (!options.namespaces) { return null; }
+    if (depth >= scopes.length) {
+      final String[][] newScopes = new String[depth * 2][];
+      System.arraycopy(scopes, 0, newScopes, 0, scopes.length);
+      scopes = newScopes;
+    }
+    final int parserDepth = base + depth - 1;
+    final int count = parser.getNamespaceCount(parserDepth);
+    String[] scope;
+    if (depth > 1 && count == parser.getNamespaceCount(parserDepth - 1)) {
+      scope = scopes[depth - 1];
+    } else {
+      scope = new String[count * 2];
+      for (int i = 0; i < count; i++) {
+        scope[i * 2] = parser.getNamespacePrefix(i);
+        scope[i * 2 + 1] = parser.getNamespaceUri(i);
+      }
+    }
+    scopes[depth] = scope;
+    return scope;
+  }
+
+  /** Binds a batch of records. */
+  private final class Task implements Callable<List<T>> {
+
+    /** Records. */
+    private final List<XmlRecord> records;
+
+    Task(final List<XmlRecord> records) {
+      this.records = records;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> call() {
+      final XmlRecord.Parser recordParser = new XmlRecord.Parser();
+      final XmlReader reader = new XmlReader(new XmlParserCreator() {
+        @Override
+        public XmlPullParser createParser() { return recordParser; }
+      }, recordOptions);
+      final boolean direct = binder.supports(type);
+
+      final List<T> result = new ArrayList<T>(records.size());
+      for (final XmlRecord record : records) {
+        recordParser.load(record);
+        reader.reset(NO_INPUT);
+        result.add((T) (direct ? binder.read(reader, type) : gson.fromJson(reader, type)));
+      }
+      return result;
+    }
+  }
+
+}
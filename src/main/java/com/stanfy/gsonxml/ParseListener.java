@@ -0,0 +1,17 @@
+package com.stanfy.gsonxml;
+
+/**
+ * Receives counters of every document read by {@link GsonXml}.
+ * Called on the reading thread when the document is read, or when reading fails.
+ * For {@link XmlIterator} it's called when the iterator is exhausted or closed.
+ * @see ParseStatsAggregator
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public interface ParseListener {
+
+  /**
+   * @param stats document counters, the instance is not reused
+   */
+  void onParse(ParseStats stats);
+
+}
@@ -0,0 +1,106 @@
+package com.stanfy.gsonxml;
+
+import java.lang.reflect.Type;
+
+/**
+ * Counters of a single document read, passed to {@link ParseListener}.
+ * Counters are collected only when a listener is set with {@link GsonXmlBuilder#setParseListener(ParseListener)}.
+ * Token related counters stay zero for objects bound directly.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public final class ParseStats {
+
+  /** Requested type. */
+  final Type type;
+  /** Input length in bytes, -1 if unknown. */
+  final long documentSize;
+
+  /** Counters. */
+  long objects, xmlEvents, tokens, values, skippedSubtrees;
+  /** High-water marks. */
+  int maxTokensQueueSize, maxValuesQueueSize, maxScopeDepth;
+  /** Buffers reallocations. */
+  int bufferGrowths;
+  /** Whether reader was taken from the pool. */
+  boolean readerReused;
+  /** Whether reading has failed. */
+  boolean failed;
+  /** Start time and duration. */
+  long startNanos, timeNanos;
+
+  ParseStats(final Type type, final long documentSize) {
+    this.type = type;
+    this.documentSize = documentSize;
+    this.startNanos = System.nanoTime();
+  }
+
+  /** Updates high-water marks. */
+  void sample(final int tokensQueueSize, final int valuesQueueSize, final int scopeDepth) {
+    if (tokensQueueSize > maxTokensQueueSize) { maxTokensQueueSize = tokensQueueSize; }
+    if (valuesQueueSize > maxValuesQueueSize) { maxValuesQueueSize = valuesQueueSize; }
+    if (scopeDepth > maxScopeDepth) { maxScopeDepth = scopeDepth; }
+  }
+
+  void finish(final boolean failed) {
+    this.failed = failed;
+    this.timeNanos = System.nanoTime() - startNanos;
+  }
+
+  /**
+   * @return type requested by {@code fromXml()}, element type for {@link XmlIterator},
+   * {@link com.google.gson.JsonElement} for {@code transcode()}
+   */
+  public Type getType() { return type; }
+
+  /**
+   * @return length of the input in bytes (UTF-8 length for strings), -1 for readers and streams
+   */
+  public long getDocumentSize() { return documentSize; }
+
+  /** @return count of bound objects: 1 for {@code fromXml()}, elements returned by {@link XmlIterator} */
+  public long getObjects() { return objects; }
+
+  /** @return XML parser events consumed, including events of skipped elements */
+  public long getXmlEvents() { return xmlEvents; }
+
+  /** @return JSON tokens passed to Gson */
+  public long getTokens() { return tokens; }
+
+  /** @return values (names and scalars) put to the values queue */
+  public long getValues() { return values; }
+
+  /** @return maximum size of the tokens queue */
+  public int getMaxTokensQueueSize() { return maxTokensQueueSize; }
+
+  /** @return maximum size of the values queue */
+  public int getMaxValuesQueueSize() { return maxValuesQueueSize; }
+
+  /** @return maximum depth of the scopes stack */
+  public int getMaxScopeDepth() { return maxScopeDepth; }
+
+  /** @return count of reader buffers that had to grow */
+  public int getBufferGrowths() { return bufferGrowths; }
+
+  /** @return elements skipped as unknown values or dropped by paths filter */
+  public long getSkippedSubtrees() { return skippedSubtrees; }
+
+  /** @return true if reader was taken from the readers pool */
+  public boolean isReaderReused() { return readerReused; }
+
+  /** @return true if reading has failed with an exception */
+  public boolean isFailed() { return failed; }
+
+  /** @return wall time of the read in nanoseconds */
+  public long getTimeNanos() { return timeNanos; }
+
+  @Override
+  public String toString() {
+    return "ParseStats{type=" + type + ", documentSize=" + documentSize + ", objects=" + objects
+        + ", xmlEvents=" + xmlEvents + ", tokens=" + tokens + ", values=" + values
+        + ", maxTokensQueueSize=" + maxTokensQueueSize + ", maxValuesQueueSize=" + maxValuesQueueSize
+        + ", maxScopeDepth=" + maxScopeDepth + ", bufferGrowths=" + bufferGrowths
+        + ", skippedSubtrees=" + skippedSubtrees + ", readerReused=" + readerReused
+        + ", failed=" + failed + ", timeNanos=" + timeNanos + "}";
+  }
+
+}
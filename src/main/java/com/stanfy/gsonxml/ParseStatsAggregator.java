@@ -0,0 +1,226 @@
+package com.stanfy.gsonxml;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Sums counters of all the documents. Can be shared by {@link GsonXml} instances used from different threads.
+ * Latencies are counted in a histogram with decimal buckets (10us, 100us, ... 10s).
+ * Aggregator can be published to the platform MBean server with {@link #registerMBean(String)}.
+ * <pre>
+ *   ParseStatsAggregator stats = new ParseStatsAggregator();
+ *   GsonXml gsonXml = new GsonXmlBuilder().setParseListener(stats).create();
+ * </pre>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class ParseStatsAggregator implements ParseListener, ParseStatsAggregatorMXBean {
+
+  /** Latency buckets bounds. */
+  private static final long[] LATENCY_BOUNDS = {
+    10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L
+  };
+
+  /** Totals. */
+  private final AtomicLong parses = new AtomicLong(), failures = new AtomicLong(), reusedReaders = new AtomicLong(),
+      objects = new AtomicLong(), documentSize = new AtomicLong(), xmlEvents = new AtomicLong(), tokens = new AtomicLong(), values = new AtomicLong(),
+      skippedSubtrees = new AtomicLong(), bufferGrowths = new AtomicLong(), timeNanos = new AtomicLong();
+
+  /** Maximums. */
+  private final AtomicLong maxTokensQueueSize = new AtomicLong(), maxValuesQueueSize = new AtomicLong(),
+      maxScopeDepth = new AtomicLong(), maxTimeNanos = new AtomicLong();
+
+  /** Latency histogram. */
+  private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BOUNDS.length + 1);
+
+  /** Start of the measurement. */
+  private volatile long startNanos = System.nanoTime();
+
+  /** Registered MBean name. */
+  private ObjectName objectName;
+
+  @Override
+  public void onParse(final ParseStats stats) {
+    parses.incrementAndGet();
+    if (stats.failed) { failures.incrementAndGet(); }
+    if (stats.readerReused) { reusedReaders.incrementAndGet(); }
+    objects.addAndGet(stats.objects);
+    if (stats.documentSize > 0) { documentSize.addAndGet(stats.documentSize); }
+    xmlEvents.addAndGet(stats.xmlEvents);
+    tokens.addAndGet(stats.tokens);
+    values.addAndGet(stats.values);
+    skippedSubtrees.addAndGet(stats.skippedSubtrees);
+    bufferGrowths.addAndGet(stats.bufferGrowths);
+    timeNanos.addAndGet(stats.timeNanos);
+    max(maxTokensQueueSize, stats.maxTokensQueueSize);
+    max(maxValuesQueueSize, stats.maxValuesQueueSize);
+    max(maxScopeDepth, stats.maxScopeDepth);
+    max(maxTimeNanos, stats.timeNanos);
+    latencies.incrementAndGet(bucket(stats.timeNanos));
+  }
+
+  private static int bucket(final long nanos) {
+    int i = 0;
+    while (i < LATENCY_BOUNDS.length && nanos >= LATENCY_BOUNDS[i]) {
+      i++;
+    }
+    return i;
+  }
+
+  private static void max(final AtomicLong max, final long value) {
+    long current;
+    while ((current = max.get()) < value) {
+      if (max.compareAndSet(current, value)) { return; }
+    }
+  }
+
+  /** Resets all the counters. Documents read concurrently with this call may be partially counted. */
+  @Override
+  public void reset() {
+    final AtomicLong[] all = {parses, failures, reusedReaders, objects, documentSize, xmlEvents, tokens, values, skippedSubtrees,
+        bufferGrowths, timeNanos, maxTokensQueueSize, maxValuesQueueSize, maxScopeDepth, maxTimeNanos};
+    for (final AtomicLong counter : all) {
+      counter.set(0);
+    }
+    for (int i = 0; i < latencies.length(); i++) {
+      latencies.set(i, 0);
+    }
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * Registers this aggregator in the platform MBean server.
+   * @param name object name, e.g. {@code com.stanfy.gsonxml:type=ParseStats,name=feeds}
+   * @throws IllegalArgumentException if name is malformed or already registered
+   * @throws IllegalStateException if this aggregator is already registered
+   */
+  public synchronized void registerMBean(final String name) {
+    if (objectName != null) { throw new IllegalStateException("Already registered as " + objectName); }
+    try {
+      final ObjectName objectName = new ObjectName(name);
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+      this.objectName = objectName;
+    } catch (final JMException e) {
+      throw new IllegalArgumentException("Cannot register " + name, e);
+    }
+  }
+
+  /** Removes this aggregator from the platform MBean server, does nothing if it's not registered. */
+  public synchronized void unregisterMBean() {
+    if (objectName == null) { return; }
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (server.isRegistered(objectName)) {
+        server.unregisterMBean(objectName);
+      }
+    } catch (final JMException e) {
+      throw new IllegalStateException("Cannot unregister " + objectName, e);
+    } finally {
+      objectName = null;
+    }
+  }
+
+  /** @return documents count */
+  @Override
+  public long getParses() { return parses.get(); }
+
+  /** @return count of documents that have failed */
+  @Override
+  public long getFailures() { return failures.get(); }
+
+  /** @return count of documents read with readers taken from the pool */
+  @Override
+  public long getReaderPoolHits() { return reusedReaders.get(); }
+
+  /** @return count of documents that required a new reader */
+  @Override
+  public long getReaderPoolMisses() { return parses.get() - reusedReaders.get(); }
+
+  /** @return XML events of all documents */
+  @Override
+  public long getXmlEvents() { return xmlEvents.get(); }
+
+  /** @return JSON tokens of all documents */
+  @Override
+  public long getTokens() { return tokens.get(); }
+
+  /** @return queued values of all documents */
+  @Override
+  public long getValues() { return values.get(); }
+
+  /** @return skipped subtrees of all documents */
+  @Override
+  public long getSkippedSubtrees() { return skippedSubtrees.get(); }
+
+  /** @return buffer reallocations of all documents */
+  @Override
+  public long getBufferGrowths() { return bufferGrowths.get(); }
+
+  /** @return maximum tokens queue size */
+  @Override
+  public long getMaxTokensQueueSize() { return maxTokensQueueSize.get(); }
+
+  /** @return maximum values queue size */
+  @Override
+  public long getMaxValuesQueueSize() { return maxValuesQueueSize.get(); }
+
+  /** @return maximum scopes stack depth */
+  @Override
+  public long getMaxScopeDepth() { return maxScopeDepth.get(); }
+
+  /** @return total wall time in nanoseconds */
+  @Override
+  public long getTimeNanos() { return timeNanos.get(); }
+
+  /** @return maximum wall time of a document in nanoseconds */
+  @Override
+  public long getMaxTimeNanos() { return maxTimeNanos.get(); }
+
+  /** @return count of bound objects */
+  @Override
+  public long getObjects() { return objects.get(); }
+
+  /** @return total length in bytes of documents with known size */
+  @Override
+  public long getDocumentSize() { return documentSize.get(); }
+
+  @Override
+  public double getParsesPerSecond() { return perSecond(parses.get()); }
+
+  @Override
+  public double getXmlEventsPerSecond() { return perSecond(xmlEvents.get()); }
+
+  private double perSecond(final long count) {
+    final long nanos = System.nanoTime() - startNanos;
+    return nanos > 0 ? count * 1e9 / nanos : 0;
+  }
+
+  @Override
+  public long[] getLatencyBucketBoundsNanos() { return LATENCY_BOUNDS.clone(); }
+
+  @Override
+  public long[] getLatencyHistogram() {
+    final long[] result = new long[latencies.length()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = latencies.get(i);
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "ParseStatsAggregator{parses=" + getParses() + ", failures=" + getFailures() + ", objects=" + getObjects()
+        + ", readerPoolHits=" + getReaderPoolHits() + ", xmlEvents=" + getXmlEvents() + ", tokens=" + getTokens()
+        + ", values=" + getValues() + ", skippedSubtrees=" + getSkippedSubtrees()
+        + ", bufferGrowths=" + getBufferGrowths() + ", maxTokensQueueSize=" + getMaxTokensQueueSize()
+        + ", maxValuesQueueSize=" + getMaxValuesQueueSize() + ", maxScopeDepth=" + getMaxScopeDepth()
+        + ", timeNanos=" + getTimeNanos() + ", maxTimeNanos=" + getMaxTimeNanos()
+        + ", latencyHistogram=" + Arrays.toString(getLatencyHistogram()) + "}";
+  }
+
+}
@@ -0,0 +1,73 @@
+package com.stanfy.gsonxml;
+
+/**
+ * Management interface of {@link ParseStatsAggregator}, exposed with
+ * {@link ParseStatsAggregator#registerMBean(String)}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public interface ParseStatsAggregatorMXBean {
+
+  /** @return documents count */
+  long getParses();
+
+  /** @return count of documents that have failed */
+  long getFailures();
+
+  /** @return count of bound objects */
+  long getObjects();
+
+  /** @return count of documents read with readers taken from the pool */
+  long getReaderPoolHits();
+
+  /** @return count of documents that required a new reader */
+  long getReaderPoolMisses();
+
+  /** @return total length of documents with known size */
+  long getDocumentSize();
+
+  /** @return XML events of all documents */
+  long getXmlEvents();
+
+  /** @return JSON tokens of all documents */
+  long getTokens();
+
+  /** @return queued values of all documents */
+  long getValues();
+
+  /** @return skipped subtrees of all documents */
+  long getSkippedSubtrees();
+
+  /** @return buffer reallocations of all documents */
+  long getBufferGrowths();
+
+  /** @return maximum tokens queue size */
+  long getMaxTokensQueueSize();
+
+  /** @return maximum values queue size */
+  long getMaxValuesQueueSize();
+
+  /** @return maximum scopes stack depth */
+  long getMaxScopeDepth();
+
+  /** @return total wall time in nanoseconds */
+  long getTimeNanos();
+
+  /** @return maximum wall time of a document in nanoseconds */
+  long getMaxTimeNanos();
+
+  /** @return documents per second since creation or the last reset */
+  double getParsesPerSecond();
+
+  /** @return XML events per second since creation or the last reset */
+  double getXmlEventsPerSecond();
+
+  /** @return upper bounds (exclusive) of latency histogram buckets in nanoseconds, the last bucket is unbounded */
+  long[] getLatencyBucketBoundsNanos();
+
+  /** @return count of documents in every latency bucket, one element longer than the bounds */
+  long[] getLatencyHistogram();
+
+  /** Resets all the counters. */
+  void reset();
+
+}
@@ -0,0 +1,135 @@
+package com.stanfy.gsonxml;
+
+/**
+ * Decides which XML elements are passed to {@link XmlReader}.
+ * Paths consist of element names separated by '/' and are relative to the root element.
+ * When include paths are set, only included elements (with their subtrees) and their ancestors are kept.
+ * Excluded elements are dropped with their subtrees.
+ * Filter is immutable and shared, per-reader state is kept by {@link Matcher}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class PathFilter {
+
+  /** Root node of paths tree. */
+  private final Node root = new Node(null);
+
+  /** Whether include paths are defined. */
+  private final boolean hasIncludes;
+
+  private PathFilter(final String[] includes, final String[] excludes) {
+    for (final String path : includes) {
+      add(path).include = true;
+    }
+    for (final String path : excludes) {
+      add(path).exclude = true;
+    }
+    this.hasIncludes = includes.length > 0;
+  }
+
+  /**
+   * @param includes include paths
+   * @param excludes exclude paths
+   * @return filter instance or null if there are no paths
+   */
+  static PathFilter create(final String[] includes, final String[] excludes) {
+    if (includes.length == 0 && excludes.length == 0) { return null; }
+    return new PathFilter(includes, excludes);
+  }
+
+  private Node add(final String path) {
+    if (path == null) { throw new IllegalArgumentException("Path is null"); }
+    Node node = root;
+    for (final String name : path.split("/", -1)) {
+      if (name.length() == 0) { throw new IllegalArgumentException("Path '" + path + "' contains empty element name"); }
+      Node child = node.child(name);
+      if (child == null) {
+        child = node.add(name);
+      }
+      node = child;
+    }
+    return node;
+  }
+
+  /** @return new matcher */
+  Matcher matcher() { return new Matcher(); }
+
+  /** Paths tree node. */
+  private static final class Node {
+    /** Element name. */
+    final String name;
+    /** Children. */
+    Node[] children = new Node[0];
+    /** Flags. */
+    boolean include, exclude;
+
+    Node(final String name) {
+      this.name = name;
+    }
+
+    Node child(final String name) {
+      return child(name, 0);
+    }
+
+    /** @return child named with the {@code name} part that begins at {@code start} */
+    Node child(final String name, final int start) {
+      final Node[] children = this.children;
+      final int length = name.length() - start;
+      for (int i = 0; i < children.length; i++) {
+        final String childName = children[i].name;
+        if (childName.length() == length && name.regionMatches(start, childName, 0, length)) { return children[i]; }
+      }
+      return null;
+    }
+
+    Node add(final String name) {
+      final Node[] newChildren = new Node[children.length + 1];
+      System.arraycopy(children, 0, newChildren, 0, children.length);
+      final Node child = new Node(name);
+      newChildren[children.length] = child;
+      children = newChildren;
+      return child;
+    }
+  }
+
+  /** Tracks position in the paths tree for the current element. */
+  final class Matcher {
+    /** Paths tree nodes for the current elements, indexed by depth. Null if element is not mentioned in paths. */
+    private Node[] nodes = new Node[16];
+    /** Included flags, indexed by depth. */
+    private boolean[] included = new boolean[16];
+
+    /**
+     * Must be called for every start tag that is not dropped.
+     * @param name element name, a namespace prefix is ignored
+     * @param depth element depth, 1 for the root element
+     * @return true if element should be kept, false if element must be dropped with its subtree
+     */
+    boolean start(final String name, final int depth) {
+      if (depth >= nodes.length) {
+        final Node[] newNodes = new Node[depth * 2];
+        System.arraycopy(nodes, 0, newNodes, 0, nodes.length);
+        nodes = newNodes;
+        final boolean[] newIncluded = new boolean[depth * 2];
+        System.arraycopy(included, 0, newIncluded, 0, included.length);
+        included = newIncluded;
+      }
+
+      if (depth == 1) {
+        nodes[1] = root;
+        included[1] = !hasIncludes;
+        return true;
+      }
+
+      final Node parent = nodes[depth - 1];
+      // prefix is a part of the name when namespaces are not processed
+      final Node node = parent != null ? parent.child(name, name.indexOf(':') + 1) : null;
+      if (node != null && node.exclude) { return false; }
+      final boolean included = this.included[depth - 1] || node != null && node.include;
+      if (!included && node == null) { return false; }
+      nodes[depth] = node;
+      this.included[depth] = included;
+      return true;
+    }
+  }
+
+}
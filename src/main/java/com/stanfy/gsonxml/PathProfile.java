@@ -0,0 +1,158 @@
+package com.stanfy.gsonxml;
+
+import java.lang.management.ManagementFactory;
+
+import org.xmlpull.v1.XmlPullParser;
+
+/**
+ * Per-reader state of {@link PathProfiler}. Elements are tracked in a tree of names that is reused between documents,
+ * so no paths are built while a document is read.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class PathProfile {
+
+  /** Allocation counter, null if not supported by the JVM. */
+  private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+  /** Node of the document, its children are root elements. */
+  private final Node document = new Node(null);
+
+  /** Open elements indexed by depth. */
+  private Node[] nodes = new Node[16];
+  /** Open elements measurements indexed by depth. */
+  private long[] startNanos = new long[16], childNanos = new long[16], startBytes = new long[16],
+      childBytes = new long[16];
+
+  /** Current thread id. */
+  private long threadId;
+
+  private static com.sun.management.ThreadMXBean threads() {
+    try {
+      final Object threads = ManagementFactory.getThreadMXBean();
+      if (!(threads instanceof com.sun.management.ThreadMXBean)) { return null; }
+      final com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) threads;
+      return result.isThreadAllocatedMemorySupported() && result.isThreadAllocatedMemoryEnabled() ? result : null;
+    } catch (final Throwable e) {
+      return null; // no management API (e.g. Android)
+    }
+  }
+
+  /** Prepares for a new document. */
+  void start() {
+    threadId = Thread.currentThread().getId();
+    nodes[0] = document;
+  }
+
+  /**
+   * Must be called for every parser event.
+   * @param type event type
+   * @param parser parser positioned at the event
+   */
+  void event(final int type, final XmlPullParser parser) {
+    if (type == XmlPullParser.START_TAG) {
+      final int depth = parser.getDepth();
+      ensureCapacity(depth);
+      nodes[depth] = nodes[depth - 1].child(parser.getName());
+      childNanos[depth] = 0;
+      childBytes[depth] = 0;
+      startBytes[depth] = allocatedBytes();
+      startNanos[depth] = System.nanoTime();
+    } else if (type == XmlPullParser.END_TAG) {
+      final long nanos = System.nanoTime();
+      final long bytes = allocatedBytes();
+      final int depth = parser.getDepth();
+      final Node node = nodes[depth];
+      if (node == null) { return; } // started before profiling
+      nodes[depth] = null;
+      final long totalNanos = nanos - startNanos[depth], totalBytes = bytes - startBytes[depth];
+      node.count++;
+      node.totalNanos += totalNanos;
+      node.selfNanos += totalNanos - childNanos[depth];
+      node.totalBytes += totalBytes;
+      node.selfBytes += totalBytes - childBytes[depth];
+      childNanos[depth - 1] += totalNanos;
+      childBytes[depth - 1] += totalBytes;
+    }
+  }
+
+  private long allocatedBytes() {
+    return THREADS != null ? THREADS.getThreadAllocatedBytes(threadId) : 0;
+  }
+
+  private void ensureCapacity(final int depth) {
+    if (depth < nodes.length) { return; }
+    final int size = depth * 2;
+    final Node[] newNodes = new Node[size];
+    System.arraycopy(nodes, 0, newNodes, 0, nodes.length);
+    nodes = newNodes;
+    startNanos = grow(startNanos, size);
+    childNanos = grow(childNanos, size);
+    startBytes = grow(startBytes, size);
+    childBytes = grow(childBytes, size);
+  }
+
+  private static long[] grow(final long[] array, final int size) {
+    final long[] result = new long[size];
+    System.arraycopy(array, 0, result, 0, array.length);
+    return result;
+  }
+
+  /**
+   * Passes measurements to the profiler and clears them.
+   * @param profiler target profiler
+   */
+  void finish(final PathProfiler profiler) {
+    profiler.merge(document);
+    document.clear();
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = null;
+    }
+  }
+
+  /** Element names tree node. */
+  static final class Node {
+    /** Element name. */
+    final String name;
+    /** Children. */
+    Node[] children = new Node[4];
+    /** Children count. */
+    int childrenCount;
+    /** Count of elements. */
+    long count;
+    /** Time. */
+    long totalNanos, selfNanos;
+    /** Allocations. */
+    long totalBytes, selfBytes;
+
+    Node(final String name) {
+      this.name = name;
+    }
+
+    Node child(final String name) {
+      final Node[] children = this.children;
+      for (int i = 0; i < childrenCount; i++) {
+        if (children[i].name.equals(name)) { return children[i]; }
+      }
+      if (childrenCount == children.length) {
+        final Node[] newChildren = new Node[childrenCount * 2];
+        System.arraycopy(children, 0, newChildren, 0, childrenCount);
+        this.children = newChildren;
+      }
+      final Node child = new Node(name);
+      this.children[childrenCount++] = child;
+      return child;
+    }
+
+    void clear() {
+      count = 0;
+      totalNanos = 0;
+      selfNanos = 0;
+      totalBytes = 0;
+      selfBytes = 0;
+      for (int i = 0; i < childrenCount; i++) {
+        children[i].clear();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,178 @@
+package com.stanfy.gsonxml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Attributes parse time and allocations to XML element paths.
+ * Paths are relative to the root element, just like paths passed to {@link GsonXmlBuilder#setExcludePaths(String...)},
+ * the root element itself is reported as {@code /}.
+ * Time of an element is measured from its start tag to its end tag, so it includes binding of its content;
+ * self time excludes time of child elements. Allocations are measured with per-thread allocation counters
+ * where the JVM provides them ({@code com.sun.management.ThreadMXBean}), otherwise they are reported as zero.
+ * <p>
+ * Only a fraction of documents is profiled, so the profiler can be enabled in production.
+ * Documents bound with {@code fromXmlParallel()} are not profiled.
+ * </p>
+ * <pre>
+ *   PathProfiler profiler = new PathProfiler(0.01);
+ *   GsonXml gsonXml = new GsonXmlBuilder().setPathProfiler(profiler).create();
+ *   ...
+ *   System.out.println(profiler);
+ * </pre>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class PathProfiler {
+
+  /** Profile one of every {@code interval} documents. */
+  private final long interval;
+
+  /** Documents counter. */
+  private final AtomicLong documents = new AtomicLong();
+
+  /** Entries by path. */
+  private final Map<String, Entry> entries = new HashMap<String, Entry>();
+  /** Count of profiled documents. */
+  private long profiledDocuments;
+
+  /**
+   * @param sampleRate fraction of documents to profile, from 0 (exclusive) to 1
+   */
+  public PathProfiler(final double sampleRate) {
+    if (!(sampleRate > 0 && sampleRate <= 1)) {
+      throw new IllegalArgumentException("Sample rate must be in (0, 1]: " + sampleRate);
+    }
+    this.interval = Math.round(1 / sampleRate);
+  }
+
+  /** @return true if the next document should be profiled */
+  boolean sample() {
+    return documents.getAndIncrement() % interval == 0;
+  }
+
+  /**
+   * Adds measurements of a document.
+   * @param document node whose children are root elements
+   */
+  synchronized void merge(final PathProfile.Node document) {
+    profiledDocuments++;
+    for (int i = 0; i < document.childrenCount; i++) {
+      merge(document.children[i], "/");
+    }
+  }
+
+  private void merge(final PathProfile.Node node, final String path) {
+    if (node.count > 0) {
+      Entry entry = entries.get(path);
+      if (entry == null) {
+        entry = new Entry(path);
+        entries.put(path, entry);
+      }
+      entry.count += node.count;
+      entry.totalNanos += node.totalNanos;
+      entry.selfNanos += node.selfNanos;
+      entry.totalBytes += node.totalBytes;
+      entry.selfBytes += node.selfBytes;
+    }
+    final boolean root = "/".equals(path);
+    for (int i = 0; i < node.childrenCount; i++) {
+      final PathProfile.Node child = node.children[i];
+      merge(child, root ? child.name : path + "/" + child.name);
+    }
+  }
+
+  /** @return count of profiled documents */
+  public synchronized long getProfiledDocuments() { return profiledDocuments; }
+
+  /** @return entries sorted by self time, most expensive first */
+  public synchronized List<Entry> report() {
+    final List<Entry> result = new ArrayList<Entry>(entries.size());
+    for (final Entry entry : entries.values()) {
+      result.add(entry.copy());
+    }
+    Collections.sort(result, new Comparator<Entry>() {
+      @Override
+      public int compare(final Entry lhs, final Entry rhs) {
+        return lhs.selfNanos < rhs.selfNanos ? 1 : lhs.selfNanos == rhs.selfNanos ? lhs.path.compareTo(rhs.path) : -1;
+      }
+    });
+    return result;
+  }
+
+  /** Drops all the measurements. */
+  public synchronized void reset() {
+    entries.clear();
+    profiledDocuments = 0;
+  }
+
+  /** @return report table */
+  @Override
+  public String toString() {
+    final List<Entry> report = report();
+    final StringBuilder result = new StringBuilder();
+    result.append("PathProfiler: ").append(getProfiledDocuments()).append(" documents\n");
+    result.append(String.format("%12s %12s %12s %14s %14s  %s%n", "count", "self us", "total us", "self bytes",
+        "total bytes", "path"));
+    for (final Entry entry : report) {
+      result.append(String.format("%12d %12d %12d %14d %14d  %s%n", entry.count, entry.selfNanos / 1000,
+          entry.totalNanos / 1000, entry.selfBytes, entry.totalBytes, entry.path));
+    }
+    return result.toString();
+  }
+
+  /** Measurements of a path. */
+  public static final class Entry {
+    /** Path. */
+    final String path;
+    /** Count of elements. */
+    long count;
+    /** Time. */
+    long totalNanos, selfNanos;
+    /** Allocations. */
+    long totalBytes, selfBytes;
+
+    Entry(final String path) {
+      this.path = path;
+    }
+
+    Entry copy() {
+      final Entry copy = new Entry(path);
+      copy.count = count;
+      copy.totalNanos = totalNanos;
+      copy.selfNanos = selfNanos;
+      copy.totalBytes = totalBytes;
+      copy.selfBytes = selfBytes;
+      return copy;
+    }
+
+    /** @return element path, {@code /} for the root element */
+    public String getPath() { return path; }
+
+    /** @return count of elements with this path */
+    public long getCount() { return count; }
+
+    /** @return time spent in the elements including their children */
+    public long getTotalNanos() { return totalNanos; }
+
+    /** @return time spent in the elements excluding their children */
+    public long getSelfNanos() { return selfNanos; }
+
+    /** @return bytes allocated while reading the elements including their children */
+    public long getTotalBytes() { return totalBytes; }
+
+    /** @return bytes allocated while reading the elements excluding their children */
+    public long getSelfBytes() { return selfBytes; }
+
+    @Override
+    public String toString() {
+      return path + ": count=" + count + ", selfNanos=" + selfNanos + ", totalNanos=" + totalNanos
+          + ", selfBytes=" + selfBytes + ", totalBytes=" + totalBytes;
+    }
+  }
+
+}
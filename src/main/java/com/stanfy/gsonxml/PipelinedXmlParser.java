@@ -0,0 +1,377 @@
+package com.stanfy.gsonxml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * XML parser that tokenizes the document on a producer thread.
+ * The producer runs a real parser and publishes its events in chunks ({@link XmlRecord}s)
+ * to a single-producer/single-consumer ring, while the reading thread replays them
+ * and binds objects at the same time. The ring size limits the number of chunks in flight,
+ * so the producer waits when the consumer is behind. Consumed chunks are returned to the producer for reuse.
+ * <p>
+ * Producer is started on the first event request after the input is set. It's stopped when the input is replaced,
+ * including {@code setInput(null)}, which also waits for the producer thread to leave the input: a producer blocked
+ * on a read of the input is waited for until the read returns, the input is never read after that.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class PipelinedXmlParser extends XmlRecord.Parser {
+
+  /** Events per chunk. */
+  static final int CHUNK_EVENTS = 256;
+  /** Text characters per chunk, a chunk is published when either limit is reached. */
+  static final int CHUNK_CHARS = 8192;
+  /** Chunks in flight, power of two. */
+  static final int RING_SIZE = 32;
+
+  /** Yields before parking when the other side is not ready. */
+  private static final int SPINS = 16;
+  /** Park time, the other side unparks the waiting thread, so this is a safety net only. */
+  private static final long PARK_NANOS = 1000000L;
+
+  /** Empty record replayed before the first chunk. */
+  private static final XmlRecord EMPTY = new XmlRecord(false, null);
+  /** End of document marker. */
+  private static final XmlRecord END = new XmlRecord(false, null);
+
+  /** Producer threads. */
+  private static final Executor PRODUCERS = createProducers();
+
+  /** Real parsers creator. */
+  private final XmlParserCreator creator;
+  /** Real parser, created on demand and reused. */
+  private XmlPullParser parser;
+
+  /** Pending input. */
+  private Reader reader;
+  /** Pending input. */
+  private InputStream stream;
+  /** Input encoding. */
+  private String encoding;
+  /** Namespaces feature. */
+  private boolean namespaces;
+
+  /** Current document pipeline, null if producer is not started. */
+  private Pipeline pipeline;
+  /** Chunk being replayed. */
+  private XmlRecord current;
+  /** Whether the end marker is consumed. */
+  private boolean ended;
+
+  PipelinedXmlParser(final XmlParserCreator creator) {
+    this.creator = creator;
+    load(EMPTY);
+  }
+
+  private static Executor createProducers() {
+    final AtomicInteger counter = new AtomicInteger();
+    final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable r) {
+        final Thread thread = new Thread(r, "gson-xml-pipeline-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    return executor;
+  }
+
+  @Override
+  public void setInput(final Reader in) {
+    stop();
+    this.reader = in;
+    this.stream = null;
+    this.encoding = null;
+  }
+
+  @Override
+  public void setInput(final InputStream inputStream, final String inputEncoding) {
+    stop();
+    this.reader = null;
+    this.stream = inputStream;
+    this.encoding = inputEncoding;
+  }
+
+  @Override
+  public void setFeature(final String name, final boolean state) {
+    if (FEATURE_PROCESS_NAMESPACES.equals(name)) {
+      namespaces = state;
+    }
+  }
+
+  @Override
+  public boolean getFeature(final String name) {
+    return FEATURE_PROCESS_NAMESPACES.equals(name) && namespaces;
+  }
+
+  /** Stops the producer, waiting for it to leave the input, and drops the current document. */
+  void stop() {
+    final Pipeline pipeline = this.pipeline;
+    this.pipeline = null;
+    if (pipeline != null) {
+      pipeline.stop();
+    }
+    current = null;
+    ended = false;
+    load(EMPTY);
+  }
+
+  @Override
+  XmlRecord nextRecord() throws XmlPullParserException, IOException {
+    if (ended) { return null; }
+    if (pipeline == null) {
+      if (reader == null && stream == null) { throw new XmlPullParserException("Input is not set"); }
+      if (parser == null) {
+        parser = creator.createParser();
+      }
+      pipeline = new Pipeline(parser, reader, stream, encoding, namespaces);
+      PRODUCERS.execute(pipeline);
+    }
+    if (current != null) {
+      pipeline.recycle(current);
+    }
+    current = pipeline.take();
+    if (current == END) {
+      current = null;
+      ended = true;
+      pipeline.rethrow();
+      return null;
+    }
+    return current;
+  }
+
+  /** Single-producer/single-consumer ring of chunks. */
+  private static final class Ring {
+    /** Chunks. */
+    private final XmlRecord[] items = new XmlRecord[RING_SIZE];
+    /** Read and write counters. */
+    private volatile long head, tail;
+
+    boolean offer(final XmlRecord item) {
+      final long tail = this.tail;
+      if (tail - head == items.length) { return false; }
+      items[(int) tail & (items.length - 1)] = item;
+      this.tail = tail + 1; // publishes the item
+      return true;
+    }
+
+    XmlRecord poll() {
+      final long head = this.head;
+      if (head == tail) { return null; }
+      final int index = (int) head & (items.length - 1);
+      final XmlRecord item = items[index];
+      items[index] = null;
+      this.head = head + 1;
+      return item;
+    }
+  }
+
+  /** Producer of one document. */
+  private static final class Pipeline implements Runnable {
+
+    /** Real parser. */
+    private final XmlPullParser parser;
+    /** Input. */
+    private final Reader reader;
+    /** Input. */
+    private final InputStream stream;
+    /** Input encoding. */
+    private final String encoding;
+    /** Namespaces feature. */
+    private final boolean namespaces;
+
+    /** Filled chunks. */
+    private final Ring filled = new Ring();
+    /** Consumed chunks to reuse. */
+    private final Ring free = new Ring();
+
+    /** Waiting threads. */
+    private volatile Thread producer, consumer;
+    /** Stop request. */
+    private volatile boolean stopped;
+    /** Whether producer has left the input. */
+    private volatile boolean finished;
+    /** Producer failure. */
+    private volatile Throwable failure;
+
+    /** Text bounds holder. */
+    private final int[] bounds = new int[2];
+    /** Namespaces in scope indexed by depth. */
+    private String[][] scopes = new String[16][];
+
+    Pipeline(final XmlPullParser parser, final Reader reader, final InputStream stream, final String encoding,
+        final boolean namespaces) {
+      this.parser = parser;
+      this.reader = reader;
+      this.stream = stream;
+      this.encoding = encoding;
+      this.namespaces = namespaces;
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (reader != null) {
+          parser.setInput(reader);
+        } else {
+          parser.setInput(stream, encoding);
+        }
+        parser.setFeature(FEATURE_PROCESS_NAMESPACES, namespaces);
+        produce();
+      } catch (final Throwable e) {
+        failure = e;
+      } finally {
+        try {
+          parser.setInput(null);
+        } catch (final XmlPullParserException e) {
+          // parser is bound to another input by the next pipeline
+        }
+        if (!stopped) {
+          put(END);
+        }
+        finished = true;
+        LockSupport.unpark(consumer);
+      }
+    }
+
+    private void produce() throws XmlPullParserException, IOException {
+      XmlRecord chunk = obtain();
+      int type;
+      while ((type = parser.next()) != END_DOCUMENT) {
+        final int depth = parser.getDepth();
+        switch (type) {
+        case START_TAG:
+          chunk.startTag(parser, depth, scope(depth));
+          break;
+        case END_TAG:
+          chunk.endTag(parser, depth, namespaces ? scopes[depth] : null);
+          break;
+        case TEXT:
+          chunk.text(parser, depth, namespaces ? scopes[depth] : null, bounds);
+          break;
+        default:
+          break;
+        }
+        if (chunk.size() >= CHUNK_EVENTS || chunk.textLength() >= CHUNK_CHARS) {
+          if (!put(chunk)) { return; }
+          chunk = obtain();
+        }
+      }
+      if (chunk.size() > 0) {
+        put(chunk);
+      }
+    }
+
+    /** @return namespaces in scope of the current start tag, reusing the parent scope if nothing is declared */
+    private String[] scope(final int depth) throws XmlPullParserException {
+      if (!namespaces) { return null; }
+      if (depth >= scopes.length) {
+        final String[][] newScopes = new String[depth * 2][];
+        System.arraycopy(scopes, 0, newScopes, 0, scopes.length);
+        scopes = newScopes;
+      }
+      final int count = parser.getNamespaceCount(depth);
+      String[] scope;
+      if (depth > 1 && count == parser.getNamespaceCount(depth - 1)) {
+        scope = scopes[depth - 1];
+      } else {
+        scope = new String[count * 2];
+        for (int i = 0; i < count; i++) {
+          scope[i * 2] = parser.getNamespacePrefix(i);
+          scope[i * 2 + 1] = parser.getNamespaceUri(i);
+        }
+      }
+      scopes[depth] = scope;
+      return scope;
+    }
+
+    private XmlRecord obtain() {
+      final XmlRecord chunk = free.poll();
+      if (chunk == null) { return new XmlRecord(namespaces, null); }
+      chunk.clear();
+      return chunk;
+    }
+
+    /** @return false if consumer has stopped */
+    private boolean put(final XmlRecord chunk) {
+      if (stopped) { return false; }
+      int spins = 0;
+      while (!filled.offer(chunk)) {
+        if (stopped) { return false; }
+        if (spins++ < SPINS) {
+          Thread.yield();
+        } else {
+          producer = Thread.currentThread();
+          if (!stopped && !filled.offer(chunk)) {
+            LockSupport.parkNanos(this, PARK_NANOS);
+            producer = null;
+            continue;
+          }
+          producer = null;
+          break;
+        }
+      }
+      LockSupport.unpark(consumer);
+      return true;
+    }
+
+    XmlRecord take() {
+      int spins = 0;
+      XmlRecord chunk;
+      while ((chunk = filled.poll()) == null) {
+        if (spins++ < SPINS) {
+          Thread.yield();
+        } else {
+          consumer = Thread.currentThread();
+          chunk = filled.poll();
+          if (chunk != null) {
+            consumer = null;
+            break;
+          }
+          LockSupport.parkNanos(this, PARK_NANOS);
+          consumer = null;
+        }
+      }
+      LockSupport.unpark(producer);
+      return chunk;
+    }
+
+    void recycle(final XmlRecord chunk) {
+      free.offer(chunk); // dropped if the ring is full
+    }
+
+    void rethrow() throws XmlPullParserException, IOException {
+      final Throwable failure = this.failure;
+      if (failure == null) { return; }
+      if (failure instanceof XmlPullParserException) { throw (XmlPullParserException) failure; }
+      if (failure instanceof IOException) { throw (IOException) failure; }
+      if (failure instanceof RuntimeException) { throw (RuntimeException) failure; }
+      throw (Error) failure;
+    }
+
+    /** Stops the producer and waits until it leaves the input. */
+    void stop() {
+      stopped = true;
+      LockSupport.unpark(producer);
+      while (!finished) {
+        consumer = Thread.currentThread();
+        if (!finished) {
+          LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        consumer = null;
+      }
+    }
+  }
+
+}
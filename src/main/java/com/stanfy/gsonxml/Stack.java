@@ -29,6 +29,13 @@ final class Stack<T> {
     size--;
   }
 
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      array[i] = null;
+    }
+    size = 0;
+  }
+
   public int cleanup(final int count) {
     return cleanup(count, size);
   }
@@ -0,0 +1,1001 @@
+package com.stanfy.gsonxml;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.internal.$Gson$Types;
+import com.google.gson.internal.ObjectConstructor;
+import com.google.gson.internal.bind.ReflectiveTypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.stanfy.gsonxml.XmlReader.Options;
+
+/**
+ * Binds XML to objects straight from parser events, without emulating JSON tokens.
+ * Element and attribute names are mapped to fields with tables that are built once per type.
+ * Naming rules are the same as for {@link XmlReader}: attributes are bound to fields named {@code @name},
+ * text nodes to {@code $}, {@code $1}, ..., lists follow the same name lists and primitive arrays options.
+ * <p>
+ * Only types that Gson binds reflectively, collections of them and scalar values converted by Gson's
+ * built-in adapters are supported. Fields are discovered with Gson's default rules: name is taken from
+ * {@link SerializedName} or the field itself, static and transient fields are ignored.
+ * A type is supported only if Gson's reflective adapter binds the same names, so field naming policies
+ * and exclusions make Gson read it.
+ * Other types (custom type adapters, maps, arrays, nested collections) are read with {@link XmlReader}.
+ * </p>
+ * <p>
+ * Classes annotated with {@link XmlModel} are described by generated {@link XmlModelAdapter}s instead of reflection
+ * if Gson binds them reflectively with the same names.
+ * When reflective binding is disabled only such classes (and collections of them) are supported.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class XmlBinder {
+
+  /** Scalar kinds. */
+  private static final int STRING = 0, INT = 1, LONG = 2, DOUBLE = 3, FLOAT = 4, BOOLEAN = 5,
+      SHORT = 6, BYTE = 7, CHAR = 8, ADAPTER = 9;
+
+  /** Marker of types that cannot be bound directly. */
+  private static final Binding UNSUPPORTED = new Binding() { };
+
+  /** Constructor of Gson's reflective adapter that applies instance creators, null if Gson version is not known. */
+  private static final Field REFLECTIVE_CONSTRUCTOR =
+      declaredField("com.google.gson.internal.bind.ReflectiveTypeAdapterFactory$Adapter", "constructor");
+  /** Constructor of Gson's collection adapter that applies instance creators, null if Gson version is not known. */
+  private static final Field COLLECTION_CONSTRUCTOR =
+      declaredField("com.google.gson.internal.bind.CollectionTypeAdapterFactory$Adapter", "constructor");
+  /** Names of fields bound by Gson's reflective adapter, null if Gson version is not known. */
+  private static final Field BOUND_FIELDS =
+      declaredField("com.google.gson.internal.bind.ReflectiveTypeAdapterFactory$Adapter", "boundFields");
+  /** Whether a field is read by Gson's reflective adapter, null if Gson version is not known. */
+  private static final Field DESERIALIZED =
+      declaredField("com.google.gson.internal.bind.ReflectiveTypeAdapterFactory$BoundField", "deserialized");
+  /** Gson's constructors factory, null if Gson version is not known. */
+  private static final Field CONSTRUCTOR_CONSTRUCTOR = declaredField("com.google.gson.Gson", "constructorConstructor");
+  /** Instance creators registered in Gson, null if Gson version is not known. */
+  private static final Field INSTANCE_CREATORS =
+      declaredField("com.google.gson.internal.ConstructorConstructor", "instanceCreators");
+
+  /** Gson instance. */
+  private final Gson gson;
+
+  /** Options. */
+  private final Options options;
+
+  /** Whether classes without generated adapters are bound. */
+  private final boolean reflective;
+
+  /** Built bindings. */
+  private final Map<Type, Binding> bindings = new ConcurrentHashMap<Type, Binding>();
+
+  XmlBinder(final Gson gson, final Options options) {
+    this(gson, options, true);
+  }
+
+  XmlBinder(final Gson gson, final Options options, final boolean reflective) {
+    this.gson = gson;
+    this.options = options;
+    this.reflective = reflective;
+  }
+
+  /**
+   * @param type type to bind
+   * @return whether this type can be bound directly
+   */
+  boolean supports(final Type type) {
+    final Binding binding = binding(type);
+    if (binding instanceof ObjectBinding) { return true; }
+    // root list items are the root children
+    return binding instanceof ListBinding && options.skipRoot;
+  }
+
+  /**
+   * Reads the whole document.
+   * @param reader reader that provides XML parser bound to the input
+   * @param type supported type
+   * @return bound object, null for an empty document
+   */
+  Object read(final XmlReader reader, final Type type) {
+    final Binding binding = binding(type);
+    try {
+      return new Session(reader).readDocument(binding);
+    } catch (final XmlPullParserException e) {
+      throw new JsonSyntaxException("XML parsing exception", e);
+    } catch (final IOException e) {
+      throw new JsonSyntaxException(e);
+    } catch (final IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private Binding binding(final Type type) {
+    final Binding binding = bindings.get(type);
+    if (binding != null) { return binding; }
+    synchronized (this) {
+      final Map<Type, Binding> created = new HashMap<Type, Binding>();
+      final Binding result = lookup(type, created);
+      if (result == null) {
+        bindings.put(type, UNSUPPORTED);
+        return UNSUPPORTED;
+      }
+      bindings.putAll(created);
+      return result;
+    }
+  }
+
+  private Binding lookup(final Type type, final Map<Type, Binding> created) {
+    Binding binding = bindings.get(type);
+    if (binding != null) { return binding == UNSUPPORTED ? null : binding; }
+    binding = created.get(type);
+    if (binding != null) { return binding; }
+    return create(type, created);
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private Binding create(final Type type, final Map<Type, Binding> created) {
+    final TypeToken<?> token = TypeToken.get(type);
+    final Class<?> raw = token.getRawType();
+    if (Collection.class.isAssignableFrom(raw)) {
+      final Binding item = lookup($Gson$Types.getCollectionElementType(type, raw), created);
+      if (item == null || item instanceof ListBinding) { return null; }
+      final ObjectConstructor<?> constructor = gsonConstructor(COLLECTION_CONSTRUCTOR, gson.getAdapter(token));
+      if (constructor == null) { return null; }
+      final Binding binding = new ListBinding((ObjectConstructor) constructor, item);
+      created.put(type, binding);
+      return binding;
+    }
+
+    final TypeAdapter<?> adapter = gson.getAdapter(token);
+    final XmlModelAdapter<?> generated = XmlModelAdapter.find(raw);
+    if (generated != null) {
+      // registered type adapters, naming policies and exclusions are applied by Gson
+      if (!(adapter instanceof ReflectiveTypeAdapterFactory.Adapter)
+          || !sameNames(generated, boundNames(adapter))) { return null; }
+      return createGenerated(type, token, (XmlModelAdapter<Object>) generated, adapter, created);
+    }
+
+    if (adapter instanceof ReflectiveTypeAdapterFactory.Adapter) {
+      if (!reflective || raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) { return null; }
+      final ObjectConstructor<?> constructor = gsonConstructor(REFLECTIVE_CONSTRUCTOR, adapter);
+      if (constructor == null) { return null; }
+      final ObjectBinding binding = new ObjectBinding(type, constructor);
+      created.put(type, binding);
+      return fillFields(binding, type, raw, boundNames(adapter), created) ? binding : null;
+    }
+
+    if (isScalarAdapter(adapter, raw)) {
+      final Binding binding = new ScalarBinding(scalarKind(raw), adapter);
+      created.put(type, binding);
+      return binding;
+    }
+    return null;
+  }
+
+  private Binding createGenerated(final Type type, final TypeToken<?> token, final XmlModelAdapter<Object> adapter,
+      final TypeAdapter<?> gsonAdapter, final Map<Type, Binding> created) {
+    final ObjectConstructor<?> constructor = hasInstanceCreator(token)
+        ? gsonConstructor(REFLECTIVE_CONSTRUCTOR, gsonAdapter)
+        : new ObjectConstructor<Object>() {
+          @Override
+          public Object construct() {
+            return adapter.create();
+          }
+        };
+    if (constructor == null) { return null; }
+    final ObjectBinding binding = new ObjectBinding(type, constructor);
+    created.put(type, binding);
+    final int count = adapter.size();
+    for (int i = 0; i < count; i++) {
+      final Binding propertyBinding = lookup(adapter.type(i), created);
+      if (propertyBinding == null) { return null; }
+      binding.add(adapter.name(i), new Slot(adapter, i, propertyBinding));
+    }
+    return binding;
+  }
+
+  /**
+   * @param gsonNames names bound by Gson in the same order as fields are discovered, fields are not bound
+   * if they differ
+   */
+  private boolean fillFields(final ObjectBinding binding, final Type type, final Class<?> raw,
+      final List<String> gsonNames, final Map<Type, Binding> created) {
+    if (gsonNames == null) { return false; }
+    int index = 0;
+    Type currentType = type;
+    Class<?> currentRaw = raw;
+    while (currentRaw != Object.class) {
+      for (final Field field : currentRaw.getDeclaredFields()) {
+        if (isExcluded(field)) { continue; }
+        final String name = name(field);
+        // naming policy or exclusions are set
+        if (index >= gsonNames.size() || !name.equals(gsonNames.get(index))) { return false; }
+        index++;
+        field.setAccessible(true);
+        final Binding fieldBinding = lookup($Gson$Types.resolve(currentType, currentRaw, field.getGenericType()), created);
+        if (fieldBinding == null) { return false; }
+        binding.add(name, new Slot(field, fieldBinding));
+      }
+      currentType = $Gson$Types.resolve(currentType, currentRaw, currentRaw.getGenericSuperclass());
+      currentRaw = $Gson$Types.getRawType(currentType);
+    }
+    return index == gsonNames.size();
+  }
+
+  /**
+   * @return names of fields read by Gson's reflective adapter in the order of their declaration,
+   * null if some fields are only written or names cannot be obtained
+   */
+  private static List<String> boundNames(final TypeAdapter<?> adapter) {
+    if (BOUND_FIELDS == null || DESERIALIZED == null) { return null; }
+    try {
+      final Map<?, ?> boundFields = (Map<?, ?>) BOUND_FIELDS.get(adapter);
+      final List<String> names = new ArrayList<String>(boundFields.size());
+      for (final Map.Entry<?, ?> entry : boundFields.entrySet()) {
+        if (!DESERIALIZED.getBoolean(entry.getValue())) { return null; }
+        names.add((String) entry.getKey());
+      }
+      return names;
+    } catch (final IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  /** @return whether generated adapter describes the same properties as Gson binds */
+  private static boolean sameNames(final XmlModelAdapter<?> adapter, final List<String> gsonNames) {
+    if (gsonNames == null || gsonNames.size() != adapter.size()) { return false; }
+    final Set<String> names = new HashSet<String>(gsonNames);
+    for (int i = 0; i < adapter.size(); i++) {
+      if (!names.contains(adapter.name(i))) { return false; }
+    }
+    return true;
+  }
+
+  /** @return whether Gson creates instances of this type with a registered instance creator */
+  private boolean hasInstanceCreator(final TypeToken<?> token) {
+    // assume there is one if it cannot be checked, Gson's constructor is used then
+    if (CONSTRUCTOR_CONSTRUCTOR == null || INSTANCE_CREATORS == null) { return true; }
+    try {
+      final Map<?, ?> creators = (Map<?, ?>) INSTANCE_CREATORS.get(CONSTRUCTOR_CONSTRUCTOR.get(gson));
+      return creators.containsKey(token.getType()) || creators.containsKey(token.getRawType());
+    } catch (final IllegalAccessException e) {
+      return true;
+    }
+  }
+
+  /** @return constructor used by Gson's adapter, null if adapter is not the expected one */
+  private static ObjectConstructor<?> gsonConstructor(final Field constructor, final TypeAdapter<?> adapter) {
+    if (constructor == null || !constructor.getDeclaringClass().isInstance(adapter)) { return null; }
+    try {
+      return (ObjectConstructor<?>) constructor.get(adapter);
+    } catch (final IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  private static Field declaredField(final String className, final String name) {
+    try {
+      final Field field = Class.forName(className).getDeclaredField(name);
+      field.setAccessible(true);
+      return field;
+    } catch (final ClassNotFoundException e) {
+      return null;
+    } catch (final NoSuchFieldException e) {
+      return null;
+    } catch (final SecurityException e) {
+      return null;
+    }
+  }
+
+  private static boolean isExcluded(final Field field) {
+    if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) != 0 || field.isSynthetic()) { return true; }
+    final Class<?> type = field.getType();
+    return !Enum.class.isAssignableFrom(type) && (type.isAnonymousClass() || type.isLocalClass());
+  }
+
+  private static String name(final Field field) {
+    final SerializedName serializedName = field.getAnnotation(SerializedName.class);
+    return serializedName != null ? serializedName.value() : field.getName();
+  }
+
+  /**
+   * @return true for Gson's own adapters of primitives, strings, enums and dates: they read a single string value,
+   * other types (Calendar, BitSet, maps, JSON trees, ...) are read from tokens
+   */
+  private static boolean isScalarAdapter(final TypeAdapter<?> adapter, final Class<?> raw) {
+    final String name = adapter.getClass().getName();
+    if ("com.google.gson.TreeTypeAdapter".equals(name)) {
+      // registered with GsonBuilder.setDateFormat
+      return Date.class.isAssignableFrom(raw);
+    }
+    if (!name.startsWith("com.google.gson.")) { return false; }
+    return scalarKind(raw) != ADAPTER || Enum.class.isAssignableFrom(raw) || raw == Date.class;
+  }
+
+  private static int scalarKind(final Class<?> raw) {
+    if (raw == String.class) { return STRING; }
+    if (raw == int.class || raw == Integer.class) { return INT; }
+    if (raw == long.class || raw == Long.class) { return LONG; }
+    if (raw == double.class || raw == Double.class) { return DOUBLE; }
+    if (raw == float.class || raw == Float.class) { return FLOAT; }
+    if (raw == boolean.class || raw == Boolean.class) { return BOOLEAN; }
+    if (raw == short.class || raw == Short.class) { return SHORT; }
+    if (raw == byte.class || raw == Byte.class) { return BYTE; }
+    if (raw == char.class || raw == Character.class) { return CHAR; }
+    return ADAPTER;
+  }
+
+  /** Describes how to bind an XML node. */
+  private abstract static class Binding { }
+
+  /** Single value. */
+  private static final class ScalarBinding extends Binding {
+    /** Value kind. */
+    final int kind;
+    /** Gson adapter, used for {@link #ADAPTER} kind. */
+    final TypeAdapter<?> adapter;
+
+    ScalarBinding(final int kind, final TypeAdapter<?> adapter) {
+      this.kind = kind;
+      this.adapter = adapter;
+    }
+  }
+
+  /** Reflective object. */
+  private static final class ObjectBinding extends Binding {
+    /** Bound type. */
+    final Type type;
+    /** Instances constructor. */
+    final ObjectConstructor<?> constructor;
+    /** Fields bound to elements. */
+    final Map<String, Slot> elements = new HashMap<String, Slot>();
+    /** Fields bound to attributes, keys are names without '@'. */
+    final Map<String, Slot> attributes = new HashMap<String, Slot>();
+    /** Fields bound to text nodes, indexed by text node number. */
+    Slot[] texts = new Slot[0];
+
+    ObjectBinding(final Type type, final ObjectConstructor<?> constructor) {
+      this.type = type;
+      this.constructor = constructor;
+    }
+
+    void add(final String name, final Slot slot) {
+      if (name.startsWith("@")) {
+        put(attributes, name.substring(1), name, slot);
+        return;
+      }
+      final int textIndex = textIndex(name);
+      if (textIndex < 0) {
+        put(elements, name, name, slot);
+        return;
+      }
+      if (textIndex >= texts.length) {
+        final Slot[] newTexts = new Slot[textIndex + 1];
+        System.arraycopy(texts, 0, newTexts, 0, texts.length);
+        texts = newTexts;
+      }
+      if (texts[textIndex] != null) { throw duplicate(name); }
+      texts[textIndex] = slot;
+    }
+
+    private void put(final Map<String, Slot> slots, final String key, final String name, final Slot slot) {
+      if (slots.put(key, slot) != null) { throw duplicate(name); }
+    }
+
+    /** @return the same exception as Gson throws */
+    private IllegalArgumentException duplicate(final String name) {
+      return new IllegalArgumentException(type + " declares multiple JSON fields named " + name);
+    }
+
+    /** @return index of text node named {@code $}, {@code $1}, ... or -1 */
+    private static int textIndex(final String name) {
+      if (!name.startsWith("$")) { return -1; }
+      if (name.length() == 1) { return 0; }
+      // XmlReader names text nodes $, $1, $2, ...
+      if (name.charAt(1) == '0') { return -1; }
+      for (int i = 1; i < name.length(); i++) {
+        if (name.charAt(i) < '0' || name.charAt(i) > '9') { return -1; }
+      }
+      try {
+        return Integer.parseInt(name.substring(1));
+      } catch (final NumberFormatException e) {
+        return -1;
+      }
+    }
+  }
+
+  /** Collection of scalars or objects. */
+  private static final class ListBinding extends Binding {
+    /** Collections constructor. */
+    final ObjectConstructor<Collection<Object>> constructor;
+    /** Items binding. */
+    final Binding item;
+
+    ListBinding(final ObjectConstructor<Collection<Object>> constructor, final Binding item) {
+      this.constructor = constructor;
+      this.item = item;
+    }
+  }
+
+  /** Object field, set either with reflection or with a generated adapter. */
+  private static final class Slot {
+    /** Field name. */
+    final String name;
+    /** Value binding. */
+    final Binding binding;
+    /** Whether field has a primitive type. */
+    final boolean primitive;
+    /** Field, null for generated adapters. */
+    final Field field;
+    /** Generated adapter. */
+    final XmlModelAdapter<Object> adapter;
+    /** Property index in the generated adapter. */
+    final int index;
+
+    Slot(final Field field, final Binding binding) {
+      this.name = field.getName();
+      this.binding = binding;
+      this.primitive = field.getType().isPrimitive();
+      this.field = field;
+      this.adapter = null;
+      this.index = -1;
+    }
+
+    Slot(final XmlModelAdapter<Object> adapter, final int index, final Binding binding) {
+      final Type type = adapter.type(index);
+      this.name = adapter.name(index);
+      this.binding = binding;
+      this.primitive = type instanceof Class && ((Class<?>) type).isPrimitive();
+      this.field = null;
+      this.adapter = adapter;
+      this.index = index;
+    }
+
+    void set(final Object instance, final Object value) throws IllegalAccessException {
+      if (adapter != null) {
+        adapter.set(instance, index, value);
+      } else {
+        field.set(instance, value);
+      }
+    }
+  }
+
+  /** State of one document reading. */
+  private final class Session {
+    /** Reader that owns the parser. */
+    private final XmlReader reader;
+    /** Parser. */
+    private final XmlPullParser parser;
+    /** Numbers parser. */
+    private final DecimalParser decimals;
+    /** Text view. */
+    private final CharsView view = new CharsView();
+    /** Text bounds holder. */
+    private final int[] bounds = new int[2];
+    /** Trimmed text range. */
+    private char[] text;
+    /** Trimmed text range. */
+    private int textStart, textLength;
+    /** Collected text of an element. */
+    private char[] buffer = new char[64];
+    /** Reader passed to adapters, created on demand. */
+    private ValueReader valueReader;
+    /** Counters, null if instrumentation is disabled. */
+    private final ParseStats stats;
+    /** Path profile, null if the document is not profiled. */
+    private final PathProfile profile;
+
+    Session(final XmlReader reader) {
+      this.reader = reader;
+      this.parser = reader.parser();
+      this.decimals = reader.decimals();
+      this.stats = reader.stats();
+      this.profile = reader.profile();
+    }
+
+    /** @return next parser event */
+    private int next() throws XmlPullParserException, IOException {
+      final int type = parser.next();
+      if (stats != null) { stats.xmlEvents++; }
+      if (profile != null) { profile.event(type, parser); }
+      return type;
+    }
+
+    Object readDocument(final Binding binding) throws XmlPullParserException, IOException, IllegalAccessException {
+      int type = parser.getEventType();
+      while (type != XmlPullParser.START_TAG && type != XmlPullParser.END_DOCUMENT) {
+        type = next();
+      }
+      if (type == XmlPullParser.END_DOCUMENT) { return null; }
+      reader.filteredOut(); // root is never dropped
+
+      final Object result;
+      if (binding instanceof ListBinding) {
+        result = readList((ListBinding) binding, options.rootArrayPrimitive);
+      } else if (options.skipRoot) {
+        result = readObject((ObjectBinding) binding, true);
+      } else {
+        // root element is a field of the result
+        final ObjectBinding objectBinding = (ObjectBinding) binding;
+        result = objectBinding.constructor.construct();
+        final Slot slot = objectBinding.elements.get(elementName());
+        if (slot != null) {
+          readField(result, slot, null);
+        } else {
+          skip();
+        }
+      }
+
+      while (next() != XmlPullParser.END_DOCUMENT) {
+        // consume trailing comments and whitespace
+      }
+      return result;
+    }
+
+    private Object readObject(final ObjectBinding binding, final boolean allowText)
+        throws XmlPullParserException, IOException, IllegalAccessException {
+      final Object instance = binding.constructor.construct();
+      final XmlPullParser parser = this.parser;
+      final int attributesCount = parser.getAttributeCount();
+      for (int i = 0; i < attributesCount; i++) {
+        final Slot slot = binding.attributes.get(attributeName(i));
+        if (slot != null) {
+          setScalar(instance, slot, parser.getAttributeValue(i).trim()); // trimmed like in XmlReader
+        }
+      }
+
+      final int depth = parser.getDepth();
+      boolean children = false;
+      int textIndex = 0;
+      String lastName = null;
+      Collection<Object> list = null;
+      int type;
+      while ((type = next()) != XmlPullParser.END_TAG || parser.getDepth() > depth) {
+        switch (type) {
+        case XmlPullParser.START_TAG:
+          children = true;
+          if (reader.filteredOut()) {
+            skip();
+            break;
+          }
+          final String name = elementName();
+          final Slot slot = binding.elements.get(name);
+          if (slot == null) {
+            skip();
+            list = null;
+          } else {
+            list = readField(instance, slot, name.equals(lastName) ? list : null);
+          }
+          lastName = name;
+          break;
+
+        case XmlPullParser.TEXT:
+          if (!trimText()) { break; }
+          final Slot textSlot = textIndex < binding.texts.length ? binding.texts[textIndex] : null;
+          textIndex++;
+          if (textSlot != null) {
+            view.set(text, textStart, textLength);
+            setScalar(instance, textSlot, view);
+          }
+          break;
+
+        case XmlPullParser.END_DOCUMENT:
+          throw new JsonSyntaxException("Unexpected end of document");
+
+        default:
+        }
+      }
+
+      if (!allowText && !children && attributesCount == 0) {
+        throw new JsonSyntaxException("Expected BEGIN_OBJECT but was STRING for <" + parser.getName() + ">");
+      }
+      return instance;
+    }
+
+    /**
+     * Reads an element bound to the field.
+     * @param list current list for the same name lists, null if a new list must be started
+     * @return list that receives following elements with the same name
+     */
+    private Collection<Object> readField(final Object instance, final Slot slot, final Collection<Object> list)
+        throws XmlPullParserException, IOException, IllegalAccessException {
+      final Binding binding = slot.binding;
+      if (binding instanceof ScalarBinding) {
+        readText();
+        view.set(buffer, 0, textLength);
+        setScalar(instance, slot, view);
+        return null;
+      }
+      if (binding instanceof ObjectBinding) {
+        slot.set(instance, readObject((ObjectBinding) binding, false));
+        return null;
+      }
+
+      final ListBinding listBinding = (ListBinding) binding;
+      if (!options.sameNameList) {
+        slot.set(instance, readList(listBinding, options.primitiveArrays));
+        return null;
+      }
+      Collection<Object> result = list;
+      if (result == null) {
+        result = listBinding.constructor.construct();
+        slot.set(instance, result);
+      }
+      result.add(readItem(listBinding.item, options.primitiveArrays));
+      return result;
+    }
+
+    /** Reads children of the current element as list items. */
+    private Collection<Object> readList(final ListBinding binding, final boolean primitive)
+        throws XmlPullParserException, IOException, IllegalAccessException {
+      final Collection<Object> list = binding.constructor.construct();
+      final int depth = parser.getDepth();
+      int type;
+      while ((type = next()) != XmlPullParser.END_TAG || parser.getDepth() > depth) {
+        if (type == XmlPullParser.START_TAG) {
+          if (reader.filteredOut()) {
+            skip();
+          } else {
+            list.add(readItem(binding.item, primitive));
+          }
+        } else if (type == XmlPullParser.TEXT && trimText()) {
+          throw new JsonSyntaxException("Cannot process text '" + new String(text, textStart, textLength) + "' inside a list");
+        } else if (type == XmlPullParser.END_DOCUMENT) {
+          throw new JsonSyntaxException("Unexpected end of document");
+        }
+      }
+      return list;
+    }
+
+    private Object readItem(final Binding binding, final boolean primitive)
+        throws XmlPullParserException, IOException, IllegalAccessException {
+      if (binding instanceof ObjectBinding) {
+        return readObject((ObjectBinding) binding, true);
+      }
+      if (!primitive) {
+        throw new JsonSyntaxException("Primitive list items require primitive arrays option, element <" + parser.getName() + ">");
+      }
+      readText();
+      view.set(buffer, 0, textLength);
+      return scalar((ScalarBinding) binding, view);
+    }
+
+    /**
+     * Reads element text to the buffer, its length is stored to {@link #textLength}.
+     * Text nodes are trimmed and joined with spaces.
+     */
+    private void readText() throws XmlPullParserException, IOException {
+      final XmlPullParser parser = this.parser;
+      if (parser.getAttributeCount() > 0) {
+        throw new JsonSyntaxException("Expected a value but was BEGIN_OBJECT for <" + parser.getName() + ">");
+      }
+      int length = 0;
+      int type;
+      while ((type = next()) != XmlPullParser.END_TAG) {
+        if (type == XmlPullParser.START_TAG) {
+          throw new JsonSyntaxException("Expected a value but was BEGIN_OBJECT for <" + parser.getName() + ">");
+        }
+        if (type == XmlPullParser.END_DOCUMENT) {
+          throw new JsonSyntaxException("Unexpected end of document");
+        }
+        if (type != XmlPullParser.TEXT || !trimText()) { continue; }
+        final int required = length + textLength + 1;
+        if (required > buffer.length) {
+          final char[] newBuffer = new char[Math.max(required, buffer.length * 2)];
+          System.arraycopy(buffer, 0, newBuffer, 0, length);
+          buffer = newBuffer;
+        }
+        if (length > 0) {
+          buffer[length++] = ' ';
+        }
+        System.arraycopy(text, textStart, buffer, length, textLength);
+        length += textLength;
+      }
+      textLength = length;
+    }
+
+    /** @return false if current text is whitespace only */
+    private boolean trimText() throws XmlPullParserException {
+      // parsers detect whitespace while reading text, indentation is not scanned again
+      if (parser.isWhitespace()) {
+        textLength = 0;
+        return false;
+      }
+      final char[] chars = parser.getTextCharacters(bounds);
+      int start = bounds[0], end = start + bounds[1];
+      while (start < end && chars[start] <= ' ') { start++; }
+      while (end > start && chars[end - 1] <= ' ') { end--; }
+      text = chars;
+      textStart = start;
+      textLength = end - start;
+      return start != end;
+    }
+
+    private void skip() throws XmlPullParserException, IOException {
+      if (stats != null) { stats.skippedSubtrees++; }
+      final int depth = parser.getDepth();
+      int type;
+      while ((type = next()) != XmlPullParser.END_TAG || parser.getDepth() > depth) {
+        if (type == XmlPullParser.END_DOCUMENT) {
+          throw new JsonSyntaxException("Unexpected end of document");
+        }
+      }
+    }
+
+    private String elementName() throws XmlPullParserException {
+      if (!options.namespaces) { return parser.getName(); }
+      return reader.namesTable().element(XmlReader.namespacePrefix(parser.getNamespace(), parser), parser.getName());
+    }
+
+    private String attributeName(final int index) {
+      if (!options.namespaces) { return parser.getAttributeName(index); }
+      return reader.namesTable().element(parser.getAttributePrefix(index), parser.getAttributeName(index));
+    }
+
+    private void setScalar(final Object instance, final Slot slot, final CharSequence value) throws IllegalAccessException {
+      if (!(slot.binding instanceof ScalarBinding)) {
+        throw new JsonSyntaxException("Expected BEGIN_OBJECT but was STRING for field " + slot.name);
+      }
+      final ScalarBinding binding = (ScalarBinding) slot.binding;
+      if (!slot.primitive) {
+        slot.set(instance, scalar(binding, value));
+        return;
+      }
+      if (slot.adapter != null) {
+        setGenerated(instance, slot, binding, value);
+        return;
+      }
+      final Field field = slot.field;
+      // primitives are set without boxing
+      switch (binding.kind) {
+      case INT:
+        field.setInt(instance, parseInt(value));
+        break;
+      case LONG:
+        field.setLong(instance, parseLong(value));
+        break;
+      case DOUBLE:
+        field.setDouble(instance, parseDouble(value));
+        break;
+      case FLOAT:
+        field.setFloat(instance, (float) parseDouble(value));
+        break;
+      case BOOLEAN:
+        field.setBoolean(instance, parseBoolean(value));
+        break;
+      case SHORT:
+        field.setShort(instance, (short) parseInt(value));
+        break;
+      case BYTE:
+        field.setByte(instance, (byte) parseInt(value));
+        break;
+      case CHAR:
+        field.setChar(instance, parseChar(value));
+        break;
+      default:
+        field.set(instance, scalar(binding, value));
+      }
+    }
+
+    /** Sets primitive value with generated adapter, narrowing conversions are made by the adapter. */
+    private void setGenerated(final Object instance, final Slot slot, final ScalarBinding binding,
+        final CharSequence value) {
+      final XmlModelAdapter<Object> adapter = slot.adapter;
+      switch (binding.kind) {
+      case INT:
+      case SHORT:
+      case BYTE:
+        adapter.setInt(instance, slot.index, parseInt(value));
+        break;
+      case LONG:
+        adapter.setLong(instance, slot.index, parseLong(value));
+        break;
+      case DOUBLE:
+      case FLOAT:
+        adapter.setDouble(instance, slot.index, parseDouble(value));
+        break;
+      case BOOLEAN:
+        adapter.setBoolean(instance, slot.index, parseBoolean(value));
+        break;
+      default:
+        adapter.set(instance, slot.index, scalar(binding, value));
+      }
+    }
+
+    private Object scalar(final ScalarBinding binding, final CharSequence value) {
+      switch (binding.kind) {
+      case STRING:
+        return value.toString();
+      case INT:
+        return parseInt(value);
+      case LONG:
+        return parseLong(value);
+      case DOUBLE:
+        return parseDouble(value);
+      case FLOAT:
+        return (float) parseDouble(value);
+      case BOOLEAN:
+        return parseBoolean(value);
+      case SHORT:
+        return (short) parseInt(value);
+      case BYTE:
+        return (byte) parseInt(value);
+      case CHAR:
+        return parseChar(value);
+      default:
+        if (valueReader == null) {
+          valueReader = new ValueReader();
+        }
+        valueReader.value = value.toString();
+        try {
+          return binding.adapter.read(valueReader);
+        } catch (final IOException e) {
+          throw new JsonSyntaxException(e);
+        }
+      }
+    }
+
+    private int parseInt(final CharSequence value) {
+      if (decimals.parseLong(value) && (int) decimals.longValue == decimals.longValue) {
+        return (int) decimals.longValue;
+      }
+      try {
+        return Integer.parseInt(value.toString());
+      } catch (final NumberFormatException e) {
+        throw new JsonSyntaxException(e);
+      }
+    }
+
+    private long parseLong(final CharSequence value) {
+      if (decimals.parseLong(value)) { return decimals.longValue; }
+      try {
+        return Long.parseLong(value.toString());
+      } catch (final NumberFormatException e) {
+        throw new JsonSyntaxException(e);
+      }
+    }
+
+    private double parseDouble(final CharSequence value) {
+      if (decimals.parseDouble(value)) { return decimals.doubleValue; }
+      return Double.parseDouble(value.toString());
+    }
+
+    private boolean parseBoolean(final CharSequence value) {
+      if (value.length() != 4) { return false; }
+      final String expected = "true";
+      for (int i = 0; i < 4; i++) {
+        if (Character.toLowerCase(value.charAt(i)) != expected.charAt(i)) { return false; }
+      }
+      return true;
+    }
+
+    private char parseChar(final CharSequence value) {
+      if (value.length() != 1) {
+        throw new JsonSyntaxException("Expecting character, got: " + value);
+      }
+      return value.charAt(0);
+    }
+  }
+
+
+  /**
+   * Provides a single string value to Gson adapters.
+   * Unlike {@link TypeAdapter#fromJsonTree(JsonElement)} it's reused for all the values of a document.
+   */
+  private static final class ValueReader extends JsonReader {
+    /** Current value, null when consumed. */
+    String value;
+
+    ValueReader() {
+      super(new StringReader(""));
+    }
+
+    private String take() {
+      if (value == null) { throw new IllegalStateException("Value is already consumed"); }
+      final String result = value;
+      value = null;
+      return result;
+    }
+
+    private IllegalStateException unexpected(final JsonToken expected) {
+      return new IllegalStateException("Expected " + expected + " but was " + peek());
+    }
+
+    @Override
+    public JsonToken peek() {
+      return value != null ? JsonToken.STRING : JsonToken.END_DOCUMENT;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return value != null;
+    }
+
+    @Override
+    public String nextString() {
+      return take();
+    }
+
+    @Override
+    public int nextInt() {
+      return Integer.parseInt(take());
+    }
+
+    @Override
+    public long nextLong() {
+      return Long.parseLong(take());
+    }
+
+    @Override
+    public double nextDouble() {
+      return Double.parseDouble(take());
+    }
+
+    @Override
+    public boolean nextBoolean() {
+      throw unexpected(JsonToken.BOOLEAN);
+    }
+
+    @Override
+    public void nextNull() {
+      throw unexpected(JsonToken.NULL);
+    }
+
+    @Override
+    public String nextName() {
+      throw unexpected(JsonToken.NAME);
+    }
+
+    @Override
+    public void beginArray() {
+      throw unexpected(JsonToken.BEGIN_ARRAY);
+    }
+
+    @Override
+    public void endArray() {
+      throw unexpected(JsonToken.END_ARRAY);
+    }
+
+    @Override
+    public void beginObject() {
+      throw unexpected(JsonToken.BEGIN_OBJECT);
+    }
+
+    @Override
+    public void endObject() {
+      throw unexpected(JsonToken.END_OBJECT);
+    }
+
+    @Override
+    public void skipValue() {
+      take();
+    }
+
+    @Override
+    public void close() {
+      value = null;
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+package com.stanfy.gsonxml;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+
+/**
+ * Detects encoding of XML bytes by the byte order mark or the XML declaration, UTF-8 is used by default.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class XmlEncoding {
+
+  /** How many bytes are examined to find the XML declaration. */
+  static final int DECLARATION_LIMIT = 1024;
+
+  private XmlEncoding() { /* hidden */ }
+
+  /**
+   * Detects encoding and skips the byte order mark.
+   * @param head first bytes of the document
+   * @return document encoding
+   */
+  static Charset detect(final ByteBuffer head) throws UnsupportedEncodingException {
+    final int b0 = byteAt(head, 0), b1 = byteAt(head, 1), b2 = byteAt(head, 2), b3 = byteAt(head, 3);
+    if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+      head.position(head.position() + 3);
+      return Charset.forName("UTF-8");
+    }
+    if (b0 == 0xFE && b1 == 0xFF) {
+      head.position(head.position() + 2);
+      return Charset.forName("UTF-16BE");
+    }
+    if (b0 == 0xFF && b1 == 0xFE) {
+      head.position(head.position() + 2);
+      return Charset.forName("UTF-16LE");
+    }
+    if (b0 == 0 && b1 == '<' && b2 == 0 && b3 == '?') { return Charset.forName("UTF-16BE"); }
+    if (b0 == '<' && b1 == 0 && b2 == '?' && b3 == 0) { return Charset.forName("UTF-16LE"); }
+
+    final String encoding = declaredEncoding(head);
+    if (encoding == null) { return Charset.forName("UTF-8"); }
+    try {
+      if (Charset.isSupported(encoding)) { return Charset.forName(encoding); }
+    } catch (final IllegalCharsetNameException e) {
+      // reported below
+    }
+    throw new UnsupportedEncodingException(encoding);
+  }
+
+  private static int byteAt(final ByteBuffer buffer, final int index) {
+    final int position = buffer.position() + index;
+    return position < buffer.limit() ? buffer.get(position) & 0xFF : -1;
+  }
+
+  /** @return encoding from the XML declaration written in an ASCII compatible encoding, null if it's not declared */
+  private static String declaredEncoding(final ByteBuffer head) {
+    final int limit = Math.min(head.limit(), head.position() + DECLARATION_LIMIT);
+    final StringBuilder declaration = new StringBuilder();
+    for (int i = head.position(); i < limit; i++) {
+      final char c = (char) (head.get(i) & 0xFF);
+      declaration.append(c);
+      if (c == '>') { break; }
+    }
+    if (!declaration.toString().startsWith("<?xml")) { return null; }
+    final int attribute = declaration.indexOf("encoding");
+    if (attribute < 0) { return null; }
+    int start = declaration.indexOf("=", attribute) + 1;
+    while (start > 0 && start < declaration.length() && declaration.charAt(start) <= ' ') { start++; }
+    if (start <= 0 || start >= declaration.length()) { return null; }
+    final char quote = declaration.charAt(start);
+    if (quote != '"' && quote != '\'') { return null; }
+    final int end = declaration.indexOf(String.valueOf(quote), start + 1);
+    return end > 0 ? declaration.substring(start + 1, end) : null;
+  }
+
+}
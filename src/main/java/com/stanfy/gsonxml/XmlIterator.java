@@ -0,0 +1,169 @@
+package com.stanfy.gsonxml;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+
+/**
+ * Iterator over repeated XML elements. Each element is bound with a Gson type adapter when it's requested,
+ * so the whole document is never kept in memory.
+ * <p>
+ * Closing the iterator closes the underlying reader. It's closed automatically when all the elements are read.
+ * </p>
+ * @param <T> element type
+ * @see GsonXml#iterate(java.io.Reader, Class, String)
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public final class XmlIterator<T> implements Iterator<T>, Closeable {
+
+  /** XML reader. */
+  private XmlReader reader;
+
+  /** Pool to return the reader to. May be null. */
+  private final XmlReadersPool readersPool;
+
+  /** Elements adapter. */
+  private final TypeAdapter<T> adapter;
+
+  /** Parse listener, may be null. */
+  private final ParseListener listener;
+
+  /** Names of objects that contain the list. */
+  private final String[] objectNames;
+  /** Name of the list, null if root element is the list. */
+  private final String listName;
+
+  /** State. */
+  private boolean started, hasNext;
+
+  XmlIterator(final XmlReader reader, final XmlReadersPool readersPool, final TypeAdapter<T> adapter, final String path,
+      final ParseListener listener) {
+    this.reader = reader;
+    this.readersPool = readersPool;
+    this.adapter = adapter;
+    this.listener = listener;
+
+    final String[] segments = path.split("/");
+    final int listIndex = reader.options.sameNameList ? segments.length - 1 : segments.length - 2;
+    if (listIndex < 0 && !reader.options.skipRoot) {
+      throw new IllegalArgumentException("Path '" + path + "' must contain at least 2 elements when root is not skipped"
+          + " and lists are not same-name");
+    }
+    this.objectNames = new String[Math.max(listIndex, 0)];
+    System.arraycopy(segments, 0, objectNames, 0, objectNames.length);
+    this.listName = listIndex >= 0 ? segments[listIndex] : null;
+  }
+
+  private boolean findList() throws IOException {
+    if (listName == null) {
+      reader.beginArray();
+      return true;
+    }
+    reader.beginObject();
+    for (final String name : objectNames) {
+      if (!seek(name)) { return false; }
+      reader.peek(); // XmlReader adapts a peeked token to the expected one, like for Gson adapters
+      reader.beginObject();
+    }
+    if (!seek(listName)) { return false; }
+    reader.peek();
+    reader.beginArray();
+    return true;
+  }
+
+  private boolean seek(final String name) throws IOException {
+    while (reader.hasNext()) {
+      if (name.equals(reader.nextName())) { return true; }
+      reader.skipValue();
+    }
+    return false;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (reader == null) { return false; }
+    try {
+      if (!started) {
+        started = true;
+        hasNext = findList();
+      }
+      hasNext = hasNext && reader.hasNext();
+    } catch (final IOException e) {
+      throw fail(e);
+    } catch (final IllegalStateException e) {
+      throw fail(e);
+    } catch (final RuntimeException e) {
+      fail(e); // adapter failures: reader is not recycled
+      throw e;
+    }
+    if (!hasNext) {
+      finish(true);
+    }
+    return hasNext;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) { throw new NoSuchElementException(); }
+    try {
+      final T element = adapter.read(reader);
+      final ParseStats stats = reader.stats();
+      if (stats != null) { stats.objects++; }
+      return element;
+    } catch (final IOException e) {
+      throw fail(e);
+    } catch (final IllegalStateException e) {
+      throw fail(e);
+    } catch (final RuntimeException e) {
+      fail(e); // adapter failures: reader is not recycled
+      throw e;
+    }
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (reader != null) {
+      finish(true);
+    }
+  }
+
+  private JsonSyntaxException fail(final Exception e) {
+    try {
+      finish(false);
+    } catch (final JsonIOException ignored) {
+      // report the original exception
+    }
+    return new JsonSyntaxException(e);
+  }
+
+  private void finish(final boolean recycle) {
+    final XmlReader reader = this.reader;
+    this.reader = null;
+    this.hasNext = false;
+    final ParseStats stats = reader.finishStats(!recycle);
+    reader.finishProfile();
+    try {
+      reader.close();
+    } catch (final IOException e) {
+      throw new JsonIOException(e);
+    } finally {
+      if (recycle && readersPool != null) {
+        readersPool.recycle(reader);
+      }
+      if (stats != null) {
+        listener.onParse(stats);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,26 @@
+package com.stanfy.gsonxml;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model class that gets an XML adapter generated at compile time by
+ * {@code com.stanfy.gsonxml.processor.XmlModelProcessor}.
+ * <p>
+ * Generated adapters are picked up by {@link GsonXml} automatically: such models (and collections of them)
+ * are bound straight from XML parser events without reflection, whether direct binding is enabled or not.
+ * Fields follow Gson's default rules (static and transient fields are ignored, names are taken from
+ * {@link com.google.gson.annotations.SerializedName}) and must not be private.
+ * Models that Gson reads with registered type adapters, field naming policies or exclusions are read as usual,
+ * registered instance creators are applied.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface XmlModel {
+}
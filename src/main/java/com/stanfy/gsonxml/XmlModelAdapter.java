@@ -0,0 +1,94 @@
+package com.stanfy.gsonxml;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Type;
+
+/**
+ * Base class of adapters generated for {@link XmlModel} classes. Not intended to be extended manually.
+ * <p>
+ * Adapter describes model properties: their names (as seen by Gson, e.g. {@code @id} for attributes
+ * or {@code $} for text) and types. Property values are set by index without reflection.
+ * Primitive setters are overridden for properties of primitive types only.
+ * </p>
+ * @param <T> model type
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public abstract class XmlModelAdapter<T> {
+
+  /** Suffix appended to the model class name to get the adapter class name. */
+  public static final String SUFFIX = "$$XmlAdapter";
+
+  /** Properties names. */
+  private final String[] names;
+
+  /** Properties types. */
+  private final Type[] types;
+
+  protected XmlModelAdapter(final String[] names, final Type[] types) {
+    if (names.length != types.length) {
+      throw new IllegalArgumentException("Names and types count mismatch");
+    }
+    this.names = names;
+    this.types = types;
+  }
+
+  /**
+   * @param modelClass model class
+   * @return generated adapter, null if the class is not annotated or adapter is not generated
+   */
+  static XmlModelAdapter<?> find(final Class<?> modelClass) {
+    if (!modelClass.isAnnotationPresent(XmlModel.class)) { return null; }
+    try {
+      final Class<?> adapterClass = Class.forName(modelClass.getName() + SUFFIX, true, modelClass.getClassLoader());
+      return (XmlModelAdapter<?>) adapterClass.getDeclaredConstructor().newInstance();
+    } catch (final ClassNotFoundException e) {
+      return null;
+    } catch (final NoSuchMethodException e) {
+      throw new IllegalStateException("Cannot create " + modelClass.getName() + SUFFIX, e);
+    } catch (final InstantiationException e) {
+      throw new IllegalStateException("Cannot create " + modelClass.getName() + SUFFIX, e);
+    } catch (final IllegalAccessException e) {
+      throw new IllegalStateException("Cannot create " + modelClass.getName() + SUFFIX, e);
+    } catch (final InvocationTargetException e) {
+      throw new IllegalStateException("Cannot create " + modelClass.getName() + SUFFIX, e.getCause());
+    }
+  }
+
+  int size() { return names.length; }
+
+  String name(final int index) { return names[index]; }
+
+  Type type(final int index) { return types[index]; }
+
+  /** @return new model instance */
+  public abstract T create();
+
+  /**
+   * Sets property value.
+   * @param instance model instance
+   * @param index property index
+   * @param value property value, boxed for primitives
+   */
+  public abstract void set(T instance, int index, Object value);
+
+  /** Sets value of {@code int}, {@code short} or {@code byte} property. */
+  public void setInt(final T instance, final int index, final int value) {
+    throw new IllegalArgumentException("Property " + names[index] + " is not int");
+  }
+
+  /** Sets value of {@code long} property. */
+  public void setLong(final T instance, final int index, final long value) {
+    throw new IllegalArgumentException("Property " + names[index] + " is not long");
+  }
+
+  /** Sets value of {@code double} or {@code float} property. */
+  public void setDouble(final T instance, final int index, final double value) {
+    throw new IllegalArgumentException("Property " + names[index] + " is not double");
+  }
+
+  /** Sets value of {@code boolean} property. */
+  public void setBoolean(final T instance, final int index, final boolean value) {
+    throw new IllegalArgumentException("Property " + names[index] + " is not boolean");
+  }
+
+}
@@ -6,8 +6,12 @@ import com.google.gson.stream.JsonToken;
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Type;
 
 /**
  * Reads XML as JSON.
@@ -43,25 +47,22 @@ public class XmlReader extends JsonReader {
     }
   }
 
+  /** Input used to construct readers that are bound to real input with {@link #reset(Reader)}. */
+  private static final Reader NO_INPUT = new StringReader("");
+
   /** XML parser. */
   private final XmlPullParser xmlParser;
 
+  /** Current input, a reader or a stream. */
+  private Closeable input;
+
   /** Option. */
   final Options options;
 
-  /** Tokens pool. */
-  private final RefsPool<TokenRef> tokensPool = new RefsPool<TokenRef>(new Creator<TokenRef>() {
-    public TokenRef create() { return new TokenRef(); }
-  });
-  /** Values pool. */
-  private final RefsPool<ValueRef> valuesPool = new RefsPool<ValueRef>(new Creator<ValueRef>() {
-    public ValueRef create() { return new ValueRef(); }
-  });
-
   /** Tokens queue. */
-  private TokenRef tokensQueue, tokensQueueStart;
+  private final TokensQueue tokensQueue = new TokensQueue();
   /** Values queue. */
-  private ValueRef valuesQueue, valuesQueueStart;
+  private final ValuesQueue valuesQueue = new ValuesQueue();
 
   private JsonToken expectedToken;
 
@@ -69,7 +70,7 @@ public class XmlReader extends JsonReader {
   private boolean endReached, firstStart = true, lastTextWhiteSpace = false;
 
   /** Stack of scopes. */
-  private final Stack<Scope> scopeStack = new Stack<Scope>();
+  private final ScopeStack scopeStack = new ScopeStack();
   /** Stack of last closed tags. */
   private final Stack<ClosedTag> closeStack = new Stack<ClosedTag>();
 
@@ -79,6 +80,9 @@ public class XmlReader extends JsonReader {
   /** Counter for "$". */
   private int textNameCounter = 0;
 
+  /** Canonical names. */
+  private final NamesTable namesTable = new NamesTable();
+
   /** Skipping state flag. */
   private boolean skipping;
 
@@ -88,11 +92,67 @@ public class XmlReader extends JsonReader {
   /** Attributes. */
   private final AttributesData attributes = new AttributesData(10);
 
+  /** Text bounds holder for {@link XmlPullParser#getTextCharacters(int[])}. */
+  private final int[] textBounds = new int[2];
+  /** Numbers parser. */
+  private final DecimalParser decimals = new DecimalParser();
+
+  /** Elements filter state, null if paths are not filtered. */
+  private final PathFilter.Matcher pathMatcher;
+
+  /** Counters of the current document, null if instrumentation is disabled. */
+  private ParseStats stats;
+  /** Buffers growths count when the current counters were started. */
+  private int statsGrowths;
+  /** Whether this reader has already read a document and was detached. */
+  private boolean reused;
+
+  /** Profiler of the current document, null if the document is not profiled. */
+  private PathProfiler profiler;
+  /** Profile of the current document, null if the document is not profiled. */
+  private PathProfile profile;
+  /** Profile state, reused between documents. */
+  private PathProfile profileState;
+
   public XmlReader(final Reader in, final XmlParserCreator creator, final Options options) {
     super(in);
     this.xmlParser = creator.createParser();
     this.options = options;
+    this.pathMatcher = options.pathFilter != null ? options.pathFilter.matcher() : null;
+    this.xmlToken.type = IGNORE;
+    setInput(in);
+  }
+
+  /**
+   * Creates a reader that passes bytes to the XML parser as is, so that it decodes them itself.
+   * @param in XML source
+   * @param encoding input encoding, null to detect it from the XML declaration or byte order mark
+   * @param creator XML parser creator
+   * @param options options
+   */
+  public XmlReader(final InputStream in, final String encoding, final XmlParserCreator creator, final Options options) {
+    super(NO_INPUT);
+    this.xmlParser = creator.createParser();
+    this.options = options;
+    this.pathMatcher = options.pathFilter != null ? options.pathFilter.matcher() : null;
+    this.xmlToken.type = IGNORE;
+    setInput(in, encoding);
+  }
+
+  /**
+   * Creates a reader that is not bound to any input. {@link #reset(Reader)} must be called before reading.
+   * Super class does not keep a reference to the real input in this case.
+   */
+  XmlReader(final XmlParserCreator creator, final Options options) {
+    super(NO_INPUT);
+    this.xmlParser = creator.createParser();
+    this.options = options;
+    this.pathMatcher = options.pathFilter != null ? options.pathFilter.matcher() : null;
     this.xmlToken.type = IGNORE;
+  }
+
+  private void setInput(final Reader in) {
+    this.input = in;
     try {
       this.xmlParser.setInput(in);
       this.xmlParser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, options.namespaces);
@@ -101,40 +161,190 @@ public class XmlReader extends JsonReader {
     }
   }
 
+  private void setInput(final InputStream in, final String encoding) {
+    this.input = in;
+    try {
+      this.xmlParser.setInput(in, encoding);
+      this.xmlParser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, options.namespaces);
+    } catch (final XmlPullParserException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Binds this reader to a new input dropping all the state related to the previous document.
+   * XML parser instance is reused. Calling this method during parsing is not allowed.
+   * @param in new XML source
+   */
+  public void reset(final Reader in) {
+    if (in == null) { throw new NullPointerException("in == null"); }
+    clearState();
+    setInput(in);
+  }
+
+  /**
+   * Binds this reader to a new byte input dropping all the state related to the previous document.
+   * XML parser instance is reused. Calling this method during parsing is not allowed.
+   * @param in new XML source
+   * @param encoding input encoding, null to detect it from the XML declaration or byte order mark
+   */
+  public void reset(final InputStream in, final String encoding) {
+    if (in == null) { throw new NullPointerException("in == null"); }
+    clearState();
+    setInput(in, encoding);
+  }
+
+  /**
+   * Drops references to the current input so that this instance can be safely cached.
+   */
+  void detach() {
+    reused = true;
+    clearState();
+    input = null;
+    try {
+      xmlParser.setInput(null);
+    } catch (final XmlPullParserException e) {
+      // parser will be bound to another input with reset()
+    }
+  }
+
+  /** @return XML parser, used by {@link XmlBinder} that reads the input directly */
+  XmlPullParser parser() { return xmlParser; }
+
+  /** @return numbers parser */
+  DecimalParser decimals() { return decimals; }
+
+  /** @return names table */
+  NamesTable namesTable() { return namesTable; }
+
+  /**
+   * Starts collecting counters of the current document.
+   * @param type requested type
+   * @param documentSize input length, -1 if unknown
+   * @return counters instance that is filled while reading
+   */
+  ParseStats startStats(final Type type, final long documentSize) {
+    final ParseStats stats = new ParseStats(type, documentSize);
+    stats.readerReused = reused;
+    this.stats = stats;
+    this.statsGrowths = growths();
+    return stats;
+  }
+
+  /**
+   * Stops collecting counters.
+   * @param failed whether reading has failed
+   * @return finished counters, null if counters were not started
+   */
+  ParseStats finishStats(final boolean failed) {
+    final ParseStats stats = this.stats;
+    if (stats == null) { return null; }
+    this.stats = null;
+    stats.bufferGrowths = growths() - statsGrowths;
+    stats.finish(failed);
+    return stats;
+  }
+
+  /**
+   * Starts profiling of the current document.
+   * @param profiler profiler that receives measurements
+   */
+  void startProfile(final PathProfiler profiler) {
+    if (profileState == null) {
+      profileState = new PathProfile();
+    }
+    this.profiler = profiler;
+    this.profile = profileState;
+    profileState.start();
+  }
+
+  /** Passes measurements of the current document to the profiler, does nothing if the document is not profiled. */
+  void finishProfile() {
+    final PathProfiler profiler = this.profiler;
+    if (profiler == null) { return; }
+    this.profiler = null;
+    this.profile = null;
+    profileState.finish(profiler);
+  }
+
+  /** @return profile of the current document, null if the document is not profiled */
+  PathProfile profile() { return profile; }
+
+  /** @return counters of the current document, null if instrumentation is disabled */
+  ParseStats stats() { return stats; }
+
+  private int growths() {
+    return tokensQueue.growths + valuesQueue.growths + scopeStack.growths;
+  }
+
+  /**
+   * Must be called for each start tag read directly from the parser.
+   * @return true if current element is dropped by the path filter
+   */
+  boolean filteredOut() {
+    return pathMatcher != null && !pathMatcher.start(xmlParser.getName(), xmlParser.getDepth());
+  }
+
+  private void clearState() {
+    tokensQueue.clear();
+    valuesQueue.clear();
+    expectedToken = null;
+    token = null;
+    endReached = false;
+    firstStart = true;
+    lastTextWhiteSpace = false;
+    skipping = false;
+    textNameCounter = 0;
+    scopeStack.clear();
+    closeStack.clear();
+    xmlToken.clear();
+    attributes.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      xmlParser.setInput(null); // lets parsers that read in background leave the input
+    } catch (final XmlPullParserException e) {
+      // parser will be bound to another input with reset()
+    }
+    if (input != null) {
+      input.close();
+    }
+  }
+
   @SuppressWarnings("unused")
   private CharSequence dump() {
     return new StringBuilder()
       .append("Scopes: ").append(scopeStack).append('\n')
       .append("Closed tags: ").append(closeStack).append('\n')
       .append("Token: ").append(token).append('\n')
-      .append("Tokens queue: ").append(tokensQueueStart).append('\n')
-      .append("Values queue: ").append(valuesQueueStart).append('\n');
+      .append("Tokens queue: ").append(tokensQueue).append('\n')
+      .append("Values queue: ").append(valuesQueue).append('\n');
   }
 
   @Override
   public String toString() { return "--- XmlReader ---\n" + dump(); }
 
-  private JsonToken peekNextToken() { return tokensQueueStart != null ? tokensQueueStart.token : null; }
+  private JsonToken peekNextToken() { return tokensQueue.isEmpty() ? null : tokensQueue.peekFirst(); }
 
   private JsonToken nextToken() {
-    final TokenRef ref = tokensQueueStart;
-    if (ref == null) {
+    if (tokensQueue.isEmpty()) {
       return JsonToken.END_DOCUMENT;
     }
+    if (stats != null) { stats.tokens++; }
+    return tokensQueue.pollFirst();
+  }
 
-    tokensQueueStart = ref.next;
-    if (ref == tokensQueue) { tokensQueue = null; }
-    tokensPool.release(ref);
-    return ref.token;
+  private String nextValue() {
+    if (valuesQueue.isEmpty()) { throw new IllegalStateException("No value can be given"); }
+    return valuesQueue.pollFirst();
   }
 
-  private ValueRef nextValue() {
-    final ValueRef ref = valuesQueueStart;
-    if (ref == null) { throw new IllegalStateException("No value can be given"); }
-    if (ref == valuesQueue) { valuesQueue = null; }
-    valuesPool.release(ref);
-    valuesQueueStart = ref.next;
-    return ref;
+  /** @return next value characters, valid until the value is pulled */
+  private CharSequence peekValue() {
+    if (valuesQueue.isEmpty()) { throw new IllegalStateException("No value can be given"); }
+    return valuesQueue.peekFirstChars();
   }
 
   private void expect(final JsonToken token) throws IOException {
@@ -172,6 +382,13 @@ public class XmlReader extends JsonReader {
 
   @Override
   public void skipValue() throws IOException {
+    if (stats != null) { stats.skippedSubtrees++; }
+    try {
+      if (skipElement()) { return; }
+    } catch (final XmlPullParserException e) {
+      throw new JsonSyntaxException("XML parsing exception", e);
+    }
+
     skipping = true;
     try {
       int count = 0;
@@ -181,8 +398,8 @@ public class XmlReader extends JsonReader {
           count++;
         } else if (token == JsonToken.END_ARRAY || token == JsonToken.END_OBJECT) {
           count--;
-        } else if (valuesQueue != null) {
-          nextValue(); // pull ignored value
+        } else if (!valuesQueue.isEmpty()) {
+          valuesQueue.dropFirst(); // pull ignored value
         }
         this.token = null; // advance
       } while (count != 0);
@@ -191,6 +408,73 @@ public class XmlReader extends JsonReader {
     }
   }
 
+  /**
+   * Skips the value of the last read name without producing any tokens if the value is an element
+   * that has not been processed yet: parser is moved to the end tag with the same depth.
+   * @return true if the element has been skipped
+   */
+  private boolean skipElement() throws IOException, XmlPullParserException {
+    if (token != null || firstStart || xmlParser.getEventType() != XmlPullParser.START_TAG) { return false; }
+
+    final int scopes = scopeStack.size();
+    if (scopes == 0) { return false; }
+    boolean object;
+    if (scopeStack.peek() == Scope.NAME && tokensQueue.isEmpty()) {
+      // <element>
+      object = false;
+    } else if (scopes > 1 && scopeStack.peek() == Scope.INSIDE_OBJECT && scopeStack.get(scopes - 2) == Scope.NAME
+        && tokensQueue.size() == 1 + 2 * xmlParser.getAttributeCount()
+        && tokensQueue.peekFirst() == JsonToken.BEGIN_OBJECT
+        && valuesQueue.size() == 2 * xmlParser.getAttributeCount()) {
+      // <element attr="value">, only attributes are queued
+      object = true;
+      tokensQueue.clear();
+      valuesQueue.clear();
+      scopeStack.drop();
+    } else {
+      return false;
+    }
+
+    if (skipCurrentElement()) { object = true; }
+    if (endReached) { return true; }
+
+    if (object) { textNameCounter = 0; }
+    fixScopeStack();
+    final XmlTokenInfo xml = xmlToken;
+    xml.clear();
+    xml.type = END_TAG;
+    xml.name = xmlParser.getName();
+    xml.ns = xmlParser.getNamespace();
+    closeTag(xml);
+    return true;
+  }
+
+  /**
+   * Moves parser from the current start tag to the corresponding end tag.
+   * @return true if the element contains other elements
+   */
+  private boolean skipCurrentElement() throws IOException, XmlPullParserException {
+    final XmlPullParser parser = xmlParser;
+    final int depth = parser.getDepth();
+    boolean children = false;
+    int type;
+    while ((type = parser.next()) != XmlPullParser.END_TAG || parser.getDepth() > depth) {
+      if (stats != null) { stats.xmlEvents++; }
+      if (profile != null) { profile.event(type, parser); }
+      if (type == XmlPullParser.START_TAG) {
+        children = true;
+      } else if (type == XmlPullParser.END_DOCUMENT) {
+        endReached = true;
+        break;
+      }
+    }
+    if (type == XmlPullParser.END_TAG) {
+      if (stats != null) { stats.xmlEvents++; }
+      if (profile != null) { profile.event(type, parser); }
+    }
+    return children;
+  }
+
   private void adaptCurrentToken() throws XmlPullParserException, IOException {
     if (token == expectedToken) { return; }
     if (expectedToken != JsonToken.BEGIN_ARRAY) { return; }
@@ -256,7 +540,7 @@ public class XmlReader extends JsonReader {
           scopeStack.push(Scope.INSIDE_PRIMITIVE_EMBEDDED_ARRAY);
         } else {
           // pass value as a text node inside of an object
-          String value = nextValue().value;
+          String value = nextValue();
           pushToQueue(JsonToken.END_OBJECT);
           pushToQueue(JsonToken.STRING);
           pushToQueue(JsonToken.NAME);
@@ -269,7 +553,7 @@ public class XmlReader extends JsonReader {
       } else {
         // we have an empty list
         pushToQueue(JsonToken.END_ARRAY);
-        if (valuesQueueStart != null) {
+        if (!valuesQueue.isEmpty()) {
           nextValue();
         }
       }
@@ -290,6 +574,7 @@ public class XmlReader extends JsonReader {
       } catch (final XmlPullParserException e) {
         throw new JsonSyntaxException("XML parsing exception", e);
       }
+      if (stats != null) { sampleStats(); }
       expectedToken = null;
       return token;
     }
@@ -297,6 +582,7 @@ public class XmlReader extends JsonReader {
     try {
 
       fillQueues(false);
+      if (stats != null) { sampleStats(); }
       expectedToken = null;
 
       return token = nextToken();
@@ -306,15 +592,20 @@ public class XmlReader extends JsonReader {
     }
   }
 
+  /** Queues are filled only while peeking, so their maximum sizes are seen here. */
+  private void sampleStats() {
+    stats.sample(tokensQueue.size(), valuesQueue.size(), scopeStack.size());
+  }
+
   @Override
   public String nextString() throws IOException {
     expect(JsonToken.STRING);
-    return nextValue().value;
+    return nextValue();
   }
   @Override
   public boolean nextBoolean() throws IOException {
     expect(JsonToken.BOOLEAN);
-    final String value = nextValue().value;
+    final String value = nextValue();
     if ("true".equalsIgnoreCase(value)) {
       return true;
     }
@@ -326,28 +617,42 @@ public class XmlReader extends JsonReader {
   @Override
   public double nextDouble() throws IOException {
     expect(JsonToken.STRING);
-    return Double.parseDouble(nextValue().value);
+    if (decimals.parseDouble(peekValue())) {
+      valuesQueue.dropFirst();
+      return decimals.doubleValue;
+    }
+    return Double.parseDouble(nextValue());
   }
   @Override
   public int nextInt() throws IOException {
     expect(JsonToken.STRING);
-    return Integer.parseInt(nextValue().value);
+    if (decimals.parseLong(peekValue()) && (int) decimals.longValue == decimals.longValue) {
+      valuesQueue.dropFirst();
+      return (int) decimals.longValue;
+    }
+    return Integer.parseInt(nextValue());
   }
   @Override
   public long nextLong() throws IOException {
     expect(JsonToken.STRING);
-    return Long.parseLong(nextValue().value);
+    if (decimals.parseLong(peekValue())) {
+      valuesQueue.dropFirst();
+      return decimals.longValue;
+    }
+    return Long.parseLong(nextValue());
   }
   @Override
   public String nextName() throws IOException {
     expectedToken = JsonToken.NAME;
     expect(JsonToken.NAME);
-    return nextValue().value;
+    return nextValue();
   }
 
 
   private XmlTokenInfo nextXmlInfo() throws IOException, XmlPullParserException {
     final int type = xmlParser.next();
+    if (stats != null) { stats.xmlEvents++; }
+    if (profile != null) { profile.event(type, xmlParser); }
 
     final XmlTokenInfo info = this.xmlToken;
     info.clear();
@@ -355,6 +660,13 @@ public class XmlReader extends JsonReader {
     switch (type) {
 
     case XmlPullParser.START_TAG:
+      if (filteredOut()) {
+        // filtered out: no names, attributes or values are created
+        if (stats != null) { stats.skippedSubtrees++; }
+        skipCurrentElement();
+        info.type = IGNORE;
+        return info;
+      }
       info.type = START_TAG;
       info.name = xmlParser.getName();
       info.ns = xmlParser.getNamespace();
@@ -372,15 +684,28 @@ public class XmlReader extends JsonReader {
       break;
 
     case XmlPullParser.TEXT:
-      final String text = xmlParser.getText().trim();
-      if (text.length() == 0) {
+      // parsers detect whitespace while reading text, indentation is not scanned again
+      if (xmlParser.isWhitespace()) {
+        lastTextWhiteSpace = true;
+        info.type = IGNORE;
+        return info;
+      }
+      // trim in place, characters are valid until the next event
+      final int[] bounds = textBounds;
+      final char[] text = xmlParser.getTextCharacters(bounds);
+      int start = bounds[0], end = start + bounds[1];
+      while (start < end && text[start] <= ' ') { start++; }
+      while (end > start && text[end - 1] <= ' ') { end--; }
+      if (start == end) {
         lastTextWhiteSpace = true;
         info.type = IGNORE;
         return info;
       }
       lastTextWhiteSpace = false;
       info.type = VALUE;
-      info.value = text;
+      info.text = text;
+      info.textStart = start;
+      info.textLength = end - start;
       break;
 
 
@@ -396,64 +721,26 @@ public class XmlReader extends JsonReader {
   }
 
   private void addToQueue(final JsonToken token) {
-    final TokenRef tokenRef = tokensPool.get();
-    tokenRef.token = token;
-    tokenRef.next = null;
-
-    if (tokensQueue == null) {
-      tokensQueue = tokenRef;
-      tokensQueueStart = tokenRef;
-    } else {
-      tokensQueue.next = tokenRef;
-      tokensQueue = tokenRef;
-    }
+    tokensQueue.addLast(token);
   }
   private void pushToQueue(final JsonToken token) {
-    final TokenRef tokenRef = tokensPool.get();
-    tokenRef.token = token;
-    tokenRef.next = null;
-
-    if (tokensQueueStart == null) {
-      tokensQueueStart = tokenRef;
-      tokensQueue = tokenRef;
-    } else {
-      tokenRef.next = tokensQueueStart;
-      tokensQueueStart = tokenRef;
-    }
+    tokensQueue.addFirst(token);
   }
   private void addToQueue(final String value) {
-    final ValueRef valueRef = valuesPool.get();
-    valueRef.value = value.trim();
-    valueRef.next = null;
-
-    if (valuesQueue == null) {
-      valuesQueue = valueRef;
-      valuesQueueStart = valueRef;
-    } else {
-      valuesQueue.next = valueRef;
-      valuesQueue = valueRef;
-    }
+    if (stats != null) { stats.values++; }
+    valuesQueue.addLast(value);
   }
   private void pushToQueue(final String value) {
-    final ValueRef valueRef = valuesPool.get();
-    valueRef.value = value;
-    valueRef.next = null;
-
-    if (valuesQueueStart == null) {
-      valuesQueue = valueRef;
-      valuesQueueStart = valueRef;
-    } else {
-      valueRef.next = valuesQueueStart;
-      valuesQueueStart = valueRef;
-    }
+    if (stats != null) { stats.values++; }
+    valuesQueue.addFirst(value);
   }
   private void addToQueue(final AttributesData attrData) throws IOException, XmlPullParserException {
     final int count = attrData.count;
     for (int i = 0; i < count; i++) {
       addToQueue(JsonToken.NAME);
-      addToQueue("@" + attrData.getName(i));
+      addToQueue(namesTable.attribute(attrData.ns[i], attrData.names[i]));
       addToQueue(JsonToken.STRING);
-      addToQueue(attrData.values[i]);
+      addToQueue(attrData.values[i].trim());
     }
   }
 
@@ -461,7 +748,7 @@ public class XmlReader extends JsonReader {
 
     boolean mustRepeat = force;
 
-    while ((tokensQueue == null && !endReached) || mustRepeat) {
+    while ((tokensQueue.isEmpty() && !endReached) || mustRepeat) {
       final XmlTokenInfo xml = nextXmlInfo();
       if (endReached) {
         if (!options.skipRoot) { addToQueue(JsonToken.END_OBJECT); }
@@ -533,7 +820,7 @@ public class XmlReader extends JsonReader {
     if (options.sameNameList && lastScope.insideArray && closeStack.size() > 0) {
       ClosedTag lastClosedInfo = closeStack.peek();
       if (lastClosedInfo.depth == xmlParser.getDepth()) {
-        String currentName = options.namespaces ? xml.getName(xmlParser) : xml.name;
+        String currentName = elementName(xml);
         if (!currentName.equals(lastClosedInfo.name)) {
           // close the previous array
           addToQueue(JsonToken.END_ARRAY);
@@ -567,7 +854,7 @@ public class XmlReader extends JsonReader {
     if (processTagName) {                 // ignore tag name inside the array
       scopeStack.push(Scope.NAME);
       addToQueue(JsonToken.NAME);
-      addToQueue(xml.getName(xmlParser));
+      addToQueue(elementName(xml));
       lastTextWhiteSpace = true;           // if tag is closed immediately we'll add empty value to the queue
     }
 
@@ -587,31 +874,40 @@ public class XmlReader extends JsonReader {
     switch (scopeStack.peek()) {
 
     case PRIMITIVE_VALUE:
-      addTextToQueue(xml.value, false);
+      addTextToQueue(xml, false);
       return false;
 
     case NAME:
-      addTextToQueue(xml.value, true);
+      addTextToQueue(xml, true);
       return true;
 
     case INSIDE_OBJECT:
-      String name = "$";
-      if (textNameCounter > 0) { name += textNameCounter; }
+      final String name = namesTable.text(textNameCounter);
       textNameCounter++;
       addToQueue(JsonToken.NAME);
       addToQueue(name);
-      addTextToQueue(xml.value, false);
+      addTextToQueue(xml, false);
       return false;
 
     default:
-      throw new JsonSyntaxException("Cannot process text '" + xml.value + "' inside scope " + scopeStack.peek());
+      throw new JsonSyntaxException("Cannot process text '" + xml.textValue() + "' inside scope " + scopeStack.peek());
+    }
+  }
+
+  private void addTextToQueue(final XmlTokenInfo xml, final boolean canBeAppended) {
+    if (canBeAppended && !tokensQueue.isEmpty() && tokensQueue.peekLast() == JsonToken.STRING) {
+      valuesQueue.appendLast(xml.text, xml.textStart, xml.textLength);
+    } else {
+      addToQueue(JsonToken.STRING);
+      if (stats != null) { stats.values++; }
+      valuesQueue.addLast(xml.text, xml.textStart, xml.textLength);
     }
   }
 
   private void addTextToQueue(final String value, final boolean canBeAppended) {
-    if (canBeAppended && tokensQueue != null && tokensQueue.token == JsonToken.STRING) {
+    if (canBeAppended && !tokensQueue.isEmpty() && tokensQueue.peekLast() == JsonToken.STRING) {
       if (value.length() > 0) {
-        valuesQueue.value += " " + value;
+        valuesQueue.appendLast(value);
       }
     } else {
       addToQueue(JsonToken.STRING);
@@ -661,9 +957,13 @@ public class XmlReader extends JsonReader {
       // nothing
     }
 
+    closeTag(xml);
+  }
+
+  private void closeTag(final XmlTokenInfo xml) throws XmlPullParserException {
     if (options.sameNameList) {
       int stackSize = xmlParser.getDepth();
-      final String name = options.namespaces ? xml.getName(xmlParser) : xml.name;
+      final String name = elementName(xml);
       final Stack<ClosedTag> closeStack = this.closeStack;
       boolean nameChange = false;
       while (closeStack.size() > 0 && closeStack.peek().depth > stackSize) {
@@ -677,64 +977,362 @@ public class XmlReader extends JsonReader {
     }
   }
 
-  private static final class TokenRef {
-    JsonToken token;
-    TokenRef next;
+  /**
+   * Stack of scopes stored as ordinals.
+   * Rewrite operations ({@link #cleanup(int, int)}, {@link #pushAt(int, Scope)}) move only the scopes
+   * above the rewritten position, their cost does not depend on the document depth.
+   */
+  private static final class ScopeStack {
+    /** All scopes. */
+    private static final Scope[] SCOPES = Scope.values();
+
+    /** Scope ordinals. */
+    private byte[] array = new byte[32];
+    /** Stack size. */
+    private int size = 0;
+    /** Reallocations count. */
+    int growths;
+
+    public Scope peek() { return SCOPES[array[size - 1]]; }
+
+    public int size() { return size; }
+
+    public Scope get(final int pos) { return SCOPES[array[pos]]; }
+
+    public void drop() { size--; }
+
+    public void clear() { size = 0; }
+
+    public int cleanup(final int count) {
+      return cleanup(count, size);
+    }
+
+    /**
+     * Removes {@code count} scopes below position {@code oldStackSize}.
+     * Scopes pushed after {@code oldStackSize} are moved down.
+     * @return new position of the scope that was at {@code oldStackSize}
+     */
+    public int cleanup(final int count, final int oldStackSize) {
+      final int curStackSize = size;
+      if (oldStackSize < curStackSize) {
+        System.arraycopy(array, oldStackSize, array, oldStackSize - count, curStackSize - oldStackSize);
+        size -= count;
+      } else {
+        size = oldStackSize - count;
+      }
+      if (size < 0) { size = 0; }
+      return oldStackSize - count;
+    }
+
+    public void fix(final Scope check) {
+      size--;
+      if (size > 0 && array[size - 1] == check.ordinal()) {
+        size--;
+      }
+    }
+
+    private void ensureStack() {
+      if (size == array.length) {
+        growths++;
+        final byte[] newStack = new byte[size * 2];
+        System.arraycopy(array, 0, newStack, 0, size);
+        array = newStack;
+      }
+    }
+
+    public void push(final Scope scope) {
+      ensureStack();
+      array[size++] = (byte) scope.ordinal();
+    }
+
+    public void pushAt(final int position, final Scope scope) {
+      final int pos = position < 0 ? 0 : position;
+      ensureStack();
+      System.arraycopy(array, pos, array, pos + 1, size - pos);
+      array[pos] = (byte) scope.ordinal();
+      size++;
+    }
+
     @Override
     public String toString() {
-      return token + ", " + next;
+      final StringBuilder res = new StringBuilder();
+      for (int i = 0; i < size; i++) {
+        if (i > 0) { res.append('>'); }
+        res.append(SCOPES[array[i]]);
+      }
+      return res.toString();
     }
   }
-  private static final class ValueRef {
-    String value;
-    ValueRef next;
+
+  /**
+   * Growable ring buffer of tokens. Tokens are stored as ordinals, so adding to either end
+   * of the queue does not allocate unless the buffer has to grow.
+   */
+  private static final class TokensQueue {
+    /** All tokens. */
+    private static final JsonToken[] TOKENS = JsonToken.values();
+
+    /** Token ordinals. */
+    private byte[] codes = new byte[32];
+    /** Index of the first element. */
+    private int head;
+    /** Queue size. */
+    private int size;
+    /** Reallocations count. */
+    int growths;
+
+    public boolean isEmpty() { return size == 0; }
+
+    public int size() { return size; }
+
+    public JsonToken peekFirst() { return TOKENS[codes[head]]; }
+
+    public JsonToken peekLast() { return TOKENS[codes[(head + size - 1) & (codes.length - 1)]]; }
+
+    public JsonToken pollFirst() {
+      final JsonToken token = TOKENS[codes[head]];
+      head = (head + 1) & (codes.length - 1);
+      size--;
+      return token;
+    }
+
+    public void addLast(final JsonToken token) {
+      ensureCapacity();
+      codes[(head + size) & (codes.length - 1)] = (byte) token.ordinal();
+      size++;
+    }
+
+    public void addFirst(final JsonToken token) {
+      ensureCapacity();
+      head = (head - 1) & (codes.length - 1);
+      codes[head] = (byte) token.ordinal();
+      size++;
+    }
+
+    public void clear() {
+      head = 0;
+      size = 0;
+    }
+
+    private void ensureCapacity() {
+      if (size < codes.length) { return; }
+      growths++;
+      final byte[] newCodes = new byte[codes.length * 2];
+      final int tail = codes.length - head;
+      System.arraycopy(codes, head, newCodes, 0, tail);
+      System.arraycopy(codes, 0, newCodes, tail, head);
+      codes = newCodes;
+      head = 0;
+    }
+
     @Override
     public String toString() {
-      return value + ", " + next;
+      final StringBuilder res = new StringBuilder();
+      for (int i = 0; i < size; i++) {
+        res.append(TOKENS[codes[(head + i) & (codes.length - 1)]]).append(", ");
+      }
+      return res.append("null").toString();
     }
   }
 
-  static String nameWithNs(final String name, final String namespace, final XmlPullParser parser) throws XmlPullParserException {
-    String result = name;
-    String ns = namespace;
-    if (ns != null && ns.length() > 0) {
-      if (parser != null) {
-        final int count = parser.getNamespaceCount(parser.getDepth());
-        for (int i = 0; i < count; i++) {
-          if (ns.equals(parser.getNamespaceUri(i))) {
-            ns = parser.getNamespacePrefix(i);
-            break;
-          }
-        }
+  /**
+   * Growable ring buffer of values.
+   * Text values are kept as character ranges in a shared buffer (with null in values array)
+   * and converted to strings only when requested.
+   */
+  static final class ValuesQueue {
+    /** Values. */
+    private String[] values = new String[32];
+    /** Text ranges. */
+    private int[] starts = new int[32], lengths = new int[32];
+    /** Index of the first element. */
+    private int head;
+    /** Queue size. */
+    private int size;
+
+    /** Text characters. */
+    private char[] chars = new char[256];
+    /** Used characters count. */
+    private int charsCount;
+    /** View of the first text range. */
+    private final CharsView view = new CharsView();
+    /** Reallocations count. */
+    int growths;
+
+    public boolean isEmpty() { return size == 0; }
+
+    public int size() { return size; }
+
+    public String peekLast() { return value((head + size - 1) & (values.length - 1)); }
+
+    /**
+     * Appends a space and a text fragment to the last value. The value is kept as a characters range, so that
+     * joining many fragments takes linear time; a string is created once when the value is polled.
+     */
+    public void appendLast(final char[] text, final int start, final int length) {
+      final int index = (head + size - 1) & (values.length - 1);
+      final String value = values[index];
+      if (value != null) {
+        // move the string to characters, it's the last range now
+        values[index] = null;
+        reserve(value.length());
+        value.getChars(0, value.length(), chars, charsCount);
+        starts[index] = charsCount;
+        lengths[index] = value.length();
+        charsCount += value.length();
+      } else if (starts[index] + lengths[index] != charsCount) {
+        // not the last range, copy it to the end
+        final int valueLength = lengths[index];
+        reserve(valueLength);
+        System.arraycopy(chars, starts[index], chars, charsCount, valueLength);
+        starts[index] = charsCount;
+        charsCount += valueLength;
+      }
+      reserve(length + 1);
+      chars[charsCount] = ' ';
+      System.arraycopy(text, start, chars, charsCount + 1, length);
+      charsCount += length + 1;
+      lengths[index] += length + 1;
+    }
+
+    public void appendLast(final String value) {
+      appendLast(value.toCharArray(), 0, value.length());
+    }
+
+    public CharSequence peekFirstChars() {
+      final String value = values[head];
+      if (value != null) { return value; }
+      view.set(chars, starts[head], lengths[head]);
+      return view;
+    }
+
+    public String pollFirst() {
+      final String value = value(head);
+      dropFirst();
+      return value;
+    }
+
+    public void dropFirst() {
+      values[head] = null;
+      head = (head + 1) & (values.length - 1);
+      size--;
+      if (size == 0) { charsCount = 0; }
+    }
+
+    public void addLast(final String value) {
+      ensureCapacity();
+      values[(head + size) & (values.length - 1)] = value;
+      size++;
+    }
+
+    public void addLast(final char[] text, final int start, final int length) {
+      ensureCapacity();
+      reserve(length);
+      System.arraycopy(text, start, chars, charsCount, length);
+      final int index = (head + size) & (values.length - 1);
+      starts[index] = charsCount;
+      lengths[index] = length;
+      charsCount += length;
+      size++;
+    }
+
+    /** Makes room for {@code count} more characters. */
+    private void reserve(final int count) {
+      if (charsCount + count <= chars.length) { return; }
+      growths++;
+      final char[] newChars = new char[Math.max(chars.length * 2, charsCount + count)];
+      System.arraycopy(chars, 0, newChars, 0, charsCount);
+      chars = newChars;
+    }
+
+    private String value(final int index) {
+      final String value = values[index];
+      return value != null ? value : new String(chars, starts[index], lengths[index]);
+    }
+
+    public void addFirst(final String value) {
+      ensureCapacity();
+      head = (head - 1) & (values.length - 1);
+      values[head] = value;
+      size++;
+    }
+
+    public void clear() {
+      while (size > 0) {
+        dropFirst();
+      }
+      head = 0;
+    }
+
+    private void ensureCapacity() {
+      if (size < values.length) { return; }
+      growths++;
+      final int length = values.length;
+      values = grow(values, new String[length * 2], length);
+      starts = grow(starts, new int[length * 2], length);
+      lengths = grow(lengths, new int[length * 2], length);
+      head = 0;
+    }
+
+    private <A> A grow(final A array, final A newArray, final int length) {
+      final int tail = length - head;
+      System.arraycopy(array, head, newArray, 0, tail);
+      System.arraycopy(array, 0, newArray, tail, head);
+      return newArray;
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder res = new StringBuilder();
+      for (int i = 0; i < size; i++) {
+        res.append(value((head + i) & (values.length - 1))).append(", ");
       }
-      result = "<" + ns + ">" + result;
+      return res.append("null").toString();
     }
-    return result;
+  }
+
+  private String elementName(final XmlTokenInfo xml) throws XmlPullParserException {
+    return namesTable.element(namespacePrefix(xml.ns, xmlParser), xml.name);
+  }
+
+  /** @return prefix declared for the namespace, or namespace itself if it's not declared */
+  static String namespacePrefix(final String namespace, final XmlPullParser parser) throws XmlPullParserException {
+    if (namespace == null || namespace.length() == 0) { return null; }
+    final int count = parser.getNamespaceCount(parser.getDepth());
+    for (int i = 0; i < count; i++) {
+      if (namespace.equals(parser.getNamespaceUri(i))) {
+        return parser.getNamespacePrefix(i);
+      }
+    }
+    return namespace;
   }
 
   private static final class XmlTokenInfo {
     int type;
-    String name, value, ns;
+    String name, ns;
+
+    /** Text characters owned by parser. */
+    char[] text;
+    /** Text range. */
+    int textStart, textLength;
 
     AttributesData attributesData;
 
     public void clear() {
       type = IGNORE;
       name = null;
-      value = null;
+      text = null;
       ns = null;
       attributesData = null;
     }
 
+    String textValue() { return text != null ? new String(text, textStart, textLength) : null; }
+
     @Override
     public String toString() {
       return "xml "
           + (type == START_TAG ? "start" : type == END_TAG ? "end" : "value")
-          + " <" + ns + ":" + name + ">=" + value + (attributesData != null ? ", " + attributesData : "");
-    }
-
-    public String getName(final XmlPullParser parser) throws IOException, XmlPullParserException {
-      return nameWithNs(name, ns, parser);
+          + " <" + ns + ":" + name + ">=" + textValue() + (attributesData != null ? ", " + attributesData : "");
     }
   }
 
@@ -747,6 +1345,15 @@ public class XmlReader extends JsonReader {
       createArrays(capacity);
     }
 
+    public void clear() {
+      for (int i = 0; i < count; i++) {
+        names[i] = null;
+        values[i] = null;
+        ns[i] = null;
+      }
+      count = 0;
+    }
+
     private void createArrays(final int capacity) {
       this.names = new String[capacity];
       this.values = new String[capacity];
@@ -769,16 +1376,25 @@ public class XmlReader extends JsonReader {
       }
     }
 
-    public String getName(final int i) throws IOException, XmlPullParserException {
-      return nameWithNs(names[i], ns[i], null);
-    }
-
   }
 
   /** Xml reader options. */
   public static class Options {
     /** Options. */
     boolean primitiveArrays, skipRoot, sameNameList, namespaces, rootArrayPrimitive;
+    /** Elements filter, may be null. */
+    PathFilter pathFilter;
+
+    Options copy() {
+      final Options copy = new Options();
+      copy.primitiveArrays = primitiveArrays;
+      copy.skipRoot = skipRoot;
+      copy.sameNameList = sameNameList;
+      copy.namespaces = namespaces;
+      copy.rootArrayPrimitive = rootArrayPrimitive;
+      copy.pathFilter = pathFilter;
+      return copy;
+    }
   }
 
   /** Closed tag data. */
@@ -797,41 +1413,4 @@ public class XmlReader extends JsonReader {
     }
   }
 
-  /** Pool for  */
-  private static final class RefsPool<T> {
-
-    /** Max count. */
-    private static final int SIZE = 32;
-
-    /** Factory instance. */
-    private final Creator<T> creator;
-
-    /** Pool. */
-    private final Object[] store = new Object[SIZE];
-
-    /** Store length. */
-    private int len = 0;
-
-    public RefsPool(final Creator<T> factory) {
-      this.creator = factory;
-    }
-
-    /** Get value from pool or create it. */
-    public T get() {
-      if (len == 0) { return creator.create(); }
-      return (T)store[--len];
-    }
-
-    /** Return value to the pool. */
-    public void release(final T obj) {
-      if (len < SIZE) {
-        store[len++] = obj;
-      }
-    }
-
-  }
-
-  /** Factory. */
-  private interface Creator<T> { T create(); }
-
 }
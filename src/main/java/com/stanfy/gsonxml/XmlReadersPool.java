@@ -0,0 +1,80 @@
+package com.stanfy.gsonxml;
+
+import java.io.InputStream;
+import java.io.Reader;
+
+import com.stanfy.gsonxml.XmlReader.Options;
+
+/**
+ * Bounded pool of {@link XmlReader} instances. Can be used from different threads.
+ * Each reader obtained from the pool is owned by the caller until it's recycled.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class XmlReadersPool {
+
+  /** XML parser creator. */
+  private final XmlParserCreator xmlParserCreator;
+
+  /** Options. */
+  private final Options options;
+
+  /** Pool. */
+  private final XmlReader[] store;
+
+  /** Store length. */
+  private int len = 0;
+
+  public XmlReadersPool(final XmlParserCreator xmlParserCreator, final Options options, final int size) {
+    this.xmlParserCreator = xmlParserCreator;
+    this.options = options;
+    this.store = new XmlReader[size];
+  }
+
+  /**
+   * Get a reader from the pool or create a new one.
+   * @param in XML source
+   * @return reader bound to the given input
+   */
+  public XmlReader obtain(final Reader in) {
+    final XmlReader reader = take();
+    reader.reset(in);
+    return reader;
+  }
+
+  /**
+   * Get a reader from the pool or create a new one.
+   * @param in XML source
+   * @param encoding input encoding, null to detect it from the XML declaration
+   * @return reader bound to the given input
+   */
+  public XmlReader obtain(final InputStream in, final String encoding) {
+    final XmlReader reader = take();
+    reader.reset(in, encoding);
+    return reader;
+  }
+
+  private XmlReader take() {
+    XmlReader reader = null;
+    synchronized (this) {
+      if (len > 0) {
+        reader = store[--len];
+        store[len] = null;
+      }
+    }
+    return reader != null ? reader : new XmlReader(xmlParserCreator, options);
+  }
+
+  /**
+   * Return a reader to the pool. Reader must not be used after this call.
+   * @param reader reader instance obtained with {@link #obtain(Reader)}
+   */
+  public void recycle(final XmlReader reader) {
+    reader.detach();
+    synchronized (this) {
+      if (len < store.length) {
+        store[len++] = reader;
+      }
+    }
+  }
+
+}
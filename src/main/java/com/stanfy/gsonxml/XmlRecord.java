@@ -0,0 +1,439 @@
+package com.stanfy.gsonxml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * Parsing events of one XML element subtree captured from a live parser.
+ * Records are filled by a single scanning thread and then replayed with {@link Parser} on any other thread,
+ * so that {@link XmlReader} and {@link XmlBinder} can bind them without touching the original input.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class XmlRecord {
+
+  /** Events count. */
+  private int size;
+  /** Event types. */
+  private int[] types;
+  /** Event depths, 1 for the record element. */
+  private int[] depths;
+  /** Element name and namespace for tags. */
+  private String[] names, namespaces;
+  /** Start and length in {@link #text} for text events, start and count in {@link #attributes} for start tags. */
+  private int[] starts, lengths;
+  /** In-scope namespace declarations (prefix, URI pairs) of each event, null if namespaces are not processed. */
+  private String[][] scopes;
+
+  /** Text characters of all the events. */
+  private char[] text;
+  /** Text length. */
+  private int textLength;
+
+  /** Attributes: name, prefix, namespace, value. */
+  private String[] attributes;
+  /** Attributes length. */
+  private int attributesLength;
+
+  /**
+   * Creates a record. Capacity hints are usually taken from the previous record, since repeated elements
+   * tend to have similar size.
+   * @param processNamespaces whether namespaces are processed
+   * @param hint previous record, may be null
+   */
+  XmlRecord(final boolean processNamespaces, final XmlRecord hint) {
+    final int capacity = hint != null ? Math.max(hint.size, 2) : 16;
+    types = new int[capacity];
+    depths = new int[capacity];
+    names = new String[capacity];
+    namespaces = new String[capacity];
+    starts = new int[capacity];
+    lengths = new int[capacity];
+    if (processNamespaces) {
+      scopes = new String[capacity][];
+    }
+    text = new char[hint != null ? Math.max(hint.textLength, 16) : 64];
+    attributes = new String[hint != null ? Math.max(hint.attributesLength, 4) : 16];
+  }
+
+  /**
+   * Captures the current start tag.
+   * @param parser parser positioned at the start tag
+   * @param depth record depth of the element
+   * @param scope namespaces in scope of the element, ignored if namespaces are not processed
+   */
+  void startTag(final XmlPullParser parser, final int depth, final String[] scope) {
+    final int index = add(XmlPullParser.START_TAG, depth, parser.getName(), parser.getNamespace(), scope);
+    final int count = parser.getAttributeCount();
+    starts[index] = attributesLength / 4;
+    lengths[index] = count;
+    if (attributesLength + count * 4 > attributes.length) {
+      final String[] newAttributes = new String[Math.max(attributes.length * 2, attributesLength + count * 4)];
+      System.arraycopy(attributes, 0, newAttributes, 0, attributesLength);
+      attributes = newAttributes;
+    }
+    for (int i = 0; i < count; i++) {
+      attributes[attributesLength++] = parser.getAttributeName(i);
+      attributes[attributesLength++] = parser.getAttributePrefix(i);
+      attributes[attributesLength++] = parser.getAttributeNamespace(i);
+      attributes[attributesLength++] = parser.getAttributeValue(i);
+    }
+  }
+
+  /**
+   * Captures the current text.
+   * @param parser parser positioned at the text
+   * @param depth record depth of the text parent element
+   * @param scope namespaces in scope of the parent element, ignored if namespaces are not processed
+   * @param bounds text bounds holder
+   */
+  void text(final XmlPullParser parser, final int depth, final String[] scope, final int[] bounds) {
+    final char[] chars = parser.getTextCharacters(bounds);
+    final int index = add(XmlPullParser.TEXT, depth, null, null, scope);
+    final int length = bounds[1];
+    if (textLength + length > text.length) {
+      final char[] newText = new char[Math.max(text.length * 2, textLength + length)];
+      System.arraycopy(text, 0, newText, 0, textLength);
+      text = newText;
+    }
+    System.arraycopy(chars, bounds[0], text, textLength, length);
+    starts[index] = textLength;
+    lengths[index] = length;
+    textLength += length;
+  }
+
+  /**
+   * Captures the current end tag.
+   * @param parser parser positioned at the end tag
+   * @param depth record depth of the element
+   * @param scope namespaces in scope of the element, ignored if namespaces are not processed
+   */
+  void endTag(final XmlPullParser parser, final int depth, final String[] scope) {
+    add(XmlPullParser.END_TAG, depth, parser.getName(), parser.getNamespace(), scope);
+  }
+
+  private int add(final int type, final int depth, final String name, final String namespace, final String[] scope) {
+    if (size == types.length) {
+      final int capacity = size * 2;
+      types = grow(types, new int[capacity]);
+      depths = grow(depths, new int[capacity]);
+      starts = grow(starts, new int[capacity]);
+      lengths = grow(lengths, new int[capacity]);
+      names = grow(names, new String[capacity]);
+      namespaces = grow(namespaces, new String[capacity]);
+      if (scopes != null) {
+        scopes = grow(scopes, new String[capacity][]);
+      }
+    }
+    final int index = size++;
+    types[index] = type;
+    depths[index] = depth;
+    names[index] = name;
+    namespaces[index] = namespace;
+    if (scopes != null) {
+      scopes[index] = scope;
+    }
+    return index;
+  }
+
+  private <A> A grow(final A array, final A newArray) {
+    System.arraycopy(array, 0, newArray, 0, size);
+    return newArray;
+  }
+
+  /** @return events count */
+  int size() { return size; }
+
+  /** @return captured text length */
+  int textLength() { return textLength; }
+
+  /** Drops all the events keeping allocated buffers. */
+  void clear() {
+    for (int i = 0; i < size; i++) {
+      names[i] = null;
+      namespaces[i] = null;
+      if (scopes != null) {
+        scopes[i] = null;
+      }
+    }
+    for (int i = 0; i < attributesLength; i++) {
+      attributes[i] = null;
+    }
+    size = 0;
+    textLength = 0;
+    attributesLength = 0;
+  }
+
+  /**
+   * Replays a record as a document with the record element as a root.
+   * Only the reading part of the pull parser contract is supported: features and properties are ignored,
+   * and namespace declarations are always reported for the current event regardless of the requested depth.
+   * Subclasses may continue the document with further records, see {@link #nextRecord()}.
+   */
+  static class Parser implements XmlPullParser {
+
+    /** Current record. */
+    private XmlRecord record;
+
+    /** Current event index, -1 before the record, record size after it. */
+    private int position;
+
+    /**
+     * Binds the parser to a record. Events are replayed from the start when the input is set.
+     * @param record record to replay
+     */
+    void load(final XmlRecord record) {
+      this.record = record;
+      this.position = -1;
+    }
+
+    @Override
+    public void setInput(final Reader in) {
+      position = -1;
+    }
+
+    @Override
+    public void setInput(final InputStream inputStream, final String inputEncoding) {
+      position = -1;
+    }
+
+    @Override
+    public void setFeature(final String name, final boolean state) {
+      // record is already parsed
+    }
+
+    @Override
+    public boolean getFeature(final String name) {
+      return FEATURE_PROCESS_NAMESPACES.equals(name) && record != null && record.scopes != null;
+    }
+
+    @Override
+    public void setProperty(final String name, final Object value) throws XmlPullParserException {
+      throw new XmlPullParserException("Unsupported property " + name);
+    }
+
+    @Override
+    public Object getProperty(final String name) { return null; }
+
+    @Override
+    public String getInputEncoding() { return null; }
+
+    @Override
+    public void defineEntityReplacementText(final String entityName, final String replacementText)
+        throws XmlPullParserException {
+      throw new XmlPullParserException("Record is already parsed");
+    }
+
+    private String[] scope() {
+      return record.scopes != null && position >= 0 && position < record.size ? record.scopes[position] : null;
+    }
+
+    @Override
+    public int getNamespaceCount(final int depth) {
+      final String[] scope = scope();
+      return scope != null ? scope.length / 2 : 0;
+    }
+
+    @Override
+    public String getNamespacePrefix(final int pos) { return scope()[pos * 2]; }
+
+    @Override
+    public String getNamespaceUri(final int pos) { return scope()[pos * 2 + 1]; }
+
+    @Override
+    public String getNamespace(final String prefix) {
+      final String[] scope = scope();
+      if (scope == null) { return null; }
+      for (int i = scope.length - 2; i >= 0; i -= 2) {
+        if (prefix == null ? scope[i] == null : prefix.equals(scope[i])) { return scope[i + 1]; }
+      }
+      return null;
+    }
+
+    @Override
+    public int getDepth() {
+      if (position < 0 || position >= record.size) { return 0; }
+      // text depth is the depth of its parent
+      return record.depths[position];
+    }
+
+    @Override
+    public String getPositionDescription() {
+      return getEventType() < TYPES.length ? TYPES[getEventType()] + " #" + position : "#" + position;
+    }
+
+    @Override
+    public int getLineNumber() { return -1; }
+
+    @Override
+    public int getColumnNumber() { return -1; }
+
+    @Override
+    public boolean isWhitespace() throws XmlPullParserException {
+      if (getEventType() != TEXT) { throw new XmlPullParserException("Not a text event"); }
+      final char[] text = record.text;
+      final int start = record.starts[position], end = start + record.lengths[position];
+      for (int i = start; i < end; i++) {
+        if (text[i] > ' ') { return false; }
+      }
+      return true;
+    }
+
+    @Override
+    public String getText() {
+      if (getEventType() != TEXT) { return null; }
+      return new String(record.text, record.starts[position], record.lengths[position]);
+    }
+
+    @Override
+    public char[] getTextCharacters(final int[] holderForStartAndLength) {
+      if (getEventType() != TEXT) {
+        holderForStartAndLength[0] = -1;
+        holderForStartAndLength[1] = -1;
+        return null;
+      }
+      holderForStartAndLength[0] = record.starts[position];
+      holderForStartAndLength[1] = record.lengths[position];
+      return record.text;
+    }
+
+    @Override
+    public String getNamespace() {
+      return isTag() ? nullToEmpty(record.namespaces[position]) : null;
+    }
+
+    @Override
+    public String getName() {
+      return isTag() ? record.names[position] : null;
+    }
+
+    @Override
+    public String getPrefix() { return null; }
+
+    @Override
+    public boolean isEmptyElementTag() { return false; }
+
+    @Override
+    public int getAttributeCount() {
+      return getEventType() == START_TAG ? record.lengths[position] : -1;
+    }
+
+    private String attribute(final int index, final int field) {
+      if (getEventType() != START_TAG || index < 0 || index >= record.lengths[position]) {
+        throw new IndexOutOfBoundsException("Attribute " + index);
+      }
+      return record.attributes[(record.starts[position] + index) * 4 + field];
+    }
+
+    @Override
+    public String getAttributeNamespace(final int index) { return nullToEmpty(attribute(index, 2)); }
+
+    @Override
+    public String getAttributeName(final int index) { return attribute(index, 0); }
+
+    @Override
+    public String getAttributePrefix(final int index) { return attribute(index, 1); }
+
+    @Override
+    public String getAttributeType(final int index) { return "CDATA"; }
+
+    @Override
+    public boolean isAttributeDefault(final int index) { return false; }
+
+    @Override
+    public String getAttributeValue(final int index) { return attribute(index, 3); }
+
+    @Override
+    public String getAttributeValue(final String namespace, final String name) {
+      final int count = getAttributeCount();
+      for (int i = 0; i < count; i++) {
+        if (name.equals(attribute(i, 0)) && (namespace == null || namespace.equals(getAttributeNamespace(i)))) {
+          return attribute(i, 3);
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public int getEventType() {
+      if (position < 0) { return START_DOCUMENT; }
+      return position < record.size ? record.types[position] : END_DOCUMENT;
+    }
+
+    /**
+     * Called when all the events of the current record are replayed.
+     * @return record with the following events, null if the document is finished
+     */
+    XmlRecord nextRecord() throws XmlPullParserException, IOException {
+      return null;
+    }
+
+    @Override
+    public int next() throws XmlPullParserException, IOException {
+      if (position < record.size) {
+        position++;
+      }
+      while (position == record.size) {
+        final XmlRecord next = nextRecord();
+        if (next == null) { break; }
+        record = next;
+        position = 0;
+      }
+      return getEventType();
+    }
+
+    @Override
+    public int nextToken() throws XmlPullParserException, IOException { return next(); }
+
+    @Override
+    public void require(final int type, final String namespace, final String name) throws XmlPullParserException {
+      if (type != getEventType()
+          || namespace != null && !namespace.equals(getNamespace())
+          || name != null && !name.equals(getName())) {
+        throw new XmlPullParserException("Expected " + TYPES[type] + " but was " + getPositionDescription());
+      }
+    }
+
+    @Override
+    public String nextText() throws XmlPullParserException, IOException {
+      if (getEventType() != START_TAG) { throw new XmlPullParserException("Expected START_TAG"); }
+      final StringBuilder result = new StringBuilder();
+      int type;
+      while ((type = next()) == TEXT) {
+        result.append(record.text, record.starts[position], record.lengths[position]);
+      }
+      if (type != END_TAG) { throw new XmlPullParserException("Expected END_TAG but was " + getPositionDescription()); }
+      return result.toString();
+    }
+
+    @Override
+    public int nextTag() throws XmlPullParserException, IOException {
+      int type = next();
+      if (type == TEXT && isWhitespace()) {
+        type = next();
+      }
+      if (type != START_TAG && type != END_TAG) {
+        throw new XmlPullParserException("Expected a tag but was " + getPositionDescription());
+      }
+      return type;
+    }
+
+    private boolean isTag() {
+      final int type = getEventType();
+      return type == START_TAG || type == END_TAG;
+    }
+
+    private static String nullToEmpty(final String value) {
+      return value != null ? value : "";
+    }
+
+    @Override
+    public String toString() {
+      return "XmlRecord.Parser(" + getPositionDescription() + ")";
+    }
+  }
+
+}
@@ -0,0 +1,510 @@
+package com.stanfy.gsonxml;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.google.gson.stream.JsonWriter;
+import com.stanfy.gsonxml.XmlReader.Options;
+
+/**
+ * Writes JSON as XML. Follows the same conventions as {@link XmlReader}:
+ * <ul>
+ *   <li>names starting with '@' are written as attributes of the current element;</li>
+ *   <li>names starting with '$' are written as text nodes;</li>
+ *   <li>namespaced names ({@code <ns>name}) are written as {@code ns:name};</li>
+ *   <li>arrays are written as repeated elements with the field name when same name lists option is set, otherwise
+ *   as an element with the field name containing {@value #ITEM} elements.</li>
+ * </ul>
+ * <p>
+ * Output is buffered. An attribute may follow other fields of an object while the element content written before it
+ * does not exceed {@value #BUFFER_SIZE} chars, otherwise {@link IllegalStateException} is thrown regardless of what
+ * has been written to the output. {@link #flush()} also terminates all buffered start tags.
+ * Declare attribute fields first to be safe.
+ * </p>
+ * Null values are omitted. Namespace declarations are not generated.
+ * Names that are not valid XML names and characters that are not allowed in XML 1.0 (control characters, unpaired
+ * surrogates) cause {@link IllegalArgumentException}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class XmlWriter extends JsonWriter {
+
+  /** Default name of the root element. */
+  public static final String DEFAULT_ROOT_NAME = "root";
+
+  /** Name of elements written for items of a list that is not a same name list. */
+  public static final String ITEM = "item";
+
+  /** Max size of the object content that can be followed by attributes. */
+  public static final int BUFFER_SIZE = 8192;
+
+  /** Frame type. */
+  private static final byte OBJECT = 1, ARRAY = 2;
+
+  /** Start tag state: not terminated with '&gt;' yet. */
+  private static final int TAG_OPEN = -1;
+  /** Start tag state: terminated and written to the output. */
+  private static final int TAG_COMMITTED = -2;
+
+  /** Output. */
+  private final Writer out;
+
+  /** Options. */
+  private final Options options;
+
+  /** Root element name used when root is skipped. */
+  private final String rootName;
+
+  /** Not written output. */
+  private final StringBuilder buffer = new StringBuilder(2 * BUFFER_SIZE + BUFFER_SIZE / 4);
+  /** Chars for writing the buffer. */
+  private char[] chars;
+
+  /** Frame types. */
+  private byte[] kinds = new byte[32];
+  /** Element names for objects, wrapper element names for arrays (null if a frame has no element). */
+  private String[] elements = new String[32];
+  /** Array item names. */
+  private String[] items = new String[32];
+  /** Start tag states: position of '&gt;' in the buffer, {@link #TAG_OPEN} or {@link #TAG_COMMITTED}. */
+  private int[] tags = new int[32];
+  /** Stack size. */
+  private int size;
+
+  /** Name passed to {@link #name(String)}. */
+  private String pendingName;
+
+  /** Whether the top level value has been written. */
+  private boolean documentWritten;
+  /** Whether the root element has been written when root is not skipped. */
+  private boolean rootWritten;
+
+  public XmlWriter(final Writer out, final Options options) {
+    this(out, options, DEFAULT_ROOT_NAME);
+  }
+
+  public XmlWriter(final Writer out, final Options options, final String rootName) {
+    super(out);
+    this.out = out;
+    this.options = options;
+    this.rootName = rootName;
+  }
+
+  private void push(final byte kind, final String element, final String item) {
+    if (size == kinds.length) {
+      final int newLength = size * 2;
+      final byte[] newKinds = new byte[newLength];
+      System.arraycopy(kinds, 0, newKinds, 0, size);
+      kinds = newKinds;
+      final String[] newElements = new String[newLength];
+      System.arraycopy(elements, 0, newElements, 0, size);
+      elements = newElements;
+      final String[] newItems = new String[newLength];
+      System.arraycopy(items, 0, newItems, 0, size);
+      items = newItems;
+      final int[] newTags = new int[newLength];
+      System.arraycopy(tags, 0, newTags, 0, size);
+      tags = newTags;
+    }
+    kinds[size] = kind;
+    elements[size] = element;
+    items[size] = item;
+    tags[size] = TAG_OPEN;
+    size++;
+  }
+
+  private void pop(final byte kind) throws IOException {
+    if (size == 0 || kinds[size - 1] != kind) {
+      throw new IllegalStateException("Nesting problem: " + (kind == OBJECT ? "object" : "array") + " is not open");
+    }
+    if (pendingName != null) { throw new IllegalStateException("Dangling name: " + pendingName); }
+    size--;
+    final String element = elements[size];
+    if (element != null) {
+      if (tags[size] == TAG_OPEN) {
+        buffer.append("/>");
+      } else {
+        buffer.append("</");
+        appendName(element, 0);
+        buffer.append('>');
+      }
+    }
+    elements[size] = null;
+    items[size] = null;
+    if (size == 0) {
+      writeBuffer();
+    } else {
+      checkBuffer();
+    }
+  }
+
+  /**
+   * Resolves a name of the element for the next value.
+   * @return element name, null if the value must be written without an enclosing element
+   */
+  private String nextElementName() {
+    if (size == 0) {
+      if (documentWritten) { throw new IllegalStateException("XML must have only one root element"); }
+      documentWritten = true;
+      return options.skipRoot ? rootName : null;
+    }
+    if (kinds[size - 1] == ARRAY) {
+      return items[size - 1];
+    }
+    final String name = pendingName;
+    if (name == null) { throw new IllegalStateException("Name is not defined inside object"); }
+    pendingName = null;
+    if (size == 1 && elements[0] == null) {
+      // root is not skipped: top level object contains the only root element
+      if (rootWritten || name.charAt(0) == '@' || name.charAt(0) == '$') {
+        throw new IllegalStateException("XML must have only one root element, met " + name);
+      }
+      rootWritten = true;
+    }
+    return name;
+  }
+
+  @Override
+  public JsonWriter beginObject() throws IOException {
+    final String name = nextElementName();
+    if (name != null) {
+      checkElementName(name);
+      startElement(name);
+    }
+    push(OBJECT, name, null);
+    return this;
+  }
+
+  @Override
+  public JsonWriter endObject() throws IOException {
+    pop(OBJECT);
+    return this;
+  }
+
+  @Override
+  public JsonWriter beginArray() throws IOException {
+    final boolean root = size == 0;
+    final boolean insideArray = !root && kinds[size - 1] == ARRAY;
+    final String name = nextElementName();
+    if (name == null) { throw new IllegalStateException("Cannot write an array as XML root, root must be skipped"); }
+    checkElementName(name);
+    if (options.sameNameList && !root && !insideArray) {
+      push(ARRAY, null, name);
+    } else {
+      startElement(name);
+      push(ARRAY, name, ITEM);
+    }
+    return this;
+  }
+
+  @Override
+  public JsonWriter endArray() throws IOException {
+    pop(ARRAY);
+    return this;
+  }
+
+  @Override
+  public JsonWriter name(final String name) throws IOException {
+    if (name == null) { throw new NullPointerException("name == null"); }
+    if (size == 0 || kinds[size - 1] != OBJECT) { throw new IllegalStateException("Name outside of object: " + name); }
+    if (pendingName != null) { throw new IllegalStateException("Dangling name: " + pendingName); }
+    pendingName = name;
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(final String value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    final String name = nextElementName();
+    if (name == null) { throw new IllegalStateException("Cannot write a primitive as XML root, root must be skipped"); }
+    switch (name.charAt(0)) {
+    case '@':
+      attribute(name, value);
+      break;
+    case '$':
+      closeParentTag();
+      escape(value, false);
+      break;
+    default:
+      checkElementName(name);
+      startElement(name);
+      if (value.length() > 0) {
+        buffer.append('>');
+        escape(value, false);
+        buffer.append("</");
+        appendName(name, 0);
+        buffer.append('>');
+      } else {
+        buffer.append("/>");
+      }
+    }
+    if (size == 0) {
+      writeBuffer(); // top level value is complete
+    } else {
+      checkBuffer();
+    }
+    return this;
+  }
+
+  @Override
+  public JsonWriter nullValue() throws IOException {
+    if (size > 0 && kinds[size - 1] == ARRAY) {
+      startElement(items[size - 1]);
+      buffer.append("/>");
+    } else if (size == 0) {
+      documentWritten = true;
+    } else {
+      if (pendingName == null) { throw new IllegalStateException("Name is not defined inside object"); }
+      pendingName = null; // nulls are omitted
+    }
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(final boolean value) throws IOException {
+    return value(value ? "true" : "false");
+  }
+
+  @Override
+  public JsonWriter value(final double value) throws IOException {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+    }
+    return value(Double.toString(value));
+  }
+
+  @Override
+  public JsonWriter value(final long value) throws IOException {
+    return value(Long.toString(value));
+  }
+
+  @Override
+  public JsonWriter value(final Number value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    return value(value.toString());
+  }
+
+  @Override
+  public void flush() throws IOException {
+    writeBuffer();
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    writeBuffer();
+    out.close();
+    if (size > 0) {
+      throw new IOException("Incomplete document");
+    }
+  }
+
+  /**
+   * Writes the buffer content that cannot be changed anymore: everything before the first start tag
+   * that can still get attributes. Start tags are committed if their content exceeds {@value #BUFFER_SIZE}.
+   */
+  private void checkBuffer() throws IOException {
+    if (buffer.length() < 2 * BUFFER_SIZE) { return; }
+    int pending = -1;
+    for (int i = 0; i < size; i++) {
+      if (tags[i] >= 0) {
+        if (contentLength(tags[i]) > BUFFER_SIZE) {
+          tags[i] = TAG_COMMITTED;
+        } else {
+          pending = i;
+          break;
+        }
+      }
+    }
+    if (pending == -1) {
+      writeBuffer();
+      return;
+    }
+    final int length = tags[pending];
+    write(length);
+    buffer.delete(0, length);
+    for (int i = pending; i < size; i++) {
+      if (tags[i] >= 0) {
+        tags[i] -= length;
+      }
+    }
+  }
+
+  /** @return length of the element content written to the buffer after its start tag */
+  private int contentLength(final int tag) {
+    return buffer.length() - tag - 1;
+  }
+
+  /** Writes the whole buffer to the output. Start tags in the buffer cannot be changed after this. */
+  private void writeBuffer() throws IOException {
+    write(buffer.length());
+    buffer.setLength(0);
+    for (int i = 0; i < size; i++) {
+      if (tags[i] >= 0) {
+        tags[i] = TAG_COMMITTED;
+      }
+    }
+  }
+
+  private void write(final int length) throws IOException {
+    if (length == 0) { return; }
+    if (chars == null || chars.length < length) {
+      chars = new char[Math.max(length, 2 * BUFFER_SIZE)];
+    }
+    buffer.getChars(0, length, chars, 0);
+    out.write(chars, 0, length);
+  }
+
+  private static void checkElementName(final String name) {
+    final char first = name.charAt(0);
+    if (first == '@' || first == '$') {
+      throw new IllegalStateException("Name " + name + " can be used for primitive values only");
+    }
+    checkName(name, 0);
+  }
+
+  /** Checks that a name (starting from {@code start}, possibly in {@code <ns>name} form) is a valid XML name. */
+  private static void checkName(final String name, final int start) {
+    final int length = name.length();
+    int from = start;
+    if (length > start && name.charAt(start) == '<') {
+      final int nsEnd = name.indexOf('>', start);
+      if (nsEnd > 0) {
+        if (!isName(name, start + 1, nsEnd, false)) { throw invalidName(name); }
+        from = nsEnd + 1;
+      }
+    }
+    if (!isName(name, from, length, true)) { throw invalidName(name); }
+  }
+
+  private static IllegalArgumentException invalidName(final String name) {
+    return new IllegalArgumentException("Invalid XML name: " + name);
+  }
+
+  /** @return whether chars from {@code start} to {@code end} form an XML 1.0 name */
+  private static boolean isName(final String name, final int start, final int end, final boolean colons) {
+    if (start >= end) { return false; }
+    for (int i = start; i < end; i++) {
+      int c = name.charAt(i);
+      if (Character.isHighSurrogate((char) c) && i + 1 < end && Character.isLowSurrogate(name.charAt(i + 1))) {
+        c = Character.toCodePoint((char) c, name.charAt(++i));
+      }
+      if (c == ':' ? !colons || i == start : !isNameChar(c, i == start)) { return false; }
+    }
+    return true;
+  }
+
+  /** Name characters of XML 1.0 (fifth edition), ':' is checked separately. */
+  private static boolean isNameChar(final int c, final boolean first) {
+    if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_') { return true; }
+    if (c < 0x80) { return !first && (c >= '0' && c <= '9' || c == '-' || c == '.'); }
+    if (c >= 0xC0 && c <= 0x2FF && c != 0xD7 && c != 0xF7
+        || c >= 0x370 && c <= 0x1FFF && c != 0x37E
+        || c == 0x200C || c == 0x200D
+        || c >= 0x2070 && c <= 0x218F
+        || c >= 0x2C00 && c <= 0x2FEF
+        || c >= 0x3001 && c <= 0xD7FF
+        || c >= 0xF900 && c <= 0xFDCF
+        || c >= 0xFDF0 && c <= 0xFFFD
+        || c >= 0x10000 && c <= 0xEFFFF) {
+      return true;
+    }
+    return !first && (c == 0xB7 || c >= 0x300 && c <= 0x36F || c == 0x203F || c == 0x2040);
+  }
+
+  /** Terminates start tag of the element that will contain the next child. */
+  private void closeParentTag() {
+    int index = size - 1;
+    if (index < 0) { return; }
+    if (elements[index] == null && kinds[index] == ARRAY) {
+      index--; // same name list: items are put to the parent element
+    }
+    if (index >= 0 && elements[index] != null && tags[index] == TAG_OPEN) {
+      tags[index] = buffer.length();
+      buffer.append('>');
+    }
+  }
+
+  private void startElement(final String name) {
+    closeParentTag();
+    buffer.append('<');
+    appendName(name, 0);
+  }
+
+  private void attribute(final String name, final String value) {
+    final int index = size - 1;
+    if (elements[index] == null) {
+      throw new IllegalStateException("Cannot write attribute " + name + " without element");
+    }
+    final int tag = tags[index];
+    if (tag == TAG_COMMITTED || tag >= 0 && contentLength(tag) > BUFFER_SIZE) {
+      throw new IllegalStateException("Cannot write attribute " + name + ": start tag has already been written."
+          + " Declare attribute fields before other fields.");
+    }
+    checkName(name, 1);
+    final int start = buffer.length();
+    buffer.append(' ');
+    appendName(name, 1);
+    buffer.append("=\"");
+    escape(value, true);
+    buffer.append('"');
+    if (tag != TAG_OPEN) {
+      // move the attribute into the start tag
+      final int length = buffer.length() - start;
+      final char[] attr = new char[length];
+      buffer.getChars(start, start + length, attr, 0);
+      buffer.setLength(start);
+      buffer.insert(tag, attr);
+      tags[index] = tag + length;
+    }
+  }
+
+  /** Appends a name converting {@code <ns>name} to {@code ns:name}. */
+  private void appendName(final String name, final int start) {
+    if (name.length() > start && name.charAt(start) == '<') {
+      final int nsEnd = name.indexOf('>', start);
+      if (nsEnd > 0) {
+        buffer.append(name, start + 1, nsEnd).append(':').append(name, nsEnd + 1, name.length());
+        return;
+      }
+    }
+    buffer.append(name, start, name.length());
+  }
+
+  private void escape(final String value, final boolean attribute) {
+    final StringBuilder buffer = this.buffer;
+    final int length = value.length();
+    int last = 0;
+    for (int i = 0; i < length; i++) {
+      final char c = value.charAt(i);
+      final String replacement;
+      switch (c) {
+      case '<': replacement = "&lt;"; break;
+      case '>': replacement = "&gt;"; break;
+      case '&': replacement = "&amp;"; break;
+      case '"': replacement = attribute ? "&quot;" : null; break;
+      case '\n': replacement = attribute ? "&#10;" : null; break;
+      case '\r': replacement = "&#13;"; break;
+      case '\t': replacement = attribute ? "&#9;" : null; break;
+      default:
+        replacement = null;
+        if (c < 0x20 || c >= 0xD800 && c <= 0xDFFF || c >= 0xFFFE) {
+          if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+            i++; // supplementary character
+          } else {
+            throw new IllegalArgumentException("Character 0x" + Integer.toHexString(c) + " is not allowed in XML");
+          }
+        }
+      }
+      if (replacement != null) {
+        buffer.append(value, last, i).append(replacement);
+        last = i + 1;
+      }
+    }
+    buffer.append(value, last, length);
+  }
+
+}
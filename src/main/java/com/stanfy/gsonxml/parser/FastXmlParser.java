@@ -0,0 +1,1094 @@
+package com.stanfy.gsonxml.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import com.stanfy.gsonxml.XmlParserCreator;
+
+/**
+ * Non-validating XML pull parser tuned for the way gson-xml reads documents.
+ * <ul>
+ *   <li>element and attribute names are taken from a symbol table, so repeated names are not allocated;</li>
+ *   <li>text is never copied to a separate buffer: entities, CDATA sections, comments and line ends are resolved
+ *   in place, {@link #getTextCharacters(int[])} returns a range of the input buffer;</li>
+ *   <li>whitespace is detected while text is scanned, {@link #isWhitespace()} does not look at the text again;</li>
+ *   <li>DTD is not processed: document type declaration is skipped, only predefined entities, character references
+ *   and entities defined with {@link #defineEntityReplacementText(String, String)} are resolved.</li>
+ * </ul>
+ * Only {@link #FEATURE_PROCESS_NAMESPACES} feature is supported. {@link #nextToken()} reports the same events as
+ * {@link #next()}. Attribute values are not normalized.
+ * <p>
+ * Byte input encoding is taken from the byte order mark or the XML declaration, UTF-8 is used by default.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public final class FastXmlParser implements XmlPullParser {
+
+  /** Creates parsers of this type. */
+  public static final XmlParserCreator CREATOR = new XmlParserCreator() {
+    @Override
+    public XmlPullParser createParser() {
+      return new FastXmlParser();
+    }
+  };
+
+  /** Initial input buffer size. */
+  static final int DEFAULT_BUFFER_SIZE = 8192;
+  /** Buffers that grew larger than initial size multiplied by this value are dropped when input is replaced. */
+  private static final int MAX_RETAINED_GROWTH = 16;
+
+  /** Max count of bytes read to find the XML declaration. */
+  private static final int DECLARATION_LIMIT = 1024;
+  /** Max length of entity reference. */
+  private static final int MAX_ENTITY_LENGTH = 64;
+
+  /** Predefined namespaces. */
+  private static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace",
+      XMLNS_NAMESPACE = "http://www.w3.org/2000/xmlns/";
+
+  /** Characters that continue a name, ASCII only: all other characters are accepted. */
+  private static final boolean[] NAME_CHARS = new boolean[128];
+  static {
+    for (char c = 'a'; c <= 'z'; c++) {
+      NAME_CHARS[c] = true;
+      NAME_CHARS[Character.toUpperCase(c)] = true;
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      NAME_CHARS[c] = true;
+    }
+    NAME_CHARS['-'] = true;
+    NAME_CHARS['_'] = true;
+    NAME_CHARS['.'] = true;
+    NAME_CHARS[':'] = true;
+  }
+
+  /** Names. */
+  private final Symbols symbols = new Symbols();
+
+  /** Initial buffer size. */
+  private final int bufferSize;
+
+  /** Input. */
+  private Reader reader;
+  /** Detected input encoding. */
+  private String encoding;
+  /** Input buffer. */
+  private char[] buffer;
+  /** Current position, end of read characters and start of characters that must be kept on refill. */
+  private int pos, limit, mark;
+  /** Whether input is exhausted. */
+  private boolean eof;
+  /** Count of line breaks before the current position. */
+  private int lines;
+  /** Buffer index of the current line start, may be negative. */
+  private int lineStart;
+
+  /** Namespaces feature. */
+  private boolean processNamespaces;
+  /** Entities defined by user, null if none. */
+  private Map<String, String> entities;
+
+  /** Current event type. */
+  private int type = START_DOCUMENT;
+  /** Current depth. */
+  private int depth;
+  /** Whether the root element has been started. */
+  private boolean rootStarted;
+  /** Current tag. */
+  private String name, prefix, namespace;
+  /** Whether current start tag is empty, whether end tag must be reported for it. */
+  private boolean emptyTag, pendingEnd;
+  /** Current text range: text starts at {@code textStart} and ends at {@code textEnd}. */
+  private int textStart, textEnd;
+  /** Whether current text is whitespace. */
+  private boolean whitespace;
+  /** Current text string, created on demand. */
+  private String text;
+
+  /** Name parts set by {@link #readName()} when namespaces are processed. */
+  private String namePrefix, nameLocal;
+
+  /** Open elements: qualified name, name, prefix and namespace for each depth. */
+  private String[] elements = new String[16 * 4];
+  /** Namespaces count in scope for each depth. */
+  private int[] namespaceCounts = new int[16];
+  /** Declared namespaces: prefix and URI. */
+  private String[] namespaces = new String[8 * 2];
+
+  /** Attributes count, -1 if current event is not a start tag. */
+  private int attributeCount = -1;
+  /** Attributes: name, prefix, namespace and value. */
+  private String[] attributes = new String[8 * 4];
+
+  public FastXmlParser() {
+    this(DEFAULT_BUFFER_SIZE);
+  }
+
+  FastXmlParser(final int bufferSize) {
+    this.bufferSize = bufferSize;
+    this.buffer = new char[bufferSize];
+  }
+
+  // ------------------------------------------------------------------------------------------------------------------
+  // Input
+  // ------------------------------------------------------------------------------------------------------------------
+
+  @Override
+  public void setInput(final Reader in) {
+    this.reader = in;
+    this.encoding = null;
+    if (buffer.length > bufferSize * MAX_RETAINED_GROWTH) {
+      buffer = new char[bufferSize];
+    }
+    pos = 0;
+    limit = 0;
+    mark = 0;
+    eof = false;
+    lines = 0;
+    lineStart = 0;
+    type = START_DOCUMENT;
+    depth = 0;
+    rootStarted = false;
+    name = null;
+    prefix = null;
+    namespace = null;
+    emptyTag = false;
+    pendingEnd = false;
+    textStart = 0;
+    textEnd = 0;
+    text = null;
+    attributeCount = -1;
+    namespaceCounts[0] = 0;
+    if (in == null) {
+      // drop references to the previous document
+      Arrays.fill(elements, null);
+      Arrays.fill(attributes, null);
+      Arrays.fill(namespaces, null);
+    }
+  }
+
+  @Override
+  public void setInput(final InputStream inputStream, final String inputEncoding) throws XmlPullParserException {
+    if (inputStream == null) { throw new IllegalArgumentException("Input stream is null"); }
+    try {
+      if (inputEncoding != null) {
+        setInput(new InputStreamReader(inputStream, inputEncoding));
+        this.encoding = inputEncoding;
+        return;
+      }
+      final byte[] head = new byte[DECLARATION_LIMIT];
+      int count = 0;
+      int read;
+      while (count < head.length && (read = inputStream.read(head, count, head.length - count)) != -1) {
+        count += read;
+        if (indexOf(head, count, '>') >= 0) { break; }
+      }
+      final int[] bom = new int[1];
+      final Charset charset = detectCharset(head, count, bom);
+      final InputStream in = new SequenceInputStream(new ByteArrayInputStream(head, bom[0], count - bom[0]), inputStream);
+      setInput(new InputStreamReader(in, charset));
+      this.encoding = charset.name();
+    } catch (final IOException e) {
+      throw new XmlPullParserException("Cannot read XML declaration", this, e);
+    }
+  }
+
+  private static int indexOf(final byte[] bytes, final int count, final char c) {
+    for (int i = 0; i < count; i++) {
+      if (bytes[i] == c) { return i; }
+    }
+    return -1;
+  }
+
+  /**
+   * Detects encoding from the document head.
+   * @param head first bytes
+   * @param count count of bytes in head
+   * @param bom holder for the byte order mark length
+   * @return document encoding
+   */
+  static Charset detectCharset(final byte[] head, final int count, final int[] bom) throws UnsupportedEncodingException {
+    final int b0 = byteAt(head, count, 0), b1 = byteAt(head, count, 1), b2 = byteAt(head, count, 2),
+        b3 = byteAt(head, count, 3);
+    bom[0] = 0;
+    if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+      bom[0] = 3;
+      return Charset.forName("UTF-8");
+    }
+    if (b0 == 0xFE && b1 == 0xFF) {
+      bom[0] = 2;
+      return Charset.forName("UTF-16BE");
+    }
+    if (b0 == 0xFF && b1 == 0xFE) {
+      bom[0] = 2;
+      return Charset.forName("UTF-16LE");
+    }
+    if (b0 == 0 && b1 == '<' && b2 == 0 && b3 == '?') { return Charset.forName("UTF-16BE"); }
+    if (b0 == '<' && b1 == 0 && b2 == '?' && b3 == 0) { return Charset.forName("UTF-16LE"); }
+
+    final String declared = declaredEncoding(head, count);
+    if (declared == null) { return Charset.forName("UTF-8"); }
+    try {
+      if (Charset.isSupported(declared)) { return Charset.forName(declared); }
+    } catch (final IllegalCharsetNameException e) {
+      // reported below
+    }
+    throw new UnsupportedEncodingException(declared);
+  }
+
+  private static int byteAt(final byte[] head, final int count, final int index) {
+    return index < count ? head[index] & 0xFF : -1;
+  }
+
+  /** @return encoding from the XML declaration written in an ASCII compatible encoding, null if it's not declared */
+  private static String declaredEncoding(final byte[] head, final int count) {
+    final int end = indexOf(head, count, '>');
+    if (end < 0) { return null; }
+    final String declaration = new String(head, 0, end, Charset.forName("ISO-8859-1"));
+    if (!declaration.startsWith("<?xml")) { return null; }
+    final int attribute = declaration.indexOf("encoding");
+    if (attribute < 0) { return null; }
+    int start = declaration.indexOf('=', attribute) + 1;
+    while (start > 0 && start < declaration.length() && declaration.charAt(start) <= ' ') { start++; }
+    if (start <= 0 || start >= declaration.length()) { return null; }
+    final char quote = declaration.charAt(start);
+    if (quote != '"' && quote != '\'') { return null; }
+    final int valueEnd = declaration.indexOf(quote, start + 1);
+    return valueEnd > 0 ? declaration.substring(start + 1, valueEnd) : null;
+  }
+
+  @Override
+  public String getInputEncoding() { return encoding; }
+
+  /**
+   * Reads more characters. Characters starting from {@link #mark} are kept, they are moved to the buffer start.
+   * @return false if input is exhausted
+   */
+  private boolean fill() throws IOException {
+    if (eof) { return false; }
+    final int shift = mark;
+    if (shift > 0) {
+      System.arraycopy(buffer, shift, buffer, 0, limit - shift);
+      limit -= shift;
+      pos -= shift;
+      mark = 0;
+      textStart -= shift;
+      textEnd -= shift;
+      lineStart -= shift;
+    }
+    if (limit == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    final int count = reader.read(buffer, limit, buffer.length - limit);
+    if (count <= 0) {
+      eof = true;
+      return false;
+    }
+    limit += count;
+    return true;
+  }
+
+  /** @return true if at least {@code count} characters are available at the current position */
+  private boolean ensure(final int count) throws IOException {
+    while (pos + count > limit) {
+      if (!fill()) { return false; }
+    }
+    return true;
+  }
+
+  private boolean startsWith(final String markup) throws IOException {
+    final int length = markup.length();
+    if (!ensure(length)) { return false; }
+    for (int i = 0; i < length; i++) {
+      if (buffer[pos + i] != markup.charAt(i)) { return false; }
+    }
+    return true;
+  }
+
+  private void newLine(final int position) {
+    lines++;
+    lineStart = position + 1;
+  }
+
+  private XmlPullParserException error(final String message) {
+    return new XmlPullParserException(message, this, null);
+  }
+
+  // ------------------------------------------------------------------------------------------------------------------
+  // Parsing
+  // ------------------------------------------------------------------------------------------------------------------
+
+  @Override
+  public int next() throws XmlPullParserException, IOException {
+    if (reader == null) { throw new XmlPullParserException("Input is not set"); }
+    text = null;
+    if (type == END_TAG) {
+      depth--;
+    }
+    if (pendingEnd) {
+      // empty element: name, prefix and namespace are kept from the start tag
+      pendingEnd = false;
+      emptyTag = false;
+      attributeCount = -1;
+      type = END_TAG;
+      return type;
+    }
+    emptyTag = false;
+    attributeCount = -1;
+    if (type == START_DOCUMENT && (pos < limit || fill()) && buffer[pos] == '\uFEFF') {
+      pos++; // byte order mark kept by a reader
+    }
+
+    while (true) {
+      mark = pos;
+      if (pos >= limit && !fill()) {
+        if (depth > 0) { throw error("Unexpected end of document, </" + elements[depth * 4] + "> expected"); }
+        type = END_DOCUMENT;
+        return type;
+      }
+      if (buffer[pos] != '<') {
+        parseText();
+        if (depth > 0) { return type; }
+        if (!whitespace) { throw error("Text outside of the root element"); }
+        continue;
+      }
+      if (!ensure(2)) { throw error("Unexpected end of document"); }
+      final char c = buffer[pos + 1];
+      if (c == '/') {
+        parseEndTag();
+        return type;
+      }
+      if (c == '?') {
+        pos += 2;
+        skipTo("?>");
+        continue;
+      }
+      if (c == '!') {
+        if (startsWith("<!--")) {
+          pos += 4;
+          skipTo("-->");
+          continue;
+        }
+        if (startsWith("<![CDATA[")) {
+          if (depth == 0) { throw error("CDATA outside of the root element"); }
+          parseText();
+          return type;
+        }
+        if (startsWith("<!DOCTYPE")) {
+          pos += 9;
+          skipDoctype();
+          continue;
+        }
+        throw error("Unexpected markup");
+      }
+      if (depth == 0) {
+        if (rootStarted) { throw error("Second root element"); }
+        rootStarted = true;
+      }
+      parseStartTag();
+      return type;
+    }
+  }
+
+  @Override
+  public int nextToken() throws XmlPullParserException, IOException {
+    return next();
+  }
+
+  private void parseStartTag() throws XmlPullParserException, IOException {
+    pos++; // '<'
+    final String qualifiedName = readName();
+    final String elementPrefix = namePrefix, elementName = nameLocal;
+    final int depth = this.depth + 1;
+    ensureDepth(depth);
+    this.depth = depth;
+    attributeCount = 0;
+
+    while (true) {
+      final boolean separated = skipWhitespace();
+      final char c = buffer[pos];
+      if (c == '>') {
+        pos++;
+        break;
+      }
+      if (c == '/') {
+        pos++;
+        if (!ensure(1) || buffer[pos] != '>') { throw error("Expected '>'"); }
+        pos++;
+        emptyTag = true;
+        break;
+      }
+      if (!separated) { throw error("Whitespace expected before attribute"); }
+      final String attributeName = readName();
+      final String attributePrefix = namePrefix, attributeLocal = nameLocal;
+      skipWhitespace();
+      if (buffer[pos] != '=') { throw error("Expected '=' after attribute " + attributeName); }
+      pos++;
+      skipWhitespace();
+      final char quote = buffer[pos];
+      if (quote != '"' && quote != '\'') { throw error("Expected quoted value of attribute " + attributeName); }
+      pos++;
+      final String value = readAttributeValue(quote);
+      if (processNamespaces) {
+        addAttribute(attributeLocal, attributePrefix, value);
+      } else {
+        addAttribute(attributeName, null, value);
+      }
+    }
+
+    namespaceCounts[depth] = namespaceCounts[depth - 1];
+    if (processNamespaces) {
+      resolveNamespaces(depth, elementName, elementPrefix);
+    } else {
+      name = qualifiedName;
+      prefix = null;
+      namespace = "";
+    }
+    final int index = depth * 4;
+    elements[index] = qualifiedName;
+    elements[index + 1] = name;
+    elements[index + 2] = prefix;
+    elements[index + 3] = namespace;
+    pendingEnd = emptyTag;
+    type = START_TAG;
+  }
+
+  private void parseEndTag() throws XmlPullParserException, IOException {
+    pos += 2; // '</'
+    final String qualifiedName = readName();
+    skipWhitespace();
+    if (buffer[pos] != '>') { throw error("Expected '>'"); }
+    pos++;
+    if (depth == 0) { throw error("Unexpected end tag </" + qualifiedName + ">"); }
+    final int index = depth * 4;
+    final String expected = elements[index];
+    if (qualifiedName != expected && !qualifiedName.equals(expected)) {
+      throw error("Expected </" + expected + "> but was </" + qualifiedName + ">");
+    }
+    name = elements[index + 1];
+    prefix = elements[index + 2];
+    namespace = elements[index + 3];
+    type = END_TAG;
+  }
+
+  private void ensureDepth(final int depth) {
+    if (depth < namespaceCounts.length) { return; }
+    namespaceCounts = Arrays.copyOf(namespaceCounts, depth * 2);
+    elements = Arrays.copyOf(elements, depth * 2 * 4);
+  }
+
+  private void addAttribute(final String attributeName, final String attributePrefix, final String value)
+      throws XmlPullParserException {
+    final int index = attributeCount * 4;
+    for (int i = 0; i < index; i += 4) {
+      if (attributeName.equals(attributes[i]) && equal(attributePrefix, attributes[i + 1])) {
+        throw error("Duplicate attribute " + (attributePrefix != null ? attributePrefix + ":" : "") + attributeName);
+      }
+    }
+    if (index == attributes.length) {
+      attributes = Arrays.copyOf(attributes, index * 2);
+    }
+    attributes[index] = attributeName;
+    attributes[index + 1] = attributePrefix;
+    attributes[index + 2] = "";
+    attributes[index + 3] = value;
+    attributeCount++;
+  }
+
+  private static boolean equal(final String a, final String b) {
+    return a == null ? b == null : a.equals(b);
+  }
+
+  /** Declares namespaces of the current start tag, removes their attributes and resolves names. */
+  private void resolveNamespaces(final int depth, final String elementName, final String elementPrefix)
+      throws XmlPullParserException {
+    final String[] attributes = this.attributes;
+    int count = namespaceCounts[depth];
+    int kept = 0;
+    for (int i = 0; i < attributeCount; i++) {
+      final int index = i * 4;
+      final String attributePrefix = attributes[index + 1];
+      if ("xmlns".equals(attributePrefix) || attributePrefix == null && "xmlns".equals(attributes[index])) {
+        if (count * 2 == namespaces.length) {
+          namespaces = Arrays.copyOf(namespaces, count * 4);
+        }
+        namespaces[count * 2] = attributePrefix == null ? null : attributes[index];
+        namespaces[count * 2 + 1] = attributes[index + 3];
+        count++;
+      } else {
+        if (kept != i) {
+          System.arraycopy(attributes, index, attributes, kept * 4, 4);
+        }
+        kept++;
+      }
+    }
+    namespaceCounts[depth] = count;
+    attributeCount = kept;
+
+    for (int i = 0; i < kept; i++) {
+      final String attributePrefix = attributes[i * 4 + 1];
+      if (attributePrefix != null) {
+        final String uri = getNamespace(attributePrefix);
+        if (uri == null) { throw error("Undefined prefix " + attributePrefix); }
+        attributes[i * 4 + 2] = uri;
+      }
+    }
+    final String uri = getNamespace(elementPrefix);
+    if (uri == null && elementPrefix != null) { throw error("Undefined prefix " + elementPrefix); }
+    name = elementName;
+    prefix = elementPrefix;
+    namespace = uri != null ? uri : "";
+  }
+
+  /**
+   * Reads a name at the current position. Sets {@link #namePrefix} and {@link #nameLocal} if namespaces are processed.
+   * @return qualified name
+   */
+  private String readName() throws XmlPullParserException, IOException {
+    final int startOffset = pos - mark;
+    int colon = -1;
+    final boolean[] nameChars = NAME_CHARS;
+    while (true) {
+      final char[] buffer = this.buffer;
+      final int limit = this.limit;
+      int p = pos;
+      while (p < limit) {
+        final char c = buffer[p];
+        if (c < 128 && !nameChars[c]) { break; }
+        if (c == ':' && colon < 0) {
+          colon = p - mark - startOffset;
+        }
+        p++;
+      }
+      pos = p;
+      if (p < limit) { break; }
+      if (!fill()) { throw error("Unexpected end of document"); }
+    }
+    final int start = mark + startOffset, length = pos - start;
+    if (length == 0) { throw error("Name expected"); }
+    final String qualifiedName = symbols.get(buffer, start, length);
+    if (processNamespaces) {
+      if (colon > 0 && colon < length - 1) {
+        namePrefix = symbols.get(buffer, start, colon);
+        nameLocal = symbols.get(buffer, start + colon + 1, length - colon - 1);
+      } else {
+        namePrefix = null;
+        nameLocal = qualifiedName;
+      }
+    }
+    return qualifiedName;
+  }
+
+  /**
+   * Skips whitespace, the current position points to another character after this call.
+   * @return whether some whitespace was skipped
+   */
+  private boolean skipWhitespace() throws XmlPullParserException, IOException {
+    boolean skipped = false;
+    while (true) {
+      if (pos >= limit && !fill()) { throw error("Unexpected end of document"); }
+      final char c = buffer[pos];
+      if (c > ' ') { return skipped; }
+      if (c == '\n') {
+        newLine(pos);
+      }
+      pos++;
+      skipped = true;
+    }
+  }
+
+  /** Skips characters up to and including the terminator. */
+  private void skipTo(final String terminator) throws XmlPullParserException, IOException {
+    final char first = terminator.charAt(0);
+    final int length = terminator.length();
+    while (true) {
+      if (pos + length > limit && !ensure(length)) { throw error("Expected " + terminator); }
+      final char c = buffer[pos];
+      if (c == first && startsWith(terminator)) {
+        pos += length;
+        return;
+      }
+      if (c == '\n') {
+        newLine(pos);
+      }
+      pos++;
+    }
+  }
+
+  /** Skips document type declaration with its internal subset. */
+  private void skipDoctype() throws XmlPullParserException, IOException {
+    int brackets = 0;
+    char quote = 0;
+    while (true) {
+      if (pos >= limit && !fill()) { throw error("Unterminated document type declaration"); }
+      final char c = buffer[pos++];
+      if (c == '\n') {
+        newLine(pos - 1);
+      }
+      if (quote != 0) {
+        if (c == quote) { quote = 0; }
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+      } else if (c == '[') {
+        brackets++;
+      } else if (c == ']') {
+        brackets--;
+      } else if (c == '>' && brackets == 0) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Reads text, CDATA sections and references up to the next tag. Comments and processing instructions are skipped.
+   * Text is written in place starting from the current position.
+   */
+  private void parseText() throws XmlPullParserException, IOException {
+    textStart = pos;
+    textEnd = pos;
+    boolean whitespace = true;
+    while (true) {
+      if (pos >= limit && !fill()) { break; }
+      final char[] buffer = this.buffer;
+      final int limit = this.limit;
+      int p = pos, w = textEnd;
+      char c = 0;
+      while (p < limit) {
+        c = buffer[p];
+        if (c == '<' || c == '&' || c == '\r' || c == ']') { break; }
+        if (c > ' ') {
+          whitespace = false;
+        } else if (c == '\n') {
+          newLine(p);
+        }
+        buffer[w++] = c;
+        p++;
+      }
+      pos = p;
+      textEnd = w;
+      if (p == limit) { continue; }
+
+      if (c == '&') {
+        whitespace &= entity();
+      } else if (c == '\r') {
+        lineEnd();
+      } else if (c == ']') {
+        if (startsWith("]]>")) { throw error("']]>' in text"); }
+        whitespace = false;
+        buffer[textEnd++] = c;
+        pos++;
+      } else if (startsWith("<![CDATA[")) {
+        pos += 9;
+        whitespace &= cdata();
+      } else if (startsWith("<!--")) {
+        pos += 4;
+        skipTo("-->");
+      } else if (startsWith("<?")) {
+        pos += 2;
+        skipTo("?>");
+      } else {
+        break;
+      }
+    }
+    // empty CDATA section is not whitespace, as in kXML
+    this.whitespace = whitespace && textEnd > textStart;
+    type = TEXT;
+  }
+
+  /** Normalizes a line end at the current carriage return. */
+  private void lineEnd() throws IOException {
+    newLine(pos);
+    pos++;
+    buffer[textEnd++] = '\n';
+    if (ensure(1) && buffer[pos] == '\n') {
+      pos++;
+    }
+  }
+
+  /**
+   * Copies CDATA section content.
+   * @return true if the content is whitespace
+   */
+  private boolean cdata() throws XmlPullParserException, IOException {
+    boolean whitespace = true;
+    while (true) {
+      if (!ensure(3)) { throw error("Unterminated CDATA section"); }
+      final char c = buffer[pos];
+      if (c == ']' && buffer[pos + 1] == ']' && buffer[pos + 2] == '>') {
+        pos += 3;
+        return whitespace;
+      }
+      if (c == '\r') {
+        lineEnd();
+        continue;
+      }
+      if (c > ' ') {
+        whitespace = false;
+      } else if (c == '\n') {
+        newLine(pos);
+      }
+      buffer[textEnd++] = c;
+      pos++;
+    }
+  }
+
+  /**
+   * Reads attribute value up to the closing quote, normalizing literal tabs and line ends to spaces (XML 1.0, 3.3.3).
+   * @param quote quote character
+   * @return value
+   */
+  private String readAttributeValue(final char quote) throws XmlPullParserException, IOException {
+    final int startOffset = pos - mark;
+    textEnd = pos;
+    while (true) {
+      if (pos >= limit && !fill()) { throw error("Unterminated attribute value"); }
+      final char c = buffer[pos];
+      if (c == quote) {
+        pos++;
+        break;
+      }
+      if (c == '&') {
+        entity();
+      } else if (c == '<') {
+        throw error("'<' in attribute value");
+      } else if (c == '\r') {
+        lineEnd();
+        buffer[textEnd - 1] = ' ';
+      } else {
+        if (c == '\n') {
+          newLine(pos);
+        }
+        // literal whitespace is normalized to spaces, character references are kept
+        buffer[textEnd++] = c == '\n' || c == '\t' ? ' ' : c;
+        pos++;
+      }
+    }
+    final int start = mark + startOffset;
+    return new String(buffer, start, textEnd - start);
+  }
+
+  /**
+   * Resolves the reference at the current position and writes its characters at {@link #textEnd}.
+   * @return true if the replacement is whitespace
+   */
+  private boolean entity() throws XmlPullParserException, IOException {
+    int end = pos + 1;
+    while (true) {
+      if (end >= limit) {
+        final int offset = end - pos;
+        if (!fill()) { throw error("Unterminated entity reference"); }
+        end = pos + offset;
+        continue;
+      }
+      final char c = buffer[end];
+      if (c == ';') { break; }
+      if (c <= ' ' || c == '&' || c == '<' || end - pos > MAX_ENTITY_LENGTH) {
+        throw error("Unterminated entity reference");
+      }
+      end++;
+    }
+    final char[] buffer = this.buffer;
+    final int start = pos + 1, length = end - start;
+    pos = end + 1;
+
+    char c;
+    if (length > 1 && buffer[start] == '#') {
+      final int code = characterReference(buffer, start + 1, length - 1);
+      if (code >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+        textEnd += Character.toChars(code, buffer, textEnd);
+        return false;
+      }
+      c = (char) code;
+    } else if (is(buffer, start, length, "amp")) {
+      c = '&';
+    } else if (is(buffer, start, length, "lt")) {
+      c = '<';
+    } else if (is(buffer, start, length, "gt")) {
+      c = '>';
+    } else if (is(buffer, start, length, "quot")) {
+      c = '"';
+    } else if (is(buffer, start, length, "apos")) {
+      c = '\'';
+    } else {
+      final String entityName = new String(buffer, start, length);
+      final String replacement = entities != null ? entities.get(entityName) : null;
+      if (replacement == null) { throw error("Unresolved entity &" + entityName + ";"); }
+      return replace(replacement);
+    }
+    buffer[textEnd++] = c;
+    return c <= ' ';
+  }
+
+  private int characterReference(final char[] buffer, final int start, final int length) throws XmlPullParserException {
+    final boolean hex = buffer[start] == 'x';
+    final int radix = hex ? 16 : 10;
+    int code = 0;
+    for (int i = hex ? start + 1 : start; i < start + length; i++) {
+      final int digit = Character.digit(buffer[i], radix);
+      if (digit < 0 || code > Character.MAX_CODE_POINT) {
+        throw error("Invalid character reference &#" + new String(buffer, start, length) + ";");
+      }
+      code = code * radix + digit;
+    }
+    if (code > Character.MAX_CODE_POINT || hex && length == 1) {
+      throw error("Invalid character reference &#" + new String(buffer, start, length) + ";");
+    }
+    return code;
+  }
+
+  private static boolean is(final char[] buffer, final int start, final int length, final String value) {
+    if (length != value.length()) { return false; }
+    for (int i = 0; i < length; i++) {
+      if (buffer[start + i] != value.charAt(i)) { return false; }
+    }
+    return true;
+  }
+
+  /** Writes a user defined entity replacement, moving unread characters if it's longer than the reference. */
+  private boolean replace(final String replacement) {
+    final int length = replacement.length();
+    final int room = pos - textEnd;
+    if (length > room) {
+      final int shift = length - room;
+      if (limit + shift > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, limit + shift));
+      }
+      System.arraycopy(buffer, pos, buffer, pos + shift, limit - pos);
+      pos += shift;
+      limit += shift;
+    }
+    boolean whitespace = true;
+    for (int i = 0; i < length; i++) {
+      final char c = replacement.charAt(i);
+      whitespace &= c <= ' ';
+      buffer[textEnd++] = c;
+    }
+    return whitespace;
+  }
+
+  // ------------------------------------------------------------------------------------------------------------------
+  // Event data
+  // ------------------------------------------------------------------------------------------------------------------
+
+  @Override
+  public int getEventType() { return type; }
+
+  @Override
+  public int getDepth() { return depth; }
+
+  @Override
+  public String getName() {
+    return type == START_TAG || type == END_TAG ? name : null;
+  }
+
+  @Override
+  public String getNamespace() {
+    return type == START_TAG || type == END_TAG ? namespace : null;
+  }
+
+  @Override
+  public String getPrefix() {
+    return type == START_TAG || type == END_TAG ? prefix : null;
+  }
+
+  @Override
+  public boolean isEmptyElementTag() throws XmlPullParserException {
+    if (type != START_TAG) { throw error("Not a start tag"); }
+    return emptyTag;
+  }
+
+  @Override
+  public String getText() {
+    if (type != TEXT) { return null; }
+    if (text == null) {
+      text = new String(buffer, textStart, textEnd - textStart);
+    }
+    return text;
+  }
+
+  @Override
+  public char[] getTextCharacters(final int[] holderForStartAndLength) {
+    if (type != TEXT) {
+      holderForStartAndLength[0] = -1;
+      holderForStartAndLength[1] = -1;
+      return null;
+    }
+    holderForStartAndLength[0] = textStart;
+    holderForStartAndLength[1] = textEnd - textStart;
+    return buffer;
+  }
+
+  @Override
+  public boolean isWhitespace() throws XmlPullParserException {
+    if (type != TEXT) { throw error("Not a text event"); }
+    return whitespace;
+  }
+
+  @Override
+  public int getAttributeCount() {
+    return type == START_TAG ? attributeCount : -1;
+  }
+
+  private String attribute(final int index, final int field) {
+    if (type != START_TAG || index < 0 || index >= attributeCount) {
+      throw new IndexOutOfBoundsException("Attribute " + index);
+    }
+    return attributes[index * 4 + field];
+  }
+
+  @Override
+  public String getAttributeName(final int index) { return attribute(index, 0); }
+
+  @Override
+  public String getAttributePrefix(final int index) { return attribute(index, 1); }
+
+  @Override
+  public String getAttributeNamespace(final int index) { return attribute(index, 2); }
+
+  @Override
+  public String getAttributeValue(final int index) { return attribute(index, 3); }
+
+  @Override
+  public String getAttributeType(final int index) { return "CDATA"; }
+
+  @Override
+  public boolean isAttributeDefault(final int index) { return false; }
+
+  @Override
+  public String getAttributeValue(final String namespace, final String name) {
+    final int count = getAttributeCount();
+    for (int i = 0; i < count; i++) {
+      final int index = i * 4;
+      if (name.equals(attributes[index]) && (namespace == null || namespace.equals(attributes[index + 2]))) {
+        return attributes[index + 3];
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public int getNamespaceCount(final int depth) throws XmlPullParserException {
+    if (depth > this.depth) { throw new IndexOutOfBoundsException("Depth " + depth + " > " + this.depth); }
+    return namespaceCounts[depth];
+  }
+
+  @Override
+  public String getNamespacePrefix(final int pos) { return namespaces[pos * 2]; }
+
+  @Override
+  public String getNamespaceUri(final int pos) { return namespaces[pos * 2 + 1]; }
+
+  @Override
+  public String getNamespace(final String prefix) {
+    if ("xml".equals(prefix)) { return XML_NAMESPACE; }
+    if ("xmlns".equals(prefix)) { return XMLNS_NAMESPACE; }
+    for (int i = namespaceCounts[depth] - 1; i >= 0; i--) {
+      final String declared = namespaces[i * 2];
+      if (prefix == null ? declared == null : prefix.equals(declared)) { return namespaces[i * 2 + 1]; }
+    }
+    return null;
+  }
+
+  @Override
+  public int getLineNumber() { return lines + 1; }
+
+  @Override
+  public int getColumnNumber() { return pos - lineStart + 1; }
+
+  @Override
+  public String getPositionDescription() {
+    final StringBuilder result = new StringBuilder(TYPES[type]);
+    if (type == START_TAG || type == END_TAG) {
+      result.append(' ').append(name);
+    }
+    return result.append(" @").append(getLineNumber()).append(':').append(getColumnNumber()).toString();
+  }
+
+  // ------------------------------------------------------------------------------------------------------------------
+  // Features and helpers
+  // ------------------------------------------------------------------------------------------------------------------
+
+  @Override
+  public void setFeature(final String name, final boolean state) throws XmlPullParserException {
+    if (FEATURE_PROCESS_NAMESPACES.equals(name)) {
+      if (type != START_DOCUMENT) { throw new XmlPullParserException("Features can be changed before parsing only"); }
+      processNamespaces = state;
+    } else if (state) {
+      throw new XmlPullParserException("Unsupported feature " + name);
+    }
+  }
+
+  @Override
+  public boolean getFeature(final String name) {
+    return FEATURE_PROCESS_NAMESPACES.equals(name) && processNamespaces;
+  }
+
+  @Override
+  public void setProperty(final String name, final Object value) throws XmlPullParserException {
+    throw new XmlPullParserException("Unsupported property " + name);
+  }
+
+  @Override
+  public Object getProperty(final String name) { return null; }
+
+  @Override
+  public void defineEntityReplacementText(final String entityName, final String replacementText) {
+    if (entities == null) {
+      entities = new HashMap<String, String>();
+    }
+    entities.put(entityName, replacementText);
+  }
+
+  @Override
+  public void require(final int type, final String namespace, final String name) throws XmlPullParserException {
+    if (type != this.type
+        || namespace != null && !namespace.equals(getNamespace())
+        || name != null && !name.equals(getName())) {
+      throw error("Expected " + TYPES[type] + " but was " + getPositionDescription());
+    }
+  }
+
+  @Override
+  public String nextText() throws XmlPullParserException, IOException {
+    if (type != START_TAG) { throw error("Expected START_TAG"); }
+    int type = next();
+    String result = "";
+    if (type == TEXT) {
+      result = getText();
+      type = next();
+    }
+    if (type != END_TAG) { throw error("Expected END_TAG but was " + getPositionDescription()); }
+    return result;
+  }
+
+  @Override
+  public int nextTag() throws XmlPullParserException, IOException {
+    int type = next();
+    if (type == TEXT && whitespace) {
+      type = next();
+    }
+    if (type != START_TAG && type != END_TAG) {
+      throw error("Expected a tag but was " + getPositionDescription());
+    }
+    return type;
+  }
+
+  @Override
+  public String toString() {
+    return "FastXmlParser(" + getPositionDescription() + ")";
+  }
+
+}
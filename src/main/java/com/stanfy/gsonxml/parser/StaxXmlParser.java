@@ -0,0 +1,505 @@
+package com.stanfy.gsonxml.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import com.stanfy.gsonxml.XmlParserCreator;
+
+/**
+ * Presents StAX {@link XMLStreamReader} as {@link XmlPullParser}.
+ * Stream reader is created on the first event request, so features set after the input are taken into account.
+ * Adjacent text, CDATA sections and references are reported as one text event, comments and processing instructions
+ * are skipped. DTD and external entities are not supported. {@link #nextToken()} reports the same events as
+ * {@link #next()}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public final class StaxXmlParser implements XmlPullParser {
+
+  /** Creates parsers of this type. */
+  public static final XmlParserCreator CREATOR = new XmlParserCreator() {
+    @Override
+    public XmlPullParser createParser() {
+      return new StaxXmlParser();
+    }
+  };
+
+  /** Factories, namespace aware and not. */
+  private XMLInputFactory namespacesFactory, plainFactory;
+
+  /** Pending input. */
+  private Reader reader;
+  /** Pending input. */
+  private InputStream stream;
+  /** Input encoding. */
+  private String encoding;
+  /** Namespaces feature. */
+  private boolean processNamespaces;
+
+  /** Stream reader, null before the first event request. */
+  private XMLStreamReader streamReader;
+  /** Whether the stream reader is already positioned on the next event. */
+  private boolean pending;
+
+  /** Current event type. */
+  private int type = START_DOCUMENT;
+  /** Current depth. */
+  private int depth;
+  /** Current tag name, namespace and prefix: the stream reader may be moved past the tag while reading ahead. */
+  private String name, namespace, prefix;
+
+  /** Current text. */
+  private char[] text = new char[256];
+  /** Current text length. */
+  private int textLength;
+  /** Whether current text is whitespace. */
+  private boolean whitespace;
+
+  /** Namespaces count in scope for each depth. */
+  private int[] namespaceCounts = new int[16];
+  /** Declared namespaces: prefix and URI. */
+  private String[] namespaces = new String[8 * 2];
+
+  @Override
+  public void setInput(final Reader in) throws XmlPullParserException {
+    reset();
+    this.reader = in;
+  }
+
+  @Override
+  public void setInput(final InputStream inputStream, final String inputEncoding) throws XmlPullParserException {
+    if (inputStream == null) { throw new IllegalArgumentException("Input stream is null"); }
+    reset();
+    this.stream = inputStream;
+    this.encoding = inputEncoding;
+  }
+
+  private void reset() throws XmlPullParserException {
+    if (streamReader != null) {
+      try {
+        streamReader.close();
+      } catch (final XMLStreamException e) {
+        throw wrap(e);
+      }
+      streamReader = null;
+    }
+    reader = null;
+    stream = null;
+    encoding = null;
+    pending = false;
+    type = START_DOCUMENT;
+    depth = 0;
+    name = null;
+    namespace = null;
+    prefix = null;
+    textLength = 0;
+    namespaceCounts[0] = 0;
+    Arrays.fill(namespaces, null);
+  }
+
+  private XmlPullParserException wrap(final XMLStreamException e) {
+    return new XmlPullParserException(e.getMessage(), this, e);
+  }
+
+  private XMLInputFactory factory() {
+    XMLInputFactory factory = processNamespaces ? namespacesFactory : plainFactory;
+    if (factory == null) {
+      factory = XMLInputFactory.newInstance();
+      factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, processNamespaces);
+      factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+      factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      if (processNamespaces) {
+        namespacesFactory = factory;
+      } else {
+        plainFactory = factory;
+      }
+    }
+    return factory;
+  }
+
+  private XMLStreamReader streamReader() throws XmlPullParserException {
+    if (streamReader == null) {
+      if (reader == null && stream == null) { throw new XmlPullParserException("Input is not set"); }
+      try {
+        if (reader != null) {
+          streamReader = factory().createXMLStreamReader(reader);
+        } else if (encoding != null) {
+          streamReader = factory().createXMLStreamReader(stream, encoding);
+        } else {
+          streamReader = factory().createXMLStreamReader(stream);
+        }
+      } catch (final XMLStreamException e) {
+        throw wrap(e);
+      }
+    }
+    return streamReader;
+  }
+
+  @Override
+  public String getInputEncoding() {
+    return streamReader != null ? streamReader.getEncoding() : encoding;
+  }
+
+  @Override
+  public int next() throws XmlPullParserException, IOException {
+    final XMLStreamReader streamReader = streamReader();
+    if (type == END_TAG) {
+      depth--;
+    }
+    if (type == END_DOCUMENT) { return type; }
+    try {
+      while (true) {
+        final int event = pending ? streamReader.getEventType() : streamReader.next();
+        pending = false;
+        switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          declareNamespaces(streamReader);
+          tag(streamReader);
+          type = START_TAG;
+          return type;
+
+        case XMLStreamConstants.END_ELEMENT:
+          tag(streamReader);
+          type = END_TAG;
+          return type;
+
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          readText(streamReader);
+          if (depth > 0) {
+            type = TEXT;
+            return type;
+          }
+          if (!whitespace) { throw new XmlPullParserException("Text outside of the root element", this, null); }
+          break;
+
+        case XMLStreamConstants.END_DOCUMENT:
+          type = END_DOCUMENT;
+          return type;
+
+        default:
+          // comments, processing instructions, DTD
+          break;
+        }
+      }
+    } catch (final XMLStreamException e) {
+      throw wrap(e);
+    }
+  }
+
+  @Override
+  public int nextToken() throws XmlPullParserException, IOException {
+    return next();
+  }
+
+  /** Reads text events up to the next tag, the stream reader is left on that tag. */
+  private void readText(final XMLStreamReader streamReader) throws XMLStreamException {
+    textLength = 0;
+    boolean whitespace = true;
+    int event = streamReader.getEventType();
+    do {
+      if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+          || event == XMLStreamConstants.SPACE) {
+        final int length = streamReader.getTextLength();
+        if (textLength + length > text.length) {
+          text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+        }
+        final char[] source = streamReader.getTextCharacters();
+        final int start = streamReader.getTextStart();
+        System.arraycopy(source, start, text, textLength, length);
+        if (whitespace) {
+          for (int i = start; i < start + length; i++) {
+            if (source[i] > ' ') {
+              whitespace = false;
+              break;
+            }
+          }
+        }
+        textLength += length;
+      } else if (event != XMLStreamConstants.COMMENT && event != XMLStreamConstants.PROCESSING_INSTRUCTION) {
+        break;
+      }
+      event = streamReader.next();
+    } while (true);
+    pending = true;
+    // empty CDATA section is not whitespace, as in kXML
+    this.whitespace = whitespace && textLength > 0;
+  }
+
+  private void tag(final XMLStreamReader streamReader) {
+    name = streamReader.getLocalName();
+    if (processNamespaces) {
+      namespace = nullToEmpty(streamReader.getNamespaceURI());
+      prefix = emptyToNull(streamReader.getPrefix());
+    } else {
+      namespace = "";
+      prefix = null;
+    }
+  }
+
+  private void declareNamespaces(final XMLStreamReader streamReader) {
+    if (depth + 1 >= namespaceCounts.length) {
+      namespaceCounts = Arrays.copyOf(namespaceCounts, depth * 2);
+    }
+    int count = namespaceCounts[depth - 1];
+    if (processNamespaces) {
+      final int declared = streamReader.getNamespaceCount();
+      if ((count + declared) * 2 > namespaces.length) {
+        namespaces = Arrays.copyOf(namespaces, Math.max(namespaces.length * 2, (count + declared) * 2));
+      }
+      for (int i = 0; i < declared; i++) {
+        final String namespacePrefix = streamReader.getNamespacePrefix(i);
+        namespaces[count * 2] = namespacePrefix == null || namespacePrefix.length() == 0 ? null : namespacePrefix;
+        final String uri = streamReader.getNamespaceURI(i);
+        namespaces[count * 2 + 1] = uri != null ? uri : "";
+        count++;
+      }
+    }
+    namespaceCounts[depth] = count;
+  }
+
+  private static String emptyToNull(final String value) {
+    return value == null || value.length() == 0 ? null : value;
+  }
+
+  private static String nullToEmpty(final String value) {
+    return value != null ? value : "";
+  }
+
+  private boolean isTag() {
+    return type == START_TAG || type == END_TAG;
+  }
+
+  @Override
+  public int getEventType() { return type; }
+
+  @Override
+  public int getDepth() { return depth; }
+
+  @Override
+  public String getName() {
+    return isTag() ? name : null;
+  }
+
+  @Override
+  public String getNamespace() {
+    return isTag() ? namespace : null;
+  }
+
+  @Override
+  public String getPrefix() {
+    return isTag() ? prefix : null;
+  }
+
+  /** @return false: empty element tags are not reported by StAX */
+  @Override
+  public boolean isEmptyElementTag() throws XmlPullParserException {
+    if (type != START_TAG) { throw new XmlPullParserException("Not a start tag", this, null); }
+    return false;
+  }
+
+  @Override
+  public String getText() {
+    return type == TEXT ? new String(text, 0, textLength) : null;
+  }
+
+  @Override
+  public char[] getTextCharacters(final int[] holderForStartAndLength) {
+    if (type != TEXT) {
+      holderForStartAndLength[0] = -1;
+      holderForStartAndLength[1] = -1;
+      return null;
+    }
+    holderForStartAndLength[0] = 0;
+    holderForStartAndLength[1] = textLength;
+    return text;
+  }
+
+  @Override
+  public boolean isWhitespace() throws XmlPullParserException {
+    if (type != TEXT) { throw new XmlPullParserException("Not a text event", this, null); }
+    return whitespace;
+  }
+
+  @Override
+  public int getAttributeCount() {
+    return type == START_TAG ? streamReader.getAttributeCount() : -1;
+  }
+
+  private void checkAttribute(final int index) {
+    if (type != START_TAG || index < 0 || index >= streamReader.getAttributeCount()) {
+      throw new IndexOutOfBoundsException("Attribute " + index);
+    }
+  }
+
+  @Override
+  public String getAttributeName(final int index) {
+    checkAttribute(index);
+    final String localName = streamReader.getAttributeLocalName(index);
+    if (processNamespaces) { return localName; }
+    // not namespace aware StAX still splits attribute names
+    final String attributePrefix = emptyToNull(streamReader.getAttributePrefix(index));
+    return attributePrefix == null ? localName : attributePrefix + ":" + localName;
+  }
+
+  @Override
+  public String getAttributePrefix(final int index) {
+    checkAttribute(index);
+    return processNamespaces ? emptyToNull(streamReader.getAttributePrefix(index)) : null;
+  }
+
+  @Override
+  public String getAttributeNamespace(final int index) {
+    checkAttribute(index);
+    return processNamespaces ? nullToEmpty(streamReader.getAttributeNamespace(index)) : "";
+  }
+
+  @Override
+  public String getAttributeValue(final int index) {
+    checkAttribute(index);
+    return streamReader.getAttributeValue(index);
+  }
+
+  @Override
+  public String getAttributeType(final int index) {
+    checkAttribute(index);
+    return streamReader.getAttributeType(index);
+  }
+
+  @Override
+  public boolean isAttributeDefault(final int index) {
+    checkAttribute(index);
+    return !streamReader.isAttributeSpecified(index);
+  }
+
+  @Override
+  public String getAttributeValue(final String namespace, final String name) {
+    final int count = getAttributeCount();
+    for (int i = 0; i < count; i++) {
+      if (name.equals(getAttributeName(i)) && (namespace == null || namespace.equals(getAttributeNamespace(i)))) {
+        return getAttributeValue(i);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public int getNamespaceCount(final int depth) throws XmlPullParserException {
+    if (depth > this.depth) { throw new IndexOutOfBoundsException("Depth " + depth + " > " + this.depth); }
+    return namespaceCounts[depth];
+  }
+
+  @Override
+  public String getNamespacePrefix(final int pos) { return namespaces[pos * 2]; }
+
+  @Override
+  public String getNamespaceUri(final int pos) { return namespaces[pos * 2 + 1]; }
+
+  @Override
+  public String getNamespace(final String prefix) {
+    if ("xml".equals(prefix)) { return "http://www.w3.org/XML/1998/namespace"; }
+    if ("xmlns".equals(prefix)) { return "http://www.w3.org/2000/xmlns/"; }
+    for (int i = namespaceCounts[depth] - 1; i >= 0; i--) {
+      final String declared = namespaces[i * 2];
+      if (prefix == null ? declared == null : prefix.equals(declared)) { return namespaces[i * 2 + 1]; }
+    }
+    return null;
+  }
+
+  @Override
+  public int getLineNumber() {
+    return streamReader != null ? streamReader.getLocation().getLineNumber() : -1;
+  }
+
+  @Override
+  public int getColumnNumber() {
+    return streamReader != null ? streamReader.getLocation().getColumnNumber() : -1;
+  }
+
+  @Override
+  public String getPositionDescription() {
+    final StringBuilder result = new StringBuilder(TYPES[type]);
+    if (isTag()) {
+      result.append(' ').append(getName());
+    }
+    return result.append(" @").append(getLineNumber()).append(':').append(getColumnNumber()).toString();
+  }
+
+  @Override
+  public void setFeature(final String name, final boolean state) throws XmlPullParserException {
+    if (FEATURE_PROCESS_NAMESPACES.equals(name)) {
+      if (streamReader != null) { throw new XmlPullParserException("Features can be changed before parsing only"); }
+      processNamespaces = state;
+    } else if (state) {
+      throw new XmlPullParserException("Unsupported feature " + name);
+    }
+  }
+
+  @Override
+  public boolean getFeature(final String name) {
+    return FEATURE_PROCESS_NAMESPACES.equals(name) && processNamespaces;
+  }
+
+  @Override
+  public void setProperty(final String name, final Object value) throws XmlPullParserException {
+    throw new XmlPullParserException("Unsupported property " + name);
+  }
+
+  @Override
+  public Object getProperty(final String name) { return null; }
+
+  @Override
+  public void defineEntityReplacementText(final String entityName, final String replacementText)
+      throws XmlPullParserException {
+    throw new XmlPullParserException("Entities cannot be defined for StAX");
+  }
+
+  @Override
+  public void require(final int type, final String namespace, final String name) throws XmlPullParserException {
+    if (type != this.type
+        || namespace != null && !namespace.equals(getNamespace())
+        || name != null && !name.equals(getName())) {
+      throw new XmlPullParserException("Expected " + TYPES[type] + " but was " + getPositionDescription(), this, null);
+    }
+  }
+
+  @Override
+  public String nextText() throws XmlPullParserException, IOException {
+    if (type != START_TAG) { throw new XmlPullParserException("Expected START_TAG", this, null); }
+    int type = next();
+    String result = "";
+    if (type == TEXT) {
+      result = getText();
+      type = next();
+    }
+    if (type != END_TAG) {
+      throw new XmlPullParserException("Expected END_TAG but was " + getPositionDescription(), this, null);
+    }
+    return result;
+  }
+
+  @Override
+  public int nextTag() throws XmlPullParserException, IOException {
+    int type = next();
+    if (type == TEXT && whitespace) {
+      type = next();
+    }
+    if (type != START_TAG && type != END_TAG) {
+      throw new XmlPullParserException("Expected a tag but was " + getPositionDescription(), this, null);
+    }
+    return type;
+  }
+
+}
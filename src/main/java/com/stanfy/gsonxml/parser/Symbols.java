@@ -0,0 +1,77 @@
+package com.stanfy.gsonxml.parser;
+
+/**
+ * Symbol table for element and attribute names. Names met before are returned without allocations,
+ * returned strings are canonical.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+final class Symbols {
+
+  /** Max count of stored names. Names beyond this limit are created on each request. */
+  static final int MAX_SIZE = 4096;
+
+  /** Names, open addressing. */
+  private String[] names = new String[256];
+  /** Hash codes of names. */
+  private int[] hashes = new int[256];
+  /** Count of stored names. */
+  private int size;
+
+  /**
+   * @param buffer characters
+   * @param start name start
+   * @param length name length
+   * @return canonical name
+   */
+  String get(final char[] buffer, final int start, final int length) {
+    int hash = 0;
+    final int end = start + length;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + buffer[i];
+    }
+    final String[] names = this.names;
+    final int mask = names.length - 1;
+    int index = (hash ^ (hash >>> 16)) & mask;
+    String name;
+    while ((name = names[index]) != null) {
+      if (hashes[index] == hash && equals(name, buffer, start, length)) { return name; }
+      index = (index + 1) & mask;
+    }
+    name = new String(buffer, start, length);
+    if (size < MAX_SIZE) {
+      names[index] = name;
+      hashes[index] = hash;
+      if (++size * 2 > names.length) {
+        rehash();
+      }
+    }
+    return name;
+  }
+
+  private static boolean equals(final String name, final char[] buffer, final int start, final int length) {
+    if (name.length() != length) { return false; }
+    for (int i = 0; i < length; i++) {
+      if (name.charAt(i) != buffer[start + i]) { return false; }
+    }
+    return true;
+  }
+
+  private void rehash() {
+    final String[] oldNames = names;
+    final int[] oldHashes = hashes;
+    names = new String[oldNames.length * 2];
+    hashes = new int[oldNames.length * 2];
+    final int mask = names.length - 1;
+    for (int i = 0; i < oldNames.length; i++) {
+      if (oldNames[i] == null) { continue; }
+      final int hash = oldHashes[i];
+      int index = (hash ^ (hash >>> 16)) & mask;
+      while (names[index] != null) {
+        index = (index + 1) & mask;
+      }
+      names[index] = oldNames[i];
+      hashes[index] = hash;
+    }
+  }
+
+}
@@ -0,0 +1,161 @@
+package com.stanfy.gsonxml.parser;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.FactoryConfigurationError;
+import javax.xml.stream.XMLInputFactory;
+
+import org.xmlpull.v1.XmlPullParser;
+
+import com.stanfy.gsonxml.XmlParserCreator;
+
+/**
+ * Ready-made {@link XmlParserCreator}s. kXML2 and XPP3 are looked up by class name, so they are used only when their
+ * jars are on the classpath; StAX requires {@code javax.xml.stream} (Java 6, not available on Android).
+ * <p>
+ * {@link #defaultCreator()} picks the first available parser by a static ranking that follows {@code FromXmlBenchmark}
+ * results: XPP3, kXML2, StAX (kXML2 and StAX are close, kXML2 is preferred since it's a part of Android).
+ * The {@link #BUNDLED} parser is used only when none of them is available: it's as fast as XPP3 but less proven,
+ * set it explicitly to prefer it.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public final class XmlParserCreators {
+
+  /** kXML2 parser (also a part of Android). */
+  public static final XmlParserCreator KXML = new ClassCreator("kXML2", "org.kxml2.io.KXmlParser");
+
+  /** XPP3 parser. */
+  public static final XmlParserCreator XPP3 = new ClassCreator("XPP3", "org.xmlpull.mxp1.MXParser");
+
+  /** StAX stream reader from {@code javax.xml.stream} presented as a pull parser. */
+  public static final XmlParserCreator STAX = new XmlParserCreator() {
+    @Override
+    public XmlPullParser createParser() {
+      if (!isAvailable(this)) { throw new IllegalStateException("StAX is not available"); }
+      return new StaxXmlParser();
+    }
+    @Override
+    public String toString() { return "StAX"; }
+  };
+
+  /** Parser bundled with this library, see {@link FastXmlParser}. */
+  public static final XmlParserCreator BUNDLED = FastXmlParser.CREATOR;
+
+  /** Candidates of the default creator, the fastest first. */
+  private static final XmlParserCreator[] RANKING = {XPP3, KXML, STAX};
+
+  private XmlParserCreators() { /* hidden */ }
+
+  /**
+   * @param creator one of the creators defined in this class
+   * @return whether parser of this creator can be created in the current environment
+   */
+  public static boolean isAvailable(final XmlParserCreator creator) {
+    if (creator instanceof ClassCreator) { return ((ClassCreator) creator).parserClass() != null; }
+    if (creator == STAX) { return StaxHolder.AVAILABLE; }
+    return creator != null;
+  }
+
+  /** @return available creators, from the fastest to the slowest, the bundled one is the last */
+  public static List<XmlParserCreator> available() {
+    final List<XmlParserCreator> result = new ArrayList<XmlParserCreator>(RANKING.length + 1);
+    for (final XmlParserCreator creator : RANKING) {
+      if (isAvailable(creator)) {
+        result.add(creator);
+      }
+    }
+    result.add(BUNDLED);
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * Used by {@link com.stanfy.gsonxml.GsonXmlBuilder} when no creator is set.
+   * @return creator of the fastest available parser, the bundled one if there are no other parsers
+   */
+  public static XmlParserCreator defaultCreator() {
+    return DefaultHolder.DEFAULT;
+  }
+
+  /** Lazily selected default. */
+  private static final class DefaultHolder {
+    /** Default creator. */
+    static final XmlParserCreator DEFAULT = available().get(0);
+  }
+
+  /** Lazily checked StAX availability. */
+  private static final class StaxHolder {
+    /** Whether StAX is available. */
+    static final boolean AVAILABLE = checkStax();
+
+    private static boolean checkStax() {
+      try {
+        XMLInputFactory.newInstance();
+        return true;
+      } catch (final LinkageError e) {
+        return false;
+      } catch (final FactoryConfigurationError e) {
+        return false;
+      }
+    }
+  }
+
+  /** Creates parsers of a class that may be absent. */
+  private static final class ClassCreator implements XmlParserCreator {
+    /** Parser name. */
+    private final String name;
+    /** Parser class name. */
+    private final String className;
+    /** Parser class, null if not loaded yet or absent. */
+    private volatile Class<? extends XmlPullParser> parserClass;
+    /** Whether class lookup has failed. */
+    private volatile boolean absent;
+
+    ClassCreator(final String name, final String className) {
+      this.name = name;
+      this.className = className;
+    }
+
+    Class<? extends XmlPullParser> parserClass() {
+      Class<? extends XmlPullParser> result = parserClass;
+      if (result == null && !absent) {
+        try {
+          result = Class.forName(className, true, XmlParserCreators.class.getClassLoader())
+              .asSubclass(XmlPullParser.class);
+          parserClass = result;
+        } catch (final ClassNotFoundException e) {
+          absent = true;
+        } catch (final LinkageError e) {
+          absent = true;
+        } catch (final ClassCastException e) {
+          absent = true;
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public XmlPullParser createParser() {
+      final Class<? extends XmlPullParser> parserClass = parserClass();
+      if (parserClass == null) { throw new IllegalStateException(name + " is not on the classpath"); }
+      try {
+        return parserClass.getDeclaredConstructor().newInstance();
+      } catch (final NoSuchMethodException e) {
+        throw new IllegalStateException("Cannot create " + name + " parser", e);
+      } catch (final InstantiationException e) {
+        throw new IllegalStateException("Cannot create " + name + " parser", e);
+      } catch (final IllegalAccessException e) {
+        throw new IllegalStateException("Cannot create " + name + " parser", e);
+      } catch (final InvocationTargetException e) {
+        throw new IllegalStateException("Cannot create " + name + " parser", e.getCause());
+      }
+    }
+
+    @Override
+    public String toString() { return name; }
+  }
+
+}
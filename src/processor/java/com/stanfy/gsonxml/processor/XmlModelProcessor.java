@@ -0,0 +1,359 @@
+package com.stanfy.gsonxml.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates {@code com.stanfy.gsonxml.XmlModelAdapter} implementations for classes annotated with
+ * {@code com.stanfy.gsonxml.XmlModel}.
+ * <p>
+ * Adapter of {@code com.example.Model} is named {@code com.example.Model$$XmlAdapter}. It creates model instances
+ * with the default constructor and assigns fields directly, so fields must not be private or final and
+ * inherited fields from other packages must be public.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@SupportedAnnotationTypes(XmlModelProcessor.XML_MODEL)
+public class XmlModelProcessor extends AbstractProcessor {
+
+  /** Processed annotation. */
+  static final String XML_MODEL = "com.stanfy.gsonxml.XmlModel";
+
+  /** Adapters base class. */
+  private static final String ADAPTER = "com.stanfy.gsonxml.XmlModelAdapter";
+
+  /** Adapter class name suffix. */
+  static final String SUFFIX = "$$XmlAdapter";
+
+  /** Gson's field name annotation. */
+  private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+
+  /** Primitive setters of the adapter: method name, value type, field types. */
+  private static final Object[][] SETTERS = {
+    {"setInt", "int", new TypeKind[] {TypeKind.INT, TypeKind.SHORT, TypeKind.BYTE}},
+    {"setLong", "long", new TypeKind[] {TypeKind.LONG}},
+    {"setDouble", "double", new TypeKind[] {TypeKind.DOUBLE, TypeKind.FLOAT}},
+    {"setBoolean", "boolean", new TypeKind[] {TypeKind.BOOLEAN}},
+  };
+
+  /** Model property. */
+  private static final class Property {
+    /** Name seen by Gson. */
+    final String name;
+    /** Field name. */
+    final String field;
+    /** Field type as a member of the model. */
+    final TypeMirror type;
+
+    Property(final String name, final String field, final TypeMirror type) {
+      this.name = name;
+      this.field = field;
+      this.type = type;
+    }
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+    for (final TypeElement annotation : annotations) {
+      for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() != ElementKind.CLASS) {
+          error("@XmlModel can be applied to classes only", element);
+          continue;
+        }
+        final TypeElement model = (TypeElement) element;
+        if (!checkModel(model)) { continue; }
+        final List<Property> properties = properties(model);
+        if (properties != null) {
+          write(model, properties);
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean checkModel(final TypeElement model) {
+    if (model.getModifiers().contains(Modifier.ABSTRACT)) {
+      error("@XmlModel class must not be abstract", model);
+      return false;
+    }
+    if (!model.getTypeParameters().isEmpty()) {
+      error("@XmlModel class must not have type parameters", model);
+      return false;
+    }
+    Element current = model;
+    while (current instanceof TypeElement) {
+      final TypeElement type = (TypeElement) current;
+      if (type.getModifiers().contains(Modifier.PRIVATE)) {
+        error("@XmlModel class must not be private or enclosed in a private class", model);
+        return false;
+      }
+      final NestingKind nesting = type.getNestingKind();
+      if (nesting == NestingKind.LOCAL || nesting == NestingKind.ANONYMOUS
+          || nesting == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+        error("@XmlModel class must be a top level or static nested class", model);
+        return false;
+      }
+      current = type.getEnclosingElement();
+    }
+    for (final ExecutableElement constructor : ElementFilter.constructorsIn(model.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+        return true;
+      }
+    }
+    error("@XmlModel class must have a non-private constructor without parameters", model);
+    return false;
+  }
+
+  /** @return model properties, null if some field cannot be assigned */
+  private List<Property> properties(final TypeElement model) {
+    final Types types = processingEnv.getTypeUtils();
+    final DeclaredType modelType = (DeclaredType) model.asType();
+    final String modelPackage = packageOf(model);
+    final List<Property> result = new ArrayList<Property>();
+    final Set<String> names = new HashSet<String>();
+    boolean valid = true;
+
+    TypeElement current = model;
+    while (current != null && !"java.lang.Object".equals(current.getQualifiedName().toString())) {
+      for (final VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+        final Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) { continue; }
+        final String description = "Field " + current.getSimpleName() + "." + field.getSimpleName();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)) {
+          error(description + " must not be private or final", field);
+          valid = false;
+          continue;
+        }
+        if (current != model && !modifiers.contains(Modifier.PUBLIC) && !modelPackage.equals(packageOf(current))) {
+          error(description + " is not accessible from package " + modelPackage, field);
+          valid = false;
+          continue;
+        }
+        final TypeMirror type = types.asMemberOf(modelType, field);
+        if (type.getKind() == TypeKind.TYPEVAR || type.getKind() == TypeKind.ERROR) {
+          error(description + " has unresolved type " + type, field);
+          valid = false;
+          continue;
+        }
+        if (!isAccessible(type, modelPackage)) {
+          error(description + " type " + type + " is not accessible from package " + modelPackage, field);
+          valid = false;
+          continue;
+        }
+        final String name = serializedName(field);
+        if (!names.add(name)) {
+          error(model.getQualifiedName() + " declares multiple fields named " + name, field);
+          valid = false;
+          continue;
+        }
+        result.add(new Property(name, field.getSimpleName().toString(), type));
+      }
+      final TypeMirror superclass = current.getSuperclass();
+      current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+    }
+    return valid ? result : null;
+  }
+
+  /** @return whether generated code in the given package can refer to this type */
+  private boolean isAccessible(final TypeMirror type, final String pkg) {
+    if (type.getKind() == TypeKind.ARRAY) {
+      return isAccessible(((ArrayType) type).getComponentType(), pkg);
+    }
+    if (type.getKind() == TypeKind.WILDCARD) {
+      final WildcardType wildcard = (WildcardType) type;
+      return (wildcard.getExtendsBound() == null || isAccessible(wildcard.getExtendsBound(), pkg))
+          && (wildcard.getSuperBound() == null || isAccessible(wildcard.getSuperBound(), pkg));
+    }
+    if (type.getKind() != TypeKind.DECLARED) { return true; }
+    final DeclaredType declared = (DeclaredType) type;
+    for (final TypeMirror argument : declared.getTypeArguments()) {
+      if (!isAccessible(argument, pkg)) { return false; }
+    }
+    Element element = declared.asElement();
+    while (element instanceof TypeElement) {
+      final Set<Modifier> modifiers = element.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE)
+          || !modifiers.contains(Modifier.PUBLIC) && !pkg.equals(packageOf(element))) {
+        return false;
+      }
+      element = element.getEnclosingElement();
+    }
+    return true;
+  }
+
+  private static String serializedName(final VariableElement field) {
+    for (final AnnotationMirror annotation : field.getAnnotationMirrors()) {
+      if (!SERIALIZED_NAME.equals(annotation.getAnnotationType().toString())) { continue; }
+      for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+          : annotation.getElementValues().entrySet()) {
+        if ("value".contentEquals(entry.getKey().getSimpleName())) {
+          return (String) entry.getValue().getValue();
+        }
+      }
+    }
+    return field.getSimpleName().toString();
+  }
+
+  private String packageOf(final Element element) {
+    final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(element);
+    return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+  }
+
+  private void write(final TypeElement model, final List<Property> properties) {
+    final String pkg = packageOf(model);
+    final String binaryName = processingEnv.getElementUtils().getBinaryName(model).toString();
+    final String adapterName = (pkg.length() > 0 ? binaryName.substring(pkg.length() + 1) : binaryName) + SUFFIX;
+    final String modelName = model.getQualifiedName().toString();
+
+    PrintWriter out = null;
+    try {
+      out = new PrintWriter(processingEnv.getFiler().createSourceFile(
+          pkg.length() > 0 ? pkg + "." + adapterName : adapterName, model).openWriter());
+      out.println("// Generated by gson-xml annotation processor. Do not modify.");
+      if (pkg.length() > 0) {
+        out.println("package " + pkg + ";");
+      }
+      out.println();
+      out.println("public final class " + adapterName + " extends " + ADAPTER + "<" + modelName + "> {");
+      out.println();
+
+      out.println("  public " + adapterName + "() {");
+      out.println("    super(");
+      out.println("        new String[] {");
+      for (final Property property : properties) {
+        out.println("          \"" + escape(property.name) + "\",");
+      }
+      out.println("        },");
+      out.println("        new java.lang.reflect.Type[] {");
+      for (final Property property : properties) {
+        out.println("          " + typeLiteral(property.type) + ",");
+      }
+      out.println("        }");
+      out.println("    );");
+      out.println("  }");
+      out.println();
+
+      out.println("  @Override");
+      out.println("  public " + modelName + " create() {");
+      out.println("    return new " + modelName + "();");
+      out.println("  }");
+      out.println();
+
+      out.println("  @Override");
+      out.println("  @SuppressWarnings(\"unchecked\")");
+      out.println("  public void set(final " + modelName + " instance, final int index, final Object value) {");
+      out.println("    switch (index) {");
+      for (int i = 0; i < properties.size(); i++) {
+        final Property property = properties.get(i);
+        out.println("    case " + i + ":");
+        out.println("      instance." + property.field + " = (" + boxedName(property.type) + ") value;");
+        out.println("      break;");
+      }
+      out.println("    default:");
+      out.println("      throw new IllegalArgumentException(\"Unknown property \" + index);");
+      out.println("    }");
+      out.println("  }");
+
+      for (final Object[] setter : SETTERS) {
+        writeSetter(out, modelName, properties, (String) setter[0], (String) setter[1], (TypeKind[]) setter[2]);
+      }
+
+      out.println();
+      out.println("}");
+    } catch (final IOException e) {
+      error("Cannot write adapter: " + e.getMessage(), model);
+    } finally {
+      if (out != null) {
+        out.close();
+      }
+    }
+  }
+
+  private static void writeSetter(final PrintWriter out, final String modelName, final List<Property> properties,
+      final String method, final String valueType, final TypeKind[] kinds) {
+    boolean started = false;
+    for (int i = 0; i < properties.size(); i++) {
+      final TypeKind kind = properties.get(i).type.getKind();
+      int match = -1;
+      for (int k = 0; k < kinds.length; k++) {
+        if (kinds[k] == kind) { match = k; }
+      }
+      if (match < 0) { continue; }
+      if (!started) {
+        started = true;
+        out.println();
+        out.println("  @Override");
+        out.println("  public void " + method + "(final " + modelName + " instance, final int index, final "
+            + valueType + " value) {");
+        out.println("    switch (index) {");
+      }
+      final String cast = match > 0 ? "(" + properties.get(i).type + ") " : "";
+      out.println("    case " + i + ":");
+      out.println("      instance." + properties.get(i).field + " = " + cast + "value;");
+      out.println("      break;");
+    }
+    if (started) {
+      out.println("    default:");
+      out.println("      super." + method + "(instance, index, value);");
+      out.println("    }");
+      out.println("  }");
+    }
+  }
+
+  private String boxedName(final TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+    }
+    return type.toString();
+  }
+
+  private String typeLiteral(final TypeMirror type) {
+    if (type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty()) {
+      return "new com.google.gson.reflect.TypeToken<" + type + ">() { }.getType()";
+    }
+    return processingEnv.getTypeUtils().erasure(type) + ".class";
+  }
+
+  private static String escape(final String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  private void error(final String message, final Element element) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+
+}
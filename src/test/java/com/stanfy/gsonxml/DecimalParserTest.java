@@ -0,0 +1,79 @@
+package com.stanfy.gsonxml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link DecimalParser}.
+ */
+public class DecimalParserTest {
+
+  private final DecimalParser parser = new DecimalParser();
+
+  private void assertLong(final String input) {
+    assertTrue(input, parser.parseLong(input));
+    assertEquals(input, Long.parseLong(input), parser.longValue);
+  }
+
+  private void assertDouble(final String input) {
+    assertTrue(input, parser.parseDouble(input));
+    assertEquals(input, Double.doubleToLongBits(Double.parseDouble(input)), Double.doubleToLongBits(parser.doubleValue));
+  }
+
+  @Test
+  public void shouldParseLongs() {
+    assertLong("0");
+    assertLong("-0");
+    assertLong("+15");
+    assertLong("-2147483649");
+    assertLong("999999999999999999");
+    assertLong("-000000000000000001");
+  }
+
+  @Test
+  public void shouldRejectUnsupportedLongs() {
+    assertFalse(parser.parseLong(""));
+    assertFalse(parser.parseLong("-"));
+    assertFalse(parser.parseLong("1.0"));
+    assertFalse(parser.parseLong("1 "));
+    assertFalse(parser.parseLong("\u0661")); // arabic-indic digit, left for Long.parseLong
+    assertFalse(parser.parseLong("9223372036854775807"));
+  }
+
+  @Test
+  public void shouldParseDoubles() {
+    assertDouble("0");
+    assertDouble("-0.0");
+    assertDouble("1.");
+    assertDouble(".5");
+    assertDouble("3.14159");
+    assertDouble("-273.15");
+    assertDouble("50.4501");
+    assertDouble("30.5234");
+    assertDouble("1e22");
+    assertDouble("1.5E-7");
+    assertDouble("+2e+3");
+    assertDouble("0.000000000000000000000000000000");
+    assertDouble("9007199254740992");
+    assertDouble("12345678901234e-5");
+  }
+
+  @Test
+  public void shouldRejectInexactOrInvalidDoubles() {
+    assertFalse(parser.parseDouble(""));
+    assertFalse(parser.parseDouble("."));
+    assertFalse(parser.parseDouble("1e"));
+    assertFalse(parser.parseDouble("1e+"));
+    assertFalse(parser.parseDouble("NaN"));
+    assertFalse(parser.parseDouble("1.0f"));
+    assertFalse(parser.parseDouble("0x1p3"));
+    assertFalse(parser.parseDouble("1e23"));
+    assertFalse(parser.parseDouble("1e-23"));
+    assertFalse(parser.parseDouble("9007199254740993"));
+    assertFalse(parser.parseDouble("0.1234567890123456789"));
+  }
+
+}
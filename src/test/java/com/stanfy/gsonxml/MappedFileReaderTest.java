@@ -0,0 +1,99 @@
+package com.stanfy.gsonxml;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link MappedFileReader}.
+ */
+public class MappedFileReaderTest {
+
+  /** Text with 1, 2, 3 and 4 bytes long UTF-8 characters. */
+  private static final String TEXT = "<a>x\u00e9\u20ac\ud83d\ude00y</a>";
+
+  /** Test file. */
+  private File file;
+
+  @Before
+  public void createFile() throws IOException {
+    file = File.createTempFile("mapped", ".xml");
+  }
+
+  @After
+  public void deleteFile() {
+    file.delete();
+  }
+
+  private void write(final byte[] content) throws IOException {
+    final FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content);
+    } finally {
+      out.close();
+    }
+  }
+
+  private String read(final int windowSize, final int bufferSize) throws IOException {
+    final MappedFileReader reader = new MappedFileReader(file, windowSize);
+    try {
+      final StringBuilder result = new StringBuilder();
+      final char[] buffer = new char[bufferSize];
+      int count;
+      while ((count = reader.read(buffer, 0, bufferSize)) != -1) {
+        result.append(buffer, 0, count);
+      }
+      return result.toString();
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void charactersShouldBeDecodedAcrossWindows() throws IOException {
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      text.append(TEXT);
+    }
+    write(text.toString().getBytes("UTF-8"));
+    for (int window = 4; window < 12; window++) {
+      for (final int buffer : new int[] {1, 2, 3, 8192}) {
+        assertEquals("window " + window + ", buffer " + buffer, text.toString(), read(window, buffer));
+      }
+    }
+  }
+
+  @Test
+  public void byteOrderMarkShouldBeUsed() throws IOException {
+    write(TEXT.getBytes("UTF-16"));
+    assertEquals(TEXT, read(MappedFileReader.WINDOW_SIZE, 16));
+    write(("\ufeff" + TEXT).getBytes("UTF-8"));
+    assertEquals(TEXT, read(MappedFileReader.WINDOW_SIZE, 16));
+  }
+
+  @Test
+  public void declaredEncodingShouldBeUsed() throws IOException {
+    final String xml = "<?xml version='1.0' encoding = 'ISO-8859-1'?><a>\u00e9</a>";
+    write(xml.getBytes("ISO-8859-1"));
+    assertEquals(xml, read(MappedFileReader.WINDOW_SIZE, 16));
+  }
+
+  @Test(expected = UnsupportedEncodingException.class)
+  public void unknownEncodingShouldBeReported() throws IOException {
+    write("<?xml version=\"1.0\" encoding=\"x-unknown\"?><a/>".getBytes("UTF-8"));
+    read(MappedFileReader.WINDOW_SIZE, 16);
+  }
+
+  @Test
+  public void emptyFileShouldBeRead() throws IOException {
+    assertEquals("", read(MappedFileReader.WINDOW_SIZE, 16));
+  }
+
+}
@@ -0,0 +1,47 @@
+package com.stanfy.gsonxml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link NamesTable}.
+ */
+public class NamesTableTest {
+
+  @Test
+  public void shouldComposeNames() {
+    final NamesTable table = new NamesTable();
+    assertEquals("name", table.element(null, "name"));
+    assertEquals("name", table.element("", "name"));
+    assertEquals("<ns>name", table.element("ns", "name"));
+    assertEquals("@name", table.attribute(null, "name"));
+    assertEquals("@<ns>name", table.attribute("ns", "name"));
+    assertEquals("$", table.text(0));
+    assertEquals("$1", table.text(1));
+    assertEquals("$10", table.text(10));
+  }
+
+  @Test
+  public void shouldReturnCanonicalNames() {
+    final NamesTable table = new NamesTable();
+    final String element = table.element("ns", "name");
+    final String attribute = table.attribute(null, "name");
+    for (int i = 0; i < 1000; i++) {
+      table.element(null, "e" + i); // force rehashing
+    }
+    assertSame(element, table.element(new String("ns"), new String("name")));
+    assertSame(attribute, table.attribute(null, new String("name")));
+    assertSame(table.text(3), table.text(3));
+  }
+
+  @Test
+  public void shouldWorkBeyondSizeLimit() {
+    final NamesTable table = new NamesTable();
+    for (int i = 0; i < NamesTable.MAX_SIZE * 2; i++) {
+      assertEquals("@a" + i, table.attribute(null, "a" + i));
+    }
+  }
+
+}
@@ -0,0 +1,56 @@
+package com.stanfy.gsonxml;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.stanfy.gsonxml.XmlReader.ValuesQueue;
+
+/**
+ * Tests for {@link ValuesQueue}.
+ */
+public class ValuesQueueTest {
+
+  private static void append(final ValuesQueue queue, final String text) {
+    queue.addLast(text.toCharArray(), 0, text.length());
+  }
+
+  @Test
+  public void shouldAppendToStringValue() {
+    final ValuesQueue queue = new ValuesQueue();
+    append(queue, "first");
+    queue.addLast("name");
+    queue.appendLast("a");
+    queue.appendLast("b");
+    assertEquals(2, queue.size());
+    assertEquals("first", queue.pollFirst());
+    assertEquals("name a b", queue.peekFirstChars().toString());
+    assertEquals("name a b", queue.pollFirst());
+  }
+
+  @Test
+  public void shouldAppendToMovedRange() {
+    final ValuesQueue queue = new ValuesQueue();
+    append(queue, "x");
+    queue.addLast("s");
+    append(queue, "y");
+    queue.appendLast("z");
+    assertEquals("x", queue.pollFirst());
+    assertEquals("s", queue.pollFirst());
+    assertEquals("y z", queue.pollFirst());
+  }
+
+  @Test
+  public void shouldKeepValuesWhenGrowing() {
+    final ValuesQueue queue = new ValuesQueue();
+    final StringBuilder expected = new StringBuilder("v");
+    queue.addLast("v");
+    for (int i = 0; i < 1000; i++) {
+      final String text = "t" + i;
+      queue.appendLast(text);
+      expected.append(' ').append(text);
+    }
+    assertEquals(expected.toString(), queue.pollFirst());
+  }
+
+}
@@ -0,0 +1,130 @@
+package com.stanfy.gsonxml;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Tests for {@link XmlBinder}.
+ */
+public class XmlBinderTest {
+
+  /** Supported model. */
+  private static class Model {
+    String name;
+    int count;
+    Date date;
+    List<Model> children;
+    Model parent;
+  }
+
+  /** Model without a generated adapter. */
+  static class Plain {
+    String name;
+  }
+
+  /** Model with a generated adapter. */
+  @XmlModel
+  static class Annotated {
+    String name;
+    Plain reflective;
+  }
+
+  /** Model with a generated adapter and generated fields only. */
+  @XmlModel
+  static class AnnotatedRoot {
+    List<AnnotatedItem> items;
+  }
+
+  /** Item with a generated adapter. */
+  @XmlModel
+  static class AnnotatedItem {
+    String name;
+    Date date;
+  }
+
+  /** Model with a map. */
+  private static class MapModel {
+    Map<String, String> values;
+  }
+
+  /** Model with nested lists. */
+  private static class NestedListModel {
+    List<List<String>> values;
+  }
+
+  /** Model with a custom adapter. */
+  private static class Custom {
+    String value;
+  }
+
+  /** Custom adapter. */
+  private static class CustomAdapter extends TypeAdapter<Custom> {
+    @Override
+    public void write(final JsonWriter out, final Custom value) throws IOException {
+      out.value(value.value);
+    }
+    @Override
+    public Custom read(final JsonReader in) throws IOException {
+      final Custom result = new Custom();
+      result.value = in.nextString();
+      return result;
+    }
+  }
+
+  /** Model with a custom field. */
+  private static class CustomModel {
+    Custom custom;
+  }
+
+  private static XmlBinder binder(final boolean skipRoot) {
+    final XmlReader.Options options = new XmlReader.Options();
+    options.skipRoot = skipRoot;
+    return new XmlBinder(new GsonBuilder().registerTypeAdapter(Custom.class, new CustomAdapter()).create(), options);
+  }
+
+  @Test
+  public void shouldSupportReflectiveModels() {
+    assertTrue(binder(true).supports(Model.class));
+    assertTrue(binder(true).supports(new TypeToken<List<Model>>() { }.getType()));
+    assertFalse(binder(false).supports(new TypeToken<List<Model>>() { }.getType()));
+    final XmlBinder dates = new XmlBinder(new GsonBuilder().setDateFormat("dd.MM.yyyy").create(), new XmlReader.Options());
+    assertTrue(dates.supports(Model.class));
+  }
+
+  @Test
+  public void shouldNotSupportOtherTypes() {
+    final XmlBinder binder = binder(true);
+    assertFalse(binder.supports(String.class));
+    assertFalse(binder.supports(JsonElement.class));
+    assertFalse(binder.supports(MapModel.class));
+    assertFalse(binder.supports(NestedListModel.class));
+    assertFalse(binder.supports(CustomModel.class));
+    assertFalse(binder.supports(Custom.class));
+    assertTrue(binder.supports(Model.class));
+  }
+
+  @Test
+  public void shouldSupportOnlyGeneratedModelsWithoutReflection() {
+    final XmlBinder binder = new XmlBinder(new GsonBuilder().create(), new XmlReader.Options(), false);
+    assertTrue(binder.supports(AnnotatedRoot.class));
+    assertTrue(binder.supports(AnnotatedItem.class));
+    assertFalse(binder.supports(Model.class));
+    assertFalse(binder.supports(Annotated.class));
+    assertTrue(binder(true).supports(Annotated.class));
+  }
+
+}
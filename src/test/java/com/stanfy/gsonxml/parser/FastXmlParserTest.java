@@ -0,0 +1,278 @@
+package com.stanfy.gsonxml.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+
+import org.junit.Test;
+import org.kxml2.io.KXmlParser;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * Compares {@link FastXmlParser} events with kXML.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class FastXmlParserTest {
+
+  /** Test resources location. */
+  private static final String BASE = "/com/stanfy/gsonxml/test/";
+
+  /** Document with most of the supported constructs. */
+  private static final String MIXED = "<?xml version=\"1.0\"?>\n"
+      + "<!DOCTYPE r SYSTEM \"r.dtd\">\n"
+      + "<!-- head -->\n"
+      + "<r xmlns=\"urn:d\" xmlns:p=\"urn:p\" a=\"1 &amp; 2\" p:b='&#x41;&#66;'>\r\n"
+      + "  <p:e p:c=\"&lt;&gt;\"/>\n"
+      + "  <e>text &amp; <![CDATA[<cdata>]]> more<!-- comment --> end<?pi data?>!</e>\n"
+      + "  <e xmlns=\"\">&#xE9;&#233;</e>\n"
+      + "  <e>  <!-- only whitespace -->  </e>\n"
+      + "</r>\n";
+
+  static byte[] bytes(final String name) throws IOException {
+    final InputStream in = FastXmlParserTest.class.getResourceAsStream(BASE + name);
+    try {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        out.write(buffer, 0, count);
+      }
+      return out.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+
+  /** @return readable description of all the events */
+  static String events(final XmlPullParser parser) throws XmlPullParserException, IOException {
+    final StringBuilder result = new StringBuilder();
+    final int[] bounds = new int[2];
+    int type;
+    do {
+      type = parser.next();
+      result.append(XmlPullParser.TYPES[type]).append(' ').append(parser.getDepth());
+      switch (type) {
+      case XmlPullParser.START_TAG:
+        result.append(" {").append(parser.getNamespace()).append('}')
+            .append(parser.getPrefix()).append(':').append(parser.getName());
+        for (int i = 0; i < parser.getAttributeCount(); i++) {
+          result.append(" {").append(parser.getAttributeNamespace(i)).append('}')
+              .append(parser.getAttributePrefix(i)).append(':').append(parser.getAttributeName(i))
+              .append("=").append(parser.getAttributeValue(i));
+        }
+        for (int i = parser.getNamespaceCount(parser.getDepth() - 1); i < parser.getNamespaceCount(parser.getDepth()); i++) {
+          result.append(" xmlns:").append(parser.getNamespacePrefix(i)).append('=').append(parser.getNamespaceUri(i));
+        }
+        break;
+      case XmlPullParser.END_TAG:
+        result.append(" {").append(parser.getNamespace()).append('}')
+            .append(parser.getPrefix()).append(':').append(parser.getName());
+        break;
+      case XmlPullParser.TEXT:
+        final char[] chars = parser.getTextCharacters(bounds);
+        final String text = new String(chars, bounds[0], bounds[1]);
+        assertEquals(parser.getText(), text);
+        result.append(" [").append(text).append("] ").append(parser.isWhitespace());
+        break;
+      default:
+        break;
+      }
+      result.append('\n');
+    } while (type != XmlPullParser.END_DOCUMENT);
+    return result.toString();
+  }
+
+  private static String kxml(final String xml, final boolean namespaces) throws XmlPullParserException, IOException {
+    final XmlPullParser parser = new KXmlParser();
+    parser.setInput(new StringReader(xml));
+    parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, namespaces);
+    return events(parser);
+  }
+
+  private static String fast(final String xml, final boolean namespaces, final int bufferSize)
+      throws XmlPullParserException, IOException {
+    final XmlPullParser parser = new FastXmlParser(bufferSize);
+    parser.setInput(new StringReader(xml));
+    parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, namespaces);
+    return events(parser);
+  }
+
+  private static void assertSameEvents(final String xml) throws XmlPullParserException, IOException {
+    for (final boolean namespaces : new boolean[] {false, true}) {
+      final String expected = kxml(xml, namespaces);
+      assertEquals(expected, fast(xml, namespaces, FastXmlParser.DEFAULT_BUFFER_SIZE));
+      for (final int bufferSize : new int[] {1, 2, 3, 7, 64}) {
+        assertEquals("Buffer " + bufferSize, expected, fast(xml, namespaces, bufferSize));
+      }
+    }
+  }
+
+  @Test
+  public void shouldReadFixtures() throws Exception {
+    assertSameEvents(new String(bytes("rss-response.xml"), "UTF-8"));
+    assertSameEvents(new String(bytes("comments-response.xml"), "UTF-8"));
+    assertSameEvents(new String(bytes("comments-response-2.xml"), "UTF-8"));
+  }
+
+  @Test
+  public void shouldReadMixedContent() throws Exception {
+    assertSameEvents(MIXED);
+    assertSameEvents("<a><b/><b></b><c x='1'/>\n</a>");
+  }
+
+  @Test
+  public void shouldDetectEncoding() throws Exception {
+    final String xml = "<r a=\"\u00e9\">\u00fc\u00df</r>";
+    final String expected = fast(xml, false, FastXmlParser.DEFAULT_BUFFER_SIZE);
+    assertEquals(expected, events(bytes("\ufeff" + xml, "UTF-16LE"), "UTF-16LE"));
+    assertEquals(expected, events(bytes("\ufeff" + xml, "UTF-16BE"), "UTF-16BE"));
+    assertEquals(expected, events(bytes("\ufeff" + xml, "UTF-8"), "UTF-8"));
+    assertEquals(expected, events(bytes("<?xml version='1.0' encoding='ISO-8859-1'?>" + xml, "ISO-8859-1"), "ISO-8859-1"));
+    assertEquals(expected, events(bytes("<?xml version=\"1.0\"?>" + xml, "UTF-8"), "UTF-8"));
+  }
+
+  private static byte[] bytes(final String text, final String encoding) throws IOException {
+    return text.getBytes(encoding);
+  }
+
+  private static String events(final byte[] bytes, final String encoding) throws XmlPullParserException, IOException {
+    final FastXmlParser parser = new FastXmlParser();
+    parser.setInput(new ByteArrayInputStream(bytes), null);
+    assertEquals(encoding, parser.getInputEncoding());
+    return events(parser);
+  }
+
+  @Test
+  public void shouldSkipByteOrderMarkOfReader() throws Exception {
+    for (final int bufferSize : new int[] {1, FastXmlParser.DEFAULT_BUFFER_SIZE}) {
+      final FastXmlParser parser = new FastXmlParser(bufferSize);
+      parser.setInput(new StringReader("\ufeff<?xml version='1.0'?><r>\ufeff</r>"));
+      assertEquals(XmlPullParser.START_TAG, parser.next());
+      assertEquals("r", parser.getName());
+      assertEquals(XmlPullParser.TEXT, parser.next());
+      assertEquals("\ufeff", parser.getText());
+    }
+  }
+
+  @Test
+  public void shouldNormalizeAttributeValues() throws Exception {
+    for (final int bufferSize : new int[] {1, 2, 3, FastXmlParser.DEFAULT_BUFFER_SIZE}) {
+      final FastXmlParser parser = new FastXmlParser(bufferSize);
+      parser.setInput(new StringReader("<r a='x\ty\nz\r\nw\rv&#10;&#9;&#13;u'/>"));
+      parser.next();
+      assertEquals("Buffer " + bufferSize, "x y z w v\n\t\ru", parser.getAttributeValue(0));
+    }
+  }
+
+  @Test
+  public void shouldSkipInternalSubset() throws Exception {
+    final FastXmlParser parser = new FastXmlParser(3);
+    parser.setInput(new StringReader("<!DOCTYPE r [ <!ELEMENT r ANY> <!ATTLIST r a CDATA \"x>]\"> ]>\n<r/>"));
+    assertEquals(XmlPullParser.START_TAG, parser.next());
+    assertEquals("r", parser.getName());
+    assertEquals(XmlPullParser.END_TAG, parser.next());
+    assertEquals(XmlPullParser.END_DOCUMENT, parser.next());
+  }
+
+  @Test
+  public void shouldResolveDefinedEntities() throws Exception {
+    final FastXmlParser parser = new FastXmlParser(4);
+    parser.setInput(new StringReader("<r a='&e;'>&e;&e;.&#x1F600;</r>"));
+    parser.defineEntityReplacementText("e", "entity");
+    assertEquals(XmlPullParser.START_TAG, parser.next());
+    assertEquals("entity", parser.getAttributeValue(null, "a"));
+    assertEquals(XmlPullParser.TEXT, parser.next());
+    assertEquals("entityentity.\ud83d\ude00", parser.getText());
+    assertFalse(parser.isWhitespace());
+    assertEquals(XmlPullParser.END_TAG, parser.next());
+  }
+
+  @Test
+  public void shouldReportEmptyTags() throws Exception {
+    final FastXmlParser parser = new FastXmlParser();
+    parser.setInput(new StringReader("<r><e/> </r>"));
+    parser.next();
+    assertFalse(parser.isEmptyElementTag());
+    parser.next();
+    assertTrue(parser.isEmptyElementTag());
+    assertEquals(XmlPullParser.END_TAG, parser.next());
+    assertEquals(2, parser.getDepth());
+    assertEquals(XmlPullParser.TEXT, parser.next());
+    assertTrue(parser.isWhitespace());
+    assertEquals(1, parser.getDepth());
+  }
+
+  private static void assertError(final String xml, final boolean namespaces) throws IOException {
+    final FastXmlParser parser = new FastXmlParser();
+    parser.setInput(new StringReader(xml));
+    try {
+      parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, namespaces);
+      while (parser.next() != XmlPullParser.END_DOCUMENT) {
+        continue;
+      }
+      fail("Error expected in " + xml);
+    } catch (final XmlPullParserException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void shouldReportErrors() throws IOException {
+    assertError("<a></b>", false);
+    assertError("<a><b></a>", false);
+    assertError("<a>", false);
+    assertError("</a>", false);
+    assertError("<a>&unknown;</a>", false);
+    assertError("<a>&amp</a>", false);
+    assertError("<a x=1/>", false);
+    assertError("<a x='<'/>", false);
+    assertError("text<a/>", false);
+    assertError("<a><![CDATA[x</a>", false);
+    assertError("<a><!-- x</a>", false);
+    assertError("<p:a/>", true);
+  }
+
+  @Test
+  public void shouldReportWellFormednessErrors() throws IOException {
+    assertError("<a/><b/>", false);
+    assertError("<a></a> <b></b>", false);
+    assertError("<a x='1'y='2'/>", false);
+    assertError("<a x='1' x='2'/>", false);
+    assertError("<a x='1' x='2'/>", true);
+    assertError("<a xmlns:p='u' p:x='1' p:x='2'/>", true);
+    assertError("<a>x]]>y</a>", false);
+    assertError("<a>]]></a>", false);
+  }
+
+  @Test
+  public void shouldAcceptBracketsAndAttributesWithSameLocalNames() throws Exception {
+    assertSameEvents("<a>]x]]y]] ]</a>");
+    assertSameEvents("<a xmlns:p='u' p:x='1' x='2'\n/><!-- end --> ");
+  }
+
+  @Test
+  public void shouldTrackLines() throws Exception {
+    final FastXmlParser parser = new FastXmlParser(2);
+    parser.setInput(new StringReader("<a>\n\r\n<b\nx='1'/>&amp;\n</a>"));
+    parser.next();
+    assertEquals(1, parser.getLineNumber());
+    parser.next();
+    assertEquals("\n\n", parser.getText());
+    parser.next();
+    assertEquals(4, parser.getLineNumber());
+    assertEquals(8, parser.getColumnNumber());
+    parser.next();
+    parser.next();
+    assertEquals("&\n", parser.getText());
+    assertEquals(5, parser.getLineNumber());
+  }
+
+}
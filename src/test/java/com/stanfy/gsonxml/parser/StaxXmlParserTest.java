@@ -0,0 +1,102 @@
+package com.stanfy.gsonxml.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+import org.kxml2.io.KXmlParser;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * Compares {@link StaxXmlParser} events with kXML.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class StaxXmlParserTest {
+
+  /** Document with text split by markup. */
+  private static final String MIXED = "<?xml version=\"1.0\"?>\n<!-- head -->\n"
+      + "<r xmlns=\"urn:d\" xmlns:p=\"urn:p\" a=\"1 &amp; 2\" p:b='&#x41;&#66;'>\n"
+      + "  <p:e p:c=\"&lt;&gt;\"/>\n"
+      + "  <e>text &amp; <![CDATA[<cdata>]]> more<!-- comment --> end<?pi data?>!</e>\n"
+      + "  <e xmlns=\"\">&#xE9;</e>\n"
+      + "</r>\n";
+
+  private static String events(final XmlPullParser parser, final String xml, final boolean namespaces)
+      throws XmlPullParserException, IOException {
+    parser.setInput(new StringReader(xml));
+    parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, namespaces);
+    return FastXmlParserTest.events(parser);
+  }
+
+  private static void assertSameEvents(final String xml) throws XmlPullParserException, IOException {
+    final StaxXmlParser parser = new StaxXmlParser();
+    for (final boolean namespaces : new boolean[] {false, true}) {
+      assertEquals(events(new KXmlParser(), xml, namespaces), events(parser, xml, namespaces));
+    }
+  }
+
+  @Test
+  public void shouldReadFixtures() throws Exception {
+    assertSameEvents(new String(FastXmlParserTest.bytes("rss-response.xml"), "UTF-8"));
+    assertSameEvents(new String(FastXmlParserTest.bytes("comments-response.xml"), "UTF-8"));
+    assertSameEvents(new String(FastXmlParserTest.bytes("comments-response-2.xml"), "UTF-8"));
+  }
+
+  @Test
+  public void shouldReadMixedContent() throws Exception {
+    assertSameEvents(MIXED);
+  }
+
+  @Test
+  public void shouldReadBytes() throws Exception {
+    final StaxXmlParser parser = new StaxXmlParser();
+    parser.setInput(new ByteArrayInputStream("<?xml version='1.0' encoding='ISO-8859-1'?><r>\u00e9</r>"
+        .getBytes("ISO-8859-1")), null);
+    assertEquals(XmlPullParser.START_TAG, parser.next());
+    assertEquals(XmlPullParser.TEXT, parser.next());
+    assertEquals("\u00e9", parser.getText());
+    assertEquals(XmlPullParser.END_TAG, parser.next());
+    assertEquals(XmlPullParser.END_DOCUMENT, parser.next());
+  }
+
+  private static void assertError(final String xml) throws Exception {
+    final StaxXmlParser parser = new StaxXmlParser();
+    parser.setInput(new StringReader(xml));
+    try {
+      while (parser.next() != XmlPullParser.END_DOCUMENT) {
+        continue;
+      }
+    } catch (final XmlPullParserException e) {
+      assertTrue(e.getMessage(), e.getLineNumber() > 0);
+      return;
+    }
+    throw new AssertionError("Error expected for " + xml);
+  }
+
+  @Test
+  public void shouldReportErrors() throws Exception {
+    assertError("<a><b></a>");
+    // errors met while text is read ahead
+    assertError("<a>x</b>");
+    assertError("<a><b>1</b>x</c></a>");
+    assertError("<a>x&unknown;</a>");
+  }
+
+  @Test
+  public void shouldNotReportEmptyTags() throws Exception {
+    final StaxXmlParser parser = new StaxXmlParser();
+    parser.setInput(new StringReader("<a><b/></a>"));
+    parser.next();
+    assertFalse(parser.isEmptyElementTag());
+    parser.next();
+    assertFalse(parser.isEmptyElementTag());
+    assertEquals("b", parser.getName());
+  }
+
+}
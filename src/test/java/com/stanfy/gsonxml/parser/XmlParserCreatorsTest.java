@@ -0,0 +1,29 @@
+package com.stanfy.gsonxml.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.kxml2.io.KXmlParser;
+import org.xmlpull.mxp1.MXParser;
+
+/**
+ * Tests for {@link XmlParserCreators}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class XmlParserCreatorsTest {
+
+  @Test
+  public void shouldFindParsers() {
+    assertEquals(Arrays.asList(XmlParserCreators.XPP3, XmlParserCreators.KXML, XmlParserCreators.STAX,
+        XmlParserCreators.BUNDLED), XmlParserCreators.available());
+    assertEquals(XmlParserCreators.XPP3, XmlParserCreators.defaultCreator());
+    assertTrue(XmlParserCreators.KXML.createParser() instanceof KXmlParser);
+    assertTrue(XmlParserCreators.XPP3.createParser() instanceof MXParser);
+    assertTrue(XmlParserCreators.STAX.createParser() instanceof StaxXmlParser);
+    assertTrue(XmlParserCreators.BUNDLED.createParser() instanceof FastXmlParser);
+  }
+
+}
@@ -0,0 +1,166 @@
+package com.stanfy.gsonxml.processor;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link XmlModelProcessor}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class XmlModelProcessorTest {
+
+  /** Output directory. */
+  private File output;
+
+  /** Compilation diagnostics. */
+  private DiagnosticCollector<JavaFileObject> diagnostics;
+
+  /** In-memory source. */
+  private static class Source extends SimpleJavaFileObject {
+    /** Code. */
+    private final String code;
+
+    Source(final String className, final String code) {
+      super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+      this.code = code;
+    }
+
+    @Override
+    public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+      return code;
+    }
+  }
+
+  @Before
+  public void createOutput() throws IOException {
+    output = File.createTempFile("processor", "");
+    assertThat(output.delete() && output.mkdir()).isTrue();
+    diagnostics = new DiagnosticCollector<JavaFileObject>();
+  }
+
+  @After
+  public void deleteOutput() {
+    delete(output);
+  }
+
+  private static void delete(final File file) {
+    final File[] children = file.listFiles();
+    if (children != null) {
+      for (final File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  private boolean compile(final String className, final String code) throws IOException {
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ENGLISH, null);
+    try {
+      final List<String> options = new ArrayList<String>(Arrays.asList(
+          "-classpath", System.getProperty("java.class.path"), "-d", output.getPath(), "-s", output.getPath()));
+      final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+          Collections.singletonList(new Source(className, code)));
+      task.setProcessors(Collections.singletonList(new XmlModelProcessor()));
+      return task.call();
+    } finally {
+      fileManager.close();
+    }
+  }
+
+  private String errors() {
+    final StringBuilder result = new StringBuilder();
+    for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        result.append(diagnostic.getMessage(Locale.ENGLISH)).append('\n');
+      }
+    }
+    return result.toString();
+  }
+
+  @Test
+  public void adapterShouldBeGenerated() throws IOException {
+    final boolean success = compile("test.Model",
+        "package test;\n"
+        + "@com.stanfy.gsonxml.XmlModel\n"
+        + "public class Model {\n"
+        + "  @com.google.gson.annotations.SerializedName(\"@id\") int id;\n"
+        + "  float ratio;\n"
+        + "  java.util.List<Nested> nested;\n"
+        + "  @com.stanfy.gsonxml.XmlModel\n"
+        + "  public static class Nested { String name; }\n"
+        + "}\n");
+    assertThat(success).overridingErrorMessage(errors()).isTrue();
+    assertThat(new File(output, "test/Model" + XmlModelProcessor.SUFFIX + ".class").exists()).isTrue();
+    assertThat(new File(output, "test/Model$Nested" + XmlModelProcessor.SUFFIX + ".class").exists()).isTrue();
+  }
+
+  @Test
+  public void privateFieldsShouldBeReported() throws IOException {
+    final boolean success = compile("test.Model",
+        "package test;\n"
+        + "@com.stanfy.gsonxml.XmlModel\n"
+        + "public class Model { private String name; }\n");
+    assertThat(success).isFalse();
+    assertThat(errors()).contains("Model.name must not be private or final");
+  }
+
+  @Test
+  public void innerClassesShouldBeReported() throws IOException {
+    final boolean success = compile("test.Model",
+        "package test;\n"
+        + "public class Model {\n"
+        + "  @com.stanfy.gsonxml.XmlModel\n"
+        + "  class Inner { String name; }\n"
+        + "}\n");
+    assertThat(success).isFalse();
+    assertThat(errors()).contains("must be a top level or static nested class");
+  }
+
+  @Test
+  public void inaccessibleTypesShouldBeReported() throws IOException {
+    final boolean success = compile("test.Model",
+        "package test;\n"
+        + "@com.stanfy.gsonxml.XmlModel\n"
+        + "public class Model {\n"
+        + "  java.util.List<Hidden> hidden;\n"
+        + "  private static class Hidden { }\n"
+        + "}\n");
+    assertThat(success).isFalse();
+    assertThat(errors()).contains("Model.hidden type java.util.List<test.Model.Hidden> is not accessible");
+  }
+
+  @Test
+  public void duplicateNamesShouldBeReported() throws IOException {
+    final boolean success = compile("test.Model",
+        "package test;\n"
+        + "@com.stanfy.gsonxml.XmlModel\n"
+        + "public class Model {\n"
+        + "  String name;\n"
+        + "  @com.google.gson.annotations.SerializedName(\"name\") String other;\n"
+        + "}\n");
+    assertThat(success).isFalse();
+    assertThat(errors()).contains("declares multiple fields named name");
+  }
+
+}
@@ -0,0 +1,130 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.google.gson.GsonBuilder;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.XmlParserCreator;
+import com.stanfy.gsonxml.parser.XmlParserCreators;
+import com.stanfy.gsonxml.test.CommentsTest.Response;
+
+/**
+ * Tests for {@code fromXml} methods that accept bytes.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class ByteInputTest {
+
+  /** Name with non-ASCII characters. */
+  private static final String NAME = "caf\u00e9 \u00fcber";
+
+  /** Model. */
+  private static class Model {
+    String name;
+  }
+
+  private static GsonXml create(final int poolSize) {
+    return new GsonXmlBuilder()
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setSkipRoot(true)
+        .setReadersPoolSize(poolSize)
+        .create();
+  }
+
+  private static GsonXml create(final XmlParserCreator creator) {
+    return new GsonXmlBuilder().setXmlParserCreator(creator).setSkipRoot(true).create();
+  }
+
+  private static byte[] xml(final String encoding, final boolean declaration) throws Exception {
+    final String xml = (declaration ? "<?xml version=\"1.0\" encoding=\"" + encoding + "\"?>" : "")
+        + "<model><name>" + NAME + "</name></model>";
+    return xml.getBytes(encoding);
+  }
+
+  @Test
+  public void utf8ShouldBeDefault() throws Exception {
+    assertEquals(NAME, create(0).fromXml(xml("UTF-8", false), Model.class).name);
+  }
+
+  @Test
+  public void declaredEncodingShouldBeUsed() throws Exception {
+    assertEquals(NAME, create(0).fromXml(xml("ISO-8859-1", true), Model.class).name);
+    assertEquals(NAME, create(0).fromXml(new ByteArrayInputStream(xml("ISO-8859-1", true)), Model.class).name);
+  }
+
+  @Test
+  public void byteOrderMarkShouldBeUsed() throws Exception {
+    // UTF-16 encoder writes a big-endian byte order mark
+    assertEquals(NAME, create(0).fromXml(xml("UTF-16", false), Model.class).name);
+  }
+
+  @Test
+  public void remainingBytesOfBufferShouldBeRead() throws Exception {
+    final byte[] xml = xml("UTF-8", false);
+    final ByteBuffer heap = ByteBuffer.allocate(xml.length + 10);
+    heap.position(5);
+    heap.put(xml);
+    heap.flip();
+    heap.position(5);
+    assertEquals(NAME, create(0).fromXml(heap, Model.class).name);
+    assertEquals(5, heap.position());
+
+    final ByteBuffer direct = ByteBuffer.allocateDirect(xml.length);
+    direct.put(xml);
+    direct.flip();
+    assertEquals(NAME, create(0).fromXml(direct, Model.class).name);
+    assertEquals(0, direct.position());
+  }
+
+  @Test
+  public void nullShouldGiveNull() {
+    assertNull(create(0).fromXml((byte[]) null, Model.class));
+    assertNull(create(0).fromXml((ByteBuffer) null, Model.class));
+  }
+
+  @Test
+  public void streamsShouldBeReadWithPooledReaders() throws Exception {
+    final GsonXml gsonXml = new GsonXmlBuilder()
+        .wrap(new GsonBuilder().setDateFormat("dd.MM.yyyy HH:mm:ssZ"))
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setSameNameLists(true)
+        .setReadersPoolSize(1)
+        .create();
+    for (int i = 0; i < 2; i++) {
+      final InputStream in = ByteInputTest.class.getResourceAsStream("comments-response.xml");
+      try {
+        final Response response = gsonXml.fromXml(in, Response.class);
+        assertEquals("article", response.data.category);
+        assertEquals(2, response.data.comments.get(1).level);
+      } finally {
+        in.close();
+      }
+      assertEquals(NAME, gsonXml.fromXml(xml("UTF-8", false), Model.class).name);
+    }
+  }
+
+  @Test
+  public void encodingShouldBeDetectedForAllParsers() throws Exception {
+    for (final XmlParserCreator creator : XmlParserCreators.available()) {
+      final GsonXml gsonXml = create(creator);
+      for (final String encoding : new String[] {"UTF-8", "ISO-8859-1", "UTF-16", "UTF-16LE", "UTF-16BE"}) {
+        final byte[] xml = xml(encoding, true);
+        assertEquals(creator + " " + encoding, NAME, gsonXml.fromXml(xml, Model.class).name);
+        assertEquals(creator + " " + encoding, NAME, gsonXml.fromXml(new ByteArrayInputStream(xml), Model.class).name);
+      }
+      final byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+      final byte[] utf8 = xml("UTF-8", false);
+      final ByteBuffer withBom = ByteBuffer.allocate(bom.length + utf8.length).put(bom).put(utf8);
+      withBom.flip();
+      assertEquals(creator + " BOM", NAME, gsonXml.fromXml(withBom, Model.class).name);
+    }
+  }
+
+}
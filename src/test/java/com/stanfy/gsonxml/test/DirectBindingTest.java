@@ -0,0 +1,218 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.Calendar;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.GsonBuilder;
+import com.google.gson.InstanceCreator;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+
+/**
+ * Compares direct binding with binding through {@link com.stanfy.gsonxml.XmlReader}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class DirectBindingTest {
+
+  /** Options. */
+  private static final int SAME_NAME_LISTS = 1, PRIMITIVE_ARRAYS = 2, KEEP_ROOT = 4, NAMESPACES = 8, ROOT_PRIMITIVES = 16;
+
+  /** Root wrapper for {@link NestedModelTest.Info}. */
+  private static class InfoRoot {
+    NestedModelTest.Info info;
+  }
+
+  /** Model with namespaces. */
+  private static class NamespacedModel {
+    @SerializedName("@<a>id")
+    int id;
+    @SerializedName("<b>name")
+    String name;
+    @SerializedName("value")
+    double value;
+  }
+
+  /** Model with an array that can be bound only by Gson. */
+  private static class ArrayModel {
+    String name;
+    int[] values;
+  }
+
+  /** Model with a Calendar that Gson reads as an object. */
+  private static class CalendarModel {
+    String name;
+    Calendar created;
+  }
+
+  /** Model that Gson reads differently with naming policies and exclusions. */
+  private static class NamingModel {
+    String someName;
+    int count;
+    transient String cache;
+  }
+
+  /** Model with text nodes. */
+  private static class TextModel {
+    @SerializedName("$")
+    String text;
+    @SerializedName("$0")
+    String zero;
+  }
+
+  /** Model with two fields of the same name. */
+  private static class DuplicateModel {
+    String name;
+    @SerializedName("name")
+    String other;
+  }
+
+  private static GsonXml create(final int options, final String dateFormat, final boolean direct) {
+    final GsonBuilder gson = new GsonBuilder();
+    if (dateFormat != null) {
+      gson.setDateFormat(dateFormat);
+    }
+    return create(options, gson, direct);
+  }
+
+  private static GsonXml create(final int options, final GsonBuilder gson, final boolean direct) {
+    return new GsonXmlBuilder()
+        .wrap(gson)
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setSameNameLists((options & SAME_NAME_LISTS) != 0)
+        .setPrimitiveArrays((options & PRIMITIVE_ARRAYS) != 0)
+        .setSkipRoot((options & KEEP_ROOT) == 0)
+        .setTreatNamespaces((options & NAMESPACES) != 0)
+        .setRootArrayPrimitive((options & ROOT_PRIMITIVES) != 0)
+        .setDirectBinding(direct)
+        .create();
+  }
+
+  private static void assertSameResult(final String xml, final Type type, final int options) {
+    final GsonXml expected = create(options, new GsonBuilder(), false);
+    final Object expectedResult = expected.fromXml(xml, type);
+    final Object result = create(options, new GsonBuilder(), true).fromXml(xml, type);
+    assertEquals(expected.getGson().toJson(expectedResult), expected.getGson().toJson(result));
+  }
+
+  private static void assertSameResult(final String xml, final Type type, final GsonBuilder gson) {
+    final GsonXml expected = create(0, gson, false);
+    final Object expectedResult = expected.fromXml(xml, type);
+    final Object result = create(0, gson, true).fromXml(xml, type);
+    assertEquals(expected.getGson().toJson(expectedResult), expected.getGson().toJson(result));
+  }
+
+  private static Object read(final String resource, final Class<?> type, final String dateFormat, final boolean direct)
+      throws IOException {
+    final InputStream in = DirectBindingTest.class.getResourceAsStream(resource);
+    final Reader reader = new InputStreamReader(in, "UTF-8");
+    try {
+      return create(SAME_NAME_LISTS, dateFormat, direct).fromXml(reader, type);
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static void assertSameResult(final String resource, final Class<?> type, final String dateFormat)
+      throws IOException {
+    final GsonXml gsonXml = create(SAME_NAME_LISTS, dateFormat, false);
+    assertEquals(gsonXml.getGson().toJson(read(resource, type, dateFormat, false)),
+        gsonXml.getGson().toJson(read(resource, type, dateFormat, true)));
+  }
+
+  @Test
+  public void shouldBindObjects() {
+    assertSameResult(NestedModelTest.INFO_XML, NestedModelTest.Info.class, 0);
+    assertSameResult(NestedModelTest.INFO_XML, InfoRoot.class, KEEP_ROOT);
+    assertSameResult(MixedTest.TEST_XML, MixedTest.Response.class, 0);
+  }
+
+  @Test
+  public void shouldBindLists() {
+    final Type places = new TypeToken<List<ListsTest.Place>>() { }.getType();
+    assertSameResult(ListsTest.TEST_XML, places, 0);
+    assertSameResult(ListsTest.TEST_XML_WITH_HEADER, ListsTest.PlacesContainer.class, SAME_NAME_LISTS);
+    assertSameResult(ListsTest.TEST_XML_WITH_EMPTY_WRAPPED_LIST, ListsTest.PlacesWrappedContainer.class, 0);
+    assertSameResult(ListsTest.TEST_XML_WITH_HEADER_AND_PRIMITIVES_LIST, ListsTest.ListWithHeader.class,
+        SAME_NAME_LISTS | PRIMITIVE_ARRAYS);
+    assertSameResult(ListsTest.TEST_XML_FIELD_AND_CONTAINER_PRIMITIVE_LIST, ListsTest.ListWithHeader.class,
+        PRIMITIVE_ARRAYS);
+    assertSameResult(ListsTest.TEST_XML_PRIMITIVE_LIST, new TypeToken<List<Integer>>() { }.getType(), ROOT_PRIMITIVES);
+  }
+
+  @Test
+  public void shouldTrimAttributes() {
+    assertSameResult("<r xmlns:a=\"urn:a\" a:id=\" 7 \"><value> 1.5 </value></r>", NamespacedModel.class, NAMESPACES);
+  }
+
+  @Test
+  public void shouldBindNamespaces() {
+    assertSameResult("<r xmlns:a=\"urn:a\" xmlns:b=\"urn:b\" a:id=\"5\"><b:name>Name</b:name><value>1.5</value></r>",
+        NamespacedModel.class, NAMESPACES);
+  }
+
+  @Test
+  public void shouldFallBackForUnsupportedTypes() {
+    assertSameResult("<r><name>Name</name><values><a>1</a><b>2</b></values></r>", ArrayModel.class, PRIMITIVE_ARRAYS);
+    assertSameResult("<r><name>Name</name><created><year>2013</year><month>1</month><dayOfMonth>2</dayOfMonth>"
+        + "<hourOfDay>3</hourOfDay><minute>4</minute><second>5</second></created></r>", CalendarModel.class, 0);
+  }
+
+  @Test
+  public void shouldFollowGsonSettings() {
+    final String xml = "<r><SomeName>a</SomeName><someName>b</someName><Count>2</Count><count>3</count><cache>c</cache></r>";
+    assertSameResult(xml, NamingModel.class, new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.UPPER_CAMEL_CASE));
+    assertSameResult(xml, NamingModel.class, new GsonBuilder().excludeFieldsWithModifiers(Modifier.STATIC));
+    assertSameResult(xml, NamingModel.class, new GsonBuilder().addDeserializationExclusionStrategy(new ExclusionStrategy() {
+      @Override
+      public boolean shouldSkipField(final FieldAttributes f) {
+        return "count".equals(f.getName());
+      }
+      @Override
+      public boolean shouldSkipClass(final Class<?> clazz) {
+        return false;
+      }
+    }));
+    assertSameResult("<r><count>3</count></r>", NamingModel.class,
+        new GsonBuilder().registerTypeAdapter(NamingModel.class, new InstanceCreator<NamingModel>() {
+          @Override
+          public NamingModel createInstance(final Type type) {
+            final NamingModel model = new NamingModel();
+            model.someName = "created";
+            return model;
+          }
+        }));
+  }
+
+  @Test
+  public void shouldNameTextNodesLikeReader() {
+    assertSameResult("<r>t</r>", TextModel.class, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectDuplicateNames() {
+    create(0, new GsonBuilder(), true).fromXml("<r><name>a</name></r>", DuplicateModel.class);
+  }
+
+  @Test
+  public void shouldBindFixtures() throws IOException {
+    assertSameResult("rss-response.xml", RssTest.Rss.class, "EEE, dd MMM yyyy HH:mm:ss Z");
+    assertSameResult("comments-response.xml", CommentsTest.Response.class, "dd.MM.yyyy HH:mm:ssZ");
+    assertSameResult("comments-response-2.xml", CommentsTest.Response.class, "dd.MM.yyyy HH:mm:ssZ");
+  }
+
+}
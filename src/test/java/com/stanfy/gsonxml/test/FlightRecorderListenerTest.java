@@ -0,0 +1,65 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.stanfy.gsonxml.FlightRecorderListener;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.test.SimpleXmlReaderTest.SimpleModel;
+
+/**
+ * Tests for {@link FlightRecorderListener}. JFR API is used reflectively since tests are compiled for older platforms.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class FlightRecorderListenerTest {
+
+  @Test
+  public void shouldRecordEvents() throws Exception {
+    Assume.assumeTrue(FlightRecorderListener.isAvailable());
+
+    final GsonXml gsonXml = new GsonXmlBuilder()
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setParseListener(new FlightRecorderListener())
+        .create();
+    final String xml = "<model><name>n</name><description>d</description></model>";
+
+    final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+    final Object recording = recordingClass.newInstance();
+    recordingClass.getMethod("enable", String.class).invoke(recording, FlightRecorderListener.EVENT_NAME);
+    recordingClass.getMethod("start").invoke(recording);
+    gsonXml.fromXml(xml, SimpleModel.class);
+    gsonXml.fromXml(xml, SimpleModel.class);
+    recordingClass.getMethod("stop").invoke(recording);
+
+    final File file = File.createTempFile("gson-xml", ".jfr");
+    try {
+      final Class<?> pathClass = Class.forName("java.nio.file.Path");
+      final Object path = File.class.getMethod("toPath").invoke(file);
+      recordingClass.getMethod("dump", pathClass).invoke(recording, path);
+      recordingClass.getMethod("close").invoke(recording);
+
+      final List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+          .getMethod("readAllEvents", pathClass).invoke(null, path);
+      assertEquals(2, events.size());
+      final Object event = events.get(0);
+      final Method getLong = event.getClass().getMethod("getLong", String.class);
+      final Method getString = event.getClass().getMethod("getString", String.class);
+      assertEquals(SimpleModel.class.getName(), getString.invoke(event, "type"));
+      assertEquals((long) xml.length(), getLong.invoke(event, "documentSize"));
+      assertEquals(1L, getLong.invoke(event, "objects"));
+      assertEquals(9L, getLong.invoke(event, "xmlEvents")); // 6 tags, 2 texts, end of document
+      assertTrue((Long) getLong.invoke(event, "parseDuration") > 0);
+    } finally {
+      assertTrue(file.delete());
+    }
+  }
+
+}
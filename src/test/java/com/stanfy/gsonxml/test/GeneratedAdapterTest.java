@@ -0,0 +1,207 @@
+package com.stanfy.gsonxml.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.GsonBuilder;
+import com.google.gson.InstanceCreator;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.XmlModel;
+import com.stanfy.gsonxml.XmlModelAdapter;
+
+/**
+ * Tests for adapters generated for {@link XmlModel} classes.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class GeneratedAdapterTest {
+
+  /** Item with an attribute and text. */
+  @XmlModel
+  static class Item {
+    @SerializedName("@id")
+    long id;
+    @SerializedName("$")
+    String text;
+  }
+
+  /** Base class. */
+  @XmlModel
+  static class Base {
+    String title;
+  }
+
+  /** Model with fields of all supported kinds. */
+  @XmlModel
+  static class Feed extends Base {
+    int count;
+    short small;
+    byte tiny;
+    float ratio;
+    double value;
+    boolean active;
+    char letter;
+    Integer boxed;
+    Date updated;
+    Item first;
+    @SerializedName("item")
+    List<Item> items;
+    transient String ignored;
+  }
+
+  /** Model with an array that is not bound by generated adapters. */
+  @XmlModel
+  static class ArrayModel {
+    String name;
+    int[] values;
+  }
+
+  /** Model with a Calendar that Gson reads as an object. */
+  @XmlModel
+  static class CalendarModel {
+    String name;
+    Calendar created;
+  }
+
+  /** Test XML. */
+  private static final String FEED_XML =
+      "<feed>"
+      + "<title>News</title><count>3</count><small>7</small><tiny>-2</tiny><ratio>0.5</ratio><value>1.25</value>"
+      + "<active>true</active><letter>x</letter><boxed>42</boxed><updated>01.02.2015</updated><ignored>no</ignored>"
+      + "<first id=\"0\">zero</first>"
+      + "<item id=\"1\">one</item>"
+      + "<item id=\"2\">two</item>"
+      + "</feed>";
+
+  private static GsonXml create() {
+    return create(new GsonBuilder().setDateFormat("dd.MM.yyyy"));
+  }
+
+  private static GsonXml create(final GsonBuilder gsonBuilder) {
+    return new GsonXmlBuilder()
+        .wrap(gsonBuilder)
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setSameNameLists(true)
+        .create();
+  }
+
+  @Test
+  public void adaptersShouldBeGenerated() throws Exception {
+    final Class<?> adapter = Class.forName(Feed.class.getName() + XmlModelAdapter.SUFFIX);
+    assertThat(XmlModelAdapter.class.isAssignableFrom(adapter)).isTrue();
+  }
+
+  @Test
+  public void modelsShouldBeBoundWithoutDirectBindingOption() {
+    final Feed feed = create().fromXml(FEED_XML, Feed.class);
+    assertThat(feed.title).isEqualTo("News");
+    assertThat(feed.count).isEqualTo(3);
+    assertThat(feed.small).isEqualTo((short) 7);
+    assertThat(feed.tiny).isEqualTo((byte) -2);
+    assertThat(feed.ratio).isEqualTo(0.5f);
+    assertThat(feed.value).isEqualTo(1.25);
+    assertThat(feed.active).isTrue();
+    assertThat(feed.letter).isEqualTo('x');
+    assertThat(feed.boxed).isEqualTo(42);
+    assertThat(feed.updated).isNotNull();
+    assertThat(feed.ignored).isNull();
+    assertThat(feed.first.id).isEqualTo(0L);
+    assertThat(feed.first.text).isEqualTo("zero");
+    assertThat(feed.items).hasSize(2);
+    assertThat(feed.items.get(1).id).isEqualTo(2L);
+    assertThat(feed.items.get(1).text).isEqualTo("two");
+  }
+
+  @Test
+  public void unsupportedModelsShouldBeReadWithGson() {
+    final ArrayModel model = new GsonXmlBuilder()
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setPrimitiveArrays(true)
+        .create()
+        .fromXml("<model><name>a</name><values><v>1</v><v>2</v></values></model>", ArrayModel.class);
+    assertThat(model.name).isEqualTo("a");
+    assertThat(model.values).containsOnly(1, 2);
+  }
+
+  @Test
+  public void objectValuesShouldBeReadWithGson() {
+    final CalendarModel model = new GsonXmlBuilder()
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .create()
+        .fromXml("<model><name>a</name><created><year>2013</year><month>1</month><dayOfMonth>2</dayOfMonth>"
+            + "<hourOfDay>3</hourOfDay><minute>4</minute><second>5</second></created></model>", CalendarModel.class);
+    assertThat(model.name).isEqualTo("a");
+    assertThat(model.created.get(Calendar.YEAR)).isEqualTo(2013);
+    assertThat(model.created.get(Calendar.MONTH)).isEqualTo(1);
+  }
+
+  @Test
+  public void attributesShouldBeTrimmed() {
+    final Item item = new GsonXmlBuilder()
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .create()
+        .fromXml("<item id=\" 7 \">text</item>", Item.class);
+    assertThat(item.id).isEqualTo(7);
+  }
+
+  @Test
+  public void registeredAdaptersShouldBeUsed() {
+    final GsonXml gsonXml = create(new GsonBuilder().registerTypeAdapter(Item.class, new TypeAdapter<Item>() {
+      @Override
+      public void write(final JsonWriter out, final Item value) throws IOException {
+        throw new UnsupportedOperationException();
+      }
+      @Override
+      public Item read(final JsonReader in) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+          in.nextName();
+          in.skipValue();
+        }
+        in.endObject();
+        final Item item = new Item();
+        item.text = "CUSTOM";
+        return item;
+      }
+    }));
+    assertThat(gsonXml.fromXml("<item id=\"1\">one</item>", Item.class).text).isEqualTo("CUSTOM");
+    final Feed feed = gsonXml.fromXml("<feed><first id=\"0\">zero</first><item id=\"1\">one</item></feed>", Feed.class);
+    assertThat(feed.first.text).isEqualTo("CUSTOM");
+    assertThat(feed.items.get(0).text).isEqualTo("CUSTOM");
+  }
+
+  @Test
+  public void instanceCreatorsShouldBeUsed() {
+    final Item item = create(new GsonBuilder().registerTypeAdapter(Item.class, new InstanceCreator<Item>() {
+      @Override
+      public Item createInstance(final Type type) {
+        final Item item = new Item();
+        item.text = "created";
+        return item;
+      }
+    })).fromXml("<item id=\"5\"/>", Item.class);
+    assertThat(item.id).isEqualTo(5L);
+    assertThat(item.text).isEqualTo("created");
+  }
+
+  @Test
+  public void namingPolicyShouldBeApplied() {
+    final Feed feed = create(new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.UPPER_CAMEL_CASE))
+        .fromXml("<feed><Title>News</Title><Count>3</Count><title>wrong</title></feed>", Feed.class);
+    assertThat(feed.title).isEqualTo("News");
+    assertThat(feed.count).isEqualTo(3);
+  }
+
+}
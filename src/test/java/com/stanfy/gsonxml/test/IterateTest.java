@@ -0,0 +1,129 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.ParseStatsAggregator;
+import com.stanfy.gsonxml.XmlIterator;
+import com.stanfy.gsonxml.test.RssTest.Item;
+import com.stanfy.gsonxml.test.SimpleXmlReaderTest.SimpleModel;
+import com.stanfy.gsonxml.test.SimpleXmlReaderTest.SimpleModelForAttr;
+
+/**
+ * Tests for {@link GsonXml#iterate(java.io.Reader, Class, String)}.
+ */
+public class IterateTest {
+
+  private static GsonXmlBuilder builder() {
+    return new GsonXmlBuilder()
+        .wrap(new GsonBuilder().setDateFormat("EEE, dd MMM yyyy HH:mm:ss Z"))
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR);
+  }
+
+  @Test
+  public void shouldIterateOverSameNameElements() throws Exception {
+    final GsonXml gsonXml = builder().setSameNameLists(true).create();
+    final XmlIterator<Item> items = gsonXml.iterate(
+        new InputStreamReader(IterateTest.class.getResourceAsStream("rss-response.xml"), "UTF-8"), Item.class, "channel/item");
+    int count = 0;
+    while (items.hasNext()) {
+      final Item item = items.next();
+      if (count == 0) { assertEquals(150481, item.id); }
+      count++;
+    }
+    assertEquals(20, count);
+  }
+
+  @Test
+  public void shouldIterateOverFile() throws Exception {
+    final File file = new File(IterateTest.class.getResource("rss-response.xml").toURI());
+    final GsonXml gsonXml = builder().setSameNameLists(true).create();
+    final XmlIterator<Item> items = gsonXml.iterate(file, Item.class, "channel/item");
+    int count = 0;
+    while (items.hasNext()) {
+      items.next();
+      count++;
+    }
+    assertEquals(20, count);
+    assertEquals(20, gsonXml.fromXml(file, RssTest.Rss.class).channel.items.size());
+  }
+
+  @Test
+  public void shouldIterateOverGroupedElements() throws Exception {
+    final String xml = "<root><name>ignored</name><models>"
+        + "<model><name>n1</name></model><any><name>n2</name><description>d2</description></any>"
+        + "</models><tail/></root>";
+    final XmlIterator<SimpleModel> models = builder().create().iterate(new StringReader(xml), SimpleModel.class, "models/model");
+    assertTrue(models.hasNext());
+    assertEquals("n1", models.next().getName());
+    final SimpleModel second = models.next();
+    assertEquals("n2", second.getName());
+    assertEquals("d2", second.getDescription());
+    assertFalse(models.hasNext());
+  }
+
+  @Test
+  public void shouldIterateOverRootList() throws Exception {
+    final String xml = "<models><model><name>n1</name></model><model><name>n2</name></model></models>";
+    final XmlIterator<SimpleModel> models = builder().create().iterate(new StringReader(xml), SimpleModel.class, "model");
+    assertEquals("n1", models.next().getName());
+    assertEquals("n2", models.next().getName());
+    assertFalse(models.hasNext());
+  }
+
+  @Test
+  public void shouldHandleMissingPath() throws Exception {
+    final XmlIterator<Item> items = builder().setSameNameLists(true).create()
+        .iterate(new StringReader(RssTest.XML), Item.class, "channel/entry");
+    assertFalse(items.hasNext());
+  }
+
+  @Test
+  public void shouldStopOnClose() throws Exception {
+    final XmlIterator<Item> items = builder().setSameNameLists(true).create()
+        .iterate(new StringReader(RssTest.XML), Item.class, "channel/item");
+    assertEquals(1, items.next().id);
+    items.close();
+    assertFalse(items.hasNext());
+  }
+
+  @Test
+  public void shouldFailOnAdapterErrors() throws Exception {
+    final ParseStatsAggregator stats = new ParseStatsAggregator();
+    final String xml = "<models><model a2=\"1\"/><model a2=\"x\"/><model a2=\"3\"/></models>";
+    final boolean[] closed = new boolean[1];
+    final StringReader input = new StringReader(xml) {
+      @Override
+      public void close() {
+        closed[0] = true;
+        super.close();
+      }
+    };
+    final XmlIterator<SimpleModelForAttr> models = builder().setParseListener(stats).create()
+        .iterate(input, SimpleModelForAttr.class, "model");
+    assertEquals(1, models.next().getA2());
+    try {
+      models.next();
+      fail("Exception expected");
+    } catch (final JsonSyntaxException e) {
+      // expected
+    }
+    assertTrue(closed[0]);
+    assertFalse(models.hasNext());
+    assertEquals(1, stats.getParses());
+    assertEquals(1, stats.getFailures());
+  }
+
+}
@@ -114,6 +114,33 @@ public class NestedListTest {
     assertThat(res.twos.get(1).threes).containsExactly("item3", "item4");
   }
 
+  /** Recursive node. */
+  static class Node {
+    @SerializedName("@name")
+    String name;
+    @SerializedName("node")
+    List<Node> nodes;
+  }
+
+  @Test
+  public void shouldHandleDeeplyNestedSameNameLists() {
+    final int depth = 500;
+    final StringBuilder xml = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      xml.append("<node name=\"n").append(i).append("\"><node name=\"leaf\"/>");
+    }
+    for (int i = 0; i < depth; i++) {
+      xml.append("</node>");
+    }
 
+    GsonXml gsonXml = new GsonXmlBuilder().setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR).setSameNameLists(true).create();
+    Node node = gsonXml.fromXml(xml.toString(), Node.class);
+    for (int i = 1; i < depth; i++) {
+      assertThat(node.nodes.size()).isEqualTo(2);
+      assertThat(node.nodes.get(0).name).isEqualTo("leaf");
+      node = node.nodes.get(1);
+      assertThat(node.name).isEqualTo("n" + i);
+    }
+  }
 
 }
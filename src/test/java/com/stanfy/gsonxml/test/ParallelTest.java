@@ -0,0 +1,187 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.XmlIterator;
+import com.stanfy.gsonxml.test.RssTest.Item;
+import com.stanfy.gsonxml.test.SimpleXmlReaderTest.SimpleModel;
+
+/**
+ * Tests for {@link GsonXml#fromXmlParallel(java.io.Reader, Class, String, ExecutorService)}.
+ */
+public class ParallelTest {
+
+  /** Namespaced model. */
+  private static class NamespacedModel {
+    @SerializedName("@<a>id")
+    int id;
+    @SerializedName("<b>name")
+    String name;
+  }
+
+  private ExecutorService executor;
+
+  @Before
+  public void createExecutor() {
+    executor = Executors.newFixedThreadPool(3);
+  }
+
+  @After
+  public void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  private static GsonXmlBuilder builder() {
+    return new GsonXmlBuilder()
+        .wrap(new GsonBuilder().setDateFormat("EEE, dd MMM yyyy HH:mm:ss Z"))
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR);
+  }
+
+  private static String models(final int count) {
+    final StringBuilder xml = new StringBuilder("<root><models>");
+    for (int i = 0; i < count; i++) {
+      xml.append("<model><name>n").append(i).append("</name><description>d").append(i).append("</description></model>");
+    }
+    return xml.append("</models></root>").toString();
+  }
+
+  private void assertSameAsIterator(final GsonXml gsonXml) throws Exception {
+    final XmlIterator<Item> expected = gsonXml.iterate(
+        new InputStreamReader(ParallelTest.class.getResourceAsStream("rss-response.xml"), "UTF-8"), Item.class, "channel/item");
+    final List<Item> items = gsonXml.fromXmlParallel(
+        new InputStreamReader(ParallelTest.class.getResourceAsStream("rss-response.xml"), "UTF-8"), Item.class, "channel/item",
+        executor);
+    final List<Item> expectedItems = new ArrayList<Item>();
+    while (expected.hasNext()) {
+      expectedItems.add(expected.next());
+    }
+    assertEquals(gsonXml.getGson().toJson(expectedItems), gsonXml.getGson().toJson(items));
+    assertEquals(20, items.size());
+    assertEquals(150481, items.get(0).id);
+  }
+
+  @Test
+  public void shouldBindSameNameElements() throws Exception {
+    assertSameAsIterator(builder().setSameNameLists(true).create());
+  }
+
+  @Test
+  public void shouldBindSameNameElementsDirectly() throws Exception {
+    assertSameAsIterator(builder().setSameNameLists(true).setDirectBinding(true).create());
+  }
+
+  @Test(timeout = 10000)
+  public void shouldNotDeadlockOnOwnExecutor() throws Exception {
+    final ExecutorService single = Executors.newSingleThreadExecutor();
+    try {
+      final GsonXml gsonXml = builder().create();
+      final List<SimpleModel> models = single.submit(new Callable<List<SimpleModel>>() {
+        @Override
+        public List<SimpleModel> call() {
+          return gsonXml.fromXmlParallel(new StringReader(models(1000)), SimpleModel.class, "models/model", single);
+        }
+      }).get();
+      assertEquals(1000, models.size());
+      assertEquals("n999", models.get(999).getName());
+    } finally {
+      single.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldKeepDocumentOrder() {
+    final int count = 1000;
+    final List<SimpleModel> models = builder().create()
+        .fromXmlParallel(new StringReader(models(count)), SimpleModel.class, "models/model", executor);
+    assertEquals(count, models.size());
+    for (int i = 0; i < count; i++) {
+      assertEquals("n" + i, models.get(i).getName());
+      assertEquals("d" + i, models.get(i).getDescription());
+    }
+  }
+
+  @Test
+  public void shouldBindRootList() {
+    final String xml = "<models><model><name>n1</name></model>text<model><name>n2</name></model></models>";
+    final List<SimpleModel> models = builder().create()
+        .fromXmlParallel(new StringReader(xml), new TypeToken<SimpleModel>() { }, "model", executor);
+    assertEquals(2, models.size());
+    assertEquals("n1", models.get(0).getName());
+    assertEquals("n2", models.get(1).getName());
+  }
+
+  @Test
+  public void shouldStopAtOtherElementsInSameNameList() {
+    final String xml = "<root><model><name>n1</name></model><model><name>n2</name></model><other/>"
+        + "<model><name>n3</name></model></root>";
+    final List<SimpleModel> models = builder().setSameNameLists(true).create()
+        .fromXmlParallel(new StringReader(xml), SimpleModel.class, "model", executor);
+    assertEquals(2, models.size());
+    assertEquals("n2", models.get(1).getName());
+  }
+
+  @Test
+  public void shouldHandleMissingPath() {
+    assertTrue(builder().setSameNameLists(true).create()
+        .fromXmlParallel(new StringReader(RssTest.XML), Item.class, "channel/entry", executor).isEmpty());
+  }
+
+  @Test
+  public void shouldFilterPaths() {
+    final List<SimpleModel> models = builder().setExcludePaths("models/model/description").create()
+        .fromXmlParallel(new StringReader(models(3)), SimpleModel.class, "models/model", executor);
+    assertEquals("n2", models.get(2).getName());
+    assertEquals(null, models.get(2).getDescription());
+  }
+
+  @Test
+  public void shouldResolveNamespaces() {
+    final String xml = "<r xmlns:a=\"urn:a\"><list>"
+        + "<item a:id=\"1\" xmlns:b=\"urn:b\"><b:name>n1</b:name></item>"
+        + "<item a:id=\"2\" xmlns:b=\"urn:b\"><b:name>n2</b:name></item>"
+        + "</list></r>";
+    final List<NamespacedModel> models = builder().setTreatNamespaces(true).create()
+        .fromXmlParallel(new StringReader(xml), NamespacedModel.class, "list/item", executor);
+    assertEquals(2, models.get(1).id);
+    assertEquals("n2", models.get(1).name);
+  }
+
+  @Test
+  public void shouldReportBindingErrors() {
+    final String xml = "<rss><channel><item><id>1</id></item><item><id>x</id></item></channel></rss>";
+    try {
+      builder().setSameNameLists(true).create()
+          .fromXmlParallel(new StringReader(xml), Item.class, "channel/item", executor);
+      fail("Exception expected");
+    } catch (final JsonSyntaxException e) {
+      // expected
+    }
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void shouldReportParsingErrors() {
+    builder().create().fromXmlParallel(new StringReader(models(100).substring(0, 2000)), SimpleModel.class, "models/model",
+        executor);
+  }
+
+}
@@ -0,0 +1,251 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import com.google.gson.JsonSyntaxException;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.ParseListener;
+import com.stanfy.gsonxml.ParseStats;
+import com.stanfy.gsonxml.ParseStatsAggregator;
+import com.stanfy.gsonxml.XmlIterator;
+import com.stanfy.gsonxml.test.SimpleXmlReaderTest.SimpleModel;
+import com.stanfy.gsonxml.test.SimpleXmlReaderTest.SimpleModelForAttr;
+
+/**
+ * Tests for {@link ParseListener}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class ParseStatsTest {
+
+  /** Test document: 2 attributes, 2 elements with text, 1 unknown element. */
+  private static final String XML = "<model a1=\"a\" a2=\"2\"><name>my name</name><description>d</description>"
+      + "<unknown><x>1</x></unknown></model>";
+
+  /** Collects reported counters. */
+  private static class Collector implements ParseListener {
+    final List<ParseStats> stats = new ArrayList<ParseStats>();
+
+    @Override
+    public void onParse(final ParseStats stats) {
+      this.stats.add(stats);
+    }
+  }
+
+  private static GsonXmlBuilder builder(final ParseListener listener) {
+    return new GsonXmlBuilder()
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setParseListener(listener);
+  }
+
+  @Test
+  public void shouldCountTokens() {
+    final Collector collector = new Collector();
+    builder(collector).create().fromXml(XML, SimpleModelForAttr.class);
+    assertEquals(1, collector.stats.size());
+    final ParseStats stats = collector.stats.get(0);
+    // 10 tags, 3 texts, end of document
+    assertEquals(14, stats.getXmlEvents());
+    // object, 4 names with values (2 attributes, name, description), skipped object, end object
+    assertTrue(stats.getTokens() >= 10);
+    assertTrue(stats.getValues() >= 6);
+    assertEquals(2, stats.getSkippedSubtrees()); // description and unknown
+    assertTrue(stats.getMaxTokensQueueSize() > 0);
+    assertTrue(stats.getMaxValuesQueueSize() > 0);
+    assertTrue(stats.getMaxScopeDepth() > 0);
+    assertTrue(stats.getTimeNanos() > 0);
+    assertFalse(stats.isFailed());
+    assertFalse(stats.isReaderReused());
+  }
+
+  @Test
+  public void shouldCountDirectBinding() {
+    final Collector collector = new Collector();
+    builder(collector).setDirectBinding(true).create().fromXml(XML, SimpleModelForAttr.class);
+    final ParseStats stats = collector.stats.get(0);
+    assertEquals(14, stats.getXmlEvents());
+    assertEquals(0, stats.getTokens());
+    assertEquals(2, stats.getSkippedSubtrees());
+  }
+
+  @Test
+  public void shouldCountFilteredElements() {
+    final Collector collector = new Collector();
+    builder(collector).setExcludePaths("unknown").create().fromXml(XML, SimpleModelForAttr.class);
+    assertEquals(2, collector.stats.get(0).getSkippedSubtrees());
+  }
+
+  @Test
+  public void shouldReportReaderReuse() {
+    final Collector collector = new Collector();
+    final GsonXml gsonXml = builder(collector).create();
+    gsonXml.fromXml(XML, SimpleModelForAttr.class);
+    gsonXml.fromXml(XML, SimpleModelForAttr.class);
+    assertFalse(collector.stats.get(0).isReaderReused());
+    assertTrue(collector.stats.get(1).isReaderReused());
+    assertEquals(collector.stats.get(0).getXmlEvents(), collector.stats.get(1).getXmlEvents());
+  }
+
+  @Test
+  public void shouldCountBufferGrowths() {
+    final StringBuilder xml = new StringBuilder("<model");
+    for (int i = 0; i < 40; i++) {
+      xml.append(" x").append(i).append("=\"").append(i).append('"');
+    }
+    xml.append("/>");
+    final Collector collector = new Collector();
+    final GsonXml gsonXml = builder(collector).create();
+    gsonXml.fromXml(xml.toString(), SimpleModel.class);
+    gsonXml.fromXml(xml.toString(), SimpleModel.class);
+    assertTrue(collector.stats.get(0).getBufferGrowths() > 0);
+    assertEquals(0, collector.stats.get(1).getBufferGrowths());
+  }
+
+  @Test
+  public void shouldReportFailures() {
+    final Collector collector = new Collector();
+    try {
+      builder(collector).create().fromXml("<model a2=\"x\"/>", SimpleModelForAttr.class);
+      fail("Exception expected");
+    } catch (final JsonSyntaxException e) {
+      assertTrue(collector.stats.get(0).isFailed());
+    }
+  }
+
+  @Test
+  public void shouldReportIteratorOnce() throws Exception {
+    final Collector collector = new Collector();
+    final XmlIterator<SimpleModel> models = builder(collector).create().iterate(
+        new StringReader("<models><model><name>n1</name></model><model><name>n2</name></model></models>"),
+        SimpleModel.class, "model");
+    models.next();
+    assertTrue(collector.stats.isEmpty());
+    models.close();
+    assertEquals(1, collector.stats.size());
+    assertFalse(models.hasNext());
+    assertEquals(1, collector.stats.size());
+  }
+
+  @Test
+  public void shouldAggregateConcurrently() throws Exception {
+    final ParseStatsAggregator aggregator = new ParseStatsAggregator();
+    final GsonXml gsonXml = builder(aggregator).create();
+    final int threads = 4, count = 200;
+    final Thread[] workers = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < count; j++) {
+            gsonXml.fromXml(XML, SimpleModelForAttr.class);
+          }
+        }
+      };
+      workers[i].start();
+    }
+    for (final Thread worker : workers) {
+      worker.join();
+    }
+    assertEquals(threads * count, aggregator.getParses());
+    assertEquals(threads * count * 14, aggregator.getXmlEvents());
+    assertEquals(threads * count * 2, aggregator.getSkippedSubtrees());
+    assertEquals(aggregator.getParses(), aggregator.getReaderPoolHits() + aggregator.getReaderPoolMisses());
+    assertTrue(aggregator.getReaderPoolHits() > 0);
+    assertEquals(0, aggregator.getFailures());
+    assertTrue(aggregator.getMaxTimeNanos() <= aggregator.getTimeNanos());
+
+    aggregator.reset();
+    assertEquals(0, aggregator.getParses());
+    assertEquals(0, aggregator.getLatencyHistogram()[0]);
+  }
+
+  @Test
+  public void shouldReportTypeAndSize() throws Exception {
+    final Collector collector = new Collector();
+    final GsonXml gsonXml = builder(collector).create();
+    gsonXml.fromXml(XML, SimpleModelForAttr.class);
+    gsonXml.fromXml(XML.getBytes("UTF-8"), SimpleModelForAttr.class);
+    gsonXml.fromXml(new StringReader(XML), SimpleModelForAttr.class);
+    assertEquals(SimpleModelForAttr.class, collector.stats.get(0).getType());
+    assertEquals(XML.getBytes("UTF-8").length, collector.stats.get(0).getDocumentSize());
+    assertEquals(XML.getBytes("UTF-8").length, collector.stats.get(1).getDocumentSize());
+    assertEquals(-1, collector.stats.get(2).getDocumentSize());
+    assertEquals(1, collector.stats.get(2).getObjects());
+
+    final XmlIterator<SimpleModel> models = gsonXml.iterate(
+        new StringReader("<models><model><name>n1</name></model><model><name>n2</name></model></models>"),
+        SimpleModel.class, "model");
+    while (models.hasNext()) {
+      models.next();
+    }
+    assertEquals(SimpleModel.class, collector.stats.get(3).getType());
+    assertEquals(2, collector.stats.get(3).getObjects());
+
+    final String nonAscii = "<model><name>\u00e9\u20ac\ud83d\ude00</name></model>";
+    gsonXml.fromXml(nonAscii, SimpleModel.class);
+    assertEquals(nonAscii.getBytes("UTF-8").length, collector.stats.get(4).getDocumentSize());
+  }
+
+  @Test
+  public void shouldCallAllListeners() {
+    final Collector first = new Collector(), second = new Collector();
+    builder(first).addParseListener(second).create().fromXml(XML, SimpleModelForAttr.class);
+    assertEquals(1, first.stats.size());
+    assertEquals(first.stats, second.stats);
+  }
+
+  @Test
+  public void shouldCountLatencies() {
+    final ParseStatsAggregator aggregator = new ParseStatsAggregator();
+    final GsonXml gsonXml = builder(aggregator).create();
+    for (int i = 0; i < 10; i++) {
+      gsonXml.fromXml(XML, SimpleModelForAttr.class);
+    }
+    final long[] histogram = aggregator.getLatencyHistogram();
+    assertEquals(aggregator.getLatencyBucketBoundsNanos().length + 1, histogram.length);
+    long total = 0;
+    for (final long count : histogram) {
+      total += count;
+    }
+    assertEquals(10, total);
+    assertEquals(10, aggregator.getObjects());
+    assertEquals(10 * XML.length(), aggregator.getDocumentSize());
+    assertTrue(aggregator.getParsesPerSecond() > 0);
+  }
+
+  @Test
+  public void shouldRegisterMBean() throws Exception {
+    final String name = "com.stanfy.gsonxml:type=ParseStats,name=test";
+    final ParseStatsAggregator aggregator = new ParseStatsAggregator();
+    aggregator.registerMBean(name);
+    try {
+      builder(aggregator).create().fromXml(XML, SimpleModelForAttr.class);
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      assertEquals(1L, server.getAttribute(new ObjectName(name), "Parses"));
+      assertEquals(14L, server.getAttribute(new ObjectName(name), "XmlEvents"));
+      try {
+        new ParseStatsAggregator().registerMBean(name);
+        fail("Exception expected");
+      } catch (final IllegalArgumentException e) {
+        // expected
+      }
+    } finally {
+      aggregator.unregisterMBean();
+    }
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(name)));
+  }
+
+}
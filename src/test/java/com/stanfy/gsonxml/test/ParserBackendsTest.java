@@ -0,0 +1,90 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+
+import org.junit.Test;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.XmlParserCreator;
+import com.stanfy.gsonxml.parser.XmlParserCreators;
+
+/**
+ * Compares binding with all the available parsers.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class ParserBackendsTest {
+
+  /** Model with namespaces. */
+  private static class NamespacedModel {
+    @SerializedName("@<a>id")
+    int id;
+    @SerializedName("<b>name")
+    String name;
+  }
+
+  private static GsonXmlBuilder builder(final String dateFormat, final XmlParserCreator creator) {
+    return new GsonXmlBuilder()
+        .wrap(new GsonBuilder().setDateFormat(dateFormat))
+        .setXmlParserCreator(creator)
+        .setSameNameLists(true);
+  }
+
+  private static Object read(final GsonXml gsonXml, final String resource, final Type type) throws IOException {
+    final InputStream in = ParserBackendsTest.class.getResourceAsStream(resource);
+    try {
+      return gsonXml.fromXml(in, type);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static void assertSameResult(final String resource, final Class<?> type, final String dateFormat)
+      throws IOException {
+    final GsonXml expected = builder(dateFormat, SimpleXmlReaderTest.PARSER_CREATOR).create();
+    final String json = expected.getGson().toJson(read(expected, resource, type));
+    for (final XmlParserCreator creator : XmlParserCreators.available()) {
+      final String message = creator + " " + resource;
+      assertEquals(message, json, expected.getGson().toJson(read(builder(dateFormat, creator).create(), resource, type)));
+      assertEquals(message, json, expected.getGson().toJson(
+          read(builder(dateFormat, creator).setDirectBinding(true).create(), resource, type)));
+      assertEquals(message, json, expected.getGson().toJson(
+          read(builder(dateFormat, creator).setPipelinedParsing(true).create(), resource, type)));
+    }
+  }
+
+  @Test
+  public void shouldBindFixtures() throws IOException {
+    assertSameResult("rss-response.xml", RssTest.Rss.class, "EEE, dd MMM yyyy HH:mm:ss Z");
+    assertSameResult("comments-response.xml", CommentsTest.Response.class, "dd.MM.yyyy HH:mm:ssZ");
+    assertSameResult("comments-response-2.xml", CommentsTest.Response.class, "dd.MM.yyyy HH:mm:ssZ");
+  }
+
+  @Test
+  public void shouldResolveNamespaces() {
+    final String xml = "<r xmlns:a=\"urn:a\" a:id=\"5\"><b:name xmlns:b=\"urn:b\">Name</b:name></r>";
+    for (final XmlParserCreator creator : XmlParserCreators.available()) {
+      final NamespacedModel model = new GsonXmlBuilder()
+          .setXmlParserCreator(creator)
+          .setTreatNamespaces(true)
+          .create()
+          .fromXml(xml, NamespacedModel.class);
+      assertEquals(creator.toString(), 5, model.id);
+      assertEquals(creator.toString(), "Name", model.name);
+    }
+  }
+
+  @Test
+  public void shouldUseDefaultParser() {
+    final SimpleXmlReaderTest.SimpleModel model = new GsonXmlBuilder().create()
+        .fromXml("<model><name>n</name></model>", SimpleXmlReaderTest.SimpleModel.class);
+    assertEquals("n", model.getName());
+  }
+
+}
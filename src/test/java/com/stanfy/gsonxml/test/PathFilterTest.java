@@ -0,0 +1,128 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStreamReader;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.test.RssTest.Item;
+import com.stanfy.gsonxml.test.RssTest.Rss;
+
+/**
+ * Tests for include/exclude paths.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class PathFilterTest {
+
+  /** Test XML. */
+  private static final String XML =
+      "<root>"
+    + "  <a x=\"1\"><b>b1</b><c>c1</c><d><e>e1</e></d></a>"
+    + "  <f>f</f>"
+    + "  <a x=\"2\"><b>b2</b><c>c2</c><d><e>e2</e></d></a>"
+    + "</root>";
+
+  private static GsonXmlBuilder builder() {
+    return new GsonXmlBuilder().setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR).setSameNameLists(true);
+  }
+
+  /** Root model. */
+  private static class Root {
+    @SerializedName("a")
+    List<A> a;
+    String f;
+  }
+
+  /** Repeated element model. */
+  private static class A {
+    @SerializedName("@x")
+    String x;
+    String b, c;
+    D d;
+  }
+
+  /** Nested element model. */
+  private static class D {
+    String e;
+  }
+
+  private static String json(final GsonXml gsonXml) {
+    return new Gson().toJson(gsonXml.fromXml(XML, Root.class));
+  }
+
+  @Test
+  public void shouldKeepIncludedElementsAndAncestors() {
+    assertEquals("{\"a\":[{\"@x\":\"1\",\"b\":\"b1\",\"d\":{\"e\":\"e1\"}},{\"@x\":\"2\",\"b\":\"b2\",\"d\":{\"e\":\"e2\"}}]}",
+        json(builder().setIncludePaths("a/b", "a/d").create()));
+    assertEquals("{\"a\":[{\"@x\":\"1\",\"d\":{\"e\":\"e1\"}},{\"@x\":\"2\",\"d\":{\"e\":\"e2\"}}]}",
+        json(builder().setIncludePaths("a/d/e").create()));
+  }
+
+  @Test
+  public void shouldDropExcludedElements() {
+    // <f> splits <a> elements into two lists, the last one wins
+    assertEquals("{\"a\":[{\"@x\":\"2\",\"c\":\"c2\"}],\"f\":\"f\"}",
+        json(builder().setExcludePaths("a/b", "a/d").create()));
+  }
+
+  @Test
+  public void shouldExcludeInsideIncluded() {
+    assertEquals("{\"a\":[{\"@x\":\"1\",\"b\":\"b1\",\"c\":\"c1\"},{\"@x\":\"2\",\"b\":\"b2\",\"c\":\"c2\"}]}",
+        json(builder().setIncludePaths("a").setExcludePaths("a/d").create()));
+  }
+
+  @Test
+  public void shouldJoinListItemsAroundDroppedElements() {
+    assertEquals("{\"a\":[{\"@x\":\"1\",\"c\":\"c1\"},{\"@x\":\"2\",\"c\":\"c2\"}]}",
+        json(builder().setExcludePaths("f", "a/b", "a/d").create()));
+  }
+
+  @Test
+  public void shouldProjectRss() throws Exception {
+    final GsonXml gsonXml = builder().setIncludePaths("channel/item/id", "channel/item/title").create();
+    final Rss feed = gsonXml.fromXml(
+        new InputStreamReader(RssTest.class.getResourceAsStream("rss-response.xml"), "UTF-8"), Rss.class);
+    assertEquals(20, feed.channel.items.size());
+    final Item item = feed.channel.items.get(0);
+    assertEquals(150481, item.id);
+    assertEquals(67, item.title.length());
+    assertNull(item.pubDate);
+  }
+
+  @Test
+  public void shouldNotChangeCreatedInstances() {
+    final GsonXmlBuilder builder = builder().setExcludePaths("a/b", "a/d");
+    final GsonXml first = builder.create();
+    final GsonXml second = builder.setExcludePaths("a/c", "a/d").setSkipRoot(false).create();
+    assertEquals("{\"a\":[{\"@x\":\"2\",\"c\":\"c2\"}],\"f\":\"f\"}", json(first));
+    assertEquals("{\"root\":{\"a\":{\"@x\":\"2\",\"b\":\"b2\"},\"f\":\"f\"}}",
+        new Gson().toJson(second.fromXml(XML, JsonElement.class)));
+  }
+
+  @Test
+  public void shouldIgnoreNamespacePrefixes() {
+    final String xml = "<n:root xmlns:n=\"urn:n\"><n:a><n:b>b</n:b><n:c>c</n:c></n:a></n:root>";
+    for (final boolean namespaces : new boolean[] {false, true}) {
+      final GsonXml gsonXml = builder().setTreatNamespaces(namespaces).setExcludePaths("a/b").create();
+      final String json = new Gson().toJson(gsonXml.fromXml(xml, JsonElement.class));
+      assertTrue(json, json.contains("\"c\""));
+      assertFalse(json, json.contains("\"b\""));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectEmptyNames() {
+    builder().setIncludePaths("channel//item").create();
+  }
+
+}
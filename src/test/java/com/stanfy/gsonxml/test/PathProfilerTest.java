@@ -0,0 +1,123 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.GsonBuilder;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.PathProfiler;
+import com.stanfy.gsonxml.PathProfiler.Entry;
+import com.stanfy.gsonxml.XmlIterator;
+import com.stanfy.gsonxml.test.SimpleXmlReaderTest.SimpleModel;
+
+/**
+ * Tests for {@link PathProfiler}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class PathProfilerTest {
+
+  private static GsonXmlBuilder builder(final PathProfiler profiler) {
+    return new GsonXmlBuilder()
+        .wrap(new GsonBuilder().setDateFormat("EEE, dd MMM yyyy HH:mm:ss Z"))
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setSameNameLists(true)
+        .setPathProfiler(profiler);
+  }
+
+  private static Reader rss() throws IOException {
+    return new InputStreamReader(PathProfilerTest.class.getResourceAsStream("rss-response.xml"), "UTF-8");
+  }
+
+  private static Map<String, Entry> entries(final PathProfiler profiler) {
+    final Map<String, Entry> result = new HashMap<String, Entry>();
+    for (final Entry entry : profiler.report()) {
+      result.put(entry.getPath(), entry);
+    }
+    return result;
+  }
+
+  private static void assertRssProfile(final PathProfiler profiler) {
+    final Map<String, Entry> entries = entries(profiler);
+    assertEquals(1, entries.get("/").getCount());
+    assertEquals(1, entries.get("channel").getCount());
+    assertEquals(20, entries.get("channel/item").getCount());
+    assertEquals(20, entries.get("channel/item/description").getCount());
+    final Entry root = entries.get("/");
+    final Entry item = entries.get("channel/item");
+    assertTrue(root.getTotalNanos() >= entries.get("channel").getTotalNanos());
+    assertTrue(item.getSelfNanos() <= item.getTotalNanos());
+    assertTrue(item.getSelfBytes() <= item.getTotalBytes());
+
+    final List<Entry> report = profiler.report();
+    for (int i = 1; i < report.size(); i++) {
+      assertTrue(report.get(i - 1).getSelfNanos() >= report.get(i).getSelfNanos());
+    }
+    assertTrue(profiler.toString().contains("channel/item/description"));
+  }
+
+  @Test
+  public void shouldProfileTokens() throws IOException {
+    final PathProfiler profiler = new PathProfiler(1);
+    builder(profiler).create().fromXml(rss(), RssTest.Rss.class);
+    assertEquals(1, profiler.getProfiledDocuments());
+    assertRssProfile(profiler);
+  }
+
+  @Test
+  public void shouldProfileDirectBinding() throws IOException {
+    final PathProfiler profiler = new PathProfiler(1);
+    builder(profiler).setDirectBinding(true).create().fromXml(rss(), RssTest.Rss.class);
+    assertRssProfile(profiler);
+  }
+
+  @Test
+  public void shouldProfileSkippedElements() throws IOException {
+    final PathProfiler profiler = new PathProfiler(1);
+    builder(profiler).setExcludePaths("channel/item/description").create().fromXml(rss(), RssTest.Rss.class);
+    assertEquals(20, entries(profiler).get("channel/item/description").getCount());
+  }
+
+  @Test
+  public void shouldSampleDocuments() {
+    final PathProfiler profiler = new PathProfiler(0.25);
+    final GsonXml gsonXml = builder(profiler).create();
+    for (int i = 0; i < 8; i++) {
+      gsonXml.fromXml("<model><name>n</name></model>", SimpleModel.class);
+    }
+    assertEquals(2, profiler.getProfiledDocuments());
+    assertEquals(2, entries(profiler).get("name").getCount());
+
+    profiler.reset();
+    assertEquals(0, profiler.getProfiledDocuments());
+    assertTrue(profiler.report().isEmpty());
+  }
+
+  @Test
+  public void shouldProfileIterators() throws IOException {
+    final PathProfiler profiler = new PathProfiler(1);
+    final XmlIterator<SimpleModel> models = builder(profiler).create().iterate(
+        new StringReader("<models><model><name>n1</name></model><model><name>n2</name></model></models>"),
+        SimpleModel.class, "model");
+    models.next();
+    models.close();
+    assertEquals(1, profiler.getProfiledDocuments());
+    assertEquals(1, entries(profiler).get("model/name").getCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldValidateSampleRate() {
+    new PathProfiler(0);
+  }
+
+}
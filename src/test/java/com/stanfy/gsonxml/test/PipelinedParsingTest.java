@@ -0,0 +1,213 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.XmlIterator;
+import com.stanfy.gsonxml.test.SimpleXmlReaderTest.SimpleModel;
+
+/**
+ * Compares pipelined parsing with parsing on the reading thread.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class PipelinedParsingTest {
+
+  /** Model with namespaces. */
+  private static class NamespacedModel {
+    @SerializedName("@<a>id")
+    int id;
+    @SerializedName("<b>name")
+    String name;
+  }
+
+  /** Container of models. */
+  private static class Models {
+    @SerializedName("model")
+    List<SimpleModel> models;
+  }
+
+  /** Model with a number. */
+  private static class NumberModel {
+    int a;
+  }
+
+  /** Slow input that records reads made after {@link #closed} is set. */
+  private static final class SlowReader extends Reader {
+    /** Chunks. */
+    private final String[] chunks;
+    /** Next chunk. */
+    private int index;
+    /** Set when the input is not expected to be read anymore. */
+    volatile boolean closed;
+    /** Whether input has been read after {@link #closed} is set. */
+    volatile boolean readAfterClose;
+
+    SlowReader(final String... chunks) {
+      this.chunks = chunks;
+    }
+
+    @Override
+    public int read(final char[] buffer, final int offset, final int length) throws IOException {
+      if (closed) { readAfterClose = true; }
+      if (index == chunks.length) { return -1; }
+      if (index > 0) {
+        try {
+          Thread.sleep(50);
+        } catch (final InterruptedException e) {
+          throw new IOException(e);
+        }
+      }
+      final String chunk = chunks[index++];
+      final int count = Math.min(length, chunk.length());
+      chunk.getChars(0, count, buffer, offset);
+      if (count < chunk.length()) {
+        chunks[--index] = chunk.substring(count);
+      }
+      if (closed) { readAfterClose = true; }
+      return count;
+    }
+
+    @Override
+    public void close() { /* nothing */ }
+  }
+
+  private static GsonXmlBuilder builder(final String dateFormat, final boolean pipelined) {
+    final GsonBuilder gson = new GsonBuilder();
+    if (dateFormat != null) {
+      gson.setDateFormat(dateFormat);
+    }
+    return new GsonXmlBuilder()
+        .wrap(gson)
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setSameNameLists(true)
+        .setPipelinedParsing(pipelined);
+  }
+
+  private static String models(final int count) {
+    final StringBuilder xml = new StringBuilder("<models>");
+    for (int i = 0; i < count; i++) {
+      xml.append("<model><name>n").append(i).append("</name><description>d").append(i).append("</description></model>");
+    }
+    return xml.append("</models>").toString();
+  }
+
+  private static Object read(final GsonXml gsonXml, final String resource, final Type type) throws IOException {
+    final InputStream in = PipelinedParsingTest.class.getResourceAsStream(resource);
+    final Reader reader = new InputStreamReader(in, "UTF-8");
+    try {
+      return gsonXml.fromXml(reader, type);
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static void assertSameResult(final String resource, final Class<?> type, final String dateFormat)
+      throws IOException {
+    final GsonXml expected = builder(dateFormat, false).create();
+    final String json = expected.getGson().toJson(read(expected, resource, type));
+    assertEquals(json, expected.getGson().toJson(read(builder(dateFormat, true).create(), resource, type)));
+    assertEquals(json,
+        expected.getGson().toJson(read(builder(dateFormat, true).setDirectBinding(true).create(), resource, type)));
+  }
+
+  @Test
+  public void shouldBindFixtures() throws IOException {
+    assertSameResult("rss-response.xml", RssTest.Rss.class, "EEE, dd MMM yyyy HH:mm:ss Z");
+    assertSameResult("comments-response.xml", CommentsTest.Response.class, "dd.MM.yyyy HH:mm:ssZ");
+    assertSameResult("comments-response-2.xml", CommentsTest.Response.class, "dd.MM.yyyy HH:mm:ssZ");
+  }
+
+  @Test
+  public void shouldBindLargeDocuments() throws IOException {
+    // many times more events than fit into the ring
+    final int count = 20000;
+    final GsonXml gsonXml = builder(null, true).create();
+    final Models models = gsonXml.fromXml(models(count), Models.class);
+    assertEquals(count, models.models.size());
+    assertEquals("d19999", models.models.get(count - 1).getDescription());
+    final Models bytes = gsonXml.fromXml(models(count).getBytes("UTF-8"), Models.class);
+    assertEquals("n12345", bytes.models.get(12345).getName());
+  }
+
+  @Test
+  public void shouldResolveNamespaces() {
+    final String xml = "<r xmlns:a=\"urn:a\" a:id=\"5\"><b:name xmlns:b=\"urn:b\">Name</b:name></r>";
+    final NamespacedModel model = builder(null, true).setTreatNamespaces(true).create().fromXml(xml, NamespacedModel.class);
+    assertEquals(5, model.id);
+    assertEquals("Name", model.name);
+  }
+
+  @Test
+  public void shouldReportParsingErrors() {
+    final GsonXml gsonXml = builder(null, true).create();
+    try {
+      gsonXml.fromXml(models(10000).substring(0, 100000), Models.class);
+      fail("Exception expected");
+    } catch (final JsonSyntaxException e) {
+      // expected
+    }
+    // next document is read by a new producer
+    assertEquals(3, gsonXml.fromXml(models(3), Models.class).models.size());
+  }
+
+  @Test
+  public void shouldStopAfterBindingErrors() {
+    final GsonXml gsonXml = builder(null, true).create();
+    for (int i = 0; i < 3; i++) {
+      try {
+        // producer is blocked on a full ring when binding fails
+        gsonXml.fromXml("<r><id>x</id>" + models(10000) + "</r>", RssTest.Item.class);
+        fail("Exception expected");
+      } catch (final JsonSyntaxException e) {
+        // expected
+      }
+    }
+    assertEquals(3, gsonXml.fromXml(models(3), Models.class).models.size());
+  }
+
+  @Test
+  public void shouldIterate() throws IOException {
+    final XmlIterator<SimpleModel> models = builder(null, true).create()
+        .iterate(new StringReader(models(10000)), SimpleModel.class, "model");
+    assertEquals("n0", models.next().getName());
+    assertEquals("n1", models.next().getName());
+    models.close();
+    assertFalse(models.hasNext());
+  }
+
+  @Test
+  public void shouldNotReadInputAfterFailure() throws Exception {
+    final StringBuilder tail = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      tail.append("<b>1</b>");
+    }
+    final SlowReader reader = new SlowReader("<r><a>x</a>", tail.toString(), tail.toString(), tail.toString(),
+        tail.toString(), "</r>");
+    try {
+      builder(null, true).create().fromXml(reader, NumberModel.class);
+      fail("Exception expected");
+    } catch (final JsonSyntaxException e) {
+      // expected
+    }
+    reader.closed = true;
+    Thread.sleep(300);
+    assertFalse(reader.readAfterClose);
+  }
+
+}
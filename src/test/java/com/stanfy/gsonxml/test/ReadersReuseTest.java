@@ -0,0 +1,109 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.XmlReader;
+import com.stanfy.gsonxml.test.CommentsTest.Response;
+import com.stanfy.gsonxml.test.SimpleXmlReaderTest.SimpleModel;
+
+/**
+ * Tests for {@link XmlReader#reset(java.io.Reader)} and readers pool in {@link GsonXml}.
+ */
+public class ReadersReuseTest {
+
+  private static GsonXml createGsonXml(final int poolSize) {
+    return new GsonXmlBuilder()
+        .wrap(new GsonBuilder().setDateFormat("dd.MM.yyyy HH:mm:ssZ"))
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setSameNameLists(true)
+        .setReadersPoolSize(poolSize)
+        .create();
+  }
+
+  private static Response readComments(final GsonXml gsonXml, final String name) throws Exception {
+    return gsonXml.fromXml(new InputStreamReader(ReadersReuseTest.class.getResourceAsStream(name), "UTF-8"), Response.class);
+  }
+
+  /** Root wrapper (default options do not skip root). */
+  public static class ModelWrapper {
+    SimpleModel model;
+  }
+
+  @Test
+  public void resetShouldAllowReadingAnotherDocument() throws Exception {
+    final GsonXml gsonXml = SimpleXmlReaderTest.createGson();
+    final XmlReader reader = new XmlReader(new StringReader("<model><name>n1</name><description>d1</description></model>"),
+        SimpleXmlReaderTest.PARSER_CREATOR, new XmlReader.Options());
+
+    ModelWrapper wrapper = gsonXml.fromXml(reader, ModelWrapper.class);
+    assertEquals("n1", wrapper.model.getName());
+
+    reader.reset(new StringReader("<model><name>n2</name></model>"));
+    wrapper = gsonXml.fromXml(reader, ModelWrapper.class);
+    assertEquals("n2", wrapper.model.getName());
+    assertNull(wrapper.model.getDescription());
+  }
+
+  @Test
+  public void pooledReadersShouldGiveTheSameResults() throws Exception {
+    final GsonXml gsonXml = createGsonXml(1);
+    for (int i = 0; i < 3; i++) {
+      final Response r1 = readComments(gsonXml, "comments-response.xml");
+      assertEquals(465, r1.data.total);
+      assertEquals(2, r1.data.comments.get(1).level);
+      final Response r2 = readComments(gsonXml, "comments-response-2.xml");
+      assertEquals(1194, r2.data.total);
+    }
+  }
+
+  @Test
+  public void poolShouldSurviveParsingErrors() throws Exception {
+    final GsonXml gsonXml = createGsonXml(1);
+    try {
+      gsonXml.fromXml("<response><data><total>1</data></response>", Response.class);
+      fail("Broken XML parsed");
+    } catch (final JsonSyntaxException e) {
+      // expected
+    }
+    assertEquals(465, readComments(gsonXml, "comments-response.xml").data.total);
+  }
+
+  @Test
+  public void poolShouldBeThreadSafe() throws Exception {
+    final GsonXml gsonXml = createGsonXml(2);
+    final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+    final List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0; j < 20; j++) {
+              assertEquals(465, readComments(gsonXml, "comments-response.xml").data.total);
+            }
+          } catch (final Throwable e) {
+            error.set(e);
+          }
+        }
+      });
+    }
+    for (final Thread t : threads) { t.start(); }
+    for (final Thread t : threads) { t.join(); }
+    if (error.get() != null) { throw new AssertionError(error.get()); }
+  }
+
+}
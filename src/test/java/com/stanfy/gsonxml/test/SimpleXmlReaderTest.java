@@ -8,6 +8,7 @@ import org.junit.Test;
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserFactory;
 
+import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.SerializedName;
 import com.stanfy.gsonxml.GsonXml;
 import com.stanfy.gsonxml.GsonXmlBuilder;
@@ -95,6 +96,20 @@ public class SimpleXmlReaderTest {
     assertEquals(2, model.getA2());
   }
 
+  @Test
+  public void manyAttributesShouldBeQueued() {
+    // values queue has to grow
+    final StringBuilder xml = new StringBuilder("<model a2=\"2\"");
+    for (int i = 0; i < 40; i++) {
+      xml.append(" x").append(i).append("=\"").append(i).append('"');
+    }
+    xml.append(" a1=\"a\"><name>my name</name></model>");
+    final SimpleModelForAttr model = createGson().fromXml(xml.toString(), SimpleModelForAttr.class);
+    assertEquals("my name", model.getName());
+    assertEquals("a", model.getA1());
+    assertEquals(2, model.getA2());
+  }
+
   /* ================== Embedded text =================== */
 
   /** Very simple model. */
@@ -169,6 +184,21 @@ public class SimpleXmlReaderTest {
     assertEquals("my <> name &", result.getName());
   }
 
+  @Test
+  public void textShouldBeJoinedAroundDroppedElements() {
+    final StringBuilder xml = new StringBuilder("<model><description>");
+    final StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      xml.append(" t").append(i).append(" <x>dropped</x>");
+      expected.append(i > 0 ? " t" : "t").append(i);
+    }
+    xml.append("</description><name>n</name></model>");
+    final SimpleModel model = new GsonXmlBuilder().setXmlParserCreator(PARSER_CREATOR)
+        .setExcludePaths("description/x").create().fromXml(xml.toString(), SimpleModel.class);
+    assertEquals(expected.toString(), model.getDescription());
+    assertEquals("n", model.getName());
+  }
+
   /** Result for dashedTagNamesShouldBeParsed. */
   private static class DashedTagResult {
     @SerializedName("dashed-field")
@@ -195,4 +225,36 @@ public class SimpleXmlReaderTest {
     assertEquals("b", r.field);
   }
 
+  /** Result for numbersShouldBeParsed. */
+  private static class NumbersResult {
+    @SerializedName("@id")
+    long id;
+    int count;
+    long big;
+    double price;
+    double rate;
+    float ratio;
+    double precise;
+  }
+
+  @Test
+  public void numbersShouldBeParsed() throws Exception {
+    String xml = "<r id=\"-9223372036854775808\">"
+        + "<count> -42 </count><big>9223372036854775807</big><price>\n  19.99\n</price>"
+        + "<rate>1.5e-3</rate><ratio>0.1</ratio><precise>0.30000000000000004441</precise></r>";
+    NumbersResult r = createGson().fromXml(xml, NumbersResult.class);
+    assertEquals(Long.MIN_VALUE, r.id);
+    assertEquals(-42, r.count);
+    assertEquals(Long.MAX_VALUE, r.big);
+    assertEquals(19.99, r.price, 0);
+    assertEquals(0.0015, r.rate, 0);
+    assertEquals(0.1f, r.ratio, 0);
+    assertEquals(0.30000000000000004441, r.precise, 0);
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void intOverflowShouldFail() throws Exception {
+    createGson().fromXml("<r><count>2147483648</count></r>", NumbersResult.class);
+  }
+
 }
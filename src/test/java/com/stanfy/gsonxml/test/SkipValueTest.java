@@ -0,0 +1,86 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+
+/**
+ * Tests for skipping unknown elements.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class SkipValueTest extends AbstractXmlTest {
+
+  /** Test XML. */
+  private static final String XML =
+      "<root a=\"1\">"
+    + "  <unknown/>"
+    + "  <unknown>text</unknown>"
+    + "  <unknown x=\"1\" y=\"2\"/>"
+    + "  <unknown x=\"1\"><deep><deeper z=\"3\">text</deeper></deep><unknown/></unknown>"
+    + "  <name>Name</name>"
+    + "  <unknown><item>1</item><item>2</item></unknown>"
+    + "  <item>1</item>"
+    + "  <unknown><value>x</value></unknown>"
+    + "  <item>2</item>"
+    + "  <unknown>mixed<b>bold</b>content</unknown>"
+
+    + "  <value>Value</value>"
+    + "</root>";
+
+  /** Model. */
+  private static class Model {
+    @SerializedName("@a")
+    int a;
+    String name;
+    String value;
+  }
+
+  /** Model with list. */
+  private static class ListModel {
+    @SerializedName("item")
+    List<Integer> items;
+    String value;
+  }
+
+  /** Mixed content model. */
+  private static class MixedModel {
+    @SerializedName("$")
+    String text;
+    @SerializedName("$1")
+    String text1;
+  }
+
+  @Test
+  public void shouldSkipUnknownElements() {
+    // mixed content cannot be read as JSON, but can be skipped
+    final Model model = gsonXml.fromXml(XML, Model.class);
+    assertEquals(1, model.a);
+    assertEquals("Name", model.name);
+    assertEquals("Value", model.value);
+  }
+
+  @Test
+  public void shouldSkipUnknownElementsBetweenListItems() {
+    final GsonXml gsonXml = new GsonXmlBuilder().setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setSameNameLists(true).setPrimitiveArrays(true).create();
+    final ListModel model = gsonXml.fromXml(XML, ListModel.class);
+    assertEquals("Value", model.value);
+    // skipped element closes the list, last item replaces first one
+    assertEquals(1, model.items.size());
+    assertEquals(2, model.items.get(0).intValue());
+  }
+
+  @Test
+  public void shouldNameTextsAfterSkippedElements() {
+    final MixedModel model = gsonXml.fromXml("<r>first<a>skip</a>second</r>", MixedModel.class);
+    assertEquals("first", model.text);
+    assertEquals("second", model.text1);
+  }
+
+}
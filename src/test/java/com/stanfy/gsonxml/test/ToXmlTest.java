@@ -0,0 +1,203 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.XmlWriter;
+
+/**
+ * Tests for {@link XmlWriter}.
+ */
+public class ToXmlTest {
+
+  private static GsonXmlBuilder builder() {
+    return new GsonXmlBuilder().setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR);
+  }
+
+  /** Model with attributes and text. */
+  public static class Person {
+    @SerializedName("@id")
+    int id;
+    @SerializedName("@title")
+    String title;
+    String name;
+    @SerializedName("$")
+    String description;
+  }
+
+  /** Model with list. */
+  public static class Team {
+    @SerializedName("@name")
+    String name;
+    @SerializedName("person")
+    List<Person> persons;
+    List<String> tags;
+  }
+
+  private static Person person(final int id, final String name) {
+    final Person p = new Person();
+    p.id = id;
+    p.name = name;
+    return p;
+  }
+
+  @Test
+  public void shouldWriteAttributesAndText() {
+    final Person person = person(1, "John <Doe>");
+    person.title = "\"Mr\" & co";
+    person.description = "likes travelling";
+    assertEquals("<root id=\"1\" title=\"&quot;Mr&quot; &amp; co\"><name>John &lt;Doe&gt;</name>likes travelling</root>",
+        builder().create().toXml(person));
+  }
+
+  @Test
+  public void shouldWriteSameNameLists() {
+    final Team team = new Team();
+    team.name = "t";
+    team.persons = Arrays.asList(person(1, "a"), person(2, "b"));
+    team.tags = Arrays.asList("x", "y");
+    final GsonXml gsonXml = builder().setSameNameLists(true).setPrimitiveArrays(true).create();
+    final String xml = gsonXml.toXml(team);
+    assertEquals("<root name=\"t\"><person id=\"1\"><name>a</name></person><person id=\"2\"><name>b</name></person>"
+        + "<tags>x</tags><tags>y</tags></root>", xml);
+  }
+
+  @Test
+  public void shouldWriteGroupedLists() {
+    final Team team = new Team();
+    team.persons = Arrays.asList(person(1, "a"), person(2, "b"));
+    final GsonXml gsonXml = builder().create();
+    final String xml = gsonXml.toXml(team);
+    assertEquals("<root><person><item id=\"1\"><name>a</name></item><item id=\"2\"><name>b</name></item></person></root>", xml);
+    final Team result = gsonXml.fromXml(xml, Team.class);
+    assertEquals(2, result.persons.size());
+    assertEquals("b", result.persons.get(1).name);
+    assertEquals(2, result.persons.get(1).id);
+  }
+
+  /** Root wrapper. */
+  public static class Wrapper {
+    Person person;
+  }
+
+  @Test
+  public void shouldWriteRootWhenItIsNotSkipped() {
+    final Wrapper wrapper = new Wrapper();
+    wrapper.person = person(3, "c");
+    final GsonXml gsonXml = builder().setSkipRoot(false).create();
+    final String xml = gsonXml.toXml(wrapper);
+    assertEquals("<person id=\"3\"><name>c</name></person>", xml);
+    assertEquals("c", gsonXml.fromXml(xml, Wrapper.class).person.name);
+  }
+
+  /** Attribute after an element. */
+  public static class AttributeAfterElement {
+    String name = "n";
+    @SerializedName("@id")
+    int id = 1;
+    String description;
+  }
+
+  @Test
+  public void shouldMoveAttributesToStartTag() {
+    final AttributeAfterElement model = new AttributeAfterElement();
+    model.description = "d";
+    assertEquals("<root id=\"1\"><name>n</name><description>d</description></root>", builder().create().toXml(model));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldFailOnAttributesAfterFlushedElements() {
+    final AttributeAfterElement model = new AttributeAfterElement();
+    final StringBuilder name = new StringBuilder();
+    for (int i = 0; i < 2 * XmlWriter.BUFFER_SIZE; i++) {
+      name.append('n');
+    }
+    model.name = name.toString();
+    builder().create().toXml(model);
+  }
+
+  @Test
+  public void shouldMoveAttributesOnlyWithinBufferSize() {
+    final AttributeAfterElement model = new AttributeAfterElement();
+    final StringBuilder name = new StringBuilder();
+    // content before the attribute is <name>...</name>
+    for (int i = 0; i < XmlWriter.BUFFER_SIZE - "<name></name>".length(); i++) {
+      name.append('n');
+    }
+    model.name = name.toString();
+    final GsonXml gsonXml = builder().create();
+    assertEquals("<root id=\"1\"><name>" + name + "</name></root>", gsonXml.toXml(model));
+    model.name = name.append('n').toString();
+    try {
+      gsonXml.toXml(model);
+      fail("Exception expected");
+    } catch (final IllegalStateException e) {
+      // expected: content exceeds the buffer size
+    }
+  }
+
+  @Test
+  public void shouldRoundTripFixture() throws Exception {
+    final GsonXml gsonXml = builder()
+        .wrap(new GsonBuilder().setDateFormat("dd.MM.yyyy HH:mm:ssZ"))
+        .setSameNameLists(true)
+        .create();
+    final CommentsTest.Response response = gsonXml.fromXml(
+        new InputStreamReader(ToXmlTest.class.getResourceAsStream("comments-response-2.xml"), "UTF-8"), CommentsTest.Response.class);
+    final String xml = gsonXml.toXml(response);
+    final CommentsTest.Response result = gsonXml.fromXml(xml, CommentsTest.Response.class);
+    assertEquals(gsonXml.getGson().toJson(response), gsonXml.getGson().toJson(result));
+  }
+
+  @Test
+  public void shouldWritePrimitives() {
+    final GsonXml gsonXml = builder().create();
+    assertEquals("<root>hello</root>", gsonXml.toXml("hello"));
+    assertEquals("<root>5</root>", gsonXml.toXml(5));
+  }
+
+  private static void assertInvalid(final GsonXml gsonXml, final Object src) {
+    try {
+      gsonXml.toXml(src);
+      fail("Exception expected for " + src);
+    } catch (final IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void shouldRejectInvalidNames() {
+    final GsonXml gsonXml = builder().create();
+    assertInvalid(gsonXml, Collections.singletonMap("first name", "v"));
+    assertInvalid(gsonXml, Collections.singletonMap("1x", "v"));
+    assertInvalid(gsonXml, Collections.singletonMap("@", "v"));
+    assertInvalid(gsonXml, Collections.singletonMap("@a=b", "v"));
+    assertInvalid(gsonXml, Collections.singletonMap("<1>x", "v"));
+    assertEquals("<root><x-1.y_z>v</x-1.y_z></root>", gsonXml.toXml(Collections.singletonMap("x-1.y_z", "v")));
+    assertEquals("<root><\u0436>v</\u0436></root>", gsonXml.toXml(Collections.singletonMap("\u0436", "v")));
+    assertEquals("<root><ns:x ns:a=\"1\"/></root>",
+        gsonXml.toXml(Collections.singletonMap("<ns>x", Collections.singletonMap("@<ns>a", "1"))));
+  }
+
+  @Test
+  public void shouldRejectInvalidCharacters() {
+    final GsonXml gsonXml = builder().create();
+    assertInvalid(gsonXml, Collections.singletonMap("x", "a\u0001"));
+    assertInvalid(gsonXml, Collections.singletonMap("x", "\ud800"));
+    assertInvalid(gsonXml, Collections.singletonMap("x", "\uffff"));
+    assertInvalid(gsonXml, Collections.singletonMap("x", Collections.singletonMap("@a", "\u0000")));
+    assertEquals("<root><x>\ud83d\ude00\t</x></root>", gsonXml.toXml(Collections.singletonMap("x", "\ud83d\ude00\t")));
+  }
+
+}
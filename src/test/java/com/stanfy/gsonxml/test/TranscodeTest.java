@@ -0,0 +1,252 @@
+package com.stanfy.gsonxml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.junit.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.stanfy.gsonxml.GsonXml;
+import com.stanfy.gsonxml.GsonXmlBuilder;
+import com.stanfy.gsonxml.ParseStatsAggregator;
+
+/**
+ * Tests for {@link GsonXml#transcode(Reader, JsonWriter)} and {@link GsonXml#transcode(JsonReader, String, Writer)}.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class TranscodeTest {
+
+  /** Fixtures. */
+  private static final String[] FIXTURES = {"rss-response.xml", "comments-response.xml", "comments-response-2.xml"};
+
+  private static String read(final String resource) throws IOException {
+    final Reader reader = new InputStreamReader(TranscodeTest.class.getResourceAsStream(resource), "UTF-8");
+    try {
+      final StringBuilder result = new StringBuilder();
+      final char[] buffer = new char[8192];
+      int count;
+      while ((count = reader.read(buffer)) != -1) {
+        result.append(buffer, 0, count);
+      }
+      return result.toString();
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static String transcode(final GsonXml gsonXml, final String xml) throws IOException {
+    final StringWriter out = new StringWriter();
+    final JsonWriter writer = new JsonWriter(out);
+    // Gson defaults
+    writer.setHtmlSafe(true);
+    writer.setSerializeNulls(false);
+    gsonXml.transcode(new StringReader(xml), writer);
+    writer.flush();
+    return out.toString();
+  }
+
+  @Test
+  public void shouldWriteSameJsonAsTree() throws IOException {
+    for (final String fixture : FIXTURES) {
+      final String xml = read(fixture);
+      for (int options = 0; options < 32; options++) {
+        final GsonXml gsonXml = new GsonXmlBuilder()
+            .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+            .setSkipRoot((options & 1) != 0)
+            .setSameNameLists((options & 2) != 0)
+            .setPrimitiveArrays((options & 4) != 0)
+            .setTreatNamespaces((options & 8) != 0)
+            .setRootArrayPrimitive((options & 16) != 0)
+            .create();
+        final String expected = gsonXml.getGson().toJson(gsonXml.fromXml(xml, JsonElement.class));
+        // tree keeps the last of repeated names
+        final String json = gsonXml.getGson().toJson(new JsonParser().parse(transcode(gsonXml, xml)));
+        assertEquals(fixture + " " + options, expected, json);
+      }
+    }
+  }
+
+  @Test
+  public void shouldTranscodeSimpleDocuments() throws IOException {
+    final GsonXml gsonXml = new GsonXmlBuilder().setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR).create();
+    assertEquals("{\"@id\":\"1\",\"name\":\"n\",\"$\":\"text\"}",
+        transcode(gsonXml, "<model id=\"1\"><name>n</name>text</model>"));
+  }
+
+  @Test
+  public void shouldWriteRepeatedNames() throws IOException {
+    final GsonXml gsonXml = new GsonXmlBuilder().setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR).create();
+    assertEquals("{\"item\":\"1\",\"item\":\"2\"}", transcode(gsonXml, "<r><item>1</item><item>2</item></r>"));
+  }
+
+  @Test
+  public void shouldReportErrors() throws IOException {
+    final ParseStatsAggregator stats = new ParseStatsAggregator();
+    final GsonXml gsonXml = new GsonXmlBuilder()
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setParseListener(stats)
+        .create();
+    try {
+      transcode(gsonXml, "<model><name>n</model>");
+      fail("Exception expected");
+    } catch (final JsonSyntaxException e) {
+      // expected
+    }
+    transcode(gsonXml, "<model><name>n</name></model>");
+    assertEquals(2, stats.getParses());
+    assertEquals(1, stats.getFailures());
+  }
+
+  private static String toXml(final GsonXml gsonXml, final String json) {
+    final StringWriter out = new StringWriter();
+    gsonXml.transcode(new JsonReader(new StringReader(json)), "root", out);
+    return out.toString();
+  }
+
+  @Test
+  public void shouldWriteSameXmlAsTree() throws IOException {
+    for (final String fixture : FIXTURES) {
+      final String xml = read(fixture);
+      for (int options = 0; options < 4; options++) {
+        final GsonXml gsonXml = new GsonXmlBuilder()
+            .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+            .setSkipRoot((options & 1) != 0)
+            .setSameNameLists((options & 2) != 0)
+            .create();
+        final JsonElement tree = gsonXml.fromXml(xml, JsonElement.class);
+        final StringWriter expected = new StringWriter();
+        gsonXml.toXml(tree, JsonElement.class, "root", expected);
+        assertEquals(fixture + " " + options, expected.toString(), toXml(gsonXml, gsonXml.getGson().toJson(tree)));
+      }
+    }
+  }
+
+  @Test
+  public void shouldTranscodeJsonToXml() {
+    final GsonXml gsonXml = new GsonXmlBuilder()
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setSameNameLists(true)
+        .create();
+    assertEquals("<root><team name=\"a &amp; b\"><person id=\"1\">John</person><person id=\"2\"/>text</team></root>",
+        toXml(gsonXml, "{\"team\": {\"@name\": \"a & b\", \"person\": [{\"@id\": 1, \"$\": \"John\"}, {\"@id\": 2}],"
+            + " \"$\": \"text\", \"ignored\": null}}"));
+  }
+
+  @Test
+  public void shouldWriteUtf8() throws IOException {
+    final GsonXml gsonXml = new GsonXmlBuilder().setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR).create();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    gsonXml.transcode(new JsonReader(new StringReader("{\"r\": \"\u0436\"}")), "root", out);
+    assertEquals("<root><r>\u0436</r></root>", new String(out.toByteArray(), "UTF-8"));
+  }
+
+  @Test
+  public void shouldReportJsonErrors() {
+    final GsonXml gsonXml = new GsonXmlBuilder().setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR).create();
+    try {
+      toXml(gsonXml, "{\"r\": {\"a\": 1");
+      fail("Exception expected");
+    } catch (final JsonIOException e) {
+      // expected: unexpected end of input
+    }
+    try {
+      toXml(gsonXml, "{\"r\": {\"a\" 1}}");
+      fail("Exception expected");
+    } catch (final JsonSyntaxException e) {
+      // expected
+    }
+  }
+
+  private static String lateAttributeJson(final int count) {
+    final StringBuilder json = new StringBuilder("{\"r\": {\"c\": [");
+    for (int i = 0; i < count; i++) {
+      json.append(i > 0 ? ", " : "").append(i);
+    }
+    return json.append("], \"@id\": 1}}").toString();
+  }
+
+  @Test
+  public void shouldReportXmlErrorsAsSyntaxErrors() {
+    final GsonXml gsonXml = new GsonXmlBuilder()
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setSameNameLists(true)
+        .create();
+    assertEquals("<root><r id=\"1\"><c>0</c><c>1</c></r></root>", toXml(gsonXml, lateAttributeJson(2)));
+    final String[] invalid = {lateAttributeJson(100000), "{\"a b\": 1}", "{\"r\": \"\\u0001\"}"};
+    for (final String json : invalid) {
+      try {
+        toXml(gsonXml, json);
+        fail("Exception expected for " + json.substring(0, Math.min(json.length(), 20)));
+      } catch (final JsonSyntaxException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void shouldStreamLargeJson() {
+    final GsonXml gsonXml = new GsonXmlBuilder()
+        .setXmlParserCreator(SimpleXmlReaderTest.PARSER_CREATOR)
+        .setSameNameLists(true)
+        .create();
+    final int count = 100000;
+    final CountingWriter out = new CountingWriter();
+    final Reader json = new Reader() {
+      private int index = -1;
+      private String chunk = "{\"items\": {\"item\": [";
+      private int position;
+      @Override
+      public int read(final char[] buffer, final int offset, final int length) {
+        if (position == chunk.length()) {
+          if (index == count) { return -1; }
+          index++;
+          // output is written while input is read
+          if (index == count / 2) { assertTrue(out.count > 0); }
+          chunk = index == count ? "]}}" : (index > 0 ? "," : "") + "{\"@id\": " + index + ", \"name\": \"n\"}";
+          position = 0;
+        }
+        final int result = Math.min(length, chunk.length() - position);
+        chunk.getChars(position, position + result, buffer, offset);
+        position += result;
+        return result;
+      }
+      @Override
+      public void close() { /* nothing */ }
+    };
+    gsonXml.transcode(new JsonReader(json), "root", out);
+    final String item = "<item id=\"" + (count - 1) + "\"><name>n</name></item>";
+    assertEquals(item + "</items></root>", out.tail.substring(out.tail.length() - item.length() - 15));
+  }
+
+  /** Counts written chars and keeps the last ones. */
+  private static final class CountingWriter extends Writer {
+    /** Written chars count. */
+    long count;
+    /** Last written chunk. */
+    String tail = "";
+    @Override
+    public void write(final char[] buffer, final int offset, final int length) {
+      count += length;
+      tail = tail.substring(Math.max(0, tail.length() - 100)) + new String(buffer, offset, length);
+    }
+    @Override
+    public void flush() { /* nothing */ }
+    @Override
+    public void close() { /* nothing */ }
+  }
+
+}